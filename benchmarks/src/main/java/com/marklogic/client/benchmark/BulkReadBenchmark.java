@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.DatabaseClientFactory;
+import com.marklogic.client.document.DocumentManager.Metadata;
+import com.marklogic.client.document.DocumentPage;
+import com.marklogic.client.document.DocumentRecord;
+import com.marklogic.client.document.XMLDocumentManager;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.DocumentMetadataHandle;
+
+/**
+ * Measures the multipart decode of a bulk read, replayed from a
+ * loopback fixture server.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkReadBenchmark {
+	@Param({"10", "100"})
+	public int documents;
+
+	@Param({"false", "true"})
+	public boolean withMetadata;
+
+	private FixtureServer      server;
+	private DatabaseClient     client;
+	private XMLDocumentManager docMgr;
+	private String[]           uris;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		uris = Fixtures.makeUris(documents);
+		byte[] body = Fixtures.makeBulkResponse(uris,
+				Fixtures.load(Fixtures.DOCUMENT),
+				withMetadata ? Fixtures.load(Fixtures.METADATA) : null);
+
+		server = new FixtureServer("multipart/mixed; boundary="+Fixtures.BOUNDARY, body);
+		client = DatabaseClientFactory.newClient("localhost", server.getPort());
+		docMgr = client.newXMLDocumentManager();
+		if (withMetadata)
+			docMgr.setMetadataCategories(Metadata.ALL);
+	}
+	@TearDown(Level.Trial)
+	public void teardown() {
+		client.release();
+		server.stop();
+	}
+
+	@Benchmark
+	public void readPage(Blackhole blackhole) {
+		DocumentPage page = docMgr.read(uris);
+		try {
+			while (page.hasNext()) {
+				DocumentRecord record = page.next();
+				blackhole.consume(record.getContent(new BytesHandle()).get());
+				if (withMetadata)
+					blackhole.consume(record.getMetadata(new DocumentMetadataHandle()));
+			}
+		} finally {
+			page.close();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Fixtures loads the recorded server responses in the fixtures
+ * resource directory and assembles multipart responses.
+ */
+public final class Fixtures {
+	final static public Charset UTF8 = Charset.forName("UTF-8");
+
+	final static public String SEARCH_RESPONSE = "search-response.xml";
+	final static public String TUPLES_RESPONSE = "tuples-response.xml";
+	final static public String VALUES_RESPONSE = "values-response.xml";
+	final static public String METADATA        = "metadata.xml";
+	final static public String DOCUMENT        = "document.xml";
+
+	final static public String BOUNDARY = "benchmark-boundary";
+
+	private Fixtures() {
+	}
+
+	static public byte[] load(String name) {
+		InputStream in = Fixtures.class.getClassLoader().getResourceAsStream("fixtures/"+name);
+		if (in == null)
+			throw new IllegalArgumentException("no fixture named "+name);
+		try {
+			try {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte[] buf = new byte[8192];
+				int len = 0;
+				while ((len = in.read(buf)) != -1) {
+					out.write(buf, 0, len);
+				}
+				return out.toByteArray();
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("could not read fixture "+name, e);
+		}
+	}
+
+	static public String[] makeUris(int count) {
+		String[] uris = new String[count];
+		for (int i=0; i < count; i++) {
+			uris[i] = "/products/"+(1001 + i)+".xml";
+		}
+		return uris;
+	}
+
+	/**
+	 * Assembles the multipart/mixed response for a bulk read of the
+	 * uris with the same content and metadata for each document.
+	 * @param uris	the document uris
+	 * @param content	the content of each document or null to omit content
+	 * @param metadata	the metadata of each document or null to omit metadata
+	 * @return	the response body
+	 */
+	static public byte[] makeBulkResponse(String[] uris, byte[] content, byte[] metadata) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			for (String uri: uris) {
+				if (metadata != null) {
+					writePart(out, uri, "metadata", metadata);
+				}
+				if (content != null) {
+					writePart(out, uri, "content", content);
+				}
+			}
+			out.write(("--"+BOUNDARY+"--\r\n").getBytes(UTF8));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return out.toByteArray();
+	}
+	static private void writePart(ByteArrayOutputStream out, String uri, String category, byte[] body)
+	throws IOException {
+		StringBuilder headers = new StringBuilder();
+		headers.append("--").append(BOUNDARY).append("\r\n");
+		headers.append("Content-Type: application/xml\r\n");
+		headers.append("Content-Disposition: attachment; filename=\"").append(uri)
+			.append("\"; category=").append(category).append("; format=xml\r\n");
+		headers.append("Content-Length: ").append(body.length).append("\r\n");
+		headers.append("vnd.marklogic.document-format: xml\r\n");
+		headers.append("\r\n");
+		out.write(headers.toString().getBytes(UTF8));
+		out.write(body);
+		out.write("\r\n".getBytes(UTF8));
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.marklogic.client.io.JAXBHandle;
+
+/**
+ * Measures unmarshaling and marshaling a JAXB POJO with a new handle
+ * for each document, as DocumentManager.readAs() does, with and
+ * without StAX binding.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JAXBHandleBenchmark {
+	@XmlRootElement
+	static public class Order {
+		@XmlElement
+		public String     id;
+		@XmlElement
+		public String     customer;
+		@XmlElement(name = "line")
+		public List<Line> lines = new ArrayList<Line>();
+	}
+	static public class Line {
+		@XmlElement
+		public String sku;
+		@XmlElement
+		public int    quantity;
+		@XmlElement
+		public double price;
+	}
+
+	@Param({"false", "true"})
+	public boolean staxBinding;
+
+	private JAXBContext context;
+	private Order       order;
+	private byte[]      document;
+
+	@Setup
+	public void setup() throws JAXBException {
+		context = JAXBContext.newInstance(Order.class);
+
+		order = new Order();
+		order.id       = "order-1";
+		order.customer = "customer-1";
+		for (int i=0; i < 20; i++) {
+			Line line = new Line();
+			line.sku      = "sku-"+i;
+			line.quantity = i + 1;
+			line.price    = 9.99 * (i + 1);
+			order.lines.add(line);
+		}
+		document = new JAXBHandle<Order>(context).with(order).toBuffer();
+	}
+
+	@Benchmark
+	public Order unmarshal() {
+		JAXBHandle<Order> handle = new JAXBHandle<Order>(context).withStAXBinding(staxBinding);
+		handle.fromBuffer(document, 0, document.length);
+		return handle.get();
+	}
+
+	@Benchmark
+	public byte[] marshal() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(document.length);
+		new JAXBHandle<Order>(context).with(order).write(out);
+		return out.toByteArray();
+	}
+}
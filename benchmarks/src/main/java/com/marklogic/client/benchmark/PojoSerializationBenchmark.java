@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.DatabaseClientFactory;
+import com.marklogic.client.impl.HandleAccessor;
+import com.marklogic.client.impl.PojoRepositoryImpl;
+import com.marklogic.client.io.JacksonDatabindHandle;
+import com.marklogic.client.pojo.PojoRepository;
+import com.marklogic.client.pojo.annotation.Id;
+
+/**
+ * Measures the serialization and deserialization a PojoRepository performs
+ * for each write and read, using the repository's object mapper.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PojoSerializationBenchmark {
+	static public class Product {
+		@Id
+		public long         id;
+		public String       name;
+		public String       category;
+		public double       price;
+		public boolean      discontinued;
+		public List<String> tags = new ArrayList<String>();
+	}
+
+	private DatabaseClient client;
+	private ObjectMapper   mapper;
+	private Product        product;
+	private byte[]         serialized;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		// the client is only used to create the repository and makes no requests
+		client = DatabaseClientFactory.newClient("localhost", 8000);
+		PojoRepository<Product, Long> repository =
+			client.newPojoRepository(Product.class, Long.class);
+		mapper = ((PojoRepositoryImpl<Product, Long>) repository).getObjectMapper();
+
+		product = new Product();
+		product.id       = 1001;
+		product.name     = "Industrial widget";
+		product.category = "tools";
+		product.price    = 24.99;
+		for (String tag: new String[]{"steel", "heavy-duty", "warehouse", "clearance"}) {
+			product.tags.add(tag);
+		}
+
+		serialized = serialize();
+	}
+	@TearDown(Level.Trial)
+	public void teardown() {
+		client.release();
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		JacksonDatabindHandle<Product> handle = new JacksonDatabindHandle<Product>(product);
+		handle.setMapper(mapper);
+		ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+		handle.write(out);
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public Product deserialize() {
+		JacksonDatabindHandle<Product> handle = new JacksonDatabindHandle<Product>(Product.class);
+		handle.setMapper(mapper);
+		HandleAccessor.receiveContent(handle, new ByteArrayInputStream(serialized));
+		return handle.get();
+	}
+}
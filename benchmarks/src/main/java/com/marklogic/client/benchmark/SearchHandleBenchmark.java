@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.marklogic.client.impl.HandleAccessor;
+import com.marklogic.client.io.SearchHandle;
+import com.marklogic.client.query.MatchDocumentSummary;
+
+/**
+ * Measures parsing a recorded search response with results, snippets,
+ * facets, and metrics into a SearchHandle.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchHandleBenchmark {
+	private byte[] response;
+
+	@Setup
+	public void setup() {
+		response = Fixtures.load(Fixtures.SEARCH_RESPONSE);
+	}
+
+	@Benchmark
+	public SearchHandle parse() {
+		SearchHandle handle = new SearchHandle();
+		HandleAccessor.receiveContent(handle, new ByteArrayInputStream(response));
+		return handle;
+	}
+
+	@Benchmark
+	public int parseWithSnippets() {
+		SearchHandle handle = parse();
+		int matches = 0;
+		for (MatchDocumentSummary summary: handle.getMatchResults()) {
+			matches += summary.getMatchLocations().length;
+		}
+		return matches;
+	}
+}
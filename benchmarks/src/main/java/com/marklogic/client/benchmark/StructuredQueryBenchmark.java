@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.marklogic.client.query.StructuredQueryBuilder;
+import com.marklogic.client.query.StructuredQueryBuilder.Operator;
+import com.marklogic.client.query.StructuredQueryDefinition;
+
+/**
+ * Measures building and serializing a representative structured query.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StructuredQueryBenchmark {
+	private StructuredQueryBuilder builder = new StructuredQueryBuilder();
+
+	private StructuredQueryDefinition makeQuery() {
+		return builder.and(
+				builder.term("widget", "industrial"),
+				builder.or(
+					builder.collection("/catalog/tools", "/catalog/hardware"),
+					builder.directory(true, "/products/")
+					),
+				builder.range(
+					builder.element("price"), "xs:decimal", Operator.LT, 50
+					),
+				builder.value(builder.element("category"), "tools"),
+				builder.not(builder.word(builder.element("name"), "discontinued"))
+				);
+	}
+
+	@Benchmark
+	public StructuredQueryDefinition build() {
+		return makeQuery();
+	}
+
+	@Benchmark
+	public String buildAndSerialize() {
+		return makeQuery().serialize();
+	}
+}
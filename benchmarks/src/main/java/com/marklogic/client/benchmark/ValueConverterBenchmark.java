@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.marklogic.client.impl.ValueConverter;
+
+/**
+ * Measures converting Java values to and from the lexical forms
+ * of XML Schema atomic types.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValueConverterBenchmark {
+	@Param({"xs:int", "xs:long", "xs:double", "xs:boolean", "xs:decimal", "xs:string", "xs:dateTime"})
+	public String type;
+
+	private Object javaValue;
+	private String lexicalValue;
+
+	@Setup
+	public void setup() {
+		if ("xs:int".equals(type)) {
+			javaValue = Integer.valueOf(123456);
+		} else if ("xs:long".equals(type)) {
+			javaValue = Long.valueOf(1234567890123L);
+		} else if ("xs:double".equals(type)) {
+			javaValue = Double.valueOf(12345.678);
+		} else if ("xs:boolean".equals(type)) {
+			javaValue = Boolean.TRUE;
+		} else if ("xs:decimal".equals(type)) {
+			javaValue = new BigDecimal("24.99");
+		} else if ("xs:string".equals(type)) {
+			javaValue = "industrial widget";
+		} else if ("xs:dateTime".equals(type)) {
+			javaValue = Calendar.getInstance();
+		} else {
+			throw new IllegalArgumentException("unknown type: "+type);
+		}
+
+		final String[] lexical = new String[1];
+		ValueConverter.convertFromJava(javaValue, new ValueConverter.ValueProcessor() {
+			@Override
+			public void process(Object original, String type, String value) {
+				lexical[0] = value;
+			}
+		});
+		lexicalValue = lexical[0];
+	}
+
+	@Benchmark
+	public void fromJava(final Blackhole blackhole) {
+		ValueConverter.convertFromJava(javaValue, new ValueConverter.ValueProcessor() {
+			@Override
+			public void process(Object original, String type, String value) {
+				blackhole.consume(type);
+				blackhole.consume(value);
+			}
+		});
+	}
+
+	@Benchmark
+	public Object toJava() {
+		return ValueConverter.convertToJava(type, lexicalValue);
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmark;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.marklogic.client.impl.ValueConverter;
+
+/**
+ * Measures the primitive conversions of ValueConverter, which avoid
+ * boxing and the ValueProcessor callback.  The datatypeConverter
+ * methods measure the DatatypeConverter calls that ValueConverter
+ * made before as a baseline.  Compare also with the xs:long, xs:int,
+ * xs:double, xs:boolean, and xs:dateTime results of
+ * ValueConverterBenchmark.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValueConverterPrimitiveBenchmark {
+	// fields rather than literals so the JIT cannot fold the conversions
+	private String        longValue    = "1234567890123";
+	private String        intValue     = "123456";
+	private String        doubleValue  = "12345.678";
+	private String        booleanValue = "true";
+	private double        doubleNumber = 12345.678;
+	private Calendar      calendar;
+	private StringBuilder buffer;
+
+	@Setup
+	public void setup() {
+		calendar = Calendar.getInstance(TimeZone.getTimeZone("GMT-05:00"));
+		buffer   = new StringBuilder(32);
+	}
+
+	@Benchmark
+	public long parseLong() {
+		return ValueConverter.parseLong(longValue);
+	}
+	@Benchmark
+	public long datatypeConverterParseLong() {
+		return DatatypeConverter.parseLong(longValue);
+	}
+
+	@Benchmark
+	public int parseInt() {
+		return ValueConverter.parseInt(intValue);
+	}
+	@Benchmark
+	public int datatypeConverterParseInt() {
+		return DatatypeConverter.parseInt(intValue);
+	}
+
+	@Benchmark
+	public double parseDouble() {
+		return ValueConverter.parseDouble(doubleValue);
+	}
+	@Benchmark
+	public double datatypeConverterParseDouble() {
+		return DatatypeConverter.parseDouble(doubleValue);
+	}
+
+	@Benchmark
+	public boolean parseBoolean() {
+		return ValueConverter.parseBoolean(booleanValue);
+	}
+	@Benchmark
+	public boolean datatypeConverterParseBoolean() {
+		return DatatypeConverter.parseBoolean(booleanValue);
+	}
+
+	@Benchmark
+	public String printDouble() {
+		return ValueConverter.printDouble(doubleNumber);
+	}
+	@Benchmark
+	public String datatypeConverterPrintDouble() {
+		return DatatypeConverter.printDouble(doubleNumber);
+	}
+
+	@Benchmark
+	public String printDateTime() {
+		return ValueConverter.printDateTime(calendar);
+	}
+	@Benchmark
+	public String datatypeConverterPrintDateTime() {
+		return DatatypeConverter.printDateTime(calendar);
+	}
+
+	@Benchmark
+	public int appendDateTime() {
+		buffer.setLength(0);
+		return ValueConverter.appendDateTime(buffer, calendar).length();
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.marklogic.client.impl.HandleAccessor;
+import com.marklogic.client.io.TuplesHandle;
+import com.marklogic.client.io.ValuesHandle;
+
+/**
+ * Measures unmarshalling recorded values and tuples responses.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValuesTuplesBenchmark {
+	private byte[] valuesResponse;
+	private byte[] tuplesResponse;
+
+	@Setup
+	public void setup() {
+		valuesResponse = Fixtures.load(Fixtures.VALUES_RESPONSE);
+		tuplesResponse = Fixtures.load(Fixtures.TUPLES_RESPONSE);
+	}
+
+	@Benchmark
+	public ValuesHandle values() {
+		ValuesHandle handle = new ValuesHandle();
+		HandleAccessor.receiveContent(handle, new ByteArrayInputStream(valuesResponse));
+		return handle;
+	}
+
+	@Benchmark
+	public TuplesHandle tuples() {
+		TuplesHandle handle = new TuplesHandle();
+		HandleAccessor.receiveContent(handle, new ByteArrayInputStream(tuplesResponse));
+		return handle;
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A CompressionPolicy specifies how a database client compresses
+ * the content sent to and received from the server.
+ *
+ * When the policy decompresses responses, the client asks the server
+ * for gzip or deflate encoding and decodes compressed responses
+ * transparently, including streamed and multipart responses.
+ *
+ * When the policy compresses requests, the client gzips request content
+ * with a mimetype in the allowed list.  Content with a known
+ * length such as bytes, strings, and files is compressed only if it has
+ * at least the threshold length.  Streamed content such as an input stream
+ * or output stream sender is always compressed if the mimetype is allowed.
+ * The server must accept gzip encoded requests.
+ *
+ * Binary content such as images is usually compressed already, so
+ * the default allowed mimetypes are limited to text, XML, JSON, and
+ * the multipart requests of bulk writes.
+ * @see DatabaseClient#setCompressionPolicy(CompressionPolicy)
+ */
+public class CompressionPolicy {
+	/**
+	 * The default minimum length of request content for compression.
+	 */
+	final static public int DEFAULT_THRESHOLD = 1024;
+
+	final static private String[] DEFAULT_MIMETYPES = {
+		"application/xml", "text/xml", "application/json", "text/*",
+		"application/sparql-query", "application/sparql-update",
+		"multipart/mixed"
+	};
+
+	private boolean     compressingRequests   = true;
+	private boolean     decompressingResponses = true;
+	private int         threshold             = DEFAULT_THRESHOLD;
+	private Set<String> mimetypes             =
+		new LinkedHashSet<String>(Arrays.asList(DEFAULT_MIMETYPES));
+
+	/**
+	 * Creates a policy that compresses requests and decompresses responses
+	 * with the default threshold and allowed mimetypes.
+	 */
+	public CompressionPolicy() {
+		super();
+	}
+
+	/**
+	 * Returns whether request content is compressed.
+	 * @return	whether the client compresses requests
+	 */
+	public boolean isCompressingRequests() {
+		return compressingRequests;
+	}
+	/**
+	 * Specifies whether to compress request content.
+	 * @param compressingRequests	whether the client compresses requests
+	 */
+	public void setCompressingRequests(boolean compressingRequests) {
+		this.compressingRequests = compressingRequests;
+	}
+	/**
+	 * Specifies whether to compress request content and returns the policy
+	 * as a fluent convenience.
+	 * @param compressingRequests	whether the client compresses requests
+	 * @return	this policy
+	 */
+	public CompressionPolicy withCompressingRequests(boolean compressingRequests) {
+		setCompressingRequests(compressingRequests);
+		return this;
+	}
+
+	/**
+	 * Returns whether the client accepts and decompresses compressed responses.
+	 * @return	whether the client decompresses responses
+	 */
+	public boolean isDecompressingResponses() {
+		return decompressingResponses;
+	}
+	/**
+	 * Specifies whether the client accepts and decompresses compressed responses.
+	 * @param decompressingResponses	whether the client decompresses responses
+	 */
+	public void setDecompressingResponses(boolean decompressingResponses) {
+		this.decompressingResponses = decompressingResponses;
+	}
+	/**
+	 * Specifies whether the client accepts and decompresses compressed responses
+	 * and returns the policy as a fluent convenience.
+	 * @param decompressingResponses	whether the client decompresses responses
+	 * @return	this policy
+	 */
+	public CompressionPolicy withDecompressingResponses(boolean decompressingResponses) {
+		setDecompressingResponses(decompressingResponses);
+		return this;
+	}
+
+	/**
+	 * Returns the minimum length in bytes of request content with a known
+	 * length for compression.
+	 * @return	the threshold length
+	 */
+	public int getThreshold() {
+		return threshold;
+	}
+	/**
+	 * Specifies the minimum length in bytes of request content with a known
+	 * length for compression.
+	 * @param threshold	the threshold length
+	 */
+	public void setThreshold(int threshold) {
+		if (threshold < 0)
+			throw new IllegalArgumentException("negative compression threshold: "+threshold);
+		this.threshold = threshold;
+	}
+	/**
+	 * Specifies the minimum length for compression and returns the policy
+	 * as a fluent convenience.
+	 * @param threshold	the threshold length
+	 * @return	this policy
+	 */
+	public CompressionPolicy withThreshold(int threshold) {
+		setThreshold(threshold);
+		return this;
+	}
+
+	/**
+	 * Returns the mimetypes of request content that can be compressed.
+	 * A mimetype can end with a wildcard subtype such as text/* to allow
+	 * all subtypes.  You can modify the set to change the allowed mimetypes.
+	 * @return	the allowed mimetypes
+	 */
+	public Set<String> getMimetypes() {
+		return mimetypes;
+	}
+	/**
+	 * Specifies the mimetypes of request content that can be compressed.
+	 * @param mimetypes	the allowed mimetypes
+	 */
+	public void setMimetypes(Set<String> mimetypes) {
+		this.mimetypes = mimetypes;
+	}
+	/**
+	 * Adds mimetypes of request content that can be compressed and returns
+	 * the policy as a fluent convenience.
+	 * @param mimetypes	the additional allowed mimetypes
+	 * @return	this policy
+	 */
+	public CompressionPolicy withMimetypes(String... mimetypes) {
+		getMimetypes().addAll(Arrays.asList(mimetypes));
+		return this;
+	}
+
+	/**
+	 * Checks whether request content with the mimetype can be compressed.
+	 * @param mimetype	the mimetype of the content, possibly with parameters
+	 * @return	whether the mimetype is allowed
+	 */
+	public boolean isAllowedMimetype(String mimetype) {
+		if (mimetype == null || mimetypes == null)
+			return false;
+
+		int paramPos = mimetype.indexOf(';');
+		String baseType = ((paramPos == -1) ? mimetype : mimetype.substring(0, paramPos))
+			.trim().toLowerCase();
+		if (mimetypes.contains(baseType))
+			return true;
+
+		int slashPos = baseType.indexOf('/');
+		if (slashPos == -1)
+			return false;
+
+		return mimetypes.contains(baseType.substring(0, slashPos)+"/*");
+	}
+}
@@ -17,8 +17,10 @@ package com.marklogic.client;
 
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.List;
 
 import com.marklogic.client.admin.ServerConfigurationManager;
+import com.marklogic.client.bulk.BulkManager;
 import com.marklogic.client.document.BinaryDocumentManager;
 import com.marklogic.client.document.GenericDocumentManager;
 import com.marklogic.client.document.JSONDocumentManager;
@@ -71,6 +73,17 @@ public interface DatabaseClient {
 	 */
 	public Transaction openTransaction(String name, int timeLimit) throws ForbiddenUserException, FailedRequestException;
 
+	/**
+	 * Lists the transactions opened by this client that have not yet been
+	 * committed or rolled back, oldest first.  Use the created timestamp of each
+	 * transaction to monitor for long-running or abandoned transactions, which
+	 * hold locks on the server until they complete or reach their time limit.
+	 * Transactions opened with a time limit are dropped from the list once the
+	 * time limit has elapsed.
+	 * @return	a snapshot of the open transactions
+	 */
+	public List<Transaction> getOpenTransactions();
+
     /**
      * Creates a document manager for documents with unknown or heterogeneous formats.
      * @return	a manager supporting generic operations on documents
@@ -128,6 +141,12 @@ public interface DatabaseClient {
      * @return the new SPARQLQueryManager instance
      */
     public SPARQLQueryManager newSPARQLQueryManager();
+
+    /** Creates a manager for operations that process many documents
+     * in concurrent batches.
+     * @return the new BulkManager instance
+     */
+    public BulkManager newBulkManager();
     
     /**
      * Creates a PojoRepository specific to the specified class and its id type. 
@@ -164,6 +183,22 @@ public interface DatabaseClient {
      */
     public RequestLogger newLogger(OutputStream out);
 
+    /**
+     * Returns the policy for compressing requests to and responses from the server
+     * or null if the client does not use compression.
+     * @return	the compression policy
+     */
+    public CompressionPolicy getCompressionPolicy();
+    /**
+     * Specifies the policy for compressing requests to and responses from the server.
+     * By default, the client doesn't use compression.  Compression can improve
+     * throughput for XML and JSON content over networks with limited bandwidth
+     * at some cost in client and server CPU.  Changes to the policy
+     * apply to subsequent requests.
+     * @param policy	the compression policy or null to stop compressing
+     */
+    public void setCompressionPolicy(CompressionPolicy policy);
+
     /**
      * Closes the database client and releases associated resources.  After the client is closed,
      * document and query managers can no longer access the database.
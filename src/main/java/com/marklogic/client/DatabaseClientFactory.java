@@ -25,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.marklogic.client.extra.httpclient.HttpClientConfigurator;
+import com.marklogic.client.impl.ClientThreads;
 import com.marklogic.client.impl.DatabaseClientImpl;
 import com.marklogic.client.impl.HandleFactoryRegistryImpl;
 import com.marklogic.client.impl.JerseyServices;
@@ -175,6 +176,42 @@ public class DatabaseClientFactory {
 		 * @param ioClasses	one or more registered classes for an IO representation
 		 */
 		public void unregister(Class<?>... ioClasses);
+		/**
+		 * Returns whether the registry reuses handles for reading
+		 * content as an IO class.
+		 * @return	true if handle pooling is on
+		 */
+		public boolean isHandlePooling();
+		/**
+		 * Specifies whether the registry reuses handles for reading content
+		 * as an IO class, for instance, with DocumentManager.readAs() or
+		 * DocumentRecord.getContentAs().  When pooling is on, each thread
+		 * keeps a released handle for each IO class whose factory is a
+		 * ReusableContentHandleFactory, so a read loop reuses the parser,
+		 * object mapper, or unmarshaller of the handle instead of creating
+		 * a new handle for every document.  Pooling is off by default.
+		 * @param pooling	true to reuse handles
+		 */
+		public void setHandlePooling(boolean pooling);
+		/**
+		 * Gets a handle for the class of the IO representation, which is
+		 * a handle released on the current thread if handle pooling is on
+		 * or a new handle from makeHandle() otherwise.
+		 * @param type	the class for an IO representation
+		 * @param <C> the registered type for the returned handle
+		 * @return	a content handle
+		 */
+		public <C> ContentHandle<C> acquireHandle(Class<C> type);
+		/**
+		 * Returns a handle acquired for the class of the IO representation
+		 * to the pool of the current thread if handle pooling is on and the
+		 * factory can reset the handle.  Get the content from the handle
+		 * before releasing it and don't use the handle afterward.
+		 * @param type	the class for an IO representation
+		 * @param handle	the acquired handle
+		 * @param <C> the registered type for the handle
+		 */
+		public <C> void releaseHandle(Class<C> type, ContentHandle<C> handle);
 		/**
 		 * Create a copy of the current registry
 		 * @return	a copy of the current registry
@@ -373,6 +410,28 @@ public class DatabaseClientFactory {
 		clientConfigurator = configurator;
 	}
 
+	/**
+	 * Specifies whether the worker threads of bulk jobs, exports, partitioned
+	 * aggregates, and binary transfers are virtual threads.  The mode takes effect
+	 * only on JVMs that support virtual threads and otherwise leaves the worker
+	 * threads as platform threads.  The client retries without swallowing interrupts
+	 * and waits on locks instead of monitors, so requests can also be made directly
+	 * from virtual threads of the application.  The mode can also be enabled with
+	 * the com.marklogic.client.virtualThreads system property.
+	 * @param enabled	true to create worker threads as virtual threads
+	 */
+	static public void setVirtualThreads(boolean enabled) {
+		ClientThreads.setVirtualThreads(enabled);
+	}
+	/**
+	 * Returns whether new worker threads are virtual threads, which requires
+	 * both enabling the mode and a JVM that supports virtual threads.
+	 * @return	true if worker threads are virtual threads
+	 */
+	static public boolean isVirtualThreads() {
+		return ClientThreads.isVirtualThreads();
+	}
+
 	/**
 	 * A Database Client Factory Bean provides an object for specifying configuration
 	 * before creating a client to make database requests.
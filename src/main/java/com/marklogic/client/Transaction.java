@@ -17,6 +17,7 @@ package com.marklogic.client;
 
 import com.marklogic.client.io.marker.StructureReadHandle;
 import javax.ws.rs.core.NewCookie;
+import java.util.Calendar;
 import java.util.List;
 
 /**
@@ -51,6 +52,15 @@ public interface Transaction {
 	 */
 	public List<NewCookie> getCookies();
 
+	/**
+	 * Returns the time when the client opened the transaction.  The age of
+	 * an open transaction is the difference between the current time and the
+	 * created timestamp.
+	 * @return	the time the transaction was opened
+	 * @see DatabaseClient#getOpenTransactions()
+	 */
+	public Calendar getCreatedTimestamp();
+
 	/**
 	 * Reads the status for the transaction including whether the transaction
 	 * has timed out.
@@ -37,7 +37,6 @@ import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.TransformerFactoryConfigurationError;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
@@ -66,6 +65,7 @@ import com.marklogic.client.io.marker.RuleWriteHandle;
 import com.marklogic.client.io.marker.XMLReadHandle;
 import com.marklogic.client.io.marker.XMLWriteHandle;
 import com.marklogic.client.util.NameMap;
+import com.marklogic.client.util.XMLFactories;
 
 /**
  * A RuleDefinition represents a set of criteria that describe a named condition.
@@ -76,8 +76,6 @@ public class RuleDefinition extends BaseHandle<InputStream, OutputStreamSender>
 	private static final Logger logger = (Logger) LoggerFactory
 			.getLogger(RuleDefinition.class);
 
-	private static XMLOutputFactory factory = XMLOutputFactory.newFactory();
-	
 	/**
 	 * A RuleMetadata represents optional client-supplied metadata that is stored alongside a RuleDefinition.
 	 */
@@ -119,7 +117,6 @@ public class RuleDefinition extends BaseHandle<InputStream, OutputStreamSender>
 	 * Make a new rule definition, no argument constructor.
 	 */
 	public RuleDefinition() {
-		factory.setProperty("javax.xml.stream.isRepairingNamespaces", true);
 		this.metadata = new RuleMetadataImpl();
 	}
 
@@ -178,7 +175,7 @@ public class RuleDefinition extends BaseHandle<InputStream, OutputStreamSender>
 					startElement.getName().getLocalPart().equals("query")) {
 				//wrap in search.
 				List<XMLEvent> wrappedList = new ArrayList<XMLEvent>();
-				XMLEventFactory  eventFactory = XMLEventFactory.newInstance();
+				XMLEventFactory  eventFactory = XMLFactories.getEventFactory();
 				XMLEvent startSearchElement = eventFactory.createStartElement("search", RequestConstants.SEARCH_NS, "search");
 				XMLEvent endSearchElement = eventFactory.createEndElement("search", RequestConstants.SEARCH_NS, "search");
 				
@@ -237,6 +234,8 @@ public class RuleDefinition extends BaseHandle<InputStream, OutputStreamSender>
 		try {
 			valueSerializer = null;
 
+			XMLOutputFactory factory = XMLFactories.getOutputFactory();
+
 			XMLStreamWriter serializer = factory.createXMLStreamWriter(out,
 					"UTF-8");
 			serializer.setPrefix(RequestConstants.RESTAPI_PREFIX,
@@ -319,8 +318,7 @@ public class RuleDefinition extends BaseHandle<InputStream, OutputStreamSender>
 
 		try {
 			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			TransformerFactory transfac = TransformerFactory.newInstance();
-			Transformer trans = transfac.newTransformer();
+			Transformer trans = XMLFactories.getTransformer();
 			trans.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
 			trans.setOutputProperty(OutputKeys.VERSION, "1.0");
 			trans.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
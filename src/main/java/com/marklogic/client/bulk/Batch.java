@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.bulk;
+
+/**
+ * A Batch identifies a group of document uris processed
+ * by one request of a bulk operation and reports the progress of
+ * the operation as of the completion of the batch.
+ */
+public interface Batch {
+	/**
+	 * Returns the position of the batch in the order of submission, starting with 1.
+	 * @return	the batch number
+	 */
+	public long getBatchNumber();
+	/**
+	 * Returns the uris of the documents in the batch.
+	 * @return	the uris
+	 */
+	public String[] getUris();
+	/**
+	 * Returns the uris of the documents that could not be processed.
+	 * @return	the failed uris, which is empty if the batch succeeded
+	 */
+	public String[] getFailedUris();
+	/**
+	 * Returns the error for a failed uri.
+	 * @param uri	the failed uri
+	 * @return	the error or null if the uri did not fail
+	 */
+	public Throwable getFailure(String uri);
+
+	/**
+	 * Returns the number of uris processed successfully by the operation
+	 * including this batch.
+	 * @return	the count of succeeded uris
+	 */
+	public long getJobSucceededCount();
+	/**
+	 * Returns the number of uris that failed in the operation
+	 * including this batch.
+	 * @return	the count of failed uris
+	 */
+	public long getJobFailedCount();
+	/**
+	 * Returns the milliseconds since the start of the operation.
+	 * @return	the elapsed time
+	 */
+	public long getJobElapsedTime();
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.bulk;
+
+/**
+ * A Batch Listener receives notification as each batch of a
+ * bulk operation completes.  The methods are called on the thread
+ * that processed the batch, so an implementation must be thread safe
+ * and should return quickly.
+ */
+public interface BatchListener {
+	/**
+	 * Called after all of the uris in a batch were processed.
+	 * @param batch	the completed batch
+	 */
+	public void batchSucceeded(Batch batch);
+	/**
+	 * Called after a batch in which some or all of the uris failed.
+	 * @param batch	the completed batch
+	 */
+	public void batchFailed(Batch batch);
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.bulk;
+
+/**
+ * A Batch Summary reports the totals for a completed bulk operation.
+ */
+public interface BatchSummary {
+	/**
+	 * Returns the number of batches submitted.
+	 * @return	the batch count
+	 */
+	public long getBatchCount();
+	/**
+	 * Returns the number of batches with at least one failed uri.
+	 * @return	the failed batch count
+	 */
+	public long getFailedBatchCount();
+	/**
+	 * Returns the number of uris processed successfully.
+	 * @return	the succeeded count
+	 */
+	public long getSucceededCount();
+	/**
+	 * Returns the number of uris that could not be processed.
+	 * @return	the failed count
+	 */
+	public long getFailedCount();
+	/**
+	 * Returns the milliseconds taken by the operation.
+	 * @return	the elapsed time
+	 */
+	public long getElapsedTime();
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.bulk;
+
+import java.util.Iterator;
+
+import com.marklogic.client.alerting.RuleDefinition;
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.query.QueryDefinition;
+
+/**
+ * A Bulk Alerter installs many alerting rules and matches many
+ * documents against the installed rules in concurrent batches.
+ *
+ * To match stored documents, each batch first asks the server which
+ * rules match any document in the batch.  Only if some rules match
+ * does the batch narrow the matches by splitting its documents in half
+ * repeatedly, asking about each half only for the rules that matched
+ * the whole.  When most documents match no rules, a batch takes a single
+ * request, and a batch with one matching document takes at most two
+ * more requests each time the batch is halved.
+ *
+ * Documents that are not stored are sent as the body of the request,
+ * so matching content takes one request per document.
+ *
+ * The uris of a batch are the names of the rules being written or
+ * the uris of the documents being matched.
+ * @see BulkManager#newAlerter()
+ */
+public interface BulkAlerter extends BulkOperation {
+	/**
+	 * A Match Listener receives the rules matched by each document.
+	 */
+	public interface MatchListener {
+		/**
+		 * Receives the names of the rules matched by a document.  The
+		 * listener is called only for documents that match at least one
+		 * rule, on the thread that processed the batch, so the listener
+		 * must be thread safe.
+		 * @param uri	the uri of the document
+		 * @param ruleNames	the names of the matched rules
+		 */
+		public void matched(String uri, String[] ruleNames);
+	}
+
+	/**
+	 * Returns the names of the rules considered when matching.
+	 * @return	the rule names or null for all rules
+	 */
+	public String[] getCandidateRules();
+	/**
+	 * Specifies the names of the rules considered when matching.
+	 * @param ruleNames	the rule names or null for all rules
+	 */
+	public void setCandidateRules(String... ruleNames);
+
+	/**
+	 * Returns the listener that receives the matches.
+	 * @return	the match listener or null
+	 */
+	public MatchListener getMatchListener();
+	/**
+	 * Specifies the listener that receives the matches.
+	 * @param listener	the match listener or null
+	 */
+	public void setMatchListener(MatchListener listener);
+
+	/**
+	 * Writes rules to the server.  The rules are read from the iterator
+	 * as batches are submitted, so the rules don't need to fit in memory.
+	 * @param rules	the rules, each with a name
+	 * @return	the totals for the rules written
+	 */
+	public BatchSummary writeRules(Iterator<RuleDefinition> rules);
+
+	/**
+	 * Matches the documents that match a query against the rules.
+	 * @param querydef	the query for the documents
+	 * @return	the totals for the documents matched
+	 */
+	public BatchSummary match(QueryDefinition querydef);
+	/**
+	 * Matches stored documents against the rules.
+	 * @param uris	the uris of the documents
+	 * @return	the totals for the documents matched
+	 */
+	public BatchSummary match(Iterator<String> uris);
+	/**
+	 * Matches documents that are not stored against the rules, such as
+	 * incoming documents before they are written.  The content of each
+	 * document must be XML or JSON and is sent in its own request.
+	 * @param documents	the documents with their uris
+	 * @return	the totals for the documents matched
+	 */
+	public BatchSummary matchContent(Iterator<DocumentWriteOperation> documents);
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.bulk;
+
+import java.util.Iterator;
+
+import com.marklogic.client.query.QueryDefinition;
+
+/**
+ * A Bulk Deleter deletes documents in batches of uris, deleting
+ * several batches at the same time.  Each batch is one delete request,
+ * so a failed batch does not affect the other batches.
+ */
+public interface BulkDeleter extends BulkOperation {
+	/**
+	 * Deletes the documents that match a query.  The deleter reads
+	 * the uris of the first page of matching documents, deletes that page
+	 * in concurrent batches, and repeats until no documents match.  Documents
+	 * in failed batches are skipped in the following pages.
+	 * @param querydef	the query for the documents
+	 * @return	the totals for the deletion
+	 */
+	public BatchSummary delete(QueryDefinition querydef);
+	/**
+	 * Deletes the documents with the uris supplied by an iterator.
+	 * The uris are read from the iterator as batches are submitted, so
+	 * the iterator can supply uris from a file or other stream
+	 * without holding the list in memory.
+	 * @param uris	the uris of the documents
+	 * @return	the totals for the deletion
+	 */
+	public BatchSummary delete(Iterator<String> uris);
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.bulk;
+
+import com.marklogic.client.document.DocumentManager.Metadata;
+import com.marklogic.client.document.DocumentRecord;
+import com.marklogic.client.query.QueryDefinition;
+
+/**
+ * A Bulk Exporter streams the uris or the metadata of the documents
+ * that match a query page by page without reading the document content,
+ * for instance, to build a reconciliation index or audit a large database.
+ * A background thread reads the following pages while the current page is
+ * consumed.  An exporter can be configured once and then run many times.
+ * @see BulkManager#newExporter()
+ */
+public interface BulkExporter {
+	/**
+	 * The number of documents in each page unless specified otherwise.
+	 */
+	static final public int DEFAULT_PAGE_LENGTH    = 1000;
+	/**
+	 * The number of pages read ahead unless specified otherwise.
+	 */
+	static final public int DEFAULT_PREFETCH_PAGES =    2;
+
+	/**
+	 * Returns the number of documents in each page.
+	 * @return	the page length
+	 */
+	public int getPageLength();
+	/**
+	 * Specifies the number of documents in each page, which is the
+	 * number of documents requested from the server at one time.
+	 * @param pageLength	the page length
+	 */
+	public void setPageLength(int pageLength);
+
+	/**
+	 * Returns the maximum number of pages read ahead of the consumer.
+	 * @return	the number of pages
+	 */
+	public int getPrefetchPages();
+	/**
+	 * Specifies the maximum number of pages read ahead of the consumer.
+	 * The background thread waits when that many pages are ready.
+	 * @param prefetchPages	the number of pages
+	 */
+	public void setPrefetchPages(int prefetchPages);
+
+	/**
+	 * Exports the uris of the documents that match a query.  Only the
+	 * uris are read from the search results.
+	 * @param querydef	the query for the documents
+	 * @return	an iterator over the uris
+	 */
+	public ExportIterator<String> exportUris(QueryDefinition querydef);
+	/**
+	 * Exports the metadata of the documents that match a query without
+	 * the document content.  Each record has a uri and metadata but no
+	 * content.  Read the metadata of a record before advancing past the
+	 * last record of its page because the page is released then.
+	 * @param querydef	the query for the documents
+	 * @param categories	the metadata categories or none for all metadata
+	 * @return	an iterator over the metadata records
+	 */
+	public ExportIterator<DocumentRecord> exportMetadata(QueryDefinition querydef, Metadata... categories);
+}
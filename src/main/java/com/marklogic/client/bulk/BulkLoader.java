@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.bulk;
+
+import java.io.File;
+
+import com.marklogic.client.document.DocumentUriTemplate;
+import com.marklogic.client.io.marker.DocumentMetadataWriteHandle;
+
+/**
+ * A Bulk Loader writes the files of a directory tree or the entries
+ * of an archive as documents in batches, writing several batches at the
+ * same time.  The uris of the documents in each batch are the uris of
+ * the batch.  The format and mime type of each document are worked out
+ * from the extension of the file or entry.
+ *
+ * The loader reads the files or entries in a stable order.  If the
+ * loader has a checkpoint file, the loader records the number of files
+ * or entries written without failures.  After a crash or failed batch,
+ * loading the same source with the same checkpoint file skips the files
+ * or entries already written.  The loader deletes the checkpoint file
+ * after a load without failures.
+ * @see BulkManager#newLoader()
+ */
+public interface BulkLoader extends BulkOperation {
+	/**
+	 * A Uri Maker supplies the document uri for a file or archive entry.
+	 */
+	public interface UriMaker {
+		/**
+		 * Makes the document uri for a file or archive entry.
+		 * @param path	the path of the file relative to the loaded directory
+		 * or the name of the archive entry, with / as the separator
+		 * @return	the document uri
+		 */
+		public String makeUri(String path);
+	}
+
+	/**
+	 * Returns the template for the uris of the documents.
+	 * @return	the uri template or null
+	 */
+	public DocumentUriTemplate getUriTemplate();
+	/**
+	 * Specifies a template for the uris of the documents.  The uri
+	 * is the directory of the template followed by the relative path
+	 * of the file or entry.  If the template has an extension, the
+	 * extension replaces the extension of the path, and if the template
+	 * has a format, the format applies to every document.  Without a
+	 * template or uri maker, the uri is the relative path prefixed with /.
+	 * @param template	the uri template or null
+	 */
+	public void setUriTemplate(DocumentUriTemplate template);
+
+	/**
+	 * Returns the callback that makes the document uris.
+	 * @return	the uri maker or null
+	 */
+	public UriMaker getUriMaker();
+	/**
+	 * Specifies a callback that makes the document uris instead of
+	 * the uri template.  The callback must return the same uri for the
+	 * same path so a resumed load rewrites the same documents.
+	 * @param uriMaker	the uri maker or null
+	 */
+	public void setUriMaker(UriMaker uriMaker);
+
+	/**
+	 * Returns the metadata written with every document.
+	 * @return	the metadata or null
+	 */
+	public DocumentMetadataWriteHandle getMetadata();
+	/**
+	 * Specifies the metadata written with every document, such as
+	 * collections or permissions.  The metadata is serialized once
+	 * when a load starts.
+	 * @param metadata	the metadata or null
+	 */
+	public void setMetadata(DocumentMetadataWriteHandle metadata);
+
+	/**
+	 * Returns the file that records the progress of a load.
+	 * @return	the checkpoint file or null
+	 */
+	public File getCheckpointFile();
+	/**
+	 * Specifies the file that records the progress of a load
+	 * so a stopped load can resume.  A load refuses to resume if
+	 * the source no longer has the last completed entry at the
+	 * same position, as when files were added or removed.
+	 * @param checkpointFile	the checkpoint file or null
+	 */
+	public void setCheckpointFile(File checkpointFile);
+
+	/**
+	 * Loads the files of a directory and its subdirectories.
+	 * @param directory	the directory
+	 * @return	the totals for the load
+	 */
+	public BatchSummary loadDirectory(File directory);
+	/**
+	 * Loads the entries of a zip, jar, tar, or gzipped tar archive.
+	 * The kind of archive is determined by the extension of the file:
+	 * .zip, .jar, .tar, .tar.gz, or .tgz.
+	 * @param archive	the archive file
+	 * @return	the totals for the load
+	 */
+	public BatchSummary loadArchive(File archive);
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.bulk;
+
+import com.marklogic.client.io.marker.DocumentPatchHandle;
+
+/**
+ * A Bulk Manager creates operations that process many documents
+ * in concurrent batches.
+ * @see com.marklogic.client.DatabaseClient#newBulkManager()
+ */
+public interface BulkManager {
+	/**
+	 * Creates an operation for deleting documents in concurrent batches.
+	 * @return	the new deleter
+	 */
+	public BulkDeleter newDeleter();
+	/**
+	 * Creates an operation for applying a patch to documents in concurrent batches.
+	 * The patch can be built with a
+	 * {@link com.marklogic.client.document.DocumentPatchBuilder DocumentPatchBuilder}
+	 * or supplied as raw XML or JSON in any patch handle.
+	 * @param patch	the patch to apply to each document
+	 * @return	the new patcher
+	 */
+	public BulkPatcher newPatcher(DocumentPatchHandle patch);
+	/**
+	 * Creates an operation for exporting the uris or metadata of documents
+	 * page by page without the document content.
+	 * @return	the new exporter
+	 */
+	public BulkExporter newExporter();
+	/**
+	 * Creates an operation for loading the files of a directory or the
+	 * entries of an archive as documents in concurrent batches.
+	 * @return	the new loader
+	 */
+	public BulkLoader newLoader();
+	/**
+	 * Creates an operation for loading the rows of a comma-separated
+	 * or other delimited file as JSON or XML documents in concurrent batches.
+	 * @return	the new loader
+	 */
+	public CSVLoader newCSVLoader();
+	/**
+	 * Creates an operation for writing alerting rules and matching
+	 * documents against the rules in concurrent batches.
+	 * @return	the new alerter
+	 */
+	public BulkAlerter newAlerter();
+}
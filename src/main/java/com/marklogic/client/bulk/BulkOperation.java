@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.bulk;
+
+/**
+ * A Bulk Operation splits a list of document uris into batches
+ * and processes the batches with a pool of threads.  An operation
+ * can be configured once and then run many times.  Each run takes
+ * the configuration in effect when the run starts.
+ */
+public interface BulkOperation {
+	/**
+	 * The number of uris in each batch unless specified otherwise.
+	 */
+	static final public int DEFAULT_BATCH_SIZE   = 100;
+	/**
+	 * The number of batches processed at the same time unless specified otherwise.
+	 */
+	static final public int DEFAULT_THREAD_COUNT =   4;
+
+	/**
+	 * Returns the maximum number of uris in each batch.
+	 * @return	the batch size
+	 */
+	public int getBatchSize();
+	/**
+	 * Specifies the maximum number of uris in each batch.
+	 * @param batchSize	the batch size
+	 */
+	public void setBatchSize(int batchSize);
+
+	/**
+	 * Returns the number of batches processed at the same time.
+	 * @return	the number of threads
+	 */
+	public int getThreadCount();
+	/**
+	 * Specifies the number of batches processed at the same time.
+	 * Each thread uses one connection from the pool of the database client.
+	 * @param threadCount	the number of threads
+	 */
+	public void setThreadCount(int threadCount);
+
+	/**
+	 * Returns whether the operation adapts the batch size and the number
+	 * of batches in flight to the response of the server.
+	 * @return	true if the operation is adaptive
+	 */
+	public boolean isAdaptive();
+	/**
+	 * Specifies whether the operation adapts the batch size and the number
+	 * of batches in flight to the response of the server.  An adaptive
+	 * operation treats the batch size and thread count as upper bounds and
+	 * starts at half of each.  The operation raises both a step at a time
+	 * while batches complete promptly, halves both when the server responds
+	 * that it is unavailable, and lowers the number of batches in flight
+	 * when batches slow down.  The default is false.
+	 * @param adaptive	true to adapt to the server
+	 */
+	public void setAdaptive(boolean adaptive);
+
+	/**
+	 * Returns the listener notified as each batch completes.
+	 * @return	the listener or null
+	 */
+	public BatchListener getBatchListener();
+	/**
+	 * Specifies a listener notified as each batch completes.
+	 * @param listener	the listener or null
+	 */
+	public void setBatchListener(BatchListener listener);
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.bulk;
+
+import java.util.Iterator;
+
+import com.marklogic.client.io.marker.DocumentPatchHandle;
+import com.marklogic.client.query.QueryDefinition;
+
+/**
+ * A Bulk Patcher applies the same patch to many documents.
+ * The patch is serialized once when the patcher is created and then
+ * sent in a separate patch request for each document, with several
+ * batches of documents patched at the same time.  A document that
+ * cannot be patched is reported as a failed uri of its batch without
+ * affecting the other documents in the batch.
+ * @see BulkManager#newPatcher(DocumentPatchHandle)
+ */
+public interface BulkPatcher extends BulkOperation {
+	/**
+	 * Returns the patch applied to each document.
+	 * @return	the patch
+	 */
+	public DocumentPatchHandle getPatch();
+
+	/**
+	 * Patches the documents that match a query.  The patcher reads
+	 * the uris of the matching documents page by page while previous
+	 * pages are being patched.  If the patch changes whether documents
+	 * match the query, the pages shift, so collect the uris first and
+	 * call {@link #patch(Iterator)} instead.
+	 * @param querydef	the query for the documents
+	 * @return	the totals for the patch
+	 */
+	public BatchSummary patch(QueryDefinition querydef);
+	/**
+	 * Patches the documents with the uris supplied by an iterator.
+	 * @param uris	the uris of the documents
+	 * @return	the totals for the patch
+	 */
+	public BatchSummary patch(Iterator<String> uris);
+}
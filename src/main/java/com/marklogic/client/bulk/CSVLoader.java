@@ -0,0 +1,232 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.bulk;
+
+import java.io.File;
+import java.io.Reader;
+
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.marker.DocumentMetadataWriteHandle;
+
+/**
+ * A CSV Loader writes each row of a comma-separated or other delimited
+ * file as a JSON or XML document, writing several batches at the same time.
+ * The loader parses the file as a stream, so the size of the file is not
+ * limited by memory.  Only the parsing happens on the calling thread;
+ * the batch threads convert the rows to documents and write them.
+ *
+ * The loader follows the usual CSV conventions: a field that contains
+ * the delimiter, the quote character, or a line break is enclosed in
+ * quotes, and a quote inside such a field is doubled.  For tab-separated
+ * files, set the delimiter to a tab.
+ *
+ * Each column becomes a property of a JSON object or a child element
+ * of an XML root element.  The column names come from the header row,
+ * from the specified column names, or are column1, column2, and so on.
+ * @see BulkManager#newCSVLoader()
+ */
+public interface CSVLoader extends BulkOperation {
+	/**
+	 * The delimiter between fields unless specified otherwise.
+	 */
+	static final public char DEFAULT_DELIMITER = ',';
+	/**
+	 * The character that encloses fields unless specified otherwise.
+	 */
+	static final public char DEFAULT_QUOTE     = '"';
+	/**
+	 * The quote character that turns off quoting.
+	 */
+	static final public char NO_QUOTE          = '\0';
+	/**
+	 * The name of the root element of XML documents unless specified otherwise.
+	 */
+	static final public String DEFAULT_ROOT_NAME = "row";
+
+	/**
+	 * The type of the values of a column.
+	 */
+	public enum ColumnType {
+		/**
+		 * Writes the value as a string.
+		 */
+		STRING,
+		/**
+		 * Writes the value as a JSON number.  A value that is not
+		 * a number is written as a string.
+		 */
+		NUMBER,
+		/**
+		 * Writes true, yes, or 1 as JSON true and other values as false.
+		 */
+		BOOLEAN,
+		/**
+		 * Leaves the column out of the documents.
+		 */
+		SKIP;
+	}
+
+	/**
+	 * A Row Uri Maker supplies the document uri for a row.
+	 */
+	public interface RowUriMaker {
+		/**
+		 * Makes the document uri for a row.  The maker is called
+		 * on the parsing thread in row order.
+		 * @param rowNumber	the number of the row starting from 1,
+		 * not counting the header row
+		 * @param columnNames	the names of the columns
+		 * @param values	the values of the row
+		 * @return	the document uri
+		 */
+		public String makeUri(long rowNumber, String[] columnNames, String[] values);
+	}
+
+	/**
+	 * Returns the delimiter between fields.
+	 * @return	the delimiter
+	 */
+	public char getDelimiter();
+	/**
+	 * Specifies the delimiter between fields such as a tab.
+	 * @param delimiter	the delimiter
+	 */
+	public void setDelimiter(char delimiter);
+
+	/**
+	 * Returns the character that encloses fields.
+	 * @return	the quote character
+	 */
+	public char getQuote();
+	/**
+	 * Specifies the character that encloses fields or NO_QUOTE
+	 * if fields are never enclosed.
+	 * @param quote	the quote character
+	 */
+	public void setQuote(char quote);
+
+	/**
+	 * Returns whether the first row of the file names the columns.
+	 * @return	true if the file has a header row
+	 */
+	public boolean hasHeader();
+	/**
+	 * Specifies whether the first row of the file names the columns.
+	 * The default is true.  If column names are also specified,
+	 * the header row is skipped.
+	 * @param hasHeader	true if the file has a header row
+	 */
+	public void setHeader(boolean hasHeader);
+
+	/**
+	 * Returns the specified column names.
+	 * @return	the column names or null
+	 */
+	public String[] getColumnNames();
+	/**
+	 * Specifies the names of the columns instead of the header row.
+	 * @param columnNames	the column names or null
+	 */
+	public void setColumnNames(String... columnNames);
+
+	/**
+	 * Returns the type of a column.
+	 * @param columnName	the column name
+	 * @return	the column type, which is STRING unless specified otherwise
+	 */
+	public ColumnType getColumnType(String columnName);
+	/**
+	 * Specifies the type of a column.
+	 * @param columnName	the column name
+	 * @param type	the column type
+	 */
+	public void setColumnType(String columnName, ColumnType type);
+
+	/**
+	 * Returns the format of the documents.
+	 * @return	the format
+	 */
+	public Format getFormat();
+	/**
+	 * Specifies whether to write JSON or XML documents.  The default is JSON.
+	 * @param format	the format
+	 */
+	public void setFormat(Format format);
+
+	/**
+	 * Returns the name of the root element of XML documents.
+	 * @return	the root name
+	 */
+	public String getRootName();
+	/**
+	 * Specifies the name of the root element of XML documents.
+	 * @param rootName	the root name
+	 */
+	public void setRootName(String rootName);
+
+	/**
+	 * Returns the prefix for the uris of the documents.
+	 * @return	the uri prefix
+	 */
+	public String getUriPrefix();
+	/**
+	 * Specifies the prefix for the uris of the documents.  Without
+	 * a uri maker, the uri is the prefix followed by the row number
+	 * and the extension for the format.  Without a prefix, loading
+	 * a file uses the name of the file without its extension as the
+	 * directory, and loading a reader uses /.
+	 * @param uriPrefix	the uri prefix or null
+	 */
+	public void setUriPrefix(String uriPrefix);
+
+	/**
+	 * Returns the callback that makes the document uris.
+	 * @return	the uri maker or null
+	 */
+	public RowUriMaker getUriMaker();
+	/**
+	 * Specifies a callback that makes the document uris, for instance,
+	 * from the value of a key column.
+	 * @param uriMaker	the uri maker or null
+	 */
+	public void setUriMaker(RowUriMaker uriMaker);
+
+	/**
+	 * Returns the metadata written with every document.
+	 * @return	the metadata or null
+	 */
+	public DocumentMetadataWriteHandle getMetadata();
+	/**
+	 * Specifies the metadata written with every document, such as
+	 * collections or permissions.  The metadata is serialized once
+	 * when a load starts.
+	 * @param metadata	the metadata or null
+	 */
+	public void setMetadata(DocumentMetadataWriteHandle metadata);
+
+	/**
+	 * Loads the rows of a delimited file encoded as UTF-8.
+	 * @param file	the delimited file
+	 * @return	the totals for the load
+	 */
+	public BatchSummary load(File file);
+	/**
+	 * Loads the rows read from a reader.  The reader is not closed.
+	 * @param reader	the reader for the delimited text
+	 * @return	the totals for the load
+	 */
+	public BatchSummary load(Reader reader);
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.bulk;
+
+import java.util.Iterator;
+
+/**
+ * An Export Iterator returns the items of an export in order while
+ * the following pages are read in the background.  Close the iterator
+ * if you stop before the end so the pages already read are released.
+ * @param <T>	the type of the exported item
+ */
+public interface ExportIterator<T> extends Iterator<T> {
+	/**
+	 * Returns the number of pages returned by the iterator so far.
+	 * @return	the page count
+	 */
+	public long getPageCount();
+	/**
+	 * Stops reading pages and releases the pages that were read ahead.
+	 */
+	public void close();
+}
@@ -15,6 +15,10 @@
  */
 package com.marklogic.client.document;
 
+import java.io.File;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
 import com.marklogic.client.FailedRequestException;
 import com.marklogic.client.ForbiddenUserException;
 import com.marklogic.client.ResourceNotFoundException;
@@ -46,6 +50,38 @@ public interface BinaryDocumentManager extends DocumentManager<BinaryReadHandle,
 		NONE;
 	}
 
+	/**
+	 * The default length of the byte ranges requested by a download.
+	 */
+	public static final int DEFAULT_DOWNLOAD_SEGMENT_LENGTH = 4 * 1024 * 1024;
+	/**
+	 * The default number of byte ranges requested concurrently by a download.
+	 */
+	public static final int DEFAULT_DOWNLOAD_THREAD_COUNT = 4;
+	/**
+	 * The default length of the chunks staged by an upload.
+	 */
+	public static final int DEFAULT_UPLOAD_CHUNK_LENGTH = 8 * 1024 * 1024;
+	/**
+	 * The default number of chunks staged concurrently by an upload.
+	 */
+	public static final int DEFAULT_UPLOAD_THREAD_COUNT = 4;
+
+	/**
+	 * An UploadListener receives the progress of an upload after
+	 * each chunk is staged.  The listener is called in the thread
+	 * that started the upload.
+	 */
+	public interface UploadListener {
+		/**
+		 * Reports the progress of an upload.
+		 * @param docId	the URI identifier for the document
+		 * @param uploadedLength	the number of bytes staged so far
+		 * @param totalLength	the length of the content or -1 if unknown
+		 */
+		public void uploaded(String docId, long uploadedLength, long totalLength);
+	}
+
     /**
      * Reads a range of bytes from the content of a binary database document in the representation specified by the IO class.
      * 
@@ -346,4 +382,118 @@ public interface BinaryDocumentManager extends DocumentManager<BinaryReadHandle,
 	 * @param policy	the policy for extracting metadata
 	 */
 	public void setMetadataExtraction(MetadataExtraction policy);
+
+	/**
+	 * Returns the length of the byte ranges requested by a download.
+	 * @return	the length in bytes
+	 */
+	public int getDownloadSegmentLength();
+	/**
+	 * Specifies the length of the byte ranges requested by a download.
+	 * @param length	the length in bytes
+	 */
+	public void setDownloadSegmentLength(int length);
+	/**
+	 * Returns the number of byte ranges requested concurrently by a download.
+	 * @return	the number of threads
+	 */
+	public int getDownloadThreadCount();
+	/**
+	 * Specifies the number of byte ranges requested concurrently by a download.
+	 * Each thread uses a connection from the pool of the database client.
+	 * @param threadCount	the number of threads
+	 */
+	public void setDownloadThreadCount(int threadCount);
+
+	/**
+	 * Downloads the content of a binary database document to a file
+	 * by requesting byte ranges concurrently.  The document should not
+	 * change during the download.  When the server reports document
+	 * versions, the download fails with a MarkLogicIOException if a range
+	 * comes from a different version than the first request.
+	 * @param docId	the URI identifier for the document
+	 * @param file	the file to receive the content
+	 * @return	the length of the content in bytes
+	 */
+	public long download(String docId, File file)
+	throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException;
+	/**
+	 * Downloads the content of a binary database document to a file channel
+	 * by requesting byte ranges concurrently.  Each range is written at
+	 * its position in the content, and the channel is not closed.
+	 * The document should not change during the download.  When the server
+	 * reports document versions, the download fails with a MarkLogicIOException
+	 * if a range comes from a different version than the first request.
+	 * @param docId	the URI identifier for the document
+	 * @param channel	the channel to receive the content
+	 * @return	the length of the content in bytes
+	 */
+	public long download(String docId, FileChannel channel)
+	throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException;
+	/**
+	 * Downloads the content of a binary database document as a stream
+	 * that returns the byte ranges in order while the following ranges are
+	 * requested concurrently.  Close the stream to cancel the download.
+	 * The document should not change during the download.  When the server
+	 * reports document versions, reading fails with an IOException if a range
+	 * comes from a different version than the first request.
+	 * @param docId	the URI identifier for the document
+	 * @return	the stream of content
+	 */
+	public InputStream download(String docId)
+	throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException;
+
+	/**
+	 * Returns the length of the chunks staged by an upload.
+	 * @return	the length in bytes
+	 */
+	public int getUploadChunkLength();
+	/**
+	 * Specifies the length of the chunks staged by an upload.
+	 * An upload holds a chunk in memory for each thread.
+	 * @param length	the length in bytes
+	 */
+	public void setUploadChunkLength(int length);
+	/**
+	 * Returns the number of chunks staged concurrently by an upload.
+	 * @return	the number of threads
+	 */
+	public int getUploadThreadCount();
+	/**
+	 * Specifies the number of chunks staged concurrently by an upload.
+	 * @param threadCount	the number of threads
+	 */
+	public void setUploadThreadCount(int threadCount);
+
+	/**
+	 * Uploads a file as the content of a binary database document.
+	 * @param docId	the URI identifier for the document
+	 * @param file	the file with the content
+	 * @param listener	the listener for the progress of the upload or null
+	 * @return	the length of the content in bytes
+	 * @see #upload(String, InputStream, UploadListener)
+	 */
+	public long upload(String docId, File file, UploadListener listener)
+	throws ForbiddenUserException, FailedRequestException;
+	/**
+	 * Uploads a stream as the content of a binary database document.
+	 * The upload stages the content as chunk documents, retrying a chunk
+	 * that fails, and then replaces the document with the chunks in one
+	 * transaction on the server.  If the upload fails, uploading the same
+	 * content to the same document again reuses the chunks that were staged.
+	 * The next successful upload to the document deletes chunks that were
+	 * staged for other content.  The stream is not closed.
+	 *
+	 * The server copies the chunks into the document as binary in memory,
+	 * so the length of the content is limited by the memory available to
+	 * the server request and by the largest binary document the database
+	 * accepts.  An assembly past those limits fails with a
+	 * FailedRequestException and leaves the staged chunks for a retry.
+	 * @param docId	the URI identifier for the document
+	 * @param content	the stream with the content
+	 * @param listener	the listener for the progress of the upload or null
+	 * @return	the length of the content in bytes
+	 */
+	public long upload(String docId, InputStream content, UploadListener listener)
+	throws ForbiddenUserException, FailedRequestException;
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.document;
+
+/**
+ * A DocumentCache keeps the content of recently read documents in client
+ * memory together with the server version of each document.
+ *
+ * When a document manager has a cache, a read of a document
+ * that is in the cache sends the cached version to the server.  If the
+ * document has not been modified since, the server responds without
+ * the document content and the content is supplied from the cache.
+ *
+ * The cache only stores documents when the server returns a version
+ * for the document, which requires a REST server with an update policy
+ * other than merge-metadata.  Reads in a transaction, reads with metadata,
+ * reads with a server transform, and reads with an explicit version on
+ * the descriptor bypass the cache.
+ *
+ * A cache is thread safe and can be shared by several document managers
+ * for the same database client.
+ * @see DocumentManager#newDocumentCache(int, long)
+ * @see DocumentManager#setDocumentCache(DocumentCache)
+ */
+public interface DocumentCache {
+	/**
+	 * Returns the maximum number of documents kept by the cache.
+	 * @return	the maximum number of documents
+	 */
+	public int getMaxEntries();
+	/**
+	 * Returns the maximum number of content bytes kept by the cache.
+	 * @return	the maximum number of bytes
+	 */
+	public long getMaxBytes();
+
+	/**
+	 * Returns the number of documents currently in the cache.
+	 * @return	the number of cached documents
+	 */
+	public int size();
+	/**
+	 * Returns the number of content bytes currently in the cache.
+	 * @return	the number of cached bytes
+	 */
+	public long getByteSize();
+
+	/**
+	 * Returns the number of reads that were supplied from the cache
+	 * because the server reported that the document was not modified.
+	 * @return	the number of cache hits
+	 */
+	public long getHitCount();
+	/**
+	 * Returns the number of reads through the cache that downloaded
+	 * the document content from the server.
+	 * @return	the number of cache misses
+	 */
+	public long getMissCount();
+
+	/**
+	 * Checks whether the cache has content for a document.
+	 * @param uri	the database uri for the document
+	 * @return	whether the document is cached
+	 */
+	public boolean contains(String uri);
+	/**
+	 * Removes a document from the cache.
+	 * @param uri	the database uri for the document
+	 */
+	public void remove(String uri);
+	/**
+	 * Removes all documents from the cache.
+	 */
+	public void clear();
+}
@@ -1312,6 +1312,34 @@ public interface DocumentManager<R extends AbstractReadHandle, W extends Abstrac
      */
     public void setForestName(String forestName);
 
+    /**
+     * Creates a cache for the content of documents read through
+     * a document manager.  The cache evicts the least recently read
+     * documents when either maximum is exceeded.
+     *
+     * @param maxEntries	the maximum number of documents to cache
+     * @param maxBytes	the maximum number of content bytes to cache
+     * @return	the new cache
+     */
+    public DocumentCache newDocumentCache(int maxEntries, long maxBytes);
+    /**
+     * Returns the cache used for document reads or null if the
+     * manager reads without a cache.
+     * @return	the document cache
+     */
+    public DocumentCache getDocumentCache();
+    /**
+     * Specifies a cache for document reads.  Reads of cached documents
+     * send the cached version with an If-None-Match header and take the
+     * content from the cache if the server reports the document as not
+     * modified.  Writes, patches, and deletes through the manager remove
+     * the document from the cache.  Set the cache to null to read without
+     * a cache.
+     *
+     * @param cache	the cache created by {@link #newDocumentCache(int, long) newDocumentCache}
+     */
+    public void setDocumentCache(DocumentCache cache);
+
     /**
      * Starts debugging client requests. You can suspend and resume debugging output
      * using the methods of the logger.
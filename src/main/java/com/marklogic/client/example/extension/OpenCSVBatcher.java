@@ -33,6 +33,8 @@ import com.marklogic.client.io.DOMHandle;
 
 /**
  * An OpenCSV Batcher writes a CSV stream to the database in XML document batches.
+ * The example shows a resource extension at work; to load large delimited files,
+ * use a {@link com.marklogic.client.bulk.CSVLoader CSVLoader} instead.
  */
 public class OpenCSVBatcher
 {
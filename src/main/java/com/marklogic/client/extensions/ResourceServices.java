@@ -41,6 +41,24 @@ public interface ResourceServices {
 	 */
 	public String getResourceName();
 
+	/**
+	 * Returns whether the iterators returned by the service calls read
+	 * each result from the response as the iterator advances.
+	 * @return	whether results are streamed
+	 */
+	public boolean isResultStreaming();
+	/**
+	 * Specifies whether the iterators returned by the service calls read
+	 * each result from the response as the iterator advances instead of
+	 * reading the entire response before returning the first result.
+	 * Streaming keeps only the current result in memory, so a service
+	 * can return more content than fits in memory, but the content of
+	 * a result must be read before advancing to the next result.
+	 * Results are not streamed by default.
+	 * @param streaming	whether to stream results
+	 */
+	public void setResultStreaming(boolean streaming);
+
 	/**
 	 * Reads resource content by calling a GET service.
 	 * @param params	the parameters for the call
@@ -255,10 +273,20 @@ public interface ResourceServices {
 		 * @return	the content handle
 		 */
 		public <R extends AbstractReadHandle> R getContent(R handle);
+		/**
+		 * Reads the content as an object of the specified class
+		 * using a handle registered for the class.
+		 * @param as	the class of the content object
+		 * @param <T> the type of the content object
+		 * @return	the content object
+		 */
+		public <T> T getContentAs(Class<T> as);
 	}
     /**
      * ServiceResultIterator provides an iterator over content responses
-     * from the server.
+     * from the server.  When results are streamed, read the content
+     * of each result before advancing the iterator and close the
+     * iterator if not read to the end.
      */
 	public interface ServiceResultIterator extends Iterator<ServiceResult> {
 		/**
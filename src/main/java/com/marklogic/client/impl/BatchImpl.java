@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.marklogic.client.bulk.Batch;
+
+class BatchImpl implements Batch {
+	final static private String[] NO_URIS = new String[0];
+
+	private long     batchNumber;
+	private String[] uris;
+	private Map<String, Throwable> failures;
+	private long     jobSucceededCount;
+	private long     jobFailedCount;
+	private long     jobElapsedTime;
+
+	BatchImpl(long batchNumber, String[] uris) {
+		super();
+		this.batchNumber = batchNumber;
+		this.uris        = uris;
+	}
+
+	@Override
+	public long getBatchNumber() {
+		return batchNumber;
+	}
+	@Override
+	public String[] getUris() {
+		return uris;
+	}
+	@Override
+	public synchronized String[] getFailedUris() {
+		if (failures == null)
+			return NO_URIS;
+		return failures.keySet().toArray(new String[failures.size()]);
+	}
+	@Override
+	public synchronized Throwable getFailure(String uri) {
+		if (failures == null)
+			return null;
+		return failures.get(uri);
+	}
+	synchronized int getFailedSize() {
+		return (failures == null) ? 0 : failures.size();
+	}
+	synchronized void fail(String uri, Throwable failure) {
+		if (failures == null)
+			failures = new LinkedHashMap<String, Throwable>();
+		failures.put(uri, failure);
+	}
+	synchronized void failAll(Throwable failure) {
+		for (String uri: uris)
+			fail(uri, failure);
+	}
+
+	@Override
+	public long getJobSucceededCount() {
+		return jobSucceededCount;
+	}
+	@Override
+	public long getJobFailedCount() {
+		return jobFailedCount;
+	}
+	@Override
+	public long getJobElapsedTime() {
+		return jobElapsedTime;
+	}
+	void setJobProgress(long succeededCount, long failedCount, long elapsedTime) {
+		this.jobSucceededCount = succeededCount;
+		this.jobFailedCount    = failedCount;
+		this.jobElapsedTime    = elapsedTime;
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adjusts the batch size and the number of batches in flight for an
+ * adaptive bulk job with additive increase and multiplicative decrease.
+ *
+ * The job starts at half of the configured batch size and thread count,
+ * which are the upper bounds.  After a run of batches without trouble
+ * as long as the in-flight limit, the throttle adds one to the limit
+ * and a tenth of the maximum to the batch size.  A 503 response halves
+ * both.  When the smoothed time per uri grows well past the best smoothed
+ * time seen so far, requests are queuing on the server, so the throttle
+ * drops the in-flight limit by one.
+ *
+ * Only batches started after the last decrease of the same kind can
+ * cause another decrease, so batches in flight during one overload
+ * episode do not collapse the limits.
+ *
+ * The throttle guards its state with a lock rather than a monitor so
+ * batches waiting to go in flight on virtual threads are not pinned.
+ */
+class BatchThrottle {
+	static final private Logger logger = LoggerFactory.getLogger(BatchThrottle.class);
+
+	// a smoothed latency over this multiple of the best latency is queuing
+	static final private double LATENCY_FACTOR = 2.0;
+	// the weight of each batch in the smoothed latency
+	static final private double LATENCY_WEIGHT = 0.25;
+	// lets the best latency recover slowly after the server gets slower
+	static final private double LATENCY_DECAY  = 0.02;
+
+	final private int maxBatchSize;
+	final private int maxInFlight;
+	final private int batchStep;
+
+	final private ReentrantLock lock       = new ReentrantLock();
+	final private Condition     flightOpen = lock.newCondition();
+
+	private int    batchSize;
+	private int    inFlightLimit;
+	private int    inFlight;
+	private int    cleanBatches;
+	private long   lastDecrease = Long.MIN_VALUE;
+	private long   lastOverload = Long.MIN_VALUE;
+	private double latency      = -1;
+	private double bestLatency  = -1;
+
+	BatchThrottle(int maxBatchSize, int maxInFlight) {
+		this.maxBatchSize  = maxBatchSize;
+		this.maxInFlight   = maxInFlight;
+		this.batchStep     = Math.max(1, maxBatchSize / 10);
+		this.batchSize     = Math.max(1, (maxBatchSize + 1) / 2);
+		this.inFlightLimit = Math.max(1, (maxInFlight + 1) / 2);
+	}
+
+	int getBatchSize() {
+		lock.lock();
+		try {
+			return batchSize;
+		} finally {
+			lock.unlock();
+		}
+	}
+	int getInFlightLimit() {
+		lock.lock();
+		try {
+			return inFlightLimit;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until the batch can go in flight.
+	 * @return	the start time to pass to complete()
+	 */
+	long acquire() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (inFlight >= inFlightLimit)
+				flightOpen.await();
+			inFlight++;
+			return System.nanoTime();
+		} finally {
+			lock.unlock();
+		}
+	}
+	/**
+	 * Takes a batch out of flight and adjusts the limits.
+	 * @param startTime	the time returned by acquire()
+	 * @param uriCount	the number of uris in the batch
+	 * @param unavailableCount	the number of 503 responses for the batch
+	 * @param failed	whether the batch failed for another reason
+	 */
+	void complete(long startTime, int uriCount, long unavailableCount, boolean failed) {
+		lock.lock();
+		inFlight--;
+		try {
+			if (unavailableCount > 0) {
+				if (startTime > lastOverload)
+					decrease(true);
+				return;
+			}
+			if (failed || uriCount == 0)
+				return;
+
+			double batchLatency = (double) (System.nanoTime() - startTime) / uriCount;
+			latency = (latency < 0) ?
+					batchLatency : latency + (batchLatency - latency) * LATENCY_WEIGHT;
+			if (bestLatency < 0 || latency < bestLatency)
+				bestLatency = latency;
+			else
+				bestLatency += (latency - bestLatency) * LATENCY_DECAY;
+
+			if (latency > bestLatency * LATENCY_FACTOR) {
+				if (startTime > lastDecrease)
+					decrease(false);
+				return;
+			}
+
+			if (++cleanBatches >= inFlightLimit)
+				increase();
+		} finally {
+			flightOpen.signalAll();
+			lock.unlock();
+		}
+	}
+
+	private void increase() {
+		cleanBatches = 0;
+		if (inFlightLimit == maxInFlight && batchSize == maxBatchSize)
+			return;
+		inFlightLimit = Math.min(maxInFlight,  inFlightLimit + 1);
+		batchSize     = Math.min(maxBatchSize, batchSize + batchStep);
+		if (logger.isDebugEnabled())
+			logger.debug("Increased to {} batches of {} uris in flight", inFlightLimit, batchSize);
+	}
+	private void decrease(boolean isOverloaded) {
+		cleanBatches = 0;
+		lastDecrease = System.nanoTime();
+		// measures the new limits afresh
+		latency      = -1;
+		if (isOverloaded) {
+			lastOverload  = lastDecrease;
+			inFlightLimit = Math.max(1, inFlightLimit / 2);
+			batchSize     = Math.max(1, batchSize / 2);
+		} else {
+			inFlightLimit = Math.max(1, inFlightLimit - 1);
+		}
+		if (logger.isDebugEnabled())
+			logger.debug("Decreased to {} batches of {} uris in flight", inFlightLimit, batchSize);
+	}
+}
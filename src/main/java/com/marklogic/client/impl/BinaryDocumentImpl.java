@@ -15,14 +15,23 @@
  */
 package com.marklogic.client.impl;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.marklogic.client.DatabaseClientFactory.HandleFactoryRegistry;
 import com.marklogic.client.document.BinaryDocumentManager;
 import com.marklogic.client.document.DocumentDescriptor;
 import com.marklogic.client.io.Format;
 import com.marklogic.client.FailedRequestException;
 import com.marklogic.client.ForbiddenUserException;
+import com.marklogic.client.MarkLogicIOException;
 import com.marklogic.client.MarkLogicInternalException;
 import com.marklogic.client.ResourceNotFoundException;
 import com.marklogic.client.util.RequestParameters;
@@ -40,6 +49,10 @@ class BinaryDocumentImpl
 	static final private Logger logger = LoggerFactory.getLogger(BinaryDocumentImpl.class);
 
 	private MetadataExtraction metadataExtraction = MetadataExtraction.NONE;
+	private int downloadSegmentLength = DEFAULT_DOWNLOAD_SEGMENT_LENGTH;
+	private int downloadThreadCount   = DEFAULT_DOWNLOAD_THREAD_COUNT;
+	private int uploadChunkLength     = DEFAULT_UPLOAD_CHUNK_LENGTH;
+	private int uploadThreadCount     = DEFAULT_UPLOAD_THREAD_COUNT;
 
 	BinaryDocumentImpl(RESTServices services) {
 		super(services, Format.BINARY);
@@ -54,13 +67,17 @@ class BinaryDocumentImpl
 	@Override
 	public <T> T readAs(String uri, DocumentMetadataReadHandle metadataHandle, Class<T> as, long start, long length)
 	throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException {
-		ContentHandle<T> handle = getHandleRegistry().makeHandle(as);
+		HandleFactoryRegistry registry = getHandleRegistry();
+		ContentHandle<T> handle = registry.acquireHandle(as);
+		try {
+			if (null == read(uri, metadataHandle, castAbstractReadHandle(as, handle), start, length)) {
+				return null;
+			}
 
-		if (null == read(uri, metadataHandle, castAbstractReadHandle(as, handle), start, length)) {
-			return null;
+			return handle.get();
+		} finally {
+			registry.releaseHandle(as, handle);
 		}
-
-		return handle.get();
 	}
 
 	// strongly typed readers
@@ -146,6 +163,100 @@ class BinaryDocumentImpl
 		metadataExtraction = policy;	
 	}
 
+	@Override
+	public int getDownloadSegmentLength() {
+		return downloadSegmentLength;
+	}
+	@Override
+	public void setDownloadSegmentLength(int length) {
+		if (length < 1)
+			throw new IllegalArgumentException("download segment length must be positive: "+length);
+		downloadSegmentLength = length;
+	}
+	@Override
+	public int getDownloadThreadCount() {
+		return downloadThreadCount;
+	}
+	@Override
+	public void setDownloadThreadCount(int threadCount) {
+		if (threadCount < 1)
+			throw new IllegalArgumentException("download thread count must be positive: "+threadCount);
+		downloadThreadCount = threadCount;
+	}
+
+	@Override
+	public long download(String uri, File file) {
+		if (file == null)
+			throw new IllegalArgumentException("Download without a file");
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			try {
+				return download(uri, out.getChannel());
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			throw new MarkLogicIOException("Could not download "+uri+" to "+file, e);
+		}
+	}
+	@Override
+	public long download(String uri, FileChannel channel) {
+		if (channel == null)
+			throw new IllegalArgumentException("Download without a channel");
+		return newDownloader(uri).download(channel);
+	}
+	@Override
+	public InputStream download(String uri) {
+		return newDownloader(uri).download();
+	}
+	private BinaryDownloader newDownloader(String uri) {
+		return new BinaryDownloader(getServices(), uri, downloadSegmentLength, downloadThreadCount);
+	}
+
+	@Override
+	public int getUploadChunkLength() {
+		return uploadChunkLength;
+	}
+	@Override
+	public void setUploadChunkLength(int length) {
+		if (length < 1)
+			throw new IllegalArgumentException("upload chunk length must be positive: "+length);
+		uploadChunkLength = length;
+	}
+	@Override
+	public int getUploadThreadCount() {
+		return uploadThreadCount;
+	}
+	@Override
+	public void setUploadThreadCount(int threadCount) {
+		if (threadCount < 1)
+			throw new IllegalArgumentException("upload thread count must be positive: "+threadCount);
+		uploadThreadCount = threadCount;
+	}
+
+	@Override
+	public long upload(String uri, File file, UploadListener listener) {
+		if (file == null)
+			throw new IllegalArgumentException("Upload without a file");
+		try {
+			FileInputStream in = new FileInputStream(file);
+			try {
+				return newUploader(uri).upload(in, file.length(), listener);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new MarkLogicIOException("Could not upload "+file+" to "+uri, e);
+		}
+	}
+	@Override
+	public long upload(String uri, InputStream content, UploadListener listener) {
+		return newUploader(uri).upload(content, -1, listener);
+	}
+	private BinaryUploader newUploader(String uri) {
+		return new BinaryUploader(getServices(), getHandleRegistry(), uri, uploadChunkLength, uploadThreadCount);
+	}
+
 	protected RequestParameters getWriteParams() {
 		if (metadataExtraction == null || metadataExtraction == MetadataExtraction.NONE)
 			return null;
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.ResourceNotFoundException;
+import com.marklogic.client.document.DocumentDescriptor;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.InputStreamHandle;
+import com.marklogic.client.util.BufferPool;
+import com.marklogic.client.util.RequestParameters;
+
+/**
+ * Downloads a binary document as byte ranges requested concurrently
+ * over the pooled connections of the client.  When the server reports
+ * the version of the document, each range must come from the version
+ * reported before the download started.
+ */
+class BinaryDownloader {
+	static final private Logger logger = LoggerFactory.getLogger(BinaryDownloader.class);
+
+	static final private int COPY_BUFFER_LENGTH = 64 * 1024;
+
+	static final private AtomicInteger downloadCounter = new AtomicInteger();
+
+	private RESTServices services;
+	private String       uri;
+	private int          segmentLength;
+	private int          threadCount;
+	private long         version = DocumentDescriptor.UNKNOWN_VERSION;
+
+	BinaryDownloader(RESTServices services, String uri, int segmentLength, int threadCount) {
+		super();
+		if (uri == null)
+			throw new IllegalArgumentException("Download without a document uri");
+		this.services      = services;
+		this.uri           = uri;
+		this.segmentLength = segmentLength;
+		this.threadCount   = threadCount;
+	}
+
+	long download(final FileChannel channel) {
+		long length = getLength();
+		if (length == 0)
+			return 0;
+		if (length == DocumentDescriptor.UNKNOWN_LENGTH) {
+			if (logger.isDebugEnabled())
+				logger.debug("Downloading {} in one request without a known length", uri);
+			return copy(readRange(0, -1), channel, 0, -1);
+		}
+
+		int segmentCount = getSegmentCount(length);
+		if (logger.isInfoEnabled())
+			logger.info("Downloading {} bytes of {} in {} segments", new Object[]{length, uri, segmentCount});
+
+		long startTime = System.currentTimeMillis();
+		ExecutorService executor = newExecutor(Math.min(threadCount, segmentCount));
+		List<Future<Long>> futures = new ArrayList<Future<Long>>(segmentCount);
+		try {
+			for (long start=0; start < length; start += segmentLength) {
+				final long segmentStart  = start;
+				final int  rangeLength   = (int) Math.min(segmentLength, length - start);
+				futures.add(executor.submit(new Callable<Long>() {
+					@Override
+					public Long call() {
+						return copy(readRange(segmentStart, rangeLength), channel, segmentStart, rangeLength);
+					}
+				}));
+			}
+			for (Future<Long> future: futures) {
+				await(future);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		if (logger.isDebugEnabled())
+			logger.debug("Downloaded {} in {} ms", uri, System.currentTimeMillis() - startTime);
+
+		return length;
+	}
+
+	InputStream download() {
+		long length = getLength();
+		if (length == DocumentDescriptor.UNKNOWN_LENGTH) {
+			if (logger.isDebugEnabled())
+				logger.debug("Streaming {} in one request without a known length", uri);
+			return readRange(0, -1);
+		}
+		return new SegmentInputStream(length);
+	}
+
+	private long getLength() {
+		DocumentDescriptor desc = services.head(null, uri, null);
+		if (desc == null)
+			throw new ResourceNotFoundException("Could not download missing document: "+uri);
+		version = desc.getVersion();
+		return desc.getByteLength();
+	}
+	private int getSegmentCount(long length) {
+		long count = (length + segmentLength - 1) / segmentLength;
+		return (count < Integer.MAX_VALUE) ? (int) count : Integer.MAX_VALUE;
+	}
+
+	// requests the range directly to skip the logging of each read by the document manager
+	private InputStream readRange(long start, int length) {
+		RequestParameters params = null;
+		if (length >= 0) {
+			params = new RequestParameters();
+			params.put("range", "bytes="+start+"-"+(start + length - 1));
+		}
+		// an external descriptor receives the version of the range without sending a version
+		DocumentDescriptorImpl desc = new DocumentDescriptorImpl(uri, false);
+		InputStreamHandle handle = new InputStreamHandle().withFormat(Format.BINARY);
+		services.getDocument(null, desc, null, null, params, null, handle);
+		InputStream in = handle.get();
+		if (in == null)
+			throw new MarkLogicIOException("No content for range at "+start+" of "+uri);
+		if (version != DocumentDescriptor.UNKNOWN_VERSION && desc.getVersion() != version) {
+			close(in);
+			throw new MarkLogicIOException("Document changed during download from version "+
+					version+" to "+desc.getVersion()+" at range "+start+" of "+uri);
+		}
+		return in;
+	}
+
+	// writes at the absolute position so segments can be written concurrently
+	private long copy(InputStream in, FileChannel channel, long start, int length) {
+		byte[] buffer = BufferPool.acquire(COPY_BUFFER_LENGTH);
+		try {
+			long position = start;
+			int len = 0;
+			while ((len = in.read(buffer)) != -1) {
+				if (length >= 0 && position + len > start + length)
+					throw new MarkLogicIOException("Received more than "+length+" bytes for range at "+start+" of "+uri);
+				ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, len);
+				while (bytes.hasRemaining()) {
+					position += channel.write(bytes, position);
+				}
+			}
+			long count = position - start;
+			if (length >= 0 && count != length)
+				throw new MarkLogicIOException("Received "+count+" instead of "+length+" bytes for range at "+start+" of "+uri);
+			return count;
+		} catch (IOException e) {
+			throw new MarkLogicIOException("Could not write range at "+start+" of "+uri, e);
+		} finally {
+			BufferPool.release(buffer);
+			close(in);
+		}
+	}
+	private byte[] readSegment(long start, int length) {
+		InputStream in = readRange(start, length);
+		try {
+			byte[] content = BufferPool.readBytes(in, length);
+			if (content.length != length)
+				throw new MarkLogicIOException("Received "+content.length+" instead of "+length+" bytes for range at "+start+" of "+uri);
+			return content;
+		} catch (IOException e) {
+			throw new MarkLogicIOException("Could not read range at "+start+" of "+uri, e);
+		} finally {
+			close(in);
+		}
+	}
+
+	private ExecutorService newExecutor(int size) {
+		int downloadNumber = downloadCounter.incrementAndGet();
+		return ClientThreads.newFixedThreadPool(Math.max(size, 1),
+				"marklogic-download-"+downloadNumber+"-");
+	}
+	private <T> T await(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MarkLogicIOException("Interrupted while downloading "+uri, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new MarkLogicIOException("Could not download "+uri, cause);
+		}
+	}
+	static private void close(InputStream in) {
+		try {
+			in.close();
+		} catch (IOException e) {
+			logger.warn("Could not close range stream", e);
+		}
+	}
+
+	// returns the segments in order while the following segments are read ahead
+	private class SegmentInputStream extends InputStream {
+		private long                       length;
+		private long                       nextStart = 0;
+		private LinkedList<Future<byte[]>> pending   = new LinkedList<Future<byte[]>>();
+		private ExecutorService            executor;
+		private byte[]                     current;
+		private int                        position  = 0;
+		private boolean                    closed    = false;
+
+		SegmentInputStream(long length) {
+			super();
+			this.length = length;
+			int readAhead = Math.min(threadCount, getSegmentCount(length));
+			executor = newExecutor(readAhead);
+			for (int i=0; i < readAhead; i++) {
+				schedule();
+			}
+		}
+
+		private void schedule() {
+			if (nextStart >= length)
+				return;
+			final long segmentStart  = nextStart;
+			final int  rangeLength   = (int) Math.min(segmentLength, length - nextStart);
+			nextStart += rangeLength;
+			pending.add(executor.submit(new Callable<byte[]>() {
+				@Override
+				public byte[] call() {
+					return readSegment(segmentStart, rangeLength);
+				}
+			}));
+		}
+		// returns false at the end of the document
+		private boolean fill() throws IOException {
+			while (current == null || position == current.length) {
+				Future<byte[]> next = pending.poll();
+				if (next == null) {
+					close();
+					return false;
+				}
+				try {
+					current = await(next);
+				} catch (RuntimeException e) {
+					close();
+					throw new IOException("Could not download "+uri, e);
+				}
+				position = 0;
+				schedule();
+			}
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (current == null || position == current.length) {
+				if (closed || !fill())
+					return -1;
+			}
+			return current[position++] & 0xFF;
+		}
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			if (current == null || position == current.length) {
+				if (closed || !fill())
+					return -1;
+			}
+			int count = Math.min(len, current.length - position);
+			System.arraycopy(current, position, b, off, count);
+			position += count;
+			return count;
+		}
+		@Override
+		public int available() {
+			return (current == null) ? 0 : current.length - position;
+		}
+		@Override
+		public void close() {
+			if (closed)
+				return;
+			closed = true;
+			for (Future<byte[]> future: pending) {
+				future.cancel(true);
+			}
+			pending.clear();
+			current = null;
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.marklogic.client.DatabaseClientFactory.HandleFactoryRegistry;
+import com.marklogic.client.ForbiddenUserException;
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.document.BinaryDocumentManager.UploadListener;
+import com.marklogic.client.document.DocumentDescriptor;
+import com.marklogic.client.eval.EvalResultIterator;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.Format;
+
+/**
+ * Uploads a binary document as chunks staged concurrently with retries
+ * for each chunk and then assembles the chunks on the server.  The uri
+ * of each chunk ends with the SHA-1 digest of its content, so an upload
+ * reuses only the chunks staged for the same content.
+ */
+class BinaryUploader {
+	static final private Logger logger = LoggerFactory.getLogger(BinaryUploader.class);
+
+	static final private String CHUNK_DIRECTORY = ".chunks/";
+
+	static final private char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	static final private int  MAX_RETRIES = 3;
+	static final private long RETRY_DELAY = 250;
+
+	// copies the staged chunks into one buffer for the document and deletes every chunk
+	// in the chunk directory, including chunks left by earlier uploads, in one transaction;
+	// the buffer is allocated once at the total length so the server holds the content
+	// about once instead of converting it to text
+	static final private String ASSEMBLE_SCRIPT =
+		"declareUpdate();\n"+
+		"var uri;\n"+
+		"var chunkPrefix;\n"+
+		"var chunkNames;\n"+
+		"var chunkUris = chunkNames.split(\" \")\n"+
+		"  .filter(function(name) { return name.length > 0; })\n"+
+		"  .map(function(name) { return chunkPrefix + name; });\n"+
+		"var length = 0;\n"+
+		"chunkUris.forEach(function(chunkUri) {\n"+
+		"  var chunk = cts.doc(chunkUri);\n"+
+		"  if (chunk === null)\n"+
+		"    fn.error(null, \"RESTAPI-INVALIDREQ\", \"missing chunks for \" + uri);\n"+
+		"  length += xdmp.binarySize(chunk.root);\n"+
+		"});\n"+
+		"var content = new Uint8Array(length);\n"+
+		"var offset  = 0;\n"+
+		"chunkUris.forEach(function(chunkUri) {\n"+
+		"  var bytes = new Uint8Array(cts.doc(chunkUri).root.toObject());\n"+
+		"  content.set(bytes, offset);\n"+
+		"  offset += bytes.length;\n"+
+		"});\n"+
+		"var builder = new NodeBuilder();\n"+
+		"builder.startDocument();\n"+
+		"builder.addBinary(content.buffer);\n"+
+		"builder.endDocument();\n"+
+		"xdmp.documentInsert(uri, builder.toNode());\n"+
+		"for (var chunk of xdmp.directory(chunkPrefix, \"1\")) {\n"+
+		"  xdmp.documentDelete(xdmp.nodeUri(chunk));\n"+
+		"}";
+
+	static final private AtomicInteger uploadCounter = new AtomicInteger();
+
+	private RESTServices          services;
+	private HandleFactoryRegistry handleRegistry;
+	private String                uri;
+	private int                   chunkLength;
+	private int                   threadCount;
+
+	BinaryUploader(RESTServices services, HandleFactoryRegistry handleRegistry, String uri,
+			int chunkLength, int threadCount) {
+		super();
+		if (uri == null)
+			throw new IllegalArgumentException("Upload without a document uri");
+		this.services       = services;
+		this.handleRegistry = handleRegistry;
+		this.uri            = uri;
+		this.chunkLength    = chunkLength;
+		this.threadCount    = threadCount;
+	}
+
+	// reads the chunks in the calling thread, which also notifies the listener
+	long upload(InputStream content, long totalLength, UploadListener listener) {
+		if (content == null)
+			throw new IllegalArgumentException("Upload without content for "+uri);
+
+		String chunkPrefix = uri + CHUNK_DIRECTORY;
+		if (logger.isInfoEnabled())
+			logger.info("Uploading {} in chunks of {} bytes", uri, chunkLength);
+
+		long startTime = System.currentTimeMillis();
+		ExecutorService executor = newExecutor();
+		LinkedList<Future<Integer>> pending = new LinkedList<Future<Integer>>();
+		StringBuilder chunkNames = new StringBuilder();
+		int  chunkCount = 0;
+		long uploaded   = 0;
+		try {
+			byte[] chunk = null;
+			while ((chunk = readChunk(content)) != null) {
+				if (pending.size() >= threadCount) {
+					uploaded += await(pending.poll());
+					notify(listener, uploaded, totalLength);
+				}
+				String chunkName = (chunkCount++) + "-" + digest(chunk);
+				if (chunkNames.length() > 0)
+					chunkNames.append(' ');
+				chunkNames.append(chunkName);
+				final String chunkUri     = chunkPrefix + chunkName;
+				final byte[] chunkContent = chunk;
+				pending.add(executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() {
+						return writeChunk(chunkUri, chunkContent);
+					}
+				}));
+			}
+			while (!pending.isEmpty()) {
+				uploaded += await(pending.poll());
+				notify(listener, uploaded, totalLength);
+			}
+		} catch (IOException e) {
+			throw new MarkLogicIOException("Could not read content to upload for "+uri, e);
+		} finally {
+			for (Future<Integer> future: pending) {
+				future.cancel(true);
+			}
+			executor.shutdownNow();
+		}
+
+		assemble(chunkPrefix, chunkNames.toString());
+
+		if (logger.isDebugEnabled())
+			logger.debug("Uploaded {} bytes of {} in {} chunks in {} ms",
+					new Object[]{uploaded, uri, chunkCount, System.currentTimeMillis() - startTime});
+
+		return uploaded;
+	}
+
+	// returns null at the end of the content
+	private byte[] readChunk(InputStream content) throws IOException {
+		byte[] chunk = new byte[chunkLength];
+		int count = 0;
+		while (count < chunk.length) {
+			int len = content.read(chunk, count, chunk.length - count);
+			if (len == -1)
+				break;
+			count += len;
+		}
+		if (count == 0)
+			return null;
+		return (count == chunk.length) ? chunk : Arrays.copyOf(chunk, count);
+	}
+
+	static private String digest(byte[] chunk) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-1").digest(chunk);
+			char[] hex = new char[2 * hash.length];
+			for (int i=0; i < hash.length; i++) {
+				hex[2 * i]     = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+				hex[2 * i + 1] = HEX_DIGITS[hash[i] & 0xF];
+			}
+			return new String(hex);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-1 is not available", e);
+		}
+	}
+
+	// skips a chunk staged by an earlier attempt so an interrupted upload can resume;
+	// the digest in the chunk uri means a staged chunk has the same content
+	private int writeChunk(String chunkUri, byte[] chunk) {
+		for (int retry=0; ; retry++) {
+			try {
+				DocumentDescriptor staged = services.head(null, chunkUri, null);
+				if (staged != null && staged.getByteLength() == chunk.length) {
+					if (logger.isDebugEnabled())
+						logger.debug("Reusing staged chunk {}", chunkUri);
+					return chunk.length;
+				}
+				services.putDocument(null, new DocumentDescriptorImpl(chunkUri, true), null, null, null,
+						null, new BytesHandle(chunk).withFormat(Format.BINARY));
+				return chunk.length;
+			} catch (ForbiddenUserException e) {
+				throw e;
+			} catch (RuntimeException e) {
+				if (retry >= MAX_RETRIES)
+					throw e;
+				logger.warn("Retrying chunk {} after failure: {}", chunkUri, e.getMessage());
+				try {
+					Thread.sleep(RETRY_DELAY * (retry + 1));
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw new MarkLogicIOException("Interrupted while uploading "+chunkUri, ie);
+				}
+			}
+		}
+	}
+
+	private void assemble(String chunkPrefix, String chunkNames) {
+		EvalResultIterator results = new ServerEvaluationCallImpl(services, handleRegistry)
+			.javascript(ASSEMBLE_SCRIPT)
+			.addVariable("uri",         uri)
+			.addVariable("chunkPrefix", chunkPrefix)
+			.addVariable("chunkNames",  chunkNames)
+			.eval();
+		results.close();
+	}
+
+	private void notify(UploadListener listener, long uploaded, long totalLength) {
+		if (listener != null)
+			listener.uploaded(uri, uploaded, totalLength);
+	}
+
+	private ExecutorService newExecutor() {
+		int uploadNumber = uploadCounter.incrementAndGet();
+		return ClientThreads.newFixedThreadPool(threadCount,
+				"marklogic-upload-"+uploadNumber+"-");
+	}
+	private int await(Future<Integer> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MarkLogicIOException("Interrupted while uploading "+uri, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new MarkLogicIOException("Could not upload "+uri, cause);
+		}
+	}
+}
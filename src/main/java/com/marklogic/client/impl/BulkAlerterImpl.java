@@ -0,0 +1,451 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.MarkLogicInternalException;
+import com.marklogic.client.RequestConstants;
+import com.marklogic.client.alerting.RuleDefinition;
+import com.marklogic.client.bulk.BatchSummary;
+import com.marklogic.client.bulk.BulkAlerter;
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.marker.AbstractWriteHandle;
+import com.marklogic.client.io.marker.StructureWriteHandle;
+import com.marklogic.client.query.QueryDefinition;
+import com.marklogic.client.util.XMLFactories;
+
+class BulkAlerterImpl
+	extends BulkOperationImpl
+	implements BulkAlerter
+{
+	static final private Logger logger = LoggerFactory.getLogger(BulkAlerterImpl.class);
+
+	final static private String[] NO_RULES = new String[0];
+
+	// the most rule parameters sent in the URL of a content match
+	final static private int MAX_URL_RULES_LENGTH = 2048;
+
+	private RuleManagerImpl ruleMgr;
+	private String[]        candidateRules;
+	private MatchListener   matchListener;
+
+	BulkAlerterImpl(RESTServices services) {
+		super(services);
+		ruleMgr = new RuleManagerImpl(services);
+	}
+
+	@Override
+	public String[] getCandidateRules() {
+		return candidateRules;
+	}
+	@Override
+	public void setCandidateRules(String... ruleNames) {
+		this.candidateRules = (ruleNames == null || ruleNames.length == 0) ? null : ruleNames;
+	}
+
+	@Override
+	public MatchListener getMatchListener() {
+		return matchListener;
+	}
+	@Override
+	public void setMatchListener(MatchListener listener) {
+		this.matchListener = listener;
+	}
+
+	@Override
+	public BatchSummary writeRules(Iterator<RuleDefinition> rules) {
+		if (rules == null)
+			throw new IllegalArgumentException("null rule iterator");
+
+		if (logger.isInfoEnabled())
+			logger.info("Writing rules in batches");
+
+		Job job = new Job();
+		try {
+			List<RuleDefinition> batchRules = new ArrayList<RuleDefinition>();
+			while (rules.hasNext()) {
+				RuleDefinition rule = rules.next();
+				if (rule == null)
+					continue;
+				if (rule.getName() == null)
+					throw new IllegalArgumentException("Cannot write rule without name");
+				batchRules.add(rule);
+				if (batchRules.size() >= job.getBatchSize()) {
+					submitRules(job, batchRules);
+					batchRules.clear();
+				}
+			}
+			if (batchRules.size() > 0)
+				submitRules(job, batchRules);
+			return job.finish();
+		} finally {
+			job.close();
+		}
+	}
+	private void submitRules(Job job, List<RuleDefinition> batchRules) {
+		RuleDefinition[] rules = batchRules.toArray(new RuleDefinition[batchRules.size()]);
+		String[] names = new String[rules.length];
+		for (int i=0; i < rules.length; i++) {
+			names[i] = rules[i].getName();
+		}
+		job.submit(new RuleBatch(job.nextBatchNumber(), names, rules));
+	}
+
+	@Override
+	public BatchSummary match(QueryDefinition querydef) {
+		if (querydef == null)
+			throw new IllegalArgumentException("null query for bulk match");
+
+		if (logger.isInfoEnabled())
+			logger.info("Matching documents for query against rules in batches");
+
+		String[]      rules    = getRules();
+		MatchListener listener = matchListener;
+
+		Job job = new Job();
+		try {
+			// reads the next page of uris while the batches of the previous page run
+			long pageLength = (long) job.getBatchSize() * job.getThreadCount();
+			for (long start=1; ; start += pageLength) {
+				String[] uris = SearchUriReader.readUris(getServices(), null,
+						querydef, start, pageLength, null);
+				for (int i=0; i < uris.length; ) {
+					int end = Math.min(uris.length, i + job.getBatchSize());
+					String[] batchUris = new String[end - i];
+					System.arraycopy(uris, i, batchUris, 0, batchUris.length);
+					job.submit(new MatchBatch(job.nextBatchNumber(), batchUris, rules, listener));
+					i = end;
+				}
+				if (uris.length < pageLength)
+					break;
+			}
+			return job.finish();
+		} finally {
+			job.close();
+		}
+	}
+	@Override
+	public BatchSummary match(Iterator<String> uris) {
+		if (uris == null)
+			throw new IllegalArgumentException("null uri iterator");
+
+		if (logger.isInfoEnabled())
+			logger.info("Matching documents by uri against rules in batches");
+
+		String[]      rules    = getRules();
+		MatchListener listener = matchListener;
+
+		Job job = new Job();
+		try {
+			List<String> batchUris = new ArrayList<String>();
+			while (uris.hasNext()) {
+				String uri = uris.next();
+				if (uri == null)
+					continue;
+				batchUris.add(uri);
+				if (batchUris.size() >= job.getBatchSize()) {
+					job.submit(new MatchBatch(job.nextBatchNumber(),
+							batchUris.toArray(new String[batchUris.size()]), rules, listener));
+					batchUris.clear();
+				}
+			}
+			if (batchUris.size() > 0)
+				job.submit(new MatchBatch(job.nextBatchNumber(),
+						batchUris.toArray(new String[batchUris.size()]), rules, listener));
+			return job.finish();
+		} finally {
+			job.close();
+		}
+	}
+	@Override
+	public BatchSummary matchContent(Iterator<DocumentWriteOperation> documents) {
+		if (documents == null)
+			throw new IllegalArgumentException("null document iterator");
+
+		if (logger.isInfoEnabled())
+			logger.info("Matching document content against rules in batches");
+
+		String[]      rules    = getRules();
+		MatchListener listener = matchListener;
+
+		// the content is the body of the request, so the rules go in the URL
+		// unless there are too many, in which case the matches are filtered here
+		Set<String> ruleFilter = null;
+		if (encodedLength(rules) > MAX_URL_RULES_LENGTH) {
+			ruleFilter = new HashSet<String>(Arrays.asList(rules));
+			rules      = NO_RULES;
+		}
+
+		Job job = new Job();
+		try {
+			List<DocumentWriteOperation> batchDocs = new ArrayList<DocumentWriteOperation>();
+			while (documents.hasNext()) {
+				DocumentWriteOperation doc = documents.next();
+				if (doc == null)
+					continue;
+				if (doc.getUri() == null)
+					throw new IllegalArgumentException("Cannot match document without uri");
+				batchDocs.add(doc);
+				if (batchDocs.size() >= job.getBatchSize()) {
+					submitContent(job, batchDocs, rules, ruleFilter, listener);
+					batchDocs.clear();
+				}
+			}
+			if (batchDocs.size() > 0)
+				submitContent(job, batchDocs, rules, ruleFilter, listener);
+			return job.finish();
+		} finally {
+			job.close();
+		}
+	}
+	private void submitContent(Job job, List<DocumentWriteOperation> batchDocs,
+			String[] rules, Set<String> ruleFilter, MatchListener listener) {
+		DocumentWriteOperation[] docs =
+			batchDocs.toArray(new DocumentWriteOperation[batchDocs.size()]);
+		String[] uris = new String[docs.length];
+		for (int i=0; i < docs.length; i++) {
+			uris[i] = docs[i].getUri();
+		}
+		job.submit(new ContentBatch(job.nextBatchNumber(), uris, docs, rules, ruleFilter, listener));
+	}
+	static private int encodedLength(String[] rules) {
+		try {
+			int length = 0;
+			for (String rule: rules) {
+				length += URLEncoder.encode(rule, "UTF-8").length() + 6;
+			}
+			return length;
+		} catch (UnsupportedEncodingException e) {
+			throw new MarkLogicInternalException("UTF-8 is unsupported", e);
+		}
+	}
+
+	private String[] getRules() {
+		String[] rules = candidateRules;
+		return (rules == null) ? NO_RULES : rules.clone();
+	}
+
+	@Override
+	void processBatch(BatchImpl batch) {
+		if (batch instanceof RuleBatch)
+			processRules((RuleBatch) batch);
+		else if (batch instanceof MatchBatch)
+			processMatch((MatchBatch) batch);
+		else if (batch instanceof ContentBatch)
+			processContent((ContentBatch) batch);
+		else
+			throw new MarkLogicInternalException("Unknown batch for alerting");
+	}
+
+	private void processRules(RuleBatch batch) {
+		for (RuleDefinition rule: batch.rules) {
+			try {
+				ruleMgr.writeRule(rule);
+			} catch (RuntimeException e) {
+				batch.fail(rule.getName(), e);
+			}
+		}
+	}
+
+	private void processMatch(MatchBatch batch) {
+		String[] uris = batch.getUris();
+
+		// the server reports the rules matched by the batch as a whole,
+		// so the common case of a batch that matches nothing takes one request
+		String[] matched = readRuleNames(getServices().postMatch(uris, batch.rules, null));
+		if (matched.length > 0)
+			narrowMatch(batch, uris, 0, uris.length, matched);
+	}
+	// attributes the matches of a range of uris by bisecting the range, narrowing
+	// the rules of each half to those matched by the range as a whole
+	private void narrowMatch(MatchBatch batch, String[] uris, int from, int to, String[] matched) {
+		if (to - from == 1) {
+			notifyMatch(batch.listener, uris[from], matched);
+			return;
+		}
+
+		int      middle      = from + (to - from) / 2;
+		String[] leftMatched = matchRange(batch, uris, from, middle, matched);
+		if (leftMatched != null && leftMatched.length > 0)
+			narrowMatch(batch, uris, from, middle, leftMatched);
+
+		// when the left half matches nothing, the right half matches every rule
+		String[] rightMatched = (leftMatched != null && leftMatched.length == 0) ?
+				matched : matchRange(batch, uris, middle, to, matched);
+		if (rightMatched != null && rightMatched.length > 0)
+			narrowMatch(batch, uris, middle, to, rightMatched);
+	}
+	// returns null after failing the range if the request fails
+	private String[] matchRange(MatchBatch batch, String[] uris, int from, int to, String[] rules) {
+		String[] rangeUris = new String[to - from];
+		System.arraycopy(uris, from, rangeUris, 0, rangeUris.length);
+		try {
+			return readRuleNames(getServices().postMatch(rangeUris, rules, null));
+		} catch (RuntimeException e) {
+			for (String uri: rangeUris) {
+				batch.fail(uri, e);
+			}
+			return null;
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private void processContent(ContentBatch batch) {
+		for (DocumentWriteOperation doc: batch.documents) {
+			String uri = doc.getUri();
+			try {
+				AbstractWriteHandle content = doc.getContent();
+				if (!(content instanceof StructureWriteHandle))
+					throw new IllegalArgumentException(
+							"Cannot match content that is not JSON or XML for "+uri);
+
+				HandleImplementation contentBase = HandleAccessor.checkHandle(content, "match");
+				Format contentFormat = contentBase.getFormat();
+				switch (contentFormat) {
+				case UNKNOWN:
+					contentFormat = Format.XML;
+					break;
+				case JSON:
+				case XML:
+					break;
+				default:
+					throw new IllegalArgumentException(
+							"Cannot match content that is not JSON or XML for "+uri);
+				}
+
+				String[] matched = readRuleNames(getServices().match(
+						(StructureWriteHandle) content, batch.rules,
+						contentFormat.getDefaultMimetype(), null));
+				if (batch.ruleFilter != null)
+					matched = filterRules(matched, batch.ruleFilter);
+				if (matched.length > 0)
+					notifyMatch(batch.listener, uri, matched);
+			} catch (RuntimeException e) {
+				batch.fail(uri, e);
+			}
+		}
+	}
+
+	static private String[] filterRules(String[] matched, Set<String> ruleFilter) {
+		List<String> filtered = new ArrayList<String>(matched.length);
+		for (String rule: matched) {
+			if (ruleFilter.contains(rule))
+				filtered.add(rule);
+		}
+		return filtered.toArray(new String[filtered.size()]);
+	}
+
+	private void notifyMatch(MatchListener listener, String uri, String[] ruleNames) {
+		if (listener == null)
+			return;
+		try {
+			listener.matched(uri, ruleNames);
+		} catch (RuntimeException e) {
+			logger.warn("Match listener failed for "+uri, e);
+		}
+	}
+
+	// reads only the rule names from a rule list without building the rule model
+	static String[] readRuleNames(InputStream stream) {
+		if (stream == null)
+			return NO_RULES;
+
+		Set<String> names = new LinkedHashSet<String>();
+		try {
+			XMLStreamReader reader = XMLFactories.getInputFactory().createXMLStreamReader(stream);
+			try {
+				int depth = 0;
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						depth++;
+						// only the name children of the rule elements
+						if (depth == 3 && "name".equals(reader.getLocalName()) &&
+								RequestConstants.RESTAPI_NS.equals(reader.getNamespaceURI())) {
+							names.add(reader.getElementText().trim());
+							depth--;
+						}
+					} else if (event == XMLStreamConstants.END_ELEMENT) {
+						depth--;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new MarkLogicIOException("Could not read rule names from match response", e);
+		} finally {
+			try {
+				stream.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+
+		return names.toArray(new String[names.size()]);
+	}
+
+	static private class RuleBatch extends BatchImpl {
+		final private RuleDefinition[] rules;
+		RuleBatch(long batchNumber, String[] names, RuleDefinition[] rules) {
+			super(batchNumber, names);
+			this.rules = rules;
+		}
+	}
+	static private class MatchBatch extends BatchImpl {
+		final private String[]      rules;
+		final private MatchListener listener;
+		MatchBatch(long batchNumber, String[] uris, String[] rules, MatchListener listener) {
+			super(batchNumber, uris);
+			this.rules    = rules;
+			this.listener = listener;
+		}
+	}
+	static private class ContentBatch extends BatchImpl {
+		final private DocumentWriteOperation[] documents;
+		final private String[]                 rules;
+		final private Set<String>              ruleFilter;
+		final private MatchListener            listener;
+		ContentBatch(long batchNumber, String[] uris, DocumentWriteOperation[] documents,
+				String[] rules, Set<String> ruleFilter, MatchListener listener) {
+			super(batchNumber, uris);
+			this.documents  = documents;
+			this.rules      = rules;
+			this.ruleFilter = ruleFilter;
+			this.listener   = listener;
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.marklogic.client.FailedRequestException;
+import com.marklogic.client.bulk.BatchSummary;
+import com.marklogic.client.bulk.BulkDeleter;
+import com.marklogic.client.query.QueryDefinition;
+
+class BulkDeleterImpl
+	extends BulkOperationImpl
+	implements BulkDeleter
+{
+	static final private Logger logger = LoggerFactory.getLogger(BulkDeleterImpl.class);
+
+	BulkDeleterImpl(RESTServices services) {
+		super(services);
+	}
+
+	@Override
+	public BatchSummary delete(QueryDefinition querydef) {
+		if (querydef == null)
+			throw new IllegalArgumentException("null query for bulk delete");
+
+		if (logger.isInfoEnabled())
+			logger.info("Deleting documents matching query in batches");
+
+		Job job = new Job();
+		try {
+			// deleting shifts the following results forward, so every round reads
+			// from the first result and skips the documents that failed to delete,
+			// which can be anywhere in the results
+			Set<String> failedUris = job.trackFailedUris();
+			long pageLength = (long) job.getBatchSize() * job.getThreadCount();
+			long start = 1;
+			String[] previous = null;
+			while (true) {
+				String[] uris = SearchUriReader.readUris(getServices(), null,
+						querydef, start, pageLength, null);
+				if (uris.length == 0)
+					break;
+
+				List<String> pending = new ArrayList<String>(uris.length);
+				for (String uri: uris) {
+					if (!failedUris.contains(uri))
+						pending.add(uri);
+				}
+				if (pending.isEmpty()) {
+					// a page of known failures, so any other documents follow it
+					if (uris.length < pageLength)
+						break;
+					start += uris.length;
+					continue;
+				}
+
+				String[] batch = pending.toArray(new String[pending.size()]);
+				if (previous != null && Arrays.equals(previous, batch))
+					throw new FailedRequestException(
+							"Documents matching the query remain after delete beginning with "+batch[0]);
+
+				job.submitAll(batch);
+				job.awaitIdle();
+
+				previous = batch;
+				start    = 1;
+			}
+			return job.finish();
+		} finally {
+			job.close();
+		}
+	}
+
+	@Override
+	public BatchSummary delete(Iterator<String> uris) {
+		if (logger.isInfoEnabled())
+			logger.info("Deleting documents by uri in batches");
+
+		return process(uris);
+	}
+
+	@Override
+	void processBatch(BatchImpl batch) {
+		String[] uris = batch.getUris();
+		deleteRange(batch, uris, 0, uris.length);
+	}
+	// a delete of many uris succeeds or fails as a whole, so a range that fails
+	// is bisected until only the uris that cannot be deleted fail
+	private void deleteRange(BatchImpl batch, String[] uris, int from, int to) {
+		try {
+			getServices().delete(null, null, Arrays.copyOfRange(uris, from, to));
+		} catch (RuntimeException e) {
+			if (to - from == 1) {
+				batch.fail(uris[from], e);
+				return;
+			}
+			if (logger.isDebugEnabled())
+				logger.debug("Bisecting {} uris of batch {} after failure",
+						to - from, batch.getBatchNumber());
+			int middle = from + (to - from) / 2;
+			deleteRange(batch, uris, from, middle);
+			deleteRange(batch, uris, middle, to);
+		}
+	}
+}
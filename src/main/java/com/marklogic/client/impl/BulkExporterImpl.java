@@ -0,0 +1,283 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.bulk.BulkExporter;
+import com.marklogic.client.bulk.ExportIterator;
+import com.marklogic.client.document.DocumentManager.Metadata;
+import com.marklogic.client.document.DocumentPage;
+import com.marklogic.client.document.DocumentRecord;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.query.QueryDefinition;
+
+class BulkExporterImpl implements BulkExporter {
+	static final private Logger logger = LoggerFactory.getLogger(BulkExporterImpl.class);
+
+	static final private AtomicInteger exportCounter = new AtomicInteger();
+
+	private RESTServices services;
+	private int          pageLength    = DEFAULT_PAGE_LENGTH;
+	private int          prefetchPages = DEFAULT_PREFETCH_PAGES;
+
+	BulkExporterImpl(RESTServices services) {
+		super();
+		this.services = services;
+	}
+
+	@Override
+	public int getPageLength() {
+		return pageLength;
+	}
+	@Override
+	public void setPageLength(int pageLength) {
+		if (pageLength < 1)
+			throw new IllegalArgumentException("page length must be at least 1: "+pageLength);
+		this.pageLength = pageLength;
+	}
+
+	@Override
+	public int getPrefetchPages() {
+		return prefetchPages;
+	}
+	@Override
+	public void setPrefetchPages(int prefetchPages) {
+		if (prefetchPages < 1)
+			throw new IllegalArgumentException("prefetch pages must be at least 1: "+prefetchPages);
+		this.prefetchPages = prefetchPages;
+	}
+
+	@Override
+	public ExportIterator<String> exportUris(final QueryDefinition querydef) {
+		if (querydef == null)
+			throw new IllegalArgumentException("null query for export");
+
+		PrefetchIterator<String> iterator = new PrefetchIterator<String>(pageLength, prefetchPages) {
+			@Override
+			ExportPage<String> readPage(int source, long start, long length) {
+				String[] uris = SearchUriReader.readUris(services, null,
+						querydef, start, length, null);
+				return new ExportPage<String>(Arrays.asList(uris).iterator(), uris.length, null);
+			}
+		};
+		iterator.start();
+		return iterator;
+	}
+
+	@Override
+	public ExportIterator<DocumentRecord> exportMetadata(final QueryDefinition querydef,
+			Metadata... categories) {
+		if (querydef == null)
+			throw new IllegalArgumentException("null query for export");
+
+		final Set<Metadata> categorySet = (categories == null || categories.length == 0) ?
+				EnumSet.of(Metadata.ALL) : EnumSet.copyOf(Arrays.asList(categories));
+
+		PrefetchIterator<DocumentRecord> iterator =
+			new PrefetchIterator<DocumentRecord>(pageLength, prefetchPages) {
+				@Override
+				ExportPage<DocumentRecord> readPage(int source, long start, long length) {
+					boolean withContent = false;
+					DocumentPage page = services.getBulkDocuments(null, querydef,
+							start, length, null, null, null, categorySet, Format.XML, null,
+							withContent);
+					if (page == null)
+						return new ExportPage<DocumentRecord>(
+								Collections.<DocumentRecord>emptyList().iterator(), 0, null);
+					return new ExportPage<DocumentRecord>(page.iterator(), (int) page.size(), page);
+				}
+			};
+		iterator.start();
+		return iterator;
+	}
+
+	static class ExportPage<T> {
+		final Iterator<T>  items;
+		final int          size;
+		final DocumentPage page;
+		boolean            isLast  = false;
+		RuntimeException   failure = null;
+
+		ExportPage(Iterator<T> items, int size, DocumentPage page) {
+			this.items = items;
+			this.size  = size;
+			this.page  = page;
+		}
+		void close() {
+			if (page != null)
+				page.close();
+		}
+	}
+
+	/**
+	 * Pages through one or more sources of pages on background threads into
+	 * a bounded queue so the consumer reads the pages of all sources as they
+	 * arrive. Each source ends with a last page, so the iterator finishes
+	 * after taking the last page of every source.
+	 */
+	static abstract class PrefetchIterator<T> implements ExportIterator<T> {
+		final private int                          sourceCount;
+		final private int                          length;
+		final private BlockingQueue<ExportPage<T>> pages;
+		final private ExecutorService              executor;
+
+		private volatile boolean closed        = false;
+		private ExportPage<T>    current       = null;
+		private int              finishedCount = 0;
+		private long             pageCount     = 0;
+
+		PrefetchIterator(int pageLength, int prefetchPages) {
+			this(1, 1, pageLength, prefetchPages, "marklogic-export-"+exportCounter.incrementAndGet()+"-");
+		}
+		PrefetchIterator(int sourceCount, int threadCount, int pageLength, int prefetchPages,
+				String threadPrefix) {
+			this.sourceCount = sourceCount;
+			this.length      = pageLength;
+			this.pages       = new ArrayBlockingQueue<ExportPage<T>>(prefetchPages);
+			this.executor    = ClientThreads.newFixedThreadPool(
+					Math.max(1, Math.min(threadCount, sourceCount)), threadPrefix);
+		}
+
+		abstract ExportPage<T> readPage(int source, long start, long length);
+
+		void start() {
+			for (int i=0; i < sourceCount; i++) {
+				final int source = i;
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						readPages(source);
+					}
+				});
+			}
+			// the threads end after the last source
+			executor.shutdown();
+		}
+
+		private void readPages(int source) {
+			ExportPage<T> page = null;
+			try {
+				for (long start=1; !closed; start += length) {
+					try {
+						page = readPage(source, start, length);
+					} catch (RuntimeException e) {
+						page = new ExportPage<T>(null, 0, null);
+						page.failure = e;
+					}
+					page.isLast = (page.failure != null || page.size < length);
+					if (logger.isDebugEnabled())
+						logger.debug("Read export page at {} with {} documents", start, page.size);
+
+					if (closed)
+						break;
+					pages.put(page);
+					boolean isLast = page.isLast;
+					page = null;
+					if (closed)
+						releasePages();
+					if (isLast)
+						break;
+				}
+			} catch (InterruptedException e) {
+				// closed by the consumer
+				releasePages();
+			} finally {
+				// a page read after the consumer closed the iterator never reaches the queue
+				if (page != null)
+					page.close();
+			}
+		}
+		private void releasePages() {
+			ExportPage<T> page = null;
+			while ((page = pages.poll()) != null) {
+				page.close();
+			}
+		}
+
+		@Override
+		public long getPageCount() {
+			return pageCount;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (true) {
+				if (current != null) {
+					if (current.items.hasNext())
+						return true;
+					current.close();
+					if (current.isLast)
+						finishedCount++;
+					current = null;
+				}
+				if (finishedCount >= sourceCount || closed)
+					return false;
+
+				ExportPage<T> page = null;
+				try {
+					page = pages.take();
+				} catch (InterruptedException e) {
+					close();
+					Thread.currentThread().interrupt();
+					throw new MarkLogicIOException("Interrupted while waiting for export page", e);
+				}
+				if (page.failure != null) {
+					close();
+					throw page.failure;
+				}
+				pageCount++;
+				current = page;
+			}
+		}
+		@Override
+		public T next() {
+			if (!hasNext())
+				throw new NoSuchElementException("no more exported items");
+			return current.items.next();
+		}
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("cannot remove exported items");
+		}
+
+		@Override
+		public void close() {
+			if (closed)
+				return;
+			closed = true;
+			executor.shutdownNow();
+			if (current != null) {
+				current.close();
+				current = null;
+			}
+			releasePages();
+		}
+	}
+}
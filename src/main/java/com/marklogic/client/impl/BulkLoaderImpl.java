@@ -0,0 +1,745 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.FileNameMap;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.bulk.BatchSummary;
+import com.marklogic.client.bulk.BulkLoader;
+import com.marklogic.client.document.DocumentUriTemplate;
+import com.marklogic.client.document.DocumentWriteSet;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.FileHandle;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.marker.AbstractWriteHandle;
+import com.marklogic.client.io.marker.DocumentMetadataWriteHandle;
+import com.marklogic.client.util.BufferPool;
+
+class BulkLoaderImpl
+	extends BulkOperationImpl
+	implements BulkLoader
+{
+	static final private Logger logger = LoggerFactory.getLogger(BulkLoaderImpl.class);
+
+	private DocumentUriTemplate         uriTemplate;
+	private UriMaker                    uriMaker;
+	private DocumentMetadataWriteHandle metadata;
+	private File                        checkpointFile;
+
+	BulkLoaderImpl(RESTServices services) {
+		super(services);
+	}
+
+	@Override
+	public DocumentUriTemplate getUriTemplate() {
+		return uriTemplate;
+	}
+	@Override
+	public void setUriTemplate(DocumentUriTemplate template) {
+		this.uriTemplate = template;
+	}
+
+	@Override
+	public UriMaker getUriMaker() {
+		return uriMaker;
+	}
+	@Override
+	public void setUriMaker(UriMaker uriMaker) {
+		this.uriMaker = uriMaker;
+	}
+
+	@Override
+	public DocumentMetadataWriteHandle getMetadata() {
+		return metadata;
+	}
+	@Override
+	public void setMetadata(DocumentMetadataWriteHandle metadata) {
+		this.metadata = metadata;
+	}
+
+	@Override
+	public File getCheckpointFile() {
+		return checkpointFile;
+	}
+	@Override
+	public void setCheckpointFile(File checkpointFile) {
+		this.checkpointFile = checkpointFile;
+	}
+
+	@Override
+	public BatchSummary loadDirectory(File directory) {
+		if (directory == null || !directory.isDirectory())
+			throw new IllegalArgumentException("not a directory: "+directory);
+
+		if (logger.isInfoEnabled())
+			logger.info("Loading files from directory {} in batches", directory);
+
+		return load(getSource(directory), new DirectoryReader(directory));
+	}
+	@Override
+	public BatchSummary loadArchive(File archive) {
+		if (archive == null || !archive.isFile())
+			throw new IllegalArgumentException("not an archive file: "+archive);
+
+		String name = archive.getName().toLowerCase();
+		boolean isZip = name.endsWith(".zip") || name.endsWith(".jar");
+		boolean isTar = name.endsWith(".tar");
+		boolean isGzippedTar = name.endsWith(".tar.gz") || name.endsWith(".tgz");
+		if (!isZip && !isTar && !isGzippedTar)
+			throw new IllegalArgumentException("unsupported archive extension: "+archive.getName());
+
+		if (logger.isInfoEnabled())
+			logger.info("Loading entries from archive {} in batches", archive);
+
+		InputStream in = null;
+		try {
+			in = new BufferedInputStream(new FileInputStream(archive));
+			EntryReader reader = null;
+			if (isZip) {
+				reader = new ZipReader(in);
+			} else if (isTar) {
+				reader = new TarReader(in);
+			} else {
+				reader = new TarReader(new GZIPInputStream(in));
+			}
+			return load(getSource(archive), reader);
+		} catch (IOException e) {
+			throw new MarkLogicIOException("Could not read archive "+archive, e);
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	private BatchSummary load(String source, EntryReader reader) {
+		// takes the configuration in effect when the load starts
+		DocumentUriTemplate loadTemplate = uriTemplate;
+		UriMaker            loadUriMaker = uriMaker;
+		File                loadFile     = checkpointFile;
+
+		String metadataContent  = null;
+		Format metadataFormat   = null;
+		String metadataMimetype = null;
+		if (metadata != null) {
+			// serialize once so every batch can send the metadata
+			HandleImplementation metadataBase = HandleAccessor.checkHandle(metadata, "metadata");
+			metadataContent  = HandleAccessor.contentAsString(metadata);
+			metadataFormat   = metadataBase.getFormat();
+			metadataMimetype = metadataBase.getMimetype();
+		}
+
+		LoadProgress progress = new LoadProgress(loadFile, source);
+		long   skip     = progress.getCompleted();
+		String skipPath = progress.getLastPath();
+		if (skip > 0 && logger.isInfoEnabled())
+			logger.info("Resuming load of {} after {} entries ending with {}",
+					new Object[]{source, skip, skipPath});
+
+		Job job = new Job();
+		try {
+			long          skipped   = 0;
+			List<String>  batchUris = new ArrayList<String>(job.getBatchSize());
+			DocumentWriteSet writeSet = null;
+			String path      = null;
+			String batchPath = null;
+			while ((path = reader.nextPath()) != null) {
+				if (skipped < skip) {
+					// the skip is by position, so the checkpoint applies only
+					// if the source still has the same last completed entry
+					if (++skipped == skip && !path.equals(skipPath))
+						throw new IllegalArgumentException("checkpoint file "+loadFile+
+								" records "+skipPath+" as entry "+skip+" of "+source+
+								" instead of "+path+", so the source changed since the checkpoint");
+					continue;
+				}
+
+				if (writeSet == null) {
+					writeSet = new DocumentWriteSetImpl();
+					if (metadataContent != null) {
+						StringHandle metadataHandle = new StringHandle(metadataContent);
+						metadataHandle.setFormat(metadataFormat);
+						metadataHandle.setMimetype(metadataMimetype);
+						writeSet.addDefault(metadataHandle);
+					}
+				}
+
+				String uri = makeUri(loadTemplate, loadUriMaker, path);
+				Format format   = null;
+				String mimetype = null;
+				Format templateFormat = (loadTemplate == null) ? null : loadTemplate.getFormat();
+				if (templateFormat != null && templateFormat != Format.UNKNOWN) {
+					format   = templateFormat;
+					mimetype = (loadTemplate.getMimetype() != null) ?
+							loadTemplate.getMimetype() : templateFormat.getDefaultMimetype();
+				} else {
+					format   = getFormat(path);
+					mimetype = getMimetype(path, format);
+				}
+
+				writeSet.add(uri, reader.readContent(format, mimetype));
+				batchUris.add(uri);
+				batchPath = path;
+
+				if (batchUris.size() >= job.getBatchSize()) {
+					job.submit(new LoadBatch(job.nextBatchNumber(),
+							batchUris.toArray(new String[batchUris.size()]), batchPath, writeSet, progress));
+					batchUris.clear();
+					writeSet = null;
+				}
+			}
+			if (skipped < skip)
+				throw new IllegalArgumentException("checkpoint file "+loadFile+
+						" records "+skip+" entries of "+source+" but the source has "+skipped+
+						", so the source changed since the checkpoint");
+			if (batchUris.size() > 0) {
+				job.submit(new LoadBatch(job.nextBatchNumber(),
+						batchUris.toArray(new String[batchUris.size()]), batchPath, writeSet, progress));
+			}
+
+			BatchSummary summary = job.finish();
+			if (summary.getFailedCount() == 0)
+				progress.delete();
+			return summary;
+		} catch (IOException e) {
+			throw new MarkLogicIOException("Could not read entries from "+source, e);
+		} finally {
+			job.close();
+		}
+	}
+
+	@Override
+	void processBatch(BatchImpl batch) {
+		LoadBatch loadBatch = (LoadBatch) batch;
+		try {
+			getServices().postBulkDocuments(null, loadBatch.writeSet, null, null, null);
+		} catch (RuntimeException e) {
+			loadBatch.progress.failed(loadBatch);
+			throw e;
+		}
+		loadBatch.progress.succeeded(loadBatch);
+	}
+
+	static String makeUri(DocumentUriTemplate template, UriMaker uriMaker, String path) {
+		if (uriMaker != null) {
+			String uri = uriMaker.makeUri(path);
+			if (uri == null)
+				throw new IllegalArgumentException("no uri for path "+path);
+			return uri;
+		}
+
+		String directory = (template == null) ? null : template.getDirectory();
+		if (directory == null || directory.length() == 0)
+			directory = "/";
+		else if (!directory.endsWith("/"))
+			directory = directory + "/";
+
+		String relative = path;
+		while (relative.startsWith("/"))
+			relative = relative.substring(1);
+
+		String extension = (template == null) ? null : template.getExtension();
+		if (extension != null && extension.length() > 0) {
+			int dot = relative.lastIndexOf('.');
+			if (dot > relative.lastIndexOf('/'))
+				relative = relative.substring(0, dot);
+			relative = relative + (extension.startsWith(".") ? "" : ".") + extension;
+		}
+
+		return directory + relative;
+	}
+	static Format getFormat(String path) {
+		int dot = path.lastIndexOf('.');
+		if (dot <= path.lastIndexOf('/'))
+			return Format.BINARY;
+		return Format.getFromExtension(path.substring(dot + 1));
+	}
+	static String getMimetype(String path, Format format) {
+		FileNameMap nameMap = URLConnection.getFileNameMap();
+		String mimetype = nameMap.getContentTypeFor(path);
+		if (mimetype == null || format == Format.JSON)
+			return format.getDefaultMimetype();
+		return mimetype;
+	}
+
+	static private String getSource(File file) {
+		try {
+			return file.getCanonicalPath();
+		} catch (IOException e) {
+			return file.getAbsolutePath();
+		}
+	}
+
+	static class LoadBatch extends BatchImpl {
+		final String           lastPath;
+		final DocumentWriteSet writeSet;
+		final LoadProgress     progress;
+		LoadBatch(long batchNumber, String[] uris, String lastPath,
+				DocumentWriteSet writeSet, LoadProgress progress) {
+			super(batchNumber, uris);
+			this.lastPath = lastPath;
+			this.writeSet = writeSet;
+			this.progress = progress;
+		}
+	}
+
+	/**
+	 * Records the number of entries before the first batch that has not
+	 * succeeded and the path of the last of those entries.  Batches complete
+	 * out of order, so the count advances only over an unbroken run of
+	 * succeeded batches.
+	 */
+	static class LoadProgress {
+		static final private String SOURCE_KEY    = "source";
+		static final private String COMPLETED_KEY = "completed";
+		static final private String LAST_PATH_KEY = "lastPath";
+
+		final private File   file;
+		final private String source;
+		// writes the checkpoint under a lock rather than a monitor to avoid pinning virtual threads
+		final private ReentrantLock lock = new ReentrantLock();
+
+		private long   completed;
+		private String lastPath;
+		private long   nextBatch = 1;
+		// the first failed batch, which the count can never advance past
+		private long   failedBatch = Long.MAX_VALUE;
+		private Map<Long,BatchTotal> succeededBatches = new HashMap<Long,BatchTotal>();
+
+		static private class BatchTotal {
+			final int    count;
+			final String lastPath;
+			BatchTotal(int count, String lastPath) {
+				this.count    = count;
+				this.lastPath = lastPath;
+			}
+		}
+
+		LoadProgress(File file, String source) {
+			this.file   = file;
+			this.source = source;
+			read();
+		}
+
+		long getCompleted() {
+			lock.lock();
+			try {
+				return completed;
+			} finally {
+				lock.unlock();
+			}
+		}
+		String getLastPath() {
+			lock.lock();
+			try {
+				return lastPath;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void succeeded(LoadBatch batch) {
+			lock.lock();
+			try {
+				// a batch after a failure can never advance the count
+				if (batch.getBatchNumber() > failedBatch)
+					return;
+				succeededBatches.put(batch.getBatchNumber(),
+						new BatchTotal(batch.getUris().length, batch.lastPath));
+				boolean advanced = false;
+				BatchTotal total = null;
+				while ((total = succeededBatches.remove(nextBatch)) != null) {
+					completed += total.count;
+					lastPath   = total.lastPath;
+					nextBatch++;
+					advanced = true;
+				}
+				if (advanced)
+					write();
+			} finally {
+				lock.unlock();
+			}
+		}
+		void failed(LoadBatch batch) {
+			lock.lock();
+			try {
+				if (batch.getBatchNumber() < failedBatch) {
+					failedBatch = batch.getBatchNumber();
+					Iterator<Long> batchNumbers = succeededBatches.keySet().iterator();
+					while (batchNumbers.hasNext()) {
+						if (batchNumbers.next() > failedBatch)
+							batchNumbers.remove();
+					}
+				}
+			} finally {
+				lock.unlock();
+			}
+			if (logger.isWarnEnabled())
+				logger.warn("Batch {} failed, so the checkpoint stays at {} entries",
+						batch.getBatchNumber(), getCompleted());
+		}
+
+		private void read() {
+			if (file == null || !file.exists())
+				return;
+
+			Properties checkpoint = new Properties();
+			InputStream in = null;
+			try {
+				in = new FileInputStream(file);
+				checkpoint.load(in);
+			} catch (IOException e) {
+				throw new MarkLogicIOException("Could not read checkpoint file "+file, e);
+			} finally {
+				if (in != null) {
+					try {
+						in.close();
+					} catch (IOException e) {
+						// ignore
+					}
+				}
+			}
+
+			String checkpointSource = checkpoint.getProperty(SOURCE_KEY);
+			if (!source.equals(checkpointSource))
+				throw new IllegalArgumentException("checkpoint file "+file+
+						" records a load from "+checkpointSource+" instead of "+source);
+			try {
+				completed = Long.parseLong(checkpoint.getProperty(COMPLETED_KEY, "0"));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("invalid checkpoint file "+file, e);
+			}
+			lastPath = checkpoint.getProperty(LAST_PATH_KEY);
+			if (completed > 0 && lastPath == null)
+				throw new IllegalArgumentException("checkpoint file "+file+
+						" does not record the last completed entry");
+		}
+		private void write() {
+			if (file == null)
+				return;
+
+			Properties checkpoint = new Properties();
+			checkpoint.setProperty(SOURCE_KEY,    source);
+			checkpoint.setProperty(COMPLETED_KEY, String.valueOf(completed));
+			checkpoint.setProperty(LAST_PATH_KEY, lastPath);
+
+			// replaces the checkpoint in one step so a crash leaves a complete file
+			File temp = new File(file.getPath()+".tmp");
+			OutputStream out = null;
+			try {
+				out = new FileOutputStream(temp);
+				checkpoint.store(out, "bulk load checkpoint");
+				out.close();
+				out = null;
+				if (!temp.renameTo(file)) {
+					file.delete();
+					if (!temp.renameTo(file))
+						throw new IOException("could not rename "+temp+" to "+file);
+				}
+			} catch (IOException e) {
+				logger.warn("Could not write checkpoint file "+file, e);
+			} finally {
+				if (out != null) {
+					try {
+						out.close();
+					} catch (IOException e) {
+						// ignore
+					}
+				}
+			}
+		}
+		void delete() {
+			lock.lock();
+			try {
+				if (file != null && file.exists() && !file.delete())
+					logger.warn("Could not delete checkpoint file {}", file);
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	// reads the entries of a source in a stable order
+	static abstract class EntryReader {
+		/**
+		 * Advances to the next entry, skipping the content of the current
+		 * entry if it was not read.
+		 * @return	the relative path of the entry or null at the end
+		 */
+		abstract String nextPath() throws IOException;
+		abstract AbstractWriteHandle readContent(Format format, String mimetype) throws IOException;
+	}
+
+	static class DirectoryReader extends EntryReader {
+		static private class Frame {
+			final String prefix;
+			final File[] files;
+			int next = 0;
+			Frame(String prefix, File[] files) {
+				this.prefix = prefix;
+				this.files  = files;
+			}
+		}
+
+		private LinkedList<Frame> stack = new LinkedList<Frame>();
+		private File current;
+
+		DirectoryReader(File directory) {
+			stack.addFirst(new Frame("", listFiles(directory)));
+		}
+
+		@Override
+		String nextPath() {
+			while (!stack.isEmpty()) {
+				Frame frame = stack.getFirst();
+				if (frame.next >= frame.files.length) {
+					stack.removeFirst();
+					continue;
+				}
+				File file = frame.files[frame.next++];
+				if (file.isDirectory()) {
+					stack.addFirst(new Frame(frame.prefix+file.getName()+"/", listFiles(file)));
+				} else if (file.isFile()) {
+					current = file;
+					return frame.prefix+file.getName();
+				}
+			}
+			current = null;
+			return null;
+		}
+		@Override
+		AbstractWriteHandle readContent(Format format, String mimetype) {
+			return new FileHandle(current).withFormat(format).withMimetype(mimetype);
+		}
+
+		static private File[] listFiles(File directory) {
+			File[] files = directory.listFiles();
+			if (files == null) {
+				logger.warn("Could not list directory {}", directory);
+				return new File[0];
+			}
+			Arrays.sort(files);
+			return files;
+		}
+	}
+
+	static class ZipReader extends EntryReader {
+		private ZipInputStream in;
+		private ZipEntry       current;
+
+		ZipReader(InputStream in) {
+			this.in = new ZipInputStream(in);
+		}
+
+		@Override
+		String nextPath() throws IOException {
+			while ((current = in.getNextEntry()) != null) {
+				if (!current.isDirectory())
+					return current.getName();
+			}
+			return null;
+		}
+		@Override
+		AbstractWriteHandle readContent(Format format, String mimetype) throws IOException {
+			byte[] content = BufferPool.readBytes(in, current.getSize());
+			return new BytesHandle(content).withFormat(format).withMimetype(mimetype);
+		}
+	}
+
+	// reads ustar and GNU tar archives, which the JDK does not support
+	static class TarReader extends EntryReader {
+		static final private int BLOCK_SIZE = 512;
+
+		private InputStream in;
+		private byte[]      header = new byte[BLOCK_SIZE];
+		private long        remaining = 0;
+		private long        padding   = 0;
+
+		TarReader(InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		String nextPath() throws IOException {
+			skipFully(remaining + padding);
+			remaining = 0;
+			padding   = 0;
+
+			String longName = null;
+			while (true) {
+				if (!readHeader())
+					return null;
+
+				long size = parseSize();
+				long entryPadding = (BLOCK_SIZE - (size % BLOCK_SIZE)) % BLOCK_SIZE;
+				byte type = header[156];
+				if (type == 'L' || type == 'x') {
+					// a GNU long name or a pax extended header for the next entry
+					String value = new String(readData(size), "UTF-8");
+					skipFully(entryPadding);
+					String name = (type == 'L') ? trimName(value) : parsePaxPath(value);
+					if (name != null)
+						longName = name;
+					continue;
+				}
+				if (type != '0' && type != 0 && type != '7') {
+					// directories, links, and other special entries have no document content
+					skipFully(size + entryPadding);
+					longName = null;
+					continue;
+				}
+
+				remaining = size;
+				padding   = entryPadding;
+				String name = (longName != null) ? longName : parseName();
+				while (name.startsWith("./"))
+					name = name.substring(2);
+				return name;
+			}
+		}
+		@Override
+		AbstractWriteHandle readContent(Format format, String mimetype) throws IOException {
+			byte[] content = readData(remaining);
+			remaining = 0;
+			return new BytesHandle(content).withFormat(format).withMimetype(mimetype);
+		}
+
+		private boolean readHeader() throws IOException {
+			if (!readBlock(header))
+				return false;
+			for (byte b: header) {
+				if (b != 0)
+					return true;
+			}
+			// two zero blocks end the archive
+			return false;
+		}
+		private boolean readBlock(byte[] block) throws IOException {
+			int offset = 0;
+			while (offset < block.length) {
+				int len = in.read(block, offset, block.length - offset);
+				if (len == -1) {
+					if (offset == 0)
+						return false;
+					throw new EOFException("truncated tar header");
+				}
+				offset += len;
+			}
+			return true;
+		}
+		private byte[] readData(long size) throws IOException {
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("tar entry too large for a document: "+size);
+			byte[] data = new byte[(int) size];
+			int offset = 0;
+			while (offset < data.length) {
+				int len = in.read(data, offset, data.length - offset);
+				if (len == -1)
+					throw new EOFException("truncated tar entry");
+				offset += len;
+			}
+			return data;
+		}
+		private void skipFully(long count) throws IOException {
+			while (count > 0) {
+				long skipped = in.skip(count);
+				if (skipped <= 0) {
+					if (in.read() == -1)
+						throw new EOFException("truncated tar entry");
+					skipped = 1;
+				}
+				count -= skipped;
+			}
+		}
+		private long parseSize() {
+			// large sizes use base-256 with the high bit set
+			if ((header[124] & 0x80) != 0) {
+				long size = 0;
+				for (int i=125; i < 136; i++)
+					size = (size << 8) | (header[i] & 0xFF);
+				return size;
+			}
+			long size = 0;
+			for (int i=124; i < 136; i++) {
+				byte b = header[i];
+				if (b == 0 || b == ' ') {
+					if (size > 0) break;
+					continue;
+				}
+				size = (size << 3) + (b - '0');
+			}
+			return size;
+		}
+		private String parseName() throws IOException {
+			String name = parseString(0, 100);
+			if ("ustar".equals(parseString(257, 6).trim())) {
+				String prefix = parseString(345, 155);
+				if (prefix.length() > 0)
+					name = prefix+"/"+name;
+			}
+			return name;
+		}
+		private String parseString(int offset, int length) throws IOException {
+			int end = offset;
+			while (end < offset + length && header[end] != 0)
+				end++;
+			return new String(header, offset, end - offset, "UTF-8");
+		}
+		static private String trimName(String name) {
+			int end = name.indexOf(0);
+			return (end == -1) ? name : name.substring(0, end);
+		}
+		static private String parsePaxPath(String records) {
+			// each record is "length key=value\n"
+			for (String record: records.split("\n")) {
+				int space = record.indexOf(' ');
+				if (space != -1 && record.startsWith("path=", space + 1))
+					return record.substring(space + 6);
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import com.marklogic.client.bulk.BulkAlerter;
+import com.marklogic.client.bulk.BulkDeleter;
+import com.marklogic.client.bulk.BulkExporter;
+import com.marklogic.client.bulk.BulkLoader;
+import com.marklogic.client.bulk.BulkManager;
+import com.marklogic.client.bulk.BulkPatcher;
+import com.marklogic.client.bulk.CSVLoader;
+import com.marklogic.client.io.marker.DocumentPatchHandle;
+
+public class BulkManagerImpl implements BulkManager {
+	private RESTServices services;
+
+	public BulkManagerImpl(RESTServices services) {
+		super();
+		this.services = services;
+	}
+
+	@Override
+	public BulkDeleter newDeleter() {
+		return new BulkDeleterImpl(services);
+	}
+	@Override
+	public BulkPatcher newPatcher(DocumentPatchHandle patch) {
+		return new BulkPatcherImpl(services, patch);
+	}
+	@Override
+	public BulkExporter newExporter() {
+		return new BulkExporterImpl(services);
+	}
+	@Override
+	public BulkLoader newLoader() {
+		return new BulkLoaderImpl(services);
+	}
+	@Override
+	public CSVLoader newCSVLoader() {
+		return new CSVLoaderImpl(services);
+	}
+	@Override
+	public BulkAlerter newAlerter() {
+		return new BulkAlerterImpl(services);
+	}
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.bulk.BatchListener;
+import com.marklogic.client.bulk.BatchSummary;
+import com.marklogic.client.bulk.BulkOperation;
+import com.marklogic.client.query.QueryDefinition;
+
+abstract class BulkOperationImpl implements BulkOperation {
+	static final private Logger logger = LoggerFactory.getLogger(BulkOperationImpl.class);
+
+	static final private AtomicInteger jobCounter = new AtomicInteger();
+
+	private RESTServices  services;
+	private int           batchSize   = DEFAULT_BATCH_SIZE;
+	private int           threadCount = DEFAULT_THREAD_COUNT;
+	private boolean       adaptive    = false;
+	private BatchListener listener;
+
+	BulkOperationImpl(RESTServices services) {
+		super();
+		this.services = services;
+	}
+
+	RESTServices getServices() {
+		return services;
+	}
+
+	@Override
+	public int getBatchSize() {
+		return batchSize;
+	}
+	@Override
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1)
+			throw new IllegalArgumentException("batch size must be at least 1: "+batchSize);
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public int getThreadCount() {
+		return threadCount;
+	}
+	@Override
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1)
+			throw new IllegalArgumentException("thread count must be at least 1: "+threadCount);
+		this.threadCount = threadCount;
+	}
+
+	@Override
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+	@Override
+	public void setAdaptive(boolean adaptive) {
+		this.adaptive = adaptive;
+	}
+
+	@Override
+	public BatchListener getBatchListener() {
+		return listener;
+	}
+	@Override
+	public void setBatchListener(BatchListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Processes the uris of one batch on a worker thread.  An exception
+	 * fails every uri in the batch; an implementation that processes uris
+	 * individually can instead report failed uris with BatchImpl.fail().
+	 */
+	abstract void processBatch(BatchImpl batch);
+
+	BatchSummary process(QueryDefinition querydef) {
+		if (querydef == null)
+			throw new IllegalArgumentException("null query for bulk operation");
+
+		Job job = new Job();
+		try {
+			// reads the next page of uris while the batches of the previous page run
+			long pageLength = (long) job.getBatchSize() * job.getThreadCount();
+			for (long start=1; ; start += pageLength) {
+				String[] uris = SearchUriReader.readUris(services, null,
+						querydef, start, pageLength, null);
+				if (uris.length > 0)
+					job.submitAll(uris);
+				if (uris.length < pageLength)
+					break;
+			}
+			return job.finish();
+		} finally {
+			job.close();
+		}
+	}
+
+	BatchSummary process(Iterator<String> uris) {
+		if (uris == null)
+			throw new IllegalArgumentException("null uri iterator");
+
+		Job job = new Job();
+		try {
+			job.submitAll(uris);
+			return job.finish();
+		} finally {
+			job.close();
+		}
+	}
+
+	class Job {
+		final private long            startTime = System.currentTimeMillis();
+		final private int             jobBatchSize;
+		final private int             jobThreadCount;
+		final private BatchListener   jobListener;
+		final private ExecutorService executor;
+		final private Semaphore       slots;
+		final private BatchThrottle   throttle;
+
+		final private AtomicLong batchCount       = new AtomicLong();
+		final private AtomicLong failedBatchCount = new AtomicLong();
+		final private AtomicLong succeededCount   = new AtomicLong();
+		final private AtomicLong failedCount      = new AtomicLong();
+
+		// a lock instead of a monitor so a virtual thread waiting for idle is not pinned
+		final private ReentrantLock pendingLock = new ReentrantLock();
+		final private Condition     idle        = pendingLock.newCondition();
+		private int pending = 0;
+
+		// collects the failed uris only for operations that ask for them
+		private volatile Set<String> failedUris = null;
+
+		Job() {
+			int       jobNumber  = jobCounter.incrementAndGet();
+			final int jobThreads = threadCount;
+
+			jobBatchSize   = batchSize;
+			jobThreadCount = jobThreads;
+			jobListener    = listener;
+			throttle       = adaptive ? new BatchThrottle(batchSize, jobThreads) : null;
+			executor     = ClientThreads.newFixedThreadPool(jobThreads, "marklogic-bulk-"+jobNumber+"-");
+			// keeps one queued batch per thread so a large source is not read ahead
+			slots        = new Semaphore(2 * jobThreads);
+		}
+
+		int getBatchSize() {
+			return (throttle != null) ? throttle.getBatchSize() : jobBatchSize;
+		}
+		int getThreadCount() {
+			return jobThreadCount;
+		}
+		long getFailedCount() {
+			return failedCount.get();
+		}
+		Set<String> trackFailedUris() {
+			if (failedUris == null)
+				failedUris = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+			return failedUris;
+		}
+
+		void submitAll(Iterator<String> uris) {
+			List<String> batch = new ArrayList<String>(jobBatchSize);
+			while (uris.hasNext()) {
+				String uri = uris.next();
+				if (uri == null)
+					continue;
+				batch.add(uri);
+				if (batch.size() >= getBatchSize()) {
+					submit(batch.toArray(new String[batch.size()]));
+					batch.clear();
+				}
+			}
+			if (batch.size() > 0)
+				submit(batch.toArray(new String[batch.size()]));
+		}
+		void submitAll(String[] uris) {
+			int end = 0;
+			for (int i=0; i < uris.length; i = end) {
+				end = Math.min(uris.length, i + getBatchSize());
+				String[] batch = new String[end - i];
+				System.arraycopy(uris, i, batch, 0, batch.length);
+				submit(batch);
+			}
+		}
+		long nextBatchNumber() {
+			return batchCount.incrementAndGet();
+		}
+		void submit(String[] uris) {
+			submit(new BatchImpl(nextBatchNumber(), uris));
+		}
+		void submit(final BatchImpl batch) {
+			try {
+				slots.acquire();
+			} catch (InterruptedException e) {
+				throw interrupted(e);
+			}
+			pendingLock.lock();
+			try {
+				pending++;
+			} finally {
+				pendingLock.unlock();
+			}
+
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						runBatch(batch);
+					} finally {
+						slots.release();
+						pendingLock.lock();
+						try {
+							if (--pending == 0)
+								idle.signalAll();
+						} finally {
+							pendingLock.unlock();
+						}
+					}
+				}
+			});
+		}
+
+		private void runBatch(BatchImpl batch) {
+			if (throttle != null)
+				runThrottledBatch(batch);
+			else
+				processOrFail(batch);
+
+			int batchFailed    = batch.getFailedSize();
+			int batchSucceeded = batch.getUris().length - batchFailed;
+			if (batchFailed > 0) {
+				failedBatchCount.incrementAndGet();
+				Set<String> tracked = failedUris;
+				if (tracked != null)
+					tracked.addAll(Arrays.asList(batch.getFailedUris()));
+			}
+			batch.setJobProgress(
+					succeededCount.addAndGet(batchSucceeded),
+					failedCount.addAndGet(batchFailed),
+					System.currentTimeMillis() - startTime);
+
+			if (jobListener == null)
+				return;
+			try {
+				if (batchFailed == 0)
+					jobListener.batchSucceeded(batch);
+				else
+					jobListener.batchFailed(batch);
+			} catch (RuntimeException e) {
+				logger.warn("Batch listener failed for batch "+batch.getBatchNumber(), e);
+			}
+		}
+
+		private void runThrottledBatch(BatchImpl batch) {
+			long throttleStart = 0;
+			try {
+				throttleStart = throttle.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				batch.failAll(new MarkLogicIOException("Interrupted while waiting to process batch", e));
+				return;
+			}
+			long unavailableStart = services.getUnavailableCount();
+			try {
+				processOrFail(batch);
+			} finally {
+				throttle.complete(throttleStart, batch.getUris().length,
+						services.getUnavailableCount() - unavailableStart,
+						batch.getFailedSize() > 0);
+			}
+		}
+		private void processOrFail(BatchImpl batch) {
+			try {
+				processBatch(batch);
+			} catch (RuntimeException e) {
+				if (logger.isDebugEnabled())
+					logger.debug("Batch "+batch.getBatchNumber()+" failed", e);
+				batch.failAll(e);
+			}
+		}
+
+		void awaitIdle() {
+			pendingLock.lock();
+			try {
+				while (pending > 0) {
+					idle.await();
+				}
+			} catch (InterruptedException e) {
+				throw interrupted(e);
+			} finally {
+				pendingLock.unlock();
+			}
+		}
+
+		BatchSummary finish() {
+			awaitIdle();
+
+			BatchSummaryImpl summary = new BatchSummaryImpl(
+					batchCount.get(), failedBatchCount.get(),
+					succeededCount.get(), failedCount.get(),
+					System.currentTimeMillis() - startTime);
+
+			if (logger.isInfoEnabled())
+				logger.info("Completed {} batches with {} succeeded and {} failed uris",
+						new Object[]{summary.getBatchCount(), summary.getSucceededCount(),
+						summary.getFailedCount()});
+
+			return summary;
+		}
+
+		void close() {
+			executor.shutdownNow();
+		}
+
+		private MarkLogicIOException interrupted(InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			return new MarkLogicIOException("Interrupted while processing batches", e);
+		}
+	}
+
+	static class BatchSummaryImpl implements BatchSummary {
+		private long batchCount;
+		private long failedBatchCount;
+		private long succeededCount;
+		private long failedCount;
+		private long elapsedTime;
+
+		BatchSummaryImpl(long batchCount, long failedBatchCount,
+				long succeededCount, long failedCount, long elapsedTime) {
+			this.batchCount       = batchCount;
+			this.failedBatchCount = failedBatchCount;
+			this.succeededCount   = succeededCount;
+			this.failedCount      = failedCount;
+			this.elapsedTime      = elapsedTime;
+		}
+
+		@Override
+		public long getBatchCount() {
+			return batchCount;
+		}
+		@Override
+		public long getFailedBatchCount() {
+			return failedBatchCount;
+		}
+		@Override
+		public long getSucceededCount() {
+			return succeededCount;
+		}
+		@Override
+		public long getFailedCount() {
+			return failedCount;
+		}
+		@Override
+		public long getElapsedTime() {
+			return elapsedTime;
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.marklogic.client.bulk.BatchSummary;
+import com.marklogic.client.bulk.BulkPatcher;
+import com.marklogic.client.document.DocumentManager.Metadata;
+import com.marklogic.client.impl.DocumentMetadataPatchBuilderImpl.DocumentPatchHandleImpl;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.marker.DocumentPatchHandle;
+import com.marklogic.client.query.QueryDefinition;
+
+class BulkPatcherImpl
+	extends BulkOperationImpl
+	implements BulkPatcher
+{
+	static final private Logger logger = LoggerFactory.getLogger(BulkPatcherImpl.class);
+
+	private DocumentPatchHandle patch;
+	private String              patchContent;
+	private Format              patchFormat;
+	private String              patchMimetype;
+	private Set<Metadata>       categories;
+	private boolean             isOnContent;
+
+	@SuppressWarnings("rawtypes")
+	BulkPatcherImpl(RESTServices services, DocumentPatchHandle patch) {
+		super(services);
+		if (patch == null)
+			throw new IllegalArgumentException("null patch for bulk patch");
+
+		this.patch = patch;
+
+		// serialize once so every request can resend the patch
+		HandleImplementation patchBase = HandleAccessor.checkHandle(patch, "patch");
+		patchContent  = HandleAccessor.contentAsString(patch);
+		patchFormat   = patchBase.getFormat();
+		patchMimetype = patchBase.getMimetype();
+
+		if (patch instanceof DocumentPatchHandleImpl) {
+			DocumentPatchHandleImpl builtPatch = (DocumentPatchHandleImpl) patch;
+			categories  = builtPatch.getMetadata();
+			isOnContent = builtPatch.isOnContent();
+		} else {
+			categories  = EnumSet.of(Metadata.ALL);
+			isOnContent = true;
+		}
+	}
+
+	@Override
+	public DocumentPatchHandle getPatch() {
+		return patch;
+	}
+
+	@Override
+	public BatchSummary patch(QueryDefinition querydef) {
+		if (logger.isInfoEnabled())
+			logger.info("Patching documents matching query in batches");
+
+		return process(querydef);
+	}
+
+	@Override
+	public BatchSummary patch(Iterator<String> uris) {
+		if (logger.isInfoEnabled())
+			logger.info("Patching documents by uri in batches");
+
+		return process(uris);
+	}
+
+	@Override
+	void processBatch(BatchImpl batch) {
+		for (String uri: batch.getUris()) {
+			StringHandle patchHandle = new StringHandle(patchContent);
+			patchHandle.setFormat(patchFormat);
+			patchHandle.setMimetype(patchMimetype);
+			try {
+				getServices().patchDocument(null, new DocumentDescriptorImpl(uri, true),
+						null, categories, isOnContent, patchHandle);
+			} catch (RuntimeException e) {
+				if (logger.isDebugEnabled())
+					logger.debug("Could not patch "+uri, e);
+				batch.fail(uri, e);
+			}
+		}
+	}
+}
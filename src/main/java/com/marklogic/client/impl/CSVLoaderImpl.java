@@ -0,0 +1,555 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.MarkLogicInternalException;
+import com.marklogic.client.bulk.BatchSummary;
+import com.marklogic.client.bulk.CSVLoader;
+import com.marklogic.client.document.DocumentWriteSet;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.marker.DocumentMetadataWriteHandle;
+import com.marklogic.client.util.BufferPool;
+import com.marklogic.client.util.XMLFactories;
+
+class CSVLoaderImpl
+	extends BulkOperationImpl
+	implements CSVLoader
+{
+	static final private Logger logger = LoggerFactory.getLogger(CSVLoaderImpl.class);
+
+	static final private Charset     UTF8         = Charset.forName("UTF-8");
+	// leaves the pooled output stream open when a generator closes
+	static final private JsonFactory jsonFactory  =
+		new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	static final private Pattern     NUMBER_CHECK =
+		Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+
+	private char                        delimiter   = DEFAULT_DELIMITER;
+	private char                        quote       = DEFAULT_QUOTE;
+	private boolean                     hasHeader   = true;
+	private String[]                    columnNames;
+	private Map<String,ColumnType>      columnTypes = new HashMap<String,ColumnType>();
+	private Format                      format      = Format.JSON;
+	private String                      rootName    = DEFAULT_ROOT_NAME;
+	private String                      uriPrefix;
+	private RowUriMaker                 uriMaker;
+	private DocumentMetadataWriteHandle metadata;
+
+	CSVLoaderImpl(RESTServices services) {
+		super(services);
+	}
+
+	@Override
+	public char getDelimiter() {
+		return delimiter;
+	}
+	@Override
+	public void setDelimiter(char delimiter) {
+		if (delimiter == '\r' || delimiter == '\n' || delimiter == NO_QUOTE)
+			throw new IllegalArgumentException("invalid delimiter: "+(int) delimiter);
+		this.delimiter = delimiter;
+	}
+
+	@Override
+	public char getQuote() {
+		return quote;
+	}
+	@Override
+	public void setQuote(char quote) {
+		if (quote == '\r' || quote == '\n')
+			throw new IllegalArgumentException("invalid quote: "+(int) quote);
+		this.quote = quote;
+	}
+
+	@Override
+	public boolean hasHeader() {
+		return hasHeader;
+	}
+	@Override
+	public void setHeader(boolean hasHeader) {
+		this.hasHeader = hasHeader;
+	}
+
+	@Override
+	public String[] getColumnNames() {
+		return columnNames;
+	}
+	@Override
+	public void setColumnNames(String... columnNames) {
+		this.columnNames = (columnNames == null || columnNames.length == 0) ?
+				null : columnNames.clone();
+	}
+
+	@Override
+	public ColumnType getColumnType(String columnName) {
+		ColumnType type = columnTypes.get(columnName);
+		return (type == null) ? ColumnType.STRING : type;
+	}
+	@Override
+	public void setColumnType(String columnName, ColumnType type) {
+		if (columnName == null)
+			throw new IllegalArgumentException("null column name");
+		if (type == null || type == ColumnType.STRING)
+			columnTypes.remove(columnName);
+		else
+			columnTypes.put(columnName, type);
+	}
+
+	@Override
+	public Format getFormat() {
+		return format;
+	}
+	@Override
+	public void setFormat(Format format) {
+		if (format != Format.JSON && format != Format.XML)
+			throw new IllegalArgumentException("CSV loader writes only JSON or XML documents: "+format);
+		this.format = format;
+	}
+
+	@Override
+	public String getRootName() {
+		return rootName;
+	}
+	@Override
+	public void setRootName(String rootName) {
+		if (rootName == null || rootName.length() == 0)
+			throw new IllegalArgumentException("null or empty root name");
+		this.rootName = rootName;
+	}
+
+	@Override
+	public String getUriPrefix() {
+		return uriPrefix;
+	}
+	@Override
+	public void setUriPrefix(String uriPrefix) {
+		this.uriPrefix = uriPrefix;
+	}
+
+	@Override
+	public RowUriMaker getUriMaker() {
+		return uriMaker;
+	}
+	@Override
+	public void setUriMaker(RowUriMaker uriMaker) {
+		this.uriMaker = uriMaker;
+	}
+
+	@Override
+	public DocumentMetadataWriteHandle getMetadata() {
+		return metadata;
+	}
+	@Override
+	public void setMetadata(DocumentMetadataWriteHandle metadata) {
+		this.metadata = metadata;
+	}
+
+	@Override
+	public BatchSummary load(File file) {
+		if (file == null || !file.isFile())
+			throw new IllegalArgumentException("not a file: "+file);
+
+		if (logger.isInfoEnabled())
+			logger.info("Loading rows from {} in batches", file);
+
+		String name = file.getName();
+		int dot = name.lastIndexOf('.');
+		String filePrefix = "/"+((dot > 0) ? name.substring(0, dot) : name)+"/";
+
+		Reader reader = null;
+		try {
+			reader = new InputStreamReader(new FileInputStream(file), UTF8);
+			return load(reader, filePrefix);
+		} catch (IOException e) {
+			throw new MarkLogicIOException("Could not read delimited file "+file, e);
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+	@Override
+	public BatchSummary load(Reader reader) {
+		if (reader == null)
+			throw new IllegalArgumentException("null reader for delimited text");
+
+		return load(reader, "/");
+	}
+
+	private BatchSummary load(Reader reader, String defaultPrefix) {
+		// takes the configuration in effect when the load starts
+		RowParser   parser       = new RowParser(reader, delimiter, quote);
+		RowUriMaker loadUriMaker = uriMaker;
+		String      prefix       = (uriPrefix != null) ? uriPrefix : defaultPrefix;
+		String      extension    = (format == Format.XML) ? ".xml" : ".json";
+
+		RowSchema schema = null;
+		try {
+			String[] header = hasHeader ? parser.nextRow() : null;
+			if (columnNames != null)
+				schema = new RowSchema(columnNames, columnTypes, format, rootName);
+			else if (header != null)
+				schema = new RowSchema(header, columnTypes, format, rootName);
+			else
+				schema = new RowSchema(new String[0], columnTypes, format, rootName);
+		} catch (IOException e) {
+			throw new MarkLogicIOException("Could not read header row", e);
+		}
+
+		StringHandle metadataHandle = null;
+		if (metadata != null) {
+			// serialize once so every batch can send the metadata
+			HandleImplementation metadataBase = HandleAccessor.checkHandle(metadata, "metadata");
+			metadataHandle = new StringHandle(HandleAccessor.contentAsString(metadata));
+			metadataHandle.setFormat(metadataBase.getFormat());
+			metadataHandle.setMimetype(metadataBase.getMimetype());
+		}
+
+		Job job = new Job();
+		try {
+			List<String>   batchUris = new ArrayList<String>(job.getBatchSize());
+			List<String[]> batchRows = new ArrayList<String[]>(job.getBatchSize());
+			long rowNumber = 0;
+			String[] row = null;
+			while ((row = parser.nextRow()) != null) {
+				rowNumber++;
+
+				String uri = (loadUriMaker != null) ?
+						loadUriMaker.makeUri(rowNumber, schema.names, row) :
+						prefix + rowNumber + extension;
+				if (uri == null)
+					throw new IllegalArgumentException("no uri for row "+rowNumber);
+
+				batchUris.add(uri);
+				batchRows.add(row);
+
+				if (batchUris.size() >= job.getBatchSize()) {
+					job.submit(new RowBatch(job.nextBatchNumber(),
+							batchUris.toArray(new String[batchUris.size()]),
+							batchRows.toArray(new String[batchRows.size()][]),
+							schema, metadataHandle));
+					batchUris.clear();
+					batchRows.clear();
+				}
+			}
+			if (batchUris.size() > 0) {
+				job.submit(new RowBatch(job.nextBatchNumber(),
+						batchUris.toArray(new String[batchUris.size()]),
+						batchRows.toArray(new String[batchRows.size()][]),
+						schema, metadataHandle));
+			}
+
+			if (logger.isDebugEnabled())
+				logger.debug("Parsed {} rows", rowNumber);
+
+			return job.finish();
+		} catch (IOException e) {
+			throw new MarkLogicIOException("Could not read delimited text", e);
+		} finally {
+			job.close();
+		}
+	}
+
+	@Override
+	void processBatch(BatchImpl batch) {
+		RowBatch rowBatch = (RowBatch) batch;
+		RowSchema schema  = rowBatch.schema;
+		String[]  uris    = rowBatch.getUris();
+
+		DocumentWriteSet writeSet = new DocumentWriteSetImpl();
+		if (rowBatch.metadata != null)
+			writeSet.addDefault(rowBatch.metadata);
+
+		ByteArrayOutputStream out = BufferPool.newOutputStream();
+		try {
+			for (int i=0; i < uris.length; i++) {
+				out.reset();
+				schema.write(rowBatch.rows[i], out);
+				writeSet.add(uris[i],
+						new BytesHandle(out.toByteArray()).withFormat(schema.format));
+			}
+		} finally {
+			try {
+				out.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+
+		getServices().postBulkDocuments(null, writeSet, null, null, null);
+	}
+
+	static class RowBatch extends BatchImpl {
+		final String[][]   rows;
+		final RowSchema    schema;
+		final StringHandle metadata;
+		RowBatch(long batchNumber, String[] uris, String[][] rows, RowSchema schema,
+				StringHandle metadata) {
+			super(batchNumber, uris);
+			this.rows     = rows;
+			this.schema   = schema;
+			this.metadata = metadata;
+		}
+	}
+
+	/**
+	 * Converts rows to JSON or XML documents.  The schema is
+	 * immutable, so the batch threads share it.
+	 */
+	static class RowSchema {
+		final String[]     names;
+		final String[]     elementNames;
+		final ColumnType[] types;
+		final Format       format;
+		final String       rootName;
+
+		RowSchema(String[] names, Map<String,ColumnType> columnTypes, Format format, String rootName) {
+			this.names        = names.clone();
+			this.elementNames = new String[names.length];
+			this.types        = new ColumnType[names.length];
+			this.format       = format;
+			this.rootName     = toElementName(rootName);
+			for (int i=0; i < names.length; i++) {
+				elementNames[i] = toElementName(names[i]);
+				ColumnType type = columnTypes.get(names[i]);
+				types[i] = (type == null) ? ColumnType.STRING : type;
+			}
+		}
+
+		String getName(int column) {
+			return (column < names.length) ? names[column] : "column"+(column + 1);
+		}
+		String getElementName(int column) {
+			return (column < elementNames.length) ? elementNames[column] : "column"+(column + 1);
+		}
+		ColumnType getType(int column) {
+			return (column < types.length) ? types[column] : ColumnType.STRING;
+		}
+
+		void write(String[] values, ByteArrayOutputStream out) {
+			if (format == Format.XML)
+				writeXML(values, out);
+			else
+				writeJSON(values, out);
+		}
+		private void writeJSON(String[] values, ByteArrayOutputStream out) {
+			try {
+				JsonGenerator generator = jsonFactory.createGenerator(out);
+				generator.writeStartObject();
+				int columnCount = Math.max(values.length, names.length);
+				for (int i=0; i < columnCount; i++) {
+					ColumnType type = getType(i);
+					if (type == ColumnType.SKIP)
+						continue;
+
+					generator.writeFieldName(getName(i));
+					String value = (i < values.length) ? values[i] : null;
+					if (value == null) {
+						generator.writeNull();
+						continue;
+					}
+					switch (type) {
+					case NUMBER:
+						if (value.length() == 0)
+							generator.writeNull();
+						else if (NUMBER_CHECK.matcher(value).matches())
+							generator.writeNumber(value);
+						else
+							generator.writeString(value);
+						break;
+					case BOOLEAN:
+						if (value.length() == 0)
+							generator.writeNull();
+						else
+							generator.writeBoolean(isTrue(value));
+						break;
+					default:
+						generator.writeString(value);
+						break;
+					}
+				}
+				generator.writeEndObject();
+				generator.close();
+			} catch (IOException e) {
+				throw new MarkLogicInternalException("Could not write row as JSON", e);
+			}
+		}
+		private void writeXML(String[] values, ByteArrayOutputStream out) {
+			try {
+				XMLStreamWriter writer = XMLFactories.getOutputFactory().createXMLStreamWriter(out, "UTF-8");
+				writer.writeStartDocument("UTF-8", "1.0");
+				writer.writeStartElement(rootName);
+				int columnCount = Math.max(values.length, names.length);
+				for (int i=0; i < columnCount; i++) {
+					if (getType(i) == ColumnType.SKIP)
+						continue;
+
+					String value = (i < values.length) ? values[i] : null;
+					if (value == null || value.length() == 0) {
+						writer.writeEmptyElement(getElementName(i));
+						continue;
+					}
+					writer.writeStartElement(getElementName(i));
+					writer.writeCharacters((getType(i) == ColumnType.BOOLEAN) ?
+							String.valueOf(isTrue(value)) : value);
+					writer.writeEndElement();
+				}
+				writer.writeEndElement();
+				writer.writeEndDocument();
+				writer.close();
+			} catch (XMLStreamException e) {
+				throw new MarkLogicInternalException("Could not write row as XML", e);
+			}
+		}
+
+		static boolean isTrue(String value) {
+			return "true".equalsIgnoreCase(value) || "yes".equalsIgnoreCase(value) ||
+					"1".equals(value);
+		}
+		static String toElementName(String name) {
+			if (name == null || name.length() == 0)
+				return "_";
+
+			StringBuilder buf = new StringBuilder(name.length() + 1);
+			for (int i=0; i < name.length(); i++) {
+				char c = name.charAt(i);
+				boolean isNameChar = Character.isLetterOrDigit(c) ||
+						c == '_' || c == '-' || c == '.';
+				if (i == 0 && !(Character.isLetter(c) || c == '_'))
+					buf.append('_');
+				buf.append(isNameChar ? c : '_');
+			}
+			return buf.toString();
+		}
+	}
+
+	/**
+	 * Splits delimited text into rows of fields.  A quoted field can
+	 * contain delimiters, line breaks, and doubled quotes.  Empty lines
+	 * are skipped.
+	 */
+	static class RowParser {
+		final private Reader reader;
+		final private char   delimiter;
+		final private char   quote;
+		final private char[] buffer = new char[8192];
+
+		private int bufferLength = 0;
+		private int position     = 0;
+
+		final private StringBuilder field  = new StringBuilder();
+		final private List<String>  fields = new ArrayList<String>();
+
+		RowParser(Reader reader, char delimiter, char quote) {
+			this.reader    = reader;
+			this.delimiter = delimiter;
+			this.quote     = quote;
+		}
+
+		String[] nextRow() throws IOException {
+			fields.clear();
+			field.setLength(0);
+
+			boolean inQuotes  = false;
+			boolean hasFields = false;
+			int c = -1;
+			while ((c = read()) != -1) {
+				if (inQuotes) {
+					if (c == quote) {
+						if (peek() == quote) {
+							field.append(quote);
+							position++;
+						} else {
+							inQuotes = false;
+						}
+					} else {
+						field.append((char) c);
+					}
+				} else if (c == delimiter) {
+					fields.add(field.toString());
+					field.setLength(0);
+					hasFields = true;
+				} else if (c == '\n' || c == '\r') {
+					if (c == '\r' && peek() == '\n')
+						position++;
+					if (hasFields || field.length() > 0)
+						break;
+				} else if (c == quote && quote != NO_QUOTE && field.length() == 0) {
+					inQuotes  = true;
+					hasFields = true;
+				} else {
+					field.append((char) c);
+				}
+			}
+			if (inQuotes)
+				throw new IOException("unterminated quoted field");
+			if (c == -1 && !hasFields && field.length() == 0)
+				return null;
+
+			fields.add(field.toString());
+			return fields.toArray(new String[fields.size()]);
+		}
+
+		private int read() throws IOException {
+			if (position == bufferLength && !fill())
+				return -1;
+			return buffer[position++];
+		}
+		private int peek() throws IOException {
+			if (position == bufferLength && !fill())
+				return -1;
+			return buffer[position];
+		}
+		private boolean fill() throws IOException {
+			int length = reader.read(buffer, 0, buffer.length);
+			while (length == 0)
+				length = reader.read(buffer, 0, buffer.length);
+			if (length == -1)
+				return false;
+			bufferLength = length;
+			position     = 0;
+			return true;
+		}
+	}
+}
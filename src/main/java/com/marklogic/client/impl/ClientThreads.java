@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.marklogic.client.MarkLogicInternalException;
+
+/**
+ * ClientThreads creates the worker threads of the client, which are
+ * daemon platform threads or, when the virtual thread mode is enabled
+ * on a JVM that supports it, virtual threads.
+ *
+ * The virtual thread builder is looked up by reflection so the client
+ * still runs on JVMs that predate virtual threads.
+ */
+public class ClientThreads {
+	static final private Logger logger = LoggerFactory.getLogger(ClientThreads.class);
+
+	static final public String VIRTUAL_THREADS_PROP = "com.marklogic.client.virtualThreads";
+
+	static final private Method ofVirtual;
+	static final private Method builderName;
+	static final private Method builderFactory;
+	static {
+		Method virtualMethod = null;
+		Method nameMethod    = null;
+		Method factoryMethod = null;
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			virtualMethod = Thread.class.getMethod("ofVirtual");
+			nameMethod    = builderClass.getMethod("name", String.class, long.class);
+			factoryMethod = builderClass.getMethod("factory");
+		} catch (ClassNotFoundException e) {
+			virtualMethod = null;
+		} catch (NoSuchMethodException e) {
+			virtualMethod = null;
+		}
+		ofVirtual      = virtualMethod;
+		builderName    = nameMethod;
+		builderFactory = factoryMethod;
+	}
+
+	static private volatile boolean virtualThreads = Boolean.getBoolean(VIRTUAL_THREADS_PROP);
+
+	private ClientThreads() {
+	}
+
+	/**
+	 * Returns whether the JVM can create virtual threads.
+	 * @return	true if virtual threads are available
+	 */
+	static public boolean isVirtualThreadAvailable() {
+		return ofVirtual != null;
+	}
+	/**
+	 * Returns whether new worker threads are virtual threads.
+	 * @return	true if the mode is enabled and virtual threads are available
+	 */
+	static public boolean isVirtualThreads() {
+		return virtualThreads && isVirtualThreadAvailable();
+	}
+	/**
+	 * Specifies whether new worker threads are virtual threads when
+	 * the JVM supports them.
+	 * @param enabled	true to use virtual threads
+	 */
+	static public void setVirtualThreads(boolean enabled) {
+		if (enabled && !isVirtualThreadAvailable() && logger.isInfoEnabled())
+			logger.info("Virtual threads are not available, so worker threads are platform threads");
+		virtualThreads = enabled;
+	}
+
+	static ExecutorService newFixedThreadPool(int threadCount, String namePrefix) {
+		return Executors.newFixedThreadPool(threadCount, newThreadFactory(namePrefix));
+	}
+	static Thread newThread(Runnable runnable, String name) {
+		if (!isVirtualThreads()) {
+			Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			return thread;
+		}
+		Thread thread = newVirtualThreadFactory(name, 0).newThread(runnable);
+		thread.setName(name);
+		return thread;
+	}
+	static ThreadFactory newThreadFactory(final String namePrefix) {
+		if (isVirtualThreads())
+			return newVirtualThreadFactory(namePrefix, 1);
+
+		return new ThreadFactory() {
+			private int threadNumber = 0;
+			@Override
+			public synchronized Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, namePrefix+(++threadNumber));
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+	static private ThreadFactory newVirtualThreadFactory(String namePrefix, long start) {
+		try {
+			Object builder = ofVirtual.invoke(null);
+			builder = builderName.invoke(builder, namePrefix, start);
+			return (ThreadFactory) builderFactory.invoke(builder);
+		} catch (Exception e) {
+			throw new MarkLogicInternalException("Could not create virtual thread factory", e);
+		}
+	}
+}
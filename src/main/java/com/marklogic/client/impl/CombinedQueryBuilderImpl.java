@@ -19,7 +19,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 
 import javax.xml.XMLConstants;
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamWriter;
 
 import org.apache.commons.logging.Log;
@@ -48,6 +47,7 @@ import com.marklogic.client.query.RawQueryDefinition;
 import com.marklogic.client.query.RawStructuredQueryDefinition;
 import com.marklogic.client.query.StructuredQueryBuilder;
 import com.marklogic.client.query.StructuredQueryDefinition;
+import com.marklogic.client.util.XMLFactories;
 
 public class CombinedQueryBuilderImpl implements CombinedQueryBuilder {
     
@@ -239,11 +239,8 @@ public class CombinedQueryBuilderImpl implements CombinedQueryBuilder {
     }
 
     private XMLStreamWriter makeXMLSerializer(OutputStream out) {
-        XMLOutputFactory factory = XMLOutputFactory.newInstance();
-        factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
-
         try {
-            XMLStreamWriter serializer = factory.createXMLStreamWriter(out, "UTF-8");
+            XMLStreamWriter serializer = XMLFactories.getOutputFactory().createXMLStreamWriter(out, "UTF-8");
 
             serializer.setDefaultNamespace("http://marklogic.com/appservices/search");
             serializer.setPrefix("xs",  XMLConstants.W3C_XML_SCHEMA_NS_URI);
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.marklogic.client.CompressionPolicy;
+import com.sun.jersey.api.client.AbstractClientRequestAdapter;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientRequestAdapter;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+
+/**
+ * CompressionFilter applies the compression policy of a database client
+ * to each request and response.
+ */
+class CompressionFilter extends ClientFilter {
+	static final private Logger logger = LoggerFactory.getLogger(CompressionFilter.class);
+
+	static final private String GZIP    = "gzip";
+	static final private String DEFLATE = "deflate";
+
+	private static class GZIPAdapter extends AbstractClientRequestAdapter {
+		GZIPAdapter(ClientRequestAdapter adapter) {
+			super(adapter);
+		}
+		@Override
+		public OutputStream adapt(ClientRequest request, OutputStream out) throws IOException {
+			return new GZIPOutputStream(getAdapter().adapt(request, out));
+		}
+	}
+
+	private volatile CompressionPolicy policy;
+
+	CompressionFilter() {
+		super();
+	}
+
+	CompressionPolicy getPolicy() {
+		return policy;
+	}
+	void setPolicy(CompressionPolicy policy) {
+		this.policy = policy;
+	}
+
+	@Override
+	public ClientResponse handle(ClientRequest request) throws ClientHandlerException {
+		CompressionPolicy policy = this.policy;
+		if (policy == null)
+			return getNext().handle(request);
+
+		MultivaluedMap<String, Object> headers = request.getHeaders();
+
+		boolean isDecompressing = policy.isDecompressingResponses();
+		if (isDecompressing && !headers.containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+			headers.putSingle(HttpHeaders.ACCEPT_ENCODING, GZIP+", "+DEFLATE);
+		}
+
+		// an authentication filter can resend the request, which is already compressed
+		if (policy.isCompressingRequests() && !headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+				&& isCompressible(policy, request)) {
+			if (logger.isDebugEnabled())
+				logger.debug("Compressing request for {}", request.getURI().getPath());
+			headers.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+			request.setAdapter(new GZIPAdapter(request.getAdapter()));
+		}
+
+		ClientResponse response = getNext().handle(request);
+
+		if (isDecompressing && response.hasEntity()) {
+			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
+			String encoding = responseHeaders.getFirst(HttpHeaders.CONTENT_ENCODING);
+			if (encoding != null) {
+				encoding = encoding.trim();
+				InputStream entity = response.getEntityInputStream();
+				try {
+					if (GZIP.equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)) {
+						response.setEntityInputStream(new GZIPInputStream(entity));
+						responseHeaders.remove(HttpHeaders.CONTENT_ENCODING);
+						responseHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+					} else if (DEFLATE.equalsIgnoreCase(encoding)) {
+						response.setEntityInputStream(new InflaterInputStream(entity));
+						responseHeaders.remove(HttpHeaders.CONTENT_ENCODING);
+						responseHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+					}
+				} catch (IOException e) {
+					response.close();
+					throw new ClientHandlerException(e);
+				}
+			}
+		}
+
+		return response;
+	}
+
+	private boolean isCompressible(CompressionPolicy policy, ClientRequest request) {
+		Object entity = request.getEntity();
+		if (entity == null)
+			return false;
+
+		Object contentType = request.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+		if (contentType == null || !policy.isAllowedMimetype(contentType.toString()))
+			return false;
+
+		long length = -1;
+		if (entity instanceof byte[]) {
+			length = ((byte[]) entity).length;
+		} else if (entity instanceof String) {
+			length = ((String) entity).length();
+		} else if (entity instanceof File) {
+			length = ((File) entity).length();
+		} else if (entity instanceof StreamingOutputImpl) {
+			length = ((StreamingOutputImpl) entity).getContentLength();
+		}
+
+		// streamed content of unknown length is compressed
+		return length == -1 || length >= policy.getThreshold();
+	}
+}
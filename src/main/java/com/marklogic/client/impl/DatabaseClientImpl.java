@@ -17,12 +17,14 @@ package com.marklogic.client.impl;
 
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.marklogic.client.admin.ExtensionMetadata;
 import com.marklogic.client.document.BinaryDocumentManager;
+import com.marklogic.client.CompressionPolicy;
 import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.FailedRequestException;
 import com.marklogic.client.ForbiddenUserException;
@@ -37,6 +39,7 @@ import com.marklogic.client.extensions.ResourceManager;
 import com.marklogic.client.DatabaseClientFactory.HandleFactoryRegistry;
 import com.marklogic.client.admin.ServerConfigurationManager;
 import com.marklogic.client.alerting.RuleManager;
+import com.marklogic.client.bulk.BulkManager;
 import com.marklogic.client.document.TextDocumentManager;
 import com.marklogic.client.Transaction;
 import com.marklogic.client.document.XMLDocumentManager;
@@ -62,6 +65,8 @@ public class DatabaseClientImpl implements DatabaseClient {
 	private SSLContext            context;
 	private SSLHostnameVerifier   verifier;
 	private HandleFactoryRegistry handleRegistry;
+	// shared by the query managers so each client installs options once
+	private OptionsPromoter       optionsPromoter;
 
 	public DatabaseClientImpl(RESTServices services, String host, int port, String database,
 		String user, String password, Authentication type, SSLContext context, SSLHostnameVerifier verifier)
@@ -75,6 +80,7 @@ public class DatabaseClientImpl implements DatabaseClient {
 		this.type     = type;
 		this.context  = context;
 		this.verifier = verifier;
+		this.optionsPromoter = new OptionsPromoter(services);
 		services.setDatabaseClient(this);
 	}
 
@@ -100,6 +106,11 @@ public class DatabaseClientImpl implements DatabaseClient {
 		return services.openTransaction(name, timeLimit);
 	}
 
+	@Override
+	public List<Transaction> getOpenTransactions() {
+		return services.getOpenTransactions();
+	}
+
 	@Override
 	public GenericDocumentManager newDocumentManager() {
 		GenericDocumentImpl docMgr = new GenericDocumentImpl(services);
@@ -141,6 +152,7 @@ public class DatabaseClientImpl implements DatabaseClient {
 	public QueryManager newQueryManager() {
 		QueryManagerImpl queryMgr = new QueryManagerImpl(services);
 		queryMgr.setHandleRegistry(getHandleRegistry());
+		queryMgr.setOptionsPromoter(optionsPromoter);
 		return queryMgr;
 	}
 	@Override
@@ -192,6 +204,15 @@ public class DatabaseClientImpl implements DatabaseClient {
 		super.finalize();
 	}
 
+	@Override
+	public CompressionPolicy getCompressionPolicy() {
+		return services.getCompressionPolicy();
+	}
+	@Override
+	public void setCompressionPolicy(CompressionPolicy policy) {
+		services.setCompressionPolicy(policy);
+	}
+
 	@Override
 	public Object getClientImplementation() {
 		if (services == null)
@@ -220,6 +241,11 @@ public class DatabaseClientImpl implements DatabaseClient {
 		return new SPARQLQueryManagerImpl(services);
 	}
 
+	@Override
+	public BulkManager newBulkManager() {
+		return new BulkManagerImpl(services);
+	}
+
 	@Override
 	public String getHost() {
 		return host;
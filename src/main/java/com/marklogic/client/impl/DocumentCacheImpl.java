@@ -0,0 +1,188 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.document.DocumentCache;
+import com.marklogic.client.document.DocumentDescriptor;
+import com.marklogic.client.io.Format;
+
+public class DocumentCacheImpl implements DocumentCache {
+	static public class CachedContent {
+		private long   version;
+		private byte[] content;
+		private Format format;
+		private String mimetype;
+
+		CachedContent(long version, byte[] content, Format format, String mimetype) {
+			this.version  = version;
+			this.content  = content;
+			this.format   = format;
+			this.mimetype = mimetype;
+		}
+
+		public long getVersion() {
+			return version;
+		}
+		public byte[] getContent() {
+			return content;
+		}
+		public Format getFormat() {
+			return format;
+		}
+		public String getMimetype() {
+			return mimetype;
+		}
+	}
+
+	private int  maxEntries;
+	private long maxBytes;
+	private long byteSize  = 0;
+	private long hitCount  = 0;
+	private long missCount = 0;
+
+	// access order makes iteration start with the least recently used document
+	final private LinkedHashMap<String, CachedContent> entries =
+		new LinkedHashMap<String, CachedContent>(16, 0.75f, true);
+
+	public DocumentCacheImpl(int maxEntries, long maxBytes) {
+		super();
+		if (maxEntries < 1)
+			throw new IllegalArgumentException("cache must allow at least one document");
+		if (maxBytes < 1)
+			throw new IllegalArgumentException("cache must allow at least one byte");
+		this.maxEntries = maxEntries;
+		this.maxBytes   = maxBytes;
+	}
+
+	@Override
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+	@Override
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	@Override
+	public synchronized int size() {
+		return entries.size();
+	}
+	@Override
+	public synchronized long getByteSize() {
+		return byteSize;
+	}
+
+	@Override
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+	@Override
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	@Override
+	public synchronized boolean contains(String uri) {
+		return entries.containsKey(uri);
+	}
+	@Override
+	public synchronized void remove(String uri) {
+		if (uri == null)
+			return;
+		CachedContent removed = entries.remove(uri);
+		if (removed != null)
+			byteSize -= removed.getContent().length;
+	}
+	@Override
+	public synchronized void clear() {
+		entries.clear();
+		byteSize = 0;
+	}
+
+	synchronized CachedContent get(String uri) {
+		return entries.get(uri);
+	}
+	synchronized void hit() {
+		hitCount++;
+	}
+	synchronized CachedContent miss(String uri, long version, byte[] content,
+			Format format, String mimetype) {
+		missCount++;
+
+		remove(uri);
+
+		if (content == null)
+			content = new byte[0];
+
+		CachedContent cached = new CachedContent(version, content, format, mimetype);
+
+		// without a version, the server cannot confirm that the content is current
+		if (version == DocumentDescriptor.UNKNOWN_VERSION || content.length > maxBytes)
+			return cached;
+
+		entries.put(uri, cached);
+		byteSize += content.length;
+
+		Iterator<Map.Entry<String, CachedContent>> itr = entries.entrySet().iterator();
+		while (itr.hasNext() && (entries.size() > maxEntries || byteSize > maxBytes)) {
+			CachedContent evicted = itr.next().getValue();
+			itr.remove();
+			byteSize -= evicted.getContent().length;
+		}
+
+		return cached;
+	}
+
+	static Object makeContent(byte[] content, Class<?> as) {
+		if (byte[].class.isAssignableFrom(as)) {
+			return content;
+		} else if (InputStream.class.isAssignableFrom(as)) {
+			return new ByteArrayInputStream(content);
+		} else if (File.class.isAssignableFrom(as)) {
+			try {
+				File tempFile = File.createTempFile("tmp", null);
+				FileOutputStream out = new FileOutputStream(tempFile);
+				try {
+					out.write(content);
+				} finally {
+					out.close();
+				}
+				return tempFile;
+			} catch (IOException e) {
+				throw new MarkLogicIOException(e);
+			}
+		} else if (String.class.isAssignableFrom(as)) {
+			try {
+				return new String(content, "UTF-8");
+			} catch (IOException e) {
+				throw new MarkLogicIOException(e);
+			}
+		}
+
+		throw new IllegalArgumentException(
+				"Cannot supply cached content as "+as.getName());
+	}
+}
@@ -21,8 +21,6 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 
-import javax.xml.bind.DatatypeConverter;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +32,7 @@ import com.marklogic.client.ResourceNotFoundException;
 import com.marklogic.client.Transaction;
 import com.marklogic.client.bitemporal.TemporalDescriptor;
 import com.marklogic.client.bitemporal.TemporalDocumentManager;
+import com.marklogic.client.document.DocumentCache;
 import com.marklogic.client.document.DocumentDescriptor;
 import com.marklogic.client.document.DocumentManager;
 import com.marklogic.client.document.DocumentMetadataPatchBuilder;
@@ -52,6 +51,7 @@ import com.marklogic.client.io.marker.DocumentMetadataReadHandle;
 import com.marklogic.client.io.marker.DocumentMetadataWriteHandle;
 import com.marklogic.client.io.marker.DocumentPatchHandle;
 import com.marklogic.client.io.marker.SearchReadHandle;
+import com.marklogic.client.io.BytesHandle;
 import com.marklogic.client.io.JacksonHandle;
 import com.marklogic.client.io.SearchHandle;
 import com.marklogic.client.query.QueryDefinition;
@@ -93,6 +93,7 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
   private long pageLength = DEFAULT_PAGE_LENGTH;
   private QueryView searchView = QueryView.RESULTS;
   private Format nonDocumentFormat = null;
+  private DocumentCacheImpl documentCache;
 
   DocumentManagerImpl(RESTServices services, Format contentFormat) {
     super();
@@ -183,14 +184,18 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
   public <T> T readAs(String uri, DocumentMetadataReadHandle metadataHandle,
       Class<T> as, ServerTransform transform) throws ResourceNotFoundException,
       ForbiddenUserException, FailedRequestException {
-    ContentHandle<T> handle = getHandleRegistry().makeHandle(as);
+    HandleFactoryRegistry registry = getHandleRegistry();
+    ContentHandle<T> handle = registry.acquireHandle(as);
+    try {
+      if (null == read(uri, metadataHandle, castAbstractReadHandle(as, handle),
+          transform)) {
+        return null;
+      }
 
-    if (null == read(uri, metadataHandle, castAbstractReadHandle(as, handle),
-        transform)) {
-      return null;
+      return handle.get();
+    } finally {
+      registry.releaseHandle(as, handle);
     }
-
-    return handle.get();
   }
 
   R castAbstractReadHandle(Class<?> as, AbstractReadHandle handle) {
@@ -381,6 +386,11 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
 
     checkContentFormat(contentHandle);
 
+    if (isCacheable(desc, metadataHandle, contentHandle, transform,
+        transaction, temporalCollection, extraParams)) {
+      return readCached(desc, contentHandle);
+    }
+
     extraParams = addTemporalParams(extraParams, temporalCollection, null);
 
     boolean wasModified = services.getDocument(
@@ -396,6 +406,96 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
     return wasModified ? contentHandle : null;
   }
 
+  private boolean isCacheable(DocumentDescriptor desc,
+      DocumentMetadataReadHandle metadataHandle, Object contentHandle,
+      ServerTransform transform, Transaction transaction,
+      String temporalCollection, RequestParameters extraParams) {
+    if (documentCache == null || contentHandle == null
+        || metadataHandle != null || transaction != null
+        || transform != null || getReadTransform() != null
+        || temporalCollection != null
+        || (extraParams != null && !extraParams.isEmpty()))
+      return false;
+
+    // an explicit version on the descriptor asks for a conditional read
+    // that returns null if the document is unmodified
+    if (desc.getVersion() != DocumentDescriptor.UNKNOWN_VERSION
+        && !(desc instanceof DocumentDescriptorImpl
+            && ((DocumentDescriptorImpl) desc).isInternal()))
+      return false;
+
+    return true;
+  }
+
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  private <T extends R> T readCached(DocumentDescriptor desc, T contentHandle) {
+    String uri = desc.getUri();
+
+    HandleImplementation contentBase = HandleAccessor.checkHandle(
+        contentHandle, "content");
+
+    DocumentCacheImpl cache = documentCache;
+    DocumentCacheImpl.CachedContent cached = cache.get(uri);
+
+    DocumentDescriptorImpl cacheDesc = new DocumentDescriptorImpl(uri, false);
+    if (cached != null)
+      cacheDesc.setVersion(cached.getVersion());
+
+    BytesHandle bytesHandle = new BytesHandle();
+    bytesHandle.setFormat(contentBase.getFormat());
+    bytesHandle.setMimetype(contentBase.getMimetype());
+
+    boolean wasModified = services.getDocument(requestLogger, cacheDesc,
+        null, null, null, null, bytesHandle);
+
+    if (wasModified) {
+      cached = cache.miss(uri, cacheDesc.getVersion(), bytesHandle.get(),
+          cacheDesc.getFormat(), cacheDesc.getMimetype());
+    } else {
+      if (logger.isDebugEnabled())
+        logger.debug("Reading cached content for {}", uri);
+
+      cache.hit();
+    }
+
+    byte[] content = cached.getContent();
+
+    if (!(desc instanceof DocumentDescriptorImpl
+        && ((DocumentDescriptorImpl) desc).isInternal())) {
+      desc.setVersion(cached.getVersion());
+      if (cached.getFormat() != null)
+        desc.setFormat(cached.getFormat());
+      if (cached.getMimetype() != null)
+        desc.setMimetype(cached.getMimetype());
+      desc.setByteLength(content.length);
+    }
+
+    if (cached.getFormat() != null)
+      contentBase.setFormat(cached.getFormat());
+    if (cached.getMimetype() != null)
+      contentBase.setMimetype(cached.getMimetype());
+    contentBase.setByteLength(content.length);
+
+    contentBase.receiveContent(
+        DocumentCacheImpl.makeContent(content, contentBase.receiveAs()));
+
+    return contentHandle;
+  }
+
+  private void uncache(String uri) {
+    DocumentCacheImpl cache = documentCache;
+    if (cache != null)
+      cache.remove(uri);
+  }
+
+  private void uncache(String[] uris) {
+    DocumentCacheImpl cache = documentCache;
+    if (cache == null || uris == null)
+      return;
+    for (String uri : uris)
+      cache.remove(uri);
+  }
+
   @Override
   public DocumentPage read(String... uris) {
     return read(null, null, uris);
@@ -561,6 +661,10 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
   public void write(DocumentWriteSet writeSet, ServerTransform transform,
       Transaction transaction, String temporalCollection) {
     Format defaultFormat = contentFormat;
+    if (documentCache != null) {
+      for (DocumentWriteOperation op : writeSet)
+        uncache(op.getUri());
+    }
     services.postBulkDocuments(requestLogger, writeSet,
         (transform != null) ? transform : getWriteTransform(),
         transaction,
@@ -833,6 +937,8 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
 
     extraParams = addTemporalParams(extraParams, temporalCollection, systemTime);
 
+    uncache(desc.getUri());
+
     return services.putDocument(
         requestLogger,
         desc,
@@ -860,6 +966,7 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
       throws ResourceNotFoundException, ForbiddenUserException,
       FailedRequestException
   {
+    uncache(uris);
     services.delete(requestLogger, null, uris);
   }
 
@@ -868,6 +975,7 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
       throws ResourceNotFoundException, ForbiddenUserException,
       FailedRequestException
   {
+    uncache(uris);
     services.delete(requestLogger, transaction, uris);
   }
 
@@ -923,6 +1031,8 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
     RequestParameters extraParams = addTemporalParams(new RequestParameters(),
         temporalCollection, systemTime);
 
+    uncache(desc.getUri());
+
     return services.deleteDocument(requestLogger, desc, transaction, null, extraParams);
   }
 
@@ -1135,6 +1245,7 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
 
     DocumentPatchHandleImpl builtPatch = (patch instanceof DocumentPatchHandleImpl) ? (DocumentPatchHandleImpl) patch
         : null;
+    uncache(desc.getUri());
     services.patchDocument(requestLogger, desc, transaction,
     	(builtPatch != null) ? builtPatch.getMetadata() : processedMetadata,
         (builtPatch != null) ? builtPatch.isOnContent() : true, patch);
@@ -1226,6 +1337,24 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
     this.forestName = forestName;
   }
 
+  @Override
+  public DocumentCache newDocumentCache(int maxEntries, long maxBytes) {
+    return new DocumentCacheImpl(maxEntries, maxBytes);
+  }
+
+  @Override
+  public DocumentCache getDocumentCache() {
+    return documentCache;
+  }
+
+  @Override
+  public void setDocumentCache(DocumentCache cache) {
+    if (cache != null && !(cache instanceof DocumentCacheImpl))
+      throw new IllegalArgumentException(
+          "cache must be created by newDocumentCache()");
+    this.documentCache = (DocumentCacheImpl) cache;
+  }
+
   @Override
   public DocumentDescriptor newDescriptor(String uri) {
     return new DocumentDescriptorImpl(uri, false);
@@ -1289,7 +1418,7 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
     if (temporalCollection != null)
       params.add("temporal-collection", temporalCollection);
     if (systemTime != null) {
-      String formattedSystemTime = DatatypeConverter.printDateTime(systemTime);
+      String formattedSystemTime = ValueConverter.printDateTime(systemTime);
       params.add("system-time", formattedSystemTime);
     }
     return params;
@@ -26,7 +26,6 @@ import java.util.Set;
 import javax.xml.XMLConstants;
 import javax.xml.bind.DatatypeConverter;
 import javax.xml.namespace.QName;
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
@@ -39,6 +38,7 @@ import com.marklogic.client.io.Format;
 import com.marklogic.client.io.StringHandle;
 import com.marklogic.client.util.EditableNamespaceContext;
 import com.marklogic.client.util.IterableNamespaceContext;
+import com.marklogic.client.util.XMLFactories;
 
 class DocumentMetadataPatchBuilderImpl
 implements DocumentMetadataPatchBuilder
@@ -1053,11 +1053,8 @@ implements DocumentMetadataPatchBuilder
 		} else {
 			handle.setFormat(Format.XML);
 			try {
-				XMLOutputFactory factory = XMLOutputFactory.newInstance();
-				factory.setProperty("javax.xml.stream.isRepairingNamespaces", true);
-
 				StringWriter    writer     = new StringWriter();
-				XMLStreamWriter serializer = factory.createXMLStreamWriter(writer);
+				XMLStreamWriter serializer = XMLFactories.getOutputFactory().createXMLStreamWriter(writer);
 				
 				XMLOutputSerializer out = new XMLOutputSerializer(writer, serializer);
 
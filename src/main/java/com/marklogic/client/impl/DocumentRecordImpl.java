@@ -21,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.marklogic.client.DatabaseClientFactory;
+import com.marklogic.client.DatabaseClientFactory.HandleFactoryRegistry;
 import com.marklogic.client.document.DocumentRecord;
 import com.marklogic.client.io.Format;
 import com.marklogic.client.io.marker.AbstractReadHandle;
@@ -87,10 +88,14 @@ public class DocumentRecordImpl implements DocumentRecord {
 	}
 
 	public <T> T getContentAs(Class<T> clazz) {
-		ContentHandle<T> readHandle = DatabaseClientFactory.getHandleRegistry().makeHandle(clazz);
-		readHandle = getContent(readHandle);
-		if ( readHandle == null ) return null;
-		return readHandle.get();
+		HandleFactoryRegistry registry = DatabaseClientFactory.getHandleRegistry();
+		ContentHandle<T> readHandle = registry.acquireHandle(clazz);
+		try {
+			if ( getContent(readHandle) == null ) return null;
+			return readHandle.get();
+		} finally {
+			registry.releaseHandle(clazz, readHandle);
+		}
 	}
 }
 
@@ -20,14 +20,14 @@ import java.io.InputStream;
 
 import javax.ws.rs.core.MediaType;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import com.marklogic.client.MarkLogicInternalException;
 import com.marklogic.client.io.JSONErrorParser;
+import com.marklogic.client.util.XMLFactories;
 
 /**
  * Encapsulate data passed in an error response from a REST server instance
@@ -58,13 +58,9 @@ public class FailedRequest {
 		@Override
 		public FailedRequest parseFailedRequest(int httpStatus, InputStream is) {
 			FailedRequest failure = new FailedRequest();
-			DocumentBuilderFactory factory = DocumentBuilderFactory
-					.newInstance();
-			factory.setNamespaceAware(true);
-			factory.setValidating(false);
 			DocumentBuilder builder;
 			try {
-				builder = factory.newDocumentBuilder();
+				builder = XMLFactories.getDocumentBuilder();
 				Document doc = builder.parse(is);
 				String statusCode = null;
 				NodeList statusCodes = doc.getElementsByTagNameNS(JerseyServices.ERROR_NS, "status-code");
@@ -98,7 +94,7 @@ public class FailedRequest {
 						failure.setMessageString( messageStrings.item(0).getTextContent() );
 					}
 				}
-			} catch (ParserConfigurationException e) {
+			} catch (MarkLogicInternalException e) {
 				failure.setStatusCode(httpStatus);
 				failure.setMessageString("Request failed. Unable to parse server error.");
 			} catch (SAXException e) {
@@ -0,0 +1,447 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.ls.DOMImplementationLS;
+import org.w3c.dom.ls.LSSerializer;
+import org.xml.sax.InputSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marklogic.client.DatabaseClientFactory.HandleFactoryRegistry;
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.bulk.ExportIterator;
+import com.marklogic.client.document.DocumentManager.Metadata;
+import com.marklogic.client.document.DocumentPage;
+import com.marklogic.client.document.DocumentRecord;
+import com.marklogic.client.eval.EvalResult;
+import com.marklogic.client.eval.EvalResultIterator;
+import com.marklogic.client.impl.BulkExporterImpl.ExportPage;
+import com.marklogic.client.impl.BulkExporterImpl.PrefetchIterator;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.marker.StructureWriteHandle;
+import com.marklogic.client.query.ForestQueryExecutor;
+import com.marklogic.client.query.QueryDefinition;
+import com.marklogic.client.query.QueryManager.QueryView;
+import com.marklogic.client.query.RawCombinedQueryDefinition;
+import com.marklogic.client.query.RawQueryDefinition;
+import com.marklogic.client.query.RawStructuredQueryDefinition;
+import com.marklogic.client.query.StringQueryDefinition;
+import com.marklogic.client.query.StructuredQueryBuilder;
+import com.marklogic.client.query.StructuredQueryDefinition;
+import com.marklogic.client.util.XMLFactories;
+
+class ForestQueryExecutorImpl implements ForestQueryExecutor {
+	static final private Logger logger = LoggerFactory.getLogger(ForestQueryExecutorImpl.class);
+
+	static final private String SEARCH_NS = StructuredQueryBuilder.SEARCH_API_NS;
+
+	static final private String FORESTS_QUERY =
+		"for $forest in xdmp:database-forests(xdmp:database()) return string($forest)";
+
+	static final private AtomicInteger executionCounter = new AtomicInteger();
+
+	static final private ObjectMapper mapper = new ObjectMapper();
+
+	private RESTServices          services;
+	private HandleFactoryRegistry handleRegistry;
+	private String[]              forestIds;
+	private int                   forestsPerQuery = DEFAULT_FORESTS_PER_QUERY;
+	private int                   threadCount     = DEFAULT_THREAD_COUNT;
+	private int                   pageLength      = DEFAULT_PAGE_LENGTH;
+
+	ForestQueryExecutorImpl(RESTServices services, HandleFactoryRegistry handleRegistry) {
+		super();
+		this.services       = services;
+		this.handleRegistry = handleRegistry;
+	}
+
+	@Override
+	public String[] getForestIds() {
+		String[] ids = forestIds;
+		if (ids == null) {
+			ids = readForestIds();
+			forestIds = ids;
+		}
+		return ids.clone();
+	}
+	@Override
+	public void setForestIds(String... forestIds) {
+		if (forestIds == null || forestIds.length == 0) {
+			this.forestIds = null;
+			return;
+		}
+		for (String forestId: forestIds) {
+			if (forestId == null || forestId.length() == 0)
+				throw new IllegalArgumentException("empty forest id");
+		}
+		this.forestIds = forestIds.clone();
+	}
+
+	@Override
+	public int getForestsPerQuery() {
+		return forestsPerQuery;
+	}
+	@Override
+	public void setForestsPerQuery(int forestsPerQuery) {
+		if (forestsPerQuery < 1)
+			throw new IllegalArgumentException("forests per query must be at least 1: "+forestsPerQuery);
+		this.forestsPerQuery = forestsPerQuery;
+	}
+
+	@Override
+	public int getThreadCount() {
+		return threadCount;
+	}
+	@Override
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1)
+			throw new IllegalArgumentException("thread count must be at least 1: "+threadCount);
+		this.threadCount = threadCount;
+	}
+
+	@Override
+	public int getPageLength() {
+		return pageLength;
+	}
+	@Override
+	public void setPageLength(int pageLength) {
+		if (pageLength < 1)
+			throw new IllegalArgumentException("page length must be at least 1: "+pageLength);
+		this.pageLength = pageLength;
+	}
+
+	@Override
+	public long count(QueryDefinition querydef) {
+		List<QueryDefinition> forestQueries = makeForestQueries(querydef);
+		if (forestQueries.isEmpty())
+			return 0;
+
+		ExecutorService executor = ClientThreads.newFixedThreadPool(
+				Math.min(threadCount, forestQueries.size()), threadPrefix());
+		try {
+			CompletionService<Long> completion = new ExecutorCompletionService<Long>(executor);
+			for (final QueryDefinition forestQuery: forestQueries) {
+				completion.submit(new Callable<Long>() {
+					@Override
+					public Long call() {
+						return readTotal(services.search(null, InputStream.class, forestQuery,
+								"application/xml", 1, 0, QueryView.RESULTS, null));
+					}
+				});
+			}
+			long total = 0;
+			for (int i=0; i < forestQueries.size(); i++) {
+				total += completion.take().get();
+			}
+			return total;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MarkLogicIOException("Interrupted while counting forests", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new MarkLogicIOException("Could not count forest", cause);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Override
+	public ExportIterator<String> exportUris(QueryDefinition querydef) {
+		final List<QueryDefinition> forestQueries = makeForestQueries(querydef);
+		PrefetchIterator<String> iterator = new PrefetchIterator<String>(forestQueries.size(),
+				threadCount, pageLength, prefetchPages(forestQueries), threadPrefix()) {
+			@Override
+			ExportPage<String> readPage(int source, long start, long length) {
+				String[] uris = SearchUriReader.readUris(services, null,
+						forestQueries.get(source), start, length, null);
+				return new ExportPage<String>(Arrays.asList(uris).iterator(), uris.length, null);
+			}
+		};
+		iterator.start();
+		return iterator;
+	}
+
+	@Override
+	public ExportIterator<DocumentRecord> exportDocuments(QueryDefinition querydef,
+			Metadata... categories) {
+		final Set<Metadata> categorySet = (categories == null || categories.length == 0) ?
+				EnumSet.noneOf(Metadata.class) : EnumSet.copyOf(Arrays.asList(categories));
+
+		final List<QueryDefinition> forestQueries = makeForestQueries(querydef);
+		PrefetchIterator<DocumentRecord> iterator =
+			new PrefetchIterator<DocumentRecord>(forestQueries.size(),
+					threadCount, pageLength, prefetchPages(forestQueries), threadPrefix()) {
+				@Override
+				ExportPage<DocumentRecord> readPage(int source, long start, long length) {
+					DocumentPage page = services.getBulkDocuments(null, forestQueries.get(source),
+							start, length, null, null, null, categorySet, Format.XML, null);
+					if (page == null)
+						return new ExportPage<DocumentRecord>(
+								Collections.<DocumentRecord>emptyList().iterator(), 0, null);
+					return new ExportPage<DocumentRecord>(page.iterator(), (int) page.size(), page);
+				}
+			};
+		iterator.start();
+		return iterator;
+	}
+
+	// one page ready for each thread keeps the threads busy while the consumer catches up
+	private int prefetchPages(List<QueryDefinition> forestQueries) {
+		return Math.max(1, Math.min(threadCount, forestQueries.size()));
+	}
+	private String threadPrefix() {
+		return "marklogic-forest-"+executionCounter.incrementAndGet()+"-";
+	}
+
+	private String[] readForestIds() {
+		List<String> ids = new ArrayList<String>();
+		EvalResultIterator results = new ServerEvaluationCallImpl(services, handleRegistry)
+			.xquery(FORESTS_QUERY)
+			.eval();
+		try {
+			while (results.hasNext()) {
+				EvalResult result = results.next();
+				ids.add(result.getString());
+			}
+		} finally {
+			results.close();
+		}
+		if (logger.isDebugEnabled())
+			logger.debug("Found {} forests for the database", ids.size());
+		return ids.toArray(new String[ids.size()]);
+	}
+
+	private List<QueryDefinition> makeForestQueries(QueryDefinition querydef) {
+		if (querydef == null)
+			throw new IllegalArgumentException("null query for forests");
+
+		String[] ids = getForestIds();
+		List<QueryDefinition> forestQueries = new ArrayList<QueryDefinition>(
+				(ids.length + forestsPerQuery - 1) / forestsPerQuery);
+		for (int i=0; i < ids.length; i += forestsPerQuery) {
+			forestQueries.add(restrictToForests(querydef,
+					Arrays.copyOfRange(ids, i, Math.min(ids.length, i + forestsPerQuery))));
+		}
+		return forestQueries;
+	}
+
+	/**
+	 * Rewrites a query as a combined query with the forest option
+	 * so the search only reads the specified forests.
+	 */
+	static QueryDefinition restrictToForests(QueryDefinition querydef, String[] forestIds) {
+		Format format   = Format.XML;
+		String criteria = null;
+		String content  = null;
+		if (querydef instanceof RawCombinedQueryDefinition ||
+				querydef instanceof RawStructuredQueryDefinition) {
+			StructureWriteHandle handle = ((RawQueryDefinition) querydef).getHandle();
+			HandleImplementation<?,?> base = HandleAccessor.checkHandle(handle, "search");
+			if (!base.isResendable())
+				throw new IllegalArgumentException("cannot send a streamed query to many forests");
+			if (base.getFormat() == Format.JSON)
+				format = Format.JSON;
+			content = HandleAccessor.contentAsString(handle);
+		} else if (querydef instanceof CombinedQueryDefinition) {
+			CombinedQueryDefinition combined = (CombinedQueryDefinition) querydef;
+			if (combined.getFormat() == Format.JSON)
+				format = Format.JSON;
+			content = combined.serialize();
+		} else if (querydef instanceof StructuredQueryDefinition) {
+			content = ((StructuredQueryDefinition) querydef).serialize();
+		} else if (querydef instanceof StringQueryDefinition) {
+			criteria = ((StringQueryDefinition) querydef).getCriteria();
+		} else {
+			throw new IllegalArgumentException("cannot restrict "+
+					querydef.getClass().getName()+" to forests");
+		}
+
+		String restricted = (format == Format.JSON) ?
+				restrictJSON(content, forestIds) : restrictXML(criteria, content, forestIds);
+
+		RawQueryDefinitionImpl.Combined forestQuery = new RawQueryDefinitionImpl.Combined(
+				new StringHandle(restricted).withFormat(format), querydef.getOptionsName());
+		forestQuery.setDirectory(querydef.getDirectory());
+		forestQuery.setCollections(querydef.getCollections());
+		forestQuery.setResponseTransform(querydef.getResponseTransform());
+		return forestQuery;
+	}
+	static private String restrictXML(String criteria, String content, String[] forestIds) {
+		Document document = null;
+		Element  search   = null;
+		if (content == null) {
+			document = XMLFactories.getDocumentBuilder().newDocument();
+			search   = document.createElementNS(SEARCH_NS, "search");
+			document.appendChild(search);
+		} else {
+			Document parsed = null;
+			try {
+				parsed = XMLFactories.getDocumentBuilder().parse(
+						new InputSource(new StringReader(content)));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("could not parse query for forests", e);
+			}
+			Element root = parsed.getDocumentElement();
+			if (isSearchElement(root, "search")) {
+				document = parsed;
+				search   = root;
+			} else if (isSearchElement(root, "query")) {
+				// wraps a structured query in a combined query
+				document = parsed;
+				search   = document.createElementNS(SEARCH_NS, "search");
+				document.replaceChild(search, root);
+				search.appendChild(root);
+			} else {
+				throw new IllegalArgumentException("query is not a search or structured query");
+			}
+		}
+
+		if (criteria != null) {
+			Element qtext = document.createElementNS(SEARCH_NS, "qtext");
+			qtext.appendChild(document.createTextNode(criteria));
+			search.insertBefore(qtext, search.getFirstChild());
+		}
+
+		Element options = null;
+		for (Node child = search.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE && isSearchElement((Element) child, "options")) {
+				options = (Element) child;
+				break;
+			}
+		}
+		if (options == null) {
+			options = document.createElementNS(SEARCH_NS, "options");
+			search.appendChild(options);
+		} else if (options.getElementsByTagNameNS(SEARCH_NS, "forest").getLength() > 0) {
+			throw new IllegalArgumentException(
+					"query already restricted to forests, so specify the forest ids instead");
+		}
+		for (String forestId: forestIds) {
+			Element forest = document.createElementNS(SEARCH_NS, "forest");
+			forest.appendChild(document.createTextNode(forestId));
+			options.appendChild(forest);
+		}
+
+		LSSerializer serializer =
+			((DOMImplementationLS) document.getImplementation()).createLSSerializer();
+		serializer.getDomConfig().setParameter("xml-declaration", false);
+		return serializer.writeToString(document);
+	}
+	static private boolean isSearchElement(Element element, String localName) {
+		return element != null && localName.equals(element.getLocalName()) &&
+				SEARCH_NS.equals(element.getNamespaceURI());
+	}
+	static private String restrictJSON(String content, String[] forestIds) {
+		JsonNode root = null;
+		try {
+			root = mapper.readTree(content);
+		} catch (IOException e) {
+			throw new IllegalArgumentException("could not parse query for forests", e);
+		}
+		if (!(root instanceof ObjectNode))
+			throw new IllegalArgumentException("query is not a search or structured query");
+
+		ObjectNode search = null;
+		if (root.get("search") instanceof ObjectNode) {
+			search = (ObjectNode) root.get("search");
+		} else if (root.has("query")) {
+			// wraps a structured query in a combined query
+			search = mapper.createObjectNode();
+			search.set("query", root.get("query"));
+			ObjectNode wrapper = mapper.createObjectNode();
+			wrapper.set("search", search);
+			root = wrapper;
+		} else {
+			throw new IllegalArgumentException("query is not a search or structured query");
+		}
+
+		JsonNode options = search.get("options");
+		if (options == null) {
+			options = search.putObject("options");
+		} else if (!(options instanceof ObjectNode)) {
+			throw new IllegalArgumentException("query options are not an object");
+		} else if (options.has("forest")) {
+			throw new IllegalArgumentException(
+					"query already restricted to forests, so specify the forest ids instead");
+		}
+		ArrayNode forests = ((ObjectNode) options).putArray("forest");
+		for (String forestId: forestIds) {
+			forests.add(forestId);
+		}
+		return root.toString();
+	}
+
+	// reads the total attribute of a search response without reading the results
+	static private long readTotal(InputStream stream) {
+		if (stream == null)
+			return 0;
+		try {
+			XMLStreamReader reader = XMLFactories.getInputFactory().createXMLStreamReader(stream);
+			try {
+				while (reader.hasNext()) {
+					if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+						String total = reader.getAttributeValue(null, "total");
+						return (total == null) ? 0 : Long.parseLong(total);
+					}
+				}
+				return 0;
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new MarkLogicIOException("Could not read total from search response", e);
+		} catch (NumberFormatException e) {
+			throw new MarkLogicIOException("Could not read total from search response", e);
+		} finally {
+			try {
+				stream.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+}
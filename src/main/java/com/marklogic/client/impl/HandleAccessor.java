@@ -19,17 +19,22 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 
 import com.marklogic.client.MarkLogicIOException;
 import com.marklogic.client.io.BaseHandle;
+import com.marklogic.client.io.BytesHandle;
 import com.marklogic.client.io.OutputStreamSender;
+import com.marklogic.client.io.StringHandle;
 import com.marklogic.client.io.marker.AbstractReadHandle;
 import com.marklogic.client.io.marker.AbstractWriteHandle;
+import com.marklogic.client.util.BufferPool;
 
 /**
  * HandleAccessor is used internally.  Applications will not ordinarily need to use it.
@@ -37,6 +42,8 @@ import com.marklogic.client.io.marker.AbstractWriteHandle;
  */
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class HandleAccessor {
+	final static private Charset UTF8 = Charset.forName("UTF-8");
+
 	static public HandleImplementation checkHandle(Object object, String type) {
 		if (!isHandle(object))
 			throw new IllegalArgumentException(
@@ -72,10 +79,58 @@ public class HandleAccessor {
 			} else if ( String.class.isAssignableFrom(handleImpl.receiveAs()) ) {
 				handleImpl.receiveContent( content );
 			}
+		} else if ( content instanceof byte[] &&
+			InputStream.class.isAssignableFrom(handleImpl.receiveAs()) )
+		{
+			handleImpl.receiveContent( new ByteArrayInputStream((byte[]) content) );
 		} else {
 			handleImpl.receiveContent(content);
 		}
 	}
+	/**
+	 * Returns the class in which to read a response entity for a handle.
+	 * A StringHandle or BytesHandle reads the entity as a stream, which
+	 * receiveEntity() decodes with a buffer sized by the content length
+	 * instead of a byte[] copy of the entity.  Subclasses read the byte[]
+	 * that receiveAs() declares, so overrides of receiveContent() still apply.
+	 */
+	static public Class receiveEntityAs(HandleImplementation handleImpl) {
+		if (isStreamDecoded(handleImpl))
+			return InputStream.class;
+		return handleImpl.receiveAs();
+	}
+	/**
+	 * Receives a response entity read in the class returned by receiveEntityAs().
+	 */
+	static public void receiveEntity(HandleImplementation handleImpl, Object entity) {
+		if (!(entity instanceof InputStream) || !isStreamDecoded(handleImpl)) {
+			receiveContent((AbstractReadHandle) handleImpl, entity);
+			return;
+		}
+
+		InputStream in = (InputStream) entity;
+		try {
+			if (handleImpl instanceof StringHandle) {
+				((StringHandle) handleImpl).set(
+						BufferPool.readString(in, handleImpl.getByteLength(), UTF8));
+			} else {
+				((BytesHandle) handleImpl).set(
+						BufferPool.readBytes(in, handleImpl.getByteLength()));
+			}
+		} catch (IOException e) {
+			throw new MarkLogicIOException(e);
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// ignore.
+			}
+		}
+	}
+	static private boolean isStreamDecoded(HandleImplementation handleImpl) {
+		Class handleClass = handleImpl.getClass();
+		return handleClass == StringHandle.class || handleClass == BytesHandle.class;
+	}
 	static private byte[] getBytes(String content) {
 		if ( content == null ) return null;
 		try {
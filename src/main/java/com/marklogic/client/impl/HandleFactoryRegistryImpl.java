@@ -34,11 +34,26 @@ import com.marklogic.client.io.XMLEventReaderHandle;
 import com.marklogic.client.io.XMLStreamReaderHandle;
 import com.marklogic.client.io.marker.ContentHandle;
 import com.marklogic.client.io.marker.ContentHandleFactory;
+import com.marklogic.client.io.marker.ReusableContentHandleFactory;
 
 public class HandleFactoryRegistryImpl implements HandleFactoryRegistry {
 	private Map<Class<?>,ContentHandleFactory> factories =
 		new HashMap<Class<?>,ContentHandleFactory>();
 
+	private volatile boolean handlePooling = false;
+	// incremented when the factories change so threads drop stale pooled handles
+	private volatile int     generation    = 0;
+
+	private final ThreadLocal<HandlePool> handlePool = new ThreadLocal<HandlePool>();
+
+	static private class HandlePool {
+		private int generation;
+		private Map<Class<?>,ContentHandle<?>> handles = new HashMap<Class<?>,ContentHandle<?>>();
+		private HandlePool(int generation) {
+			this.generation = generation;
+		}
+	}
+
 	public static HandleFactoryRegistry newDefault() {
 		return registerDefaults(new HandleFactoryRegistryImpl());
 	}
@@ -78,6 +93,7 @@ public class HandleFactoryRegistryImpl implements HandleFactoryRegistry {
 		for (Class<?> type: types) {
 			factories.put(type, factory);
 		}
+		generation++;
 	}
 	@Override
 	public boolean isRegistered(Class<?> type) {
@@ -118,11 +134,58 @@ public class HandleFactoryRegistryImpl implements HandleFactoryRegistry {
 		for (Class<?> type: types) {
 			factories.remove(type);
 		}
+		generation++;
+	}
+	@Override
+	public boolean isHandlePooling() {
+		return handlePooling;
+	}
+	@Override
+	public void setHandlePooling(boolean pooling) {
+		handlePooling = pooling;
+		if (!pooling) {
+			handlePool.remove();
+		}
+	}
+	@Override
+	public <C> ContentHandle<C> acquireHandle(Class<C> type) {
+		if (handlePooling) {
+			HandlePool pool = handlePool.get();
+			if (pool != null && pool.generation == generation) {
+				// removed so a nested read on the same thread gets its own handle
+				@SuppressWarnings("unchecked")
+				ContentHandle<C> handle = (ContentHandle<C>) pool.handles.remove(type);
+				if (handle != null) {
+					return handle;
+				}
+			}
+		}
+
+		return makeHandle(type);
+	}
+	@Override
+	public <C> void releaseHandle(Class<C> type, ContentHandle<C> handle) {
+		if (!handlePooling || type == null || handle == null)
+			return;
+
+		ContentHandleFactory factory = factories.get(type);
+		if (!(factory instanceof ReusableContentHandleFactory))
+			return;
+		if (!((ReusableContentHandleFactory) factory).resetHandle(handle))
+			return;
+
+		HandlePool pool = handlePool.get();
+		if (pool == null || pool.generation != generation) {
+			pool = new HandlePool(generation);
+			handlePool.set(pool);
+		}
+		pool.handles.put(type, handle);
 	}
 	@Override
 	public HandleFactoryRegistry copy() {
 		HandleFactoryRegistryImpl copy = new HandleFactoryRegistryImpl();
 		copy.factories.putAll(this.factories);
+		copy.handlePooling = this.handlePooling;
 		return copy;
 	}
 	Class<?> getRegisteredType(Class<?> type) {
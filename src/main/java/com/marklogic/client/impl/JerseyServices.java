@@ -17,12 +17,17 @@ package com.marklogic.client.impl;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.PrintStream;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.math.BigDecimal;
 import java.net.URLEncoder;
@@ -30,6 +35,8 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.HashMap;
 import java.util.List;
@@ -38,6 +45,7 @@ import java.util.NoSuchElementException;
 import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.net.ssl.SSLContext;
@@ -77,7 +85,9 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.marklogic.client.DatabaseClientFactory;
 import com.marklogic.client.DatabaseClientFactory.Authentication;
+import com.marklogic.client.DatabaseClientFactory.HandleFactoryRegistry;
 import com.marklogic.client.DatabaseClientFactory.SSLHostnameVerifier;
+import com.marklogic.client.CompressionPolicy;
 import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.FailedRequestException;
 import com.marklogic.client.ForbiddenUserException;
@@ -139,6 +149,7 @@ import com.marklogic.client.semantics.SPARQLBinding;
 import com.marklogic.client.semantics.SPARQLBindings;
 import com.marklogic.client.semantics.SPARQLQueryDefinition;
 import com.marklogic.client.semantics.SPARQLRuleset;
+import com.marklogic.client.util.BufferPool;
 import com.marklogic.client.util.EditableNamespaceContext;
 import com.marklogic.client.util.RequestLogger;
 import com.marklogic.client.util.RequestParameters;
@@ -196,6 +207,8 @@ public class JerseyServices implements RESTServices {
 	private WebResource connection;
 	private boolean released = false;
 
+	private CompressionFilter compressionFilter = new CompressionFilter();
+
 	private Random randRetry    = new Random();
 
 	private int maxDelay = DEFAULT_MAX_DELAY;
@@ -203,8 +216,13 @@ public class JerseyServices implements RESTServices {
 
 	private boolean checkFirstRequest = false;
 
+	// transactions opened by this client that have not been committed or rolled back
+	private final ConcurrentHashMap<String, TransactionImpl> openTransactions =
+		new ConcurrentHashMap<String, TransactionImpl>();
+
 	static protected class ThreadState {
 		boolean isFirstRequest;
+		long    unavailableCount;
 		ThreadState(boolean value) {
 			isFirstRequest = value;
 		}
@@ -452,11 +470,23 @@ public class JerseyServices implements RESTServices {
 							+ authenType.name());
 		}
 
+		// added last so compression wraps the authentication filters
+		client.addFilter(compressionFilter);
+
 		// client.addFilter(new LoggingFilter(System.err));
 
 		connection = client.resource(baseUri);
 	}
 
+	@Override
+	public CompressionPolicy getCompressionPolicy() {
+		return compressionFilter.getPolicy();
+	}
+	@Override
+	public void setCompressionPolicy(CompressionPolicy policy) {
+		compressionFilter.setPolicy(policy);
+	}
+
 	@Override
 	public DatabaseClient getDatabaseClient() {
 		return databaseClient;
@@ -504,6 +534,16 @@ public class JerseyServices implements RESTServices {
 			setFirstRequest(true);
 	}
 
+	@Override
+	public long getUnavailableCount() {
+		return threadState.get().unavailableCount;
+	}
+	// counts a 503 response for the calling thread and returns the Retry-After header
+	private String recordUnavailable(MultivaluedMap<String, String> responseHeaders) {
+		threadState.get().unavailableCount++;
+		return responseHeaders.getFirst("Retry-After");
+	}
+
 	private int makeFirstRequest(int retry) {
 		ClientResponse response = getConnection().path("ping").head();
 		int statusCode = response.getClientResponseStatus().getStatusCode();
@@ -515,7 +555,7 @@ public class JerseyServices implements RESTServices {
 		MultivaluedMap<String, String> responseHeaders = response.getHeaders();
 		response.close();
 
-		String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+		String retryAfterRaw = recordUnavailable(responseHeaders);
 		int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 		return Math.max(retryAfter, calculateDelay(randRetry, retry));
 	}
@@ -547,12 +587,7 @@ public class JerseyServices implements RESTServices {
 		int retry = 0;
 		MultivaluedMap<String, String> responseHeaders = null;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = builder.delete(ClientResponse.class);
 			status = response.getClientResponseStatus();
@@ -565,7 +600,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -683,12 +718,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = builder.get(ClientResponse.class);
 			status = response.getClientResponseStatus();
@@ -701,7 +731,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -750,14 +780,14 @@ public class JerseyServices implements RESTServices {
 			updateDescriptor(handleBase, responseHeaders);
 		}
 
-		Class as = handleBase.receiveAs();
+		Class as = HandleAccessor.receiveEntityAs(handleBase);
 		Object entity = response.hasEntity() ? response.getEntity(as) : null;
 
 		if (entity == null ||
 				(!InputStream.class.isAssignableFrom(as) && !Reader.class.isAssignableFrom(as)))
 			response.close();
 
-		handleBase.receiveContent((reqlog != null) ? reqlog.copyContent(entity)
+		HandleAccessor.receiveEntity(handleBase, (reqlog != null) ? reqlog.copyContent(entity)
 				: entity);
 
 		return true;
@@ -782,12 +812,27 @@ public class JerseyServices implements RESTServices {
 			SearchReadHandle searchHandle, QueryView view,
 			Set<Metadata> categories, Format format, RequestParameters extraParams)
 			throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException {
+		boolean withContent = true;
+		return getBulkDocuments(reqlog, querydef, start, pageLength, transaction,
+				searchHandle, view, categories, format, extraParams, withContent);
+	}
+
+    @Override
+	public DocumentPage getBulkDocuments(RequestLogger reqlog,
+			QueryDefinition querydef,
+			long start, long pageLength,
+			Transaction transaction,
+			SearchReadHandle searchHandle, QueryView view,
+			Set<Metadata> categories, Format format, RequestParameters extraParams,
+			boolean withContent)
+			throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException {
 		boolean hasMetadata = categories != null && categories.size() > 0;
-		boolean hasContent = true;
+		if (!withContent && !hasMetadata)
+			throw new IllegalArgumentException("bulk search must request content or metadata");
 		JerseyResultIterator iterator = 
 			getBulkDocumentsImpl(reqlog, querydef, start, pageLength, transaction, 
-				searchHandle, view, categories, format, extraParams);
-		return new JerseyDocumentPage(iterator, hasContent, hasMetadata);
+				searchHandle, view, categories, format, extraParams, withContent);
+		return new JerseyDocumentPage(iterator, withContent, hasMetadata);
 	}
 
 	private class JerseyDocumentPage extends BasicPage<DocumentRecord> implements DocumentPage, Iterator<DocumentRecord> {
@@ -888,11 +933,11 @@ public class JerseyServices implements RESTServices {
 	private JerseyResultIterator getBulkDocumentsImpl(RequestLogger reqlog,
 			QueryDefinition querydef, long start, long pageLength,
 			Transaction transaction, SearchReadHandle searchHandle, QueryView view,
-            Set<Metadata> categories, Format format, RequestParameters extraParams)
+            Set<Metadata> categories, Format format, RequestParameters extraParams,
+            boolean withContent)
 			throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException {
 		MultivaluedMap<String, String> params = new MultivaluedMapImpl();
 		if ( extraParams != null ) params.putAll(extraParams);
-		boolean withContent = true;
 		addCategoryParams(categories, params, withContent);
 		if (searchHandle != null && view != null) params.add("view", view.toString().toLowerCase());
 		if (start > 1)             params.add("start",      Long.toString(start));
@@ -969,12 +1014,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = builder.accept(multipartType).get(ClientResponse.class);
 			status = response.getClientResponseStatus();
@@ -987,7 +1027,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -1062,8 +1102,8 @@ public class JerseyServices implements RESTServices {
 		metadataBase.receiveContent(partList.get(0).getEntityAs(
 				metadataBase.receiveAs()));
 
-		Object contentEntity = contentPart.getEntityAs(contentBase.receiveAs());
-		contentBase.receiveContent((reqlog != null) ? reqlog
+		Object contentEntity = contentPart.getEntityAs(HandleAccessor.receiveEntityAs(contentBase));
+		HandleAccessor.receiveEntity(contentBase, (reqlog != null) ? reqlog
 				.copyContent(contentEntity) : contentEntity);
 
 		try { entity.close(); } catch (IOException e) {}
@@ -1121,12 +1161,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = builder.head();
 			status = response.getClientResponseStatus();
@@ -1139,7 +1174,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -1318,12 +1353,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			Object value = handleBase.sendContent();
 			if (value == null)
@@ -1363,7 +1393,7 @@ public class JerseyServices implements RESTServices {
  				break;
 			}
 
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			response.close();
 
 			if (!isResendable) {
@@ -1473,12 +1503,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			MultiPart multiPart = new MultiPart();
 			boolean hasStreamingPart = addParts(multiPart, reqlog,
@@ -1508,7 +1533,7 @@ public class JerseyServices implements RESTServices {
 
 				break;
 			}
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			response.close();
 
 			if (hasStreamingPart) {
@@ -1616,12 +1641,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = resource.post(ClientResponse.class);
 			status = response.getClientResponseStatus();
@@ -1634,7 +1654,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -1657,13 +1677,7 @@ public class JerseyServices implements RESTServices {
 					+ status.getReasonPhrase(), extractErrorFields(response));
 
 		String location = response.getHeaders().getFirst("Location");
-		String hostId = null;
-		for ( NewCookie newCookie : response.getCookies() ) {
-			if ( "HostId".equalsIgnoreCase(newCookie.getName()) ) {
-				hostId =  newCookie.getValue();
-				break;
-			}
-		}
+		List<NewCookie> cookies = response.getCookies();
 		response.close();
 		if (location == null)
 			throw new MarkLogicInternalException(
@@ -1673,7 +1687,29 @@ public class JerseyServices implements RESTServices {
 					"transaction open produced invalid location: " + location);
 
 		String transactionId = location.substring(location.lastIndexOf("/") + 1);
-		return new TransactionImpl(this, transactionId, response.getCookies());
+		TransactionImpl transaction = new TransactionImpl(this, transactionId, timeLimit, cookies);
+		openTransactions.put(transactionId, transaction);
+		return transaction;
+	}
+
+	@Override
+	public List<Transaction> getOpenTransactions() {
+		List<TransactionImpl> transactions = new ArrayList<TransactionImpl>();
+		for (TransactionImpl transaction: openTransactions.values()) {
+			// the server has already rolled back transactions past their time limit
+			if (transaction.isExpired()) {
+				openTransactions.remove(transaction.getTransactionId(), transaction);
+				continue;
+			}
+			transactions.add(transaction);
+		}
+		Collections.sort(transactions, new Comparator<TransactionImpl>() {
+			@Override
+			public int compare(TransactionImpl first, TransactionImpl second) {
+				return first.getCreatedTimestamp().compareTo(second.getCreatedTimestamp());
+			}
+		});
+		return new ArrayList<Transaction>(transactions);
 	}
 
 	@Override
@@ -1716,12 +1752,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = builder.post(ClientResponse.class);
 			status = response.getClientResponseStatus();
@@ -1734,7 +1765,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -1752,6 +1783,10 @@ public class JerseyServices implements RESTServices {
 			throw new ForbiddenUserException(
 					"User is not allowed to complete transaction with "
 							+ result, extractErrorFields(response));
+		// the transaction no longer exists on the server after completion
+		// or if the server has already rolled it back
+		if (status == ClientResponse.Status.NO_CONTENT || status == ClientResponse.Status.NOT_FOUND)
+			openTransactions.remove(transaction.getTransactionId());
 		if (status != ClientResponse.Status.NO_CONTENT)
 			throw new FailedRequestException("transaction " + result
 					+ " failed: " + status.getReasonPhrase(),
@@ -2231,12 +2266,7 @@ public class JerseyServices implements RESTServices {
             int nextDelay = 0;
             int retry = 0;
             for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-                if (nextDelay > 0) {
-                    try {
-                        Thread.sleep(nextDelay);
-                    } catch (InterruptedException e) {
-                    }
-                }
+                sleepBeforeRetry(nextDelay);
 
                 if (queryDef instanceof StringQueryDefinition) {
                     response = doGet(builder);
@@ -2265,7 +2295,7 @@ public class JerseyServices implements RESTServices {
                 }
 
                 MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-                String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+                String retryAfterRaw = recordUnavailable(responseHeaders);
                 int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
                 response.close();
@@ -2325,12 +2355,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = builder.delete(ClientResponse.class);
 			status = response.getClientResponseStatus();
@@ -2343,7 +2368,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -2502,12 +2527,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
             response = baseHandle == null ?
                 doGet(builder) :
@@ -2523,7 +2543,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -2581,12 +2601,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = builder.get(ClientResponse.class);
 			status = response.getClientResponseStatus();
@@ -2599,7 +2614,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -2651,12 +2666,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = builder.get(ClientResponse.class);
 			status = response.getClientResponseStatus();
@@ -2669,7 +2679,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -2705,10 +2715,20 @@ public class JerseyServices implements RESTServices {
 			boolean isNullable, String mimetype, Class<T> as)
 			throws ResourceNotFoundException, ForbiddenUserException,
 			FailedRequestException {
+		return getValue(reqlog, type, key, null, isNullable, mimetype, as);
+	}
+	@Override
+	public <T> T getValue(RequestLogger reqlog, String type, String key, Transaction transaction,
+			boolean isNullable, String mimetype, Class<T> as)
+			throws ResourceNotFoundException, ForbiddenUserException,
+			FailedRequestException {
 		if (logger.isDebugEnabled())
 			logger.debug("Getting {}/{}", type, key);
 
-		WebResource.Builder builder = makeBuilder(type + "/" + key, null, null, mimetype);
+		WebResource webResource = makeWebResource(type + "/" + key, null);
+
+		WebResource.Builder builder = makeBuilder(webResource, null, mimetype);
+		addTransactionScopedCookies(builder, webResource, transaction);
 
 		ClientResponse response = null;
 		ClientResponse.Status status = null;
@@ -2716,12 +2736,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = builder.get(ClientResponse.class);
 			status = response.getClientResponseStatus();
@@ -2734,7 +2749,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -2798,12 +2813,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = builder.get(ClientResponse.class);
 			status = response.getClientResponseStatus();
@@ -2816,7 +2826,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -2923,12 +2933,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			Object nextValue = (handle != null) ? handle.sendContent() : value;
 
@@ -2996,7 +3001,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			response.close();
 
 			if (!isResendable) {
@@ -3053,12 +3058,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = builder.delete(ClientResponse.class);
 			status = response.getClientResponseStatus();
@@ -3071,7 +3071,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -3114,12 +3114,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = builder.delete(ClientResponse.class);
 			status = response.getClientResponseStatus();
@@ -3132,7 +3127,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -3180,12 +3175,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = doGet(builder);
 			status = response.getClientResponseStatus();
@@ -3198,7 +3188,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -3232,6 +3222,13 @@ public class JerseyServices implements RESTServices {
 			FailedRequestException {
 		return getIteratedResourceImpl(JerseyServiceResultIterator.class, reqlog, path, transaction, params, mimetypes);
 	}
+	@Override
+	public ServiceResultIterator getStreamedResource(RequestLogger reqlog,
+			String path, Transaction transaction, RequestParameters params, String... mimetypes)
+			throws ResourceNotFoundException, ForbiddenUserException,
+			FailedRequestException {
+		return getIteratedResourceImpl(JerseyStreamingResultIterator.class, reqlog, path, transaction, params, mimetypes);
+	}
 
 	private <U extends JerseyResultIterator> U getIteratedResourceImpl(Class<U> clazz, RequestLogger reqlog,
 			String path, Transaction transaction, RequestParameters params, String... mimetypes)
@@ -3252,12 +3249,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = doGet(builder.accept(multipartType));
 			status = response.getClientResponseStatus();
@@ -3270,7 +3262,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -3323,12 +3315,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = doPut(reqlog, builder, inputBase.sendContent(),
 					!isResendable);
@@ -3342,7 +3329,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			response.close();
 
 			if (!isResendable) {
@@ -3399,12 +3386,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			MultiPart multiPart = new MultiPart();
 			boolean hasStreamingPart = addParts(multiPart, reqlog, input);
@@ -3424,7 +3406,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			response.close();
 
 			if (hasStreamingPart) {
@@ -3485,12 +3467,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = doPost(reqlog, builder, inputBase.sendContent(),
 					!isResendable);
@@ -3504,7 +3481,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			response.close();
 
 			if (!isResendable) {
@@ -3566,12 +3543,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			MultiPart multiPart = new MultiPart();
 			boolean hasStreamingPart = addParts(multiPart, reqlog, null, input, headers);
@@ -3591,7 +3563,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			response.close();
 
 			if (hasStreamingPart) {
@@ -4023,6 +3995,15 @@ public class JerseyServices implements RESTServices {
 		return postIteratedResourceImpl(JerseyServiceResultIterator.class,
 			reqlog, path, transaction, params, input, outputMimetypes);
 	}
+	@Override
+	public ServiceResultIterator postStreamedResource(RequestLogger reqlog,
+			String path, Transaction transaction, RequestParameters params, AbstractWriteHandle input,
+			String... outputMimetypes) throws ResourceNotFoundException,
+			ResourceNotResendableException, ForbiddenUserException,
+			FailedRequestException {
+		return postIteratedResourceImpl(JerseyStreamingResultIterator.class,
+			reqlog, path, transaction, params, input, outputMimetypes);
+	}
 
 	private <U extends JerseyResultIterator> U postIteratedResourceImpl(
 			Class<U> clazz, RequestLogger reqlog,
@@ -4050,12 +4031,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			Object value = inputBase.sendContent();
 
@@ -4070,7 +4046,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			response.close();
 
 			if (!isResendable) {
@@ -4105,6 +4081,15 @@ public class JerseyServices implements RESTServices {
 		return postIteratedResourceImpl(JerseyServiceResultIterator.class,
 			reqlog, path, transaction, params, input, outputMimetypes);
 	}
+	@Override
+	public <W extends AbstractWriteHandle> ServiceResultIterator postStreamedResource(
+			RequestLogger reqlog, String path, Transaction transaction, RequestParameters params,
+			W[] input, String... outputMimetypes)
+			throws ResourceNotFoundException, ResourceNotResendableException,
+			ForbiddenUserException, FailedRequestException {
+		return postIteratedResourceImpl(JerseyStreamingResultIterator.class,
+			reqlog, path, transaction, params, input, outputMimetypes);
+	}
 
 	private <W extends AbstractWriteHandle, U extends JerseyResultIterator> U postIteratedResourceImpl(
 			Class<U> clazz, RequestLogger reqlog, String path, Transaction transaction,
@@ -4119,12 +4104,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			MultiPart multiPart = new MultiPart();
 			boolean hasStreamingPart = addParts(multiPart, reqlog, input);
@@ -4147,7 +4127,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			response.close();
 
 			if (hasStreamingPart) {
@@ -4198,12 +4178,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = doDelete(builder);
 			status = response.getClientResponseStatus();
@@ -4216,7 +4191,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -4495,8 +4470,8 @@ public class JerseyServices implements RESTServices {
 				if ( cookie.getMaxAge() == 0 ) { continue; }
 				// don't forward the cookie if it has a max age and we're past the max age
 				if ( cookie.getMaxAge() > 0 ) {
-					Calendar expiration = (Calendar) ((TransactionImpl) transaction).getCreatedTimestamp().clone();
-					expiration.roll(Calendar.SECOND, cookie.getMaxAge());
+					Calendar expiration = (Calendar) transaction.getCreatedTimestamp().clone();
+					expiration.add(Calendar.SECOND, cookie.getMaxAge());
 					if ( System.currentTimeMillis() > expiration.getTimeInMillis() ) {
 						continue;
 					}
@@ -4667,6 +4642,14 @@ public class JerseyServices implements RESTServices {
 			Class<U> clazz, RequestLogger reqlog,
 			String operation, String entityType, ClientResponse response) {
         if ( response == null ) return null;
+		if (clazz == JerseyStreamingResultIterator.class) {
+			// reads the parts as the iterator advances instead of buffering the response
+			logRequest(reqlog, "%s for %s", operation, entityType);
+			JerseyStreamingResultIterator result =
+				new JerseyStreamingResultIterator(reqlog, response);
+			setPageHeaders(result, response);
+			return (U) result;
+		}
 		MultiPart entity = response.hasEntity() ?
 				response.getEntity(MultiPart.class) : null;
 
@@ -4687,22 +4670,26 @@ public class JerseyServices implements RESTServices {
 			java.lang.reflect.Constructor<U> constructor = 
 				clazz.getConstructor(JerseyServices.class, RequestLogger.class, List.class, Closeable.class);
 			JerseyResultIterator result = constructor.newInstance(this, reqlog, partList, closeable);
-			MultivaluedMap<String, String> headers = response.getHeaders();
-            if (headers.containsKey("vnd.marklogic.start")) {
-                result.setStart(Long.parseLong(headers.get("vnd.marklogic.start").get(0)));
-            }
-            if (headers.containsKey("vnd.marklogic.pageLength")) {
-                result.setPageSize(Long.parseLong(headers.get("vnd.marklogic.pageLength").get(0)));
-            }
-            if (headers.containsKey("vnd.marklogic.result-estimate")) {
-                result.setTotalSize(Long.parseLong(headers.get("vnd.marklogic.result-estimate").get(0)));
-            }
+			setPageHeaders(result, response);
             return (U) result;
 		} catch (Throwable t) {
 			throw new MarkLogicInternalException("Error instantiating " + clazz.getName(), t);
 		}
 	}
 
+	private void setPageHeaders(JerseyResultIterator result, ClientResponse response) {
+		MultivaluedMap<String, String> headers = response.getHeaders();
+        if (headers.containsKey("vnd.marklogic.start")) {
+            result.setStart(Long.parseLong(headers.get("vnd.marklogic.start").get(0)));
+        }
+        if (headers.containsKey("vnd.marklogic.pageLength")) {
+            result.setPageSize(Long.parseLong(headers.get("vnd.marklogic.pageLength").get(0)));
+        }
+        if (headers.containsKey("vnd.marklogic.result-estimate")) {
+            result.setTotalSize(Long.parseLong(headers.get("vnd.marklogic.result-estimate").get(0)));
+        }
+	}
+
 	private boolean isStreaming(Object value) {
 		return !(value instanceof String || value instanceof byte[] || value instanceof File);
 	}
@@ -4754,6 +4741,58 @@ public class JerseyServices implements RESTServices {
 				       (1 << i) * DELAY_MULTIPLIER;
 		return min + randRetry.nextInt(range);
 	}
+	// an interrupt ends the retries instead of being swallowed, so a cancelled
+	// caller such as a virtual thread in a shut down executor stops promptly
+	private void sleepBeforeRetry(int delay) {
+		if (delay <= 0)
+			return;
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MarkLogicIOException("Interrupted while waiting to retry request", e);
+		}
+	}
+
+	/**
+	 * UnclosedResult closes the response of a result iterator that became
+	 * unreachable without being closed.  The responses are closed by the next
+	 * iterator that is created rather than by a finalizer, so no thread is
+	 * dedicated to cleanup and the caller never waits on the finalizer.
+	 */
+	static private class UnclosedResult extends PhantomReference<Object> {
+		static final private ReferenceQueue<Object> queue   = new ReferenceQueue<Object>();
+		static final private Set<UnclosedResult>    pending =
+			Collections.newSetFromMap(new ConcurrentHashMap<UnclosedResult, Boolean>());
+
+		final private Closeable closeable;
+
+		UnclosedResult(Object result, Closeable closeable) {
+			super(result, queue);
+			this.closeable = closeable;
+			pending.add(this);
+		}
+
+		void forget() {
+			pending.remove(this);
+			clear();
+		}
+
+		static void closeUnreachable() {
+			UnclosedResult unclosed = null;
+			while ((unclosed = (UnclosedResult) queue.poll()) != null) {
+				if (!pending.remove(unclosed))
+					continue;
+				try {
+					unclosed.closeable.close();
+				} catch (IOException e) {
+					// ignore
+				} catch (RuntimeException e) {
+					logger.debug("Could not close unreachable result", e);
+				}
+			}
+		}
+	}
 
 	public class MultipartCloseable implements Closeable {
 		private ClientResponse response;
@@ -4799,8 +4838,8 @@ public class JerseyServices implements RESTServices {
 			updateMimetype(handleBase, mimetype);
 			updateLength(handleBase, length);
 
-			Object contentEntity = part.getEntityAs(handleBase.receiveAs());
-			handleBase.receiveContent((reqlog != null) ? reqlog
+			Object contentEntity = part.getEntityAs(HandleAccessor.receiveEntityAs(handleBase));
+			HandleAccessor.receiveEntity(handleBase, (reqlog != null) ? reqlog
 					.copyContent(contentEntity) : contentEntity);
 
 			part = null;
@@ -4810,10 +4849,14 @@ public class JerseyServices implements RESTServices {
 		}
 
 		public <T> T getContentAs(Class<T> clazz) {
-			ContentHandle<T> readHandle = DatabaseClientFactory.getHandleRegistry().makeHandle(clazz);
-			readHandle = getContent(readHandle);
-			if ( readHandle == null ) return null;
-			return readHandle.get();
+			HandleFactoryRegistry registry = DatabaseClientFactory.getHandleRegistry();
+			ContentHandle<T> readHandle = registry.acquireHandle(clazz);
+			try {
+				if ( getContent(readHandle) == null ) return null;
+				return readHandle.get();
+			} finally {
+				registry.releaseHandle(clazz, readHandle);
+			}
 		}
 
 		public String getUri() {
@@ -4867,6 +4910,7 @@ public class JerseyServices implements RESTServices {
         private long pageSize = -1;
         private long totalSize = -1;
         private Closeable closeable;
+		private UnclosedResult unclosed;
 
 		public JerseyResultIterator(RequestLogger reqlog,
 				List<BodyPart> partList, Class<T> clazz, Closeable closeable) {
@@ -4880,6 +4924,19 @@ public class JerseyServices implements RESTServices {
                 this.size = 0;
             }
 			this.closeable = closeable;
+			closeWhenUnreachable(closeable);
+		}
+
+		protected void closeWhenUnreachable(Closeable closeable) {
+			UnclosedResult.closeUnreachable();
+			if (closeable != null)
+				unclosed = new UnclosedResult(this, closeable);
+		}
+		protected void forgetUnreachable() {
+			if (unclosed != null) {
+				unclosed.forget();
+				unclosed = null;
+			}
 		}
 
         public long getStart() {
@@ -4947,17 +5004,13 @@ public class JerseyServices implements RESTServices {
 		}
 
 		public void close() {
+			forgetUnreachable();
 			partQueue = null;
 			reqlog = null;
 			if ( closeable != null ) {
 				try { closeable.close(); } catch (IOException e) {}
 			}
 		}
-
-		protected void finalize() throws Throwable {
-			close();
-			super.finalize();
-		}
 	}
 
 	public class JerseyServiceResultIterator 
@@ -4970,6 +5023,226 @@ public class JerseyServices implements RESTServices {
 		}
 	}
 
+	/**
+	 * JerseyStreamingResultIterator reads each part from the response
+	 * when the iterator advances, so the content of a result can only be
+	 * read before advancing to the next result.
+	 */
+	public class JerseyStreamingResultIterator
+		extends JerseyResultIterator<JerseyServiceResult>
+		implements ServiceResultIterator
+	{
+		private RequestLogger          reqlog;
+		private ClientResponse         response;
+		private MultipartStreamReader  reader;
+		private JerseyStreamedResult   current;
+		private Boolean                hasNextPart;
+
+		public JerseyStreamingResultIterator(RequestLogger reqlog, ClientResponse response) {
+			super(reqlog, null, JerseyServiceResult.class, null);
+			setSize(-1);
+			this.reqlog   = reqlog;
+			this.response = response;
+			closeWhenUnreachable(new MultipartCloseable(response, null));
+			String boundary = MultipartStreamReader.getHeaderParameter(
+					response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE), "boundary");
+			if (response.hasEntity() && boundary != null)
+				this.reader = new MultipartStreamReader(response.getEntityInputStream(), boundary);
+			else
+				close();
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (reader == null)
+				return false;
+			if (hasNextPart == null) {
+				if (current != null) {
+					current.release();
+					current = null;
+				}
+				try {
+					hasNextPart = reader.nextPart();
+				} catch (IOException e) {
+					close();
+					throw new MarkLogicIOException("Could not read next result", e);
+				}
+				if (!hasNextPart) {
+					close();
+					return false;
+				}
+			}
+			return hasNextPart;
+		}
+
+		@Override
+		public JerseyServiceResult next() {
+			if (!hasNext())
+				throw new NoSuchElementException("No more results");
+			hasNextPart = null;
+			current = new JerseyStreamedResult(reqlog,
+					reader.getHeaders(), reader.getContent());
+			return current;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Cannot remove streamed result");
+		}
+
+		@Override
+		public void close() {
+			forgetUnreachable();
+			if (current != null) {
+				current.release();
+				current = null;
+			}
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					// ignore
+				}
+				reader = null;
+			}
+			if (response != null) {
+				response.close();
+				response = null;
+			}
+			reqlog = null;
+		}
+	}
+
+	/**
+	 * JerseyStreamedResult decodes its content from the response stream
+	 * the first time the content is requested.
+	 */
+	public class JerseyStreamedResult extends JerseyServiceResult {
+		private RequestLogger             reqlog;
+		private Map<String, List<String>> headers;
+		private InputStream               content;
+		private Format                    format;
+		private String                    mimetype;
+		private long                      length;
+		private String                    uri;
+
+		public JerseyStreamedResult(RequestLogger reqlog,
+				Map<String, List<String>> headers, InputStream content) {
+			super(reqlog, null);
+			this.reqlog   = reqlog;
+			this.headers  = headers;
+			this.content  = content;
+
+			String contentType = getHeader(HttpHeaders.CONTENT_TYPE);
+			String disposition = getHeader("Content-Disposition");
+			String docFormat   = getHeader("vnd.marklogic.document-format");
+			String dispFormat  = MultipartStreamReader.getHeaderParameter(disposition, "format");
+			if (docFormat != null)
+				format = Format.valueOf(docFormat.toUpperCase());
+			else if (dispFormat != null)
+				format = Format.valueOf(dispFormat.toUpperCase());
+			else if (contentType != null)
+				format = Format.getFromMimetype(contentType);
+			mimetype = getHeaderMimetype(headers);
+			String contentLength = getHeader(HttpHeaders.CONTENT_LENGTH);
+			length = (contentLength != null) ?
+				Long.parseLong(contentLength) : ContentDescriptor.UNKNOWN_LENGTH;
+			uri = MultipartStreamReader.getHeaderParameter(disposition, "filename");
+		}
+
+		@Override
+		public <T> T getEntityAs(Class<T> clazz) {
+			return clazz.cast(readContent(clazz));
+		}
+
+		@Override
+		public <R extends AbstractReadHandle> R getContent(R handle) {
+			HandleImplementation handleBase = HandleAccessor.as(handle);
+
+			updateFormat(handleBase, format);
+			updateMimetype(handleBase, mimetype);
+			updateLength(handleBase, length);
+
+			Object contentEntity = readContent(handleBase.receiveAs());
+			handleBase.receiveContent((reqlog != null) ?
+					reqlog.copyContent(contentEntity) : contentEntity);
+
+			return handle;
+		}
+
+		@Override
+		public String getUri() {
+			return uri;
+		}
+		@Override
+		public Format getFormat() {
+			return format;
+		}
+		@Override
+		public String getMimetype() {
+			return mimetype;
+		}
+		@Override
+		public long getLength() {
+			return length;
+		}
+		@Override
+		public String getHeader(String name) {
+			List<String> values = headers.get(name);
+			return (values == null || values.size() == 0) ? null : values.get(0);
+		}
+
+		void release() {
+			content = null;
+			reqlog  = null;
+		}
+
+		private Object readContent(Class<?> as) {
+			if (content == null)
+				throw new IllegalStateException(
+						"Content already retrieved or iterator advanced past result");
+
+			InputStream in = content;
+			content = null;
+			try {
+				if (as.isAssignableFrom(InputStream.class)) {
+					return in;
+				} else if (as.isAssignableFrom(Reader.class)) {
+					return new InputStreamReader(in, getCharset());
+				} else if (as == String.class) {
+					return BufferPool.readString(in, length, getCharset());
+				} else if (as == byte[].class) {
+					return BufferPool.readBytes(in, length);
+				} else if (as == File.class) {
+					File file = File.createTempFile("result", ".tmp");
+					FileOutputStream out = new FileOutputStream(file);
+					try {
+						byte[] buffer = BufferPool.acquire(8192);
+						try {
+							int count;
+							while ((count = in.read(buffer)) != -1) {
+								out.write(buffer, 0, count);
+							}
+						} finally {
+							BufferPool.release(buffer);
+						}
+					} finally {
+						out.close();
+					}
+					return file;
+				}
+			} catch (IOException e) {
+				throw new MarkLogicIOException("Could not read result content", e);
+			}
+			throw new IllegalArgumentException("Cannot stream result content as "+as.getName());
+		}
+		private Charset getCharset() {
+			String charset = MultipartStreamReader.getHeaderParameter(
+					getHeader(HttpHeaders.CONTENT_TYPE), "charset");
+			return Charset.forName((charset != null) ? charset : "UTF-8");
+		}
+	}
+
 	public class DefaultJerseyResultIterator 
 		extends JerseyResultIterator<JerseyResult>
 		implements Iterator<JerseyResult>
@@ -5004,10 +5277,12 @@ public class JerseyServices implements RESTServices {
 		}
 
 		public Format getFormat() {
+			if ( content == null ) return null;
 			return content.getFormat();
 		}
 
 		public String getMimetype() {
+			if ( content == null ) return null;
 			return content.getMimetype();
 		}
 
@@ -5078,12 +5353,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = builder.get(ClientResponse.class);
 
@@ -5097,7 +5367,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -5151,12 +5421,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = doPost(null, builder, baseHandle.sendContent(), false);
 
@@ -5170,7 +5435,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -5269,12 +5534,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			if (queryDef instanceof StringQueryDefinition) {
 				response = builder.get(ClientResponse.class);
@@ -5297,7 +5557,7 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
@@ -5353,12 +5613,7 @@ public class JerseyServices implements RESTServices {
 		int nextDelay = 0;
 		int retry = 0;
 		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-			if (nextDelay > 0) {
-				try {
-					Thread.sleep(nextDelay);
-				} catch (InterruptedException e) {
-				}
-			}
+			sleepBeforeRetry(nextDelay);
 
 			response = doGet(builder);
 
@@ -5372,7 +5627,85 @@ public class JerseyServices implements RESTServices {
 			}
 
 			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
-			String retryAfterRaw = responseHeaders.getFirst("Retry-After");
+			String retryAfterRaw = recordUnavailable(responseHeaders);
+			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
+
+			response.close();
+
+			nextDelay = Math.max(retryAfter, calculateDelay(randRetry, retry));
+		}
+		if (status == ClientResponse.Status.SERVICE_UNAVAILABLE) {
+			checkFirstRequest();
+			throw new FailedRequestException(
+					"Service unavailable and maximum retry period elapsed: "+
+						    Math.round((System.currentTimeMillis() - startTime) / 1000)+
+						    " seconds after "+retry+" retries");
+		}
+		if (status == ClientResponse.Status.FORBIDDEN) {
+			throw new ForbiddenUserException("User is not allowed to match",
+					extractErrorFields(response));
+		}
+		if (status != ClientResponse.Status.OK) {
+			throw new FailedRequestException("match failed: "
+					+ status.getReasonPhrase(), extractErrorFields(response));
+		}
+
+		InputStream entity = response.hasEntity() ?
+				response.getEntity(InputStream.class) : null;
+		if (entity == null)
+			response.close();
+		
+		return entity;
+	}
+
+	@Override
+	public InputStream postMatch(String[] docIds, String[] candidateRules, ServerTransform transform) {
+		MultivaluedMap<String, String> params = new MultivaluedMapImpl();
+
+		// sends the uris and rules in the body so many of them don't overflow the URL
+		StringBuilder form = new StringBuilder();
+		try {
+			for (String docId : docIds) {
+				if (form.length() > 0)
+					form.append('&');
+				form.append("uri=").append(URLEncoder.encode(docId, "UTF-8"));
+			}
+			for (String candidateRule : candidateRules) {
+				if (form.length() > 0)
+					form.append('&');
+				form.append("rule=").append(URLEncoder.encode(candidateRule, "UTF-8"));
+			}
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException("UTF-8 is unsupported", e);
+		}
+		if (transform != null) {
+			transform.merge(params);
+		}
+		WebResource.Builder builder = makeBuilder("alert/match", params,
+				"application/x-www-form-urlencoded", "application/xml");
+		String formBody = form.toString();
+		
+		ClientResponse response = null;
+		ClientResponse.Status status = null;
+		long startTime = System.currentTimeMillis();
+		int nextDelay = 0;
+		int retry = 0;
+		for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
+			sleepBeforeRetry(nextDelay);
+
+			response = builder.post(ClientResponse.class, formBody);
+
+			status = response.getClientResponseStatus();
+
+			if (status != ClientResponse.Status.SERVICE_UNAVAILABLE) {
+				if (isFirstRequest())
+					setFirstRequest(false);
+
+				break;
+			}
+
+			MultivaluedMap<String, String> responseHeaders = response.getHeaders();
+			String retryAfterRaw = recordUnavailable(responseHeaders);
 			int retryAfter = (retryAfterRaw != null) ? Integer.valueOf(retryAfterRaw) : -1;
 
 			response.close();
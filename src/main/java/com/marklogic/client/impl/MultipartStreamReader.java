@@ -0,0 +1,308 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.marklogic.client.MarkLogicIOException;
+
+// reads the parts of a multipart response one at a time from the stream
+// so only the part being read is held in memory
+class MultipartStreamReader implements Closeable {
+	final static private Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+	final static private int MIN_BUFFER_LENGTH = 8192;
+
+	private InputStream in;
+	private byte[]      delimiter;
+	private byte[]      buffer;
+	private int         pos    = 0;
+	private int         limit  = 0;
+	private boolean     eof    = false;
+	private boolean     inPart = false;
+	private boolean     done   = false;
+	// the end of the part content known to precede the next delimiter
+	private int         contentEnd = -1;
+	private Map<String, List<String>> headers;
+	private PartInputStream           content;
+
+	MultipartStreamReader(InputStream in, String boundary) {
+		super();
+		if (boundary == null || boundary.length() == 0)
+			throw new IllegalArgumentException("no boundary for multipart stream");
+		this.in        = in;
+		this.delimiter = ("\r\n--"+boundary).getBytes(ISO_8859_1);
+		this.buffer    = new byte[Math.max(MIN_BUFFER_LENGTH, delimiter.length * 4)];
+	}
+
+	/**
+	 * Advances to the next part, discarding any unread content of
+	 * the current part.
+	 * @return	whether the stream has another part
+	 */
+	boolean nextPart() throws IOException {
+		if (done)
+			return false;
+
+		if (content == null) {
+			// the first delimiter may start the stream without a preceding line break
+			if (!skipPreamble()) {
+				done = true;
+				return false;
+			}
+		} else {
+			content.skipAll();
+			content.closed = true;
+		}
+
+		headers    = null;
+		content    = null;
+		contentEnd = -1;
+
+		// a close delimiter ends the stream
+		if (!fill(2) || (buffer[pos] == '-' && buffer[pos + 1] == '-')) {
+			done = true;
+			return false;
+		}
+		readLine();
+
+		Map<String, List<String>> partHeaders =
+			new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+		while (true) {
+			String line = readLine();
+			if (line == null || line.length() == 0)
+				break;
+			int colon = line.indexOf(':');
+			if (colon <= 0)
+				continue;
+			String name = line.substring(0, colon).trim();
+			List<String> values = partHeaders.get(name);
+			if (values == null) {
+				values = new ArrayList<String>(1);
+				partHeaders.put(name, values);
+			}
+			values.add(line.substring(colon + 1).trim());
+		}
+
+		headers = partHeaders;
+		content = new PartInputStream();
+		inPart  = true;
+		return true;
+	}
+
+	Map<String, List<String>> getHeaders() {
+		return headers;
+	}
+	String getHeader(String name) {
+		if (headers == null)
+			return null;
+		List<String> values = headers.get(name);
+		return (values == null || values.size() == 0) ? null : values.get(0);
+	}
+
+	/**
+	 * Returns the content of the current part.  The stream ends at the
+	 * delimiter of the next part and is invalid after advancing.
+	 */
+	InputStream getContent() {
+		return content;
+	}
+
+	@Override
+	public void close() throws IOException {
+		done = true;
+		if (content != null)
+			content.closed = true;
+		in.close();
+	}
+
+	/**
+	 * Gets a parameter from a header value such as the filename
+	 * of a Content-Disposition header or the boundary of a
+	 * multipart Content-Type header.
+	 */
+	static String getHeaderParameter(String value, String name) {
+		if (value == null)
+			return null;
+		for (String param: value.split(";")) {
+			int equals = param.indexOf('=');
+			if (equals <= 0 || !name.equalsIgnoreCase(param.substring(0, equals).trim()))
+				continue;
+			String paramValue = param.substring(equals + 1).trim();
+			if (paramValue.length() >= 2 && paramValue.charAt(0) == '"' &&
+					paramValue.charAt(paramValue.length() - 1) == '"')
+				paramValue = paramValue.substring(1, paramValue.length() - 1);
+			return paramValue;
+		}
+		return null;
+	}
+
+	private boolean skipPreamble() throws IOException {
+		// matches the delimiter without the leading line break
+		int start = 2;
+		while (true) {
+			if (!fill(delimiter.length - start))
+				return false;
+			if (matches(pos, start)) {
+				pos += delimiter.length - start;
+				return true;
+			}
+			String line = readLine();
+			if (line == null)
+				return false;
+		}
+	}
+	private boolean matches(int at, int start) {
+		for (int i=start; i < delimiter.length; i++) {
+			if (buffer[at + i - start] != delimiter[i])
+				return false;
+		}
+		return true;
+	}
+
+	private String readLine() throws IOException {
+		StringBuilder line = null;
+		while (true) {
+			if (pos == limit && !fill(1))
+				return (line == null) ? null : line.toString();
+			int end = pos;
+			while (end < limit && buffer[end] != '\n')
+				end++;
+			int lineEnd = (end > pos && end < limit && buffer[end - 1] == '\r') ? end - 1 : end;
+			String chunk = new String(buffer, pos, lineEnd - pos, ISO_8859_1);
+			if (line == null)
+				line = new StringBuilder(chunk);
+			else
+				line.append(chunk);
+			if (end < limit) {
+				pos = end + 1;
+				int length = line.length();
+				if (length > 0 && line.charAt(length - 1) == '\r')
+					line.setLength(length - 1);
+				return line.toString();
+			}
+			pos = end;
+		}
+	}
+
+	// ensures the buffer holds at least the minimum number of unread bytes if possible
+	private boolean fill(int minimum) throws IOException {
+		if (limit - pos >= minimum)
+			return true;
+		if (pos > 0) {
+			System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+			limit     -= pos;
+			pos        = 0;
+			contentEnd = -1;
+		}
+		while (!eof && limit < minimum) {
+			int count = in.read(buffer, limit, buffer.length - limit);
+			if (count == -1)
+				eof = true;
+			else
+				limit += count;
+		}
+		return limit - pos >= minimum;
+	}
+
+	// returns the number of bytes of part content available at the start of
+	// the buffer before the delimiter or a possible partial delimiter
+	private int contentAvailable() throws IOException {
+		if (!inPart)
+			return -1;
+		if (contentEnd > pos)
+			return contentEnd - pos;
+		fill(delimiter.length);
+		int searchEnd = limit - delimiter.length;
+		for (int i=pos; i <= searchEnd; i++) {
+			if (buffer[i] == delimiter[0] && matches(i, 0)) {
+				if (i == pos) {
+					pos += delimiter.length;
+					inPart = false;
+					return -1;
+				}
+				contentEnd = i;
+				return i - pos;
+			}
+		}
+		if (limit - pos < delimiter.length) {
+			if (eof && limit == pos) {
+				// the stream ended without a close delimiter
+				inPart = false;
+				done   = true;
+				return -1;
+			}
+			if (eof) {
+				contentEnd = limit;
+				return limit - pos;
+			}
+		}
+		contentEnd = searchEnd + 1;
+		return contentEnd - pos;
+	}
+
+	private class PartInputStream extends InputStream {
+		private boolean closed = false;
+
+		@Override
+		public int read() throws IOException {
+			if (closed)
+				return -1;
+			int count = contentAvailable();
+			if (count <= 0)
+				return -1;
+			return buffer[pos++] & 0xFF;
+		}
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (closed)
+				return -1;
+			if (len == 0)
+				return 0;
+			int count = contentAvailable();
+			if (count <= 0)
+				return -1;
+			count = Math.min(count, len);
+			System.arraycopy(buffer, pos, b, off, count);
+			pos += count;
+			return count;
+		}
+		@Override
+		public int available() throws IOException {
+			if (closed || !inPart)
+				return 0;
+			return (contentEnd > pos) ? contentEnd - pos : 0;
+		}
+		@Override
+		public void close() {
+			// the next part can still be read after closing the content of this part
+		}
+		void skipAll() throws IOException {
+			while (inPart) {
+				int count = contentAvailable();
+				if (count > 0)
+					pos += count;
+			}
+		}
+	}
+}
@@ -21,8 +21,6 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.xml.namespace.NamespaceContext;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +36,7 @@ import com.marklogic.client.ForbiddenUserException;
 import com.marklogic.client.MarkLogicInternalException;
 import com.marklogic.client.admin.NamespacesManager;
 import com.marklogic.client.ResourceNotFoundException;
+import com.marklogic.client.util.XMLFactories;
 
 class NamespacesManagerImpl
     extends AbstractLoggingManager
@@ -86,11 +85,7 @@ class NamespacesManagerImpl
 			if (stream == null)
 				return null;
 
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			factory.setNamespaceAware(true);
-			factory.setValidating(false);
-
-			Document document = factory.newDocumentBuilder().parse(stream);
+			Document document = XMLFactories.getDocumentBuilder().parse(stream);
 			NodeList bindings =
 				document.getElementsByTagNameNS("http://marklogic.com/rest-api", "namespace");
 			if (bindings == null)
@@ -131,9 +126,6 @@ class NamespacesManagerImpl
 		} catch (IOException e) {
 			logger.error("Failed to parse DOM document for namespace bindings",e);
 			throw new MarkLogicInternalException(e);
-		} catch (ParserConfigurationException e) {
-			logger.error("Failed to parse DOM document for namespace bindings",e);
-			throw new MarkLogicInternalException(e);
 		}
 
 		return context;
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.ls.DOMImplementationLS;
+import org.w3c.dom.ls.LSSerializer;
+import org.xml.sax.InputSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marklogic.client.FailedRequestException;
+import com.marklogic.client.ForbiddenUserException;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.marker.StructureWriteHandle;
+import com.marklogic.client.query.QueryDefinition;
+import com.marklogic.client.query.RawCombinedQueryDefinition;
+import com.marklogic.client.query.StructuredQueryBuilder;
+import com.marklogic.client.util.RequestLogger;
+import com.marklogic.client.util.XMLFactories;
+
+/**
+ * Installs the inline options of combined queries that repeat as stored
+ * options so later searches send only the options name.  The stored
+ * options are named for a hash of their content, so the same options
+ * always have the same name, and the server parses each set of options
+ * once instead of once for each search.
+ *
+ * Options are installed on their second use so one-off queries don't
+ * leave stored options behind.  A database client shares one promoter
+ * across its query managers.  If the server refuses to store options,
+ * for instance, because the user lacks the rest-admin role, the options
+ * stay inline.
+ */
+class OptionsPromoter {
+	static final private Logger logger = LoggerFactory.getLogger(OptionsPromoter.class);
+
+	static final private String  QUERY_OPTIONS_BASE = "/config/query";
+	static final private String  NAME_PREFIX        = "promoted-";
+	static final private int     MIN_USES           = 2;
+	static final private int     MAX_ENTRIES        = 1000;
+	static final private Charset UTF8               = Charset.forName("UTF-8");
+	static final private char[]  HEX_DIGITS         = "0123456789abcdef".toCharArray();
+	static final private String  INVALID_PARAM_CODE = "REST-INVALIDPARAM";
+
+	static final private ObjectMapper mapper = new ObjectMapper();
+
+	/**
+	 * A search rewritten to refer to stored options.
+	 */
+	static class Promotion {
+		final private OptionsEntry    entry;
+		final private QueryDefinition querydef;
+		Promotion(OptionsEntry entry, QueryDefinition querydef) {
+			this.entry    = entry;
+			this.querydef = querydef;
+		}
+		QueryDefinition getQueryDefinition() {
+			return querydef;
+		}
+		String getOptionsName() {
+			return entry.name;
+		}
+	}
+
+	static class OptionsEntry {
+		final String name;
+		int     uses;
+		boolean installed;
+		boolean refused;
+		OptionsEntry(String name) {
+			this.name = name;
+		}
+	}
+
+	static class SplitQuery {
+		final Format format;
+		final String query;
+		final String options;
+		SplitQuery(Format format, String query, String options) {
+			this.format  = format;
+			this.query   = query;
+			this.options = options;
+		}
+	}
+
+	final private RESTServices services;
+
+	// keeps the most recently used options
+	final private Map<String,OptionsEntry> entries =
+		new LinkedHashMap<String,OptionsEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String,OptionsEntry> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+
+	OptionsPromoter(RESTServices services) {
+		this.services = services;
+	}
+
+	/**
+	 * Rewrites a combined query with inline options to refer to stored
+	 * options, installing the options if needed.
+	 * @return	the promotion or null to send the query unchanged
+	 */
+	Promotion promote(RequestLogger reqlog, QueryDefinition querydef) {
+		if (querydef == null)
+			return null;
+		String optionsName = querydef.getOptionsName();
+		if (optionsName != null && optionsName.length() > 0)
+			// the server merges inline options with named options
+			return null;
+
+		SplitQuery split = null;
+		if (querydef instanceof RawCombinedQueryDefinition) {
+			StructureWriteHandle handle = ((RawCombinedQueryDefinition) querydef).getHandle();
+			HandleImplementation<?,?> base = HandleAccessor.checkHandle(handle, "search");
+			// reading a stream would leave nothing to send if the search falls back
+			if (base == null || !base.isResendable())
+				return null;
+			split = split(base.getFormat(), HandleAccessor.contentAsString(handle));
+		} else if (querydef instanceof CombinedQueryDefinition) {
+			CombinedQueryDefinition combined = (CombinedQueryDefinition) querydef;
+			split = split(combined.getFormat(), combined.serialize());
+		}
+		if (split == null || split.options == null)
+			return null;
+
+		String fingerprint = fingerprint(split.format, split.options);
+		OptionsEntry entry = null;
+		synchronized(entries) {
+			entry = entries.get(fingerprint);
+			if (entry == null) {
+				entry = new OptionsEntry(NAME_PREFIX+fingerprint);
+				entries.put(fingerprint, entry);
+			}
+			entry.uses++;
+			if (entry.refused || entry.uses < MIN_USES)
+				return null;
+		}
+
+		if (!isInstalled(entry) && !install(reqlog, entry, split))
+			return null;
+
+		RawQueryDefinitionImpl.Combined promoted = new RawQueryDefinitionImpl.Combined(
+				new StringHandle(split.query).withFormat(split.format), entry.name);
+		promoted.setDirectory(querydef.getDirectory());
+		promoted.setCollections(querydef.getCollections());
+		promoted.setResponseTransform(querydef.getResponseTransform());
+		return new Promotion(entry, promoted);
+	}
+	/**
+	 * Checks whether a search failed because the server has no valid
+	 * options with the stored name, as when the options were deleted.
+	 * Other failures would fail the search with inline options as well.
+	 */
+	boolean isMissingOptions(FailedRequestException failure) {
+		FailedRequest failedRequest = failure.getFailedRequest();
+		if (failedRequest == null || !INVALID_PARAM_CODE.equals(failedRequest.getMessageCode()))
+			return false;
+		String message = failedRequest.getMessage();
+		return message != null && message.contains("options");
+	}
+	/**
+	 * Forgets that the options of a promotion are installed because a
+	 * search that referred to them failed for missing or invalid options.
+	 * The next search with the options installs them again.
+	 */
+	void invalidate(Promotion promotion, FailedRequestException cause) {
+		if (logger.isWarnEnabled())
+			logger.warn("Search with stored options {} failed, so sending the options inline: {}",
+					promotion.getOptionsName(), cause.getMessage());
+		synchronized(entries) {
+			promotion.entry.installed = false;
+		}
+	}
+
+	private boolean isInstalled(OptionsEntry entry) {
+		synchronized(entries) {
+			return entry.installed;
+		}
+	}
+	private boolean install(RequestLogger reqlog, OptionsEntry entry, SplitQuery split) {
+		// installing the same options twice at the same time is harmless
+		try {
+			services.putValue(reqlog, QUERY_OPTIONS_BASE, entry.name,
+					split.format.getDefaultMimetype(),
+					new StringHandle(split.options).withFormat(split.format));
+		} catch (ForbiddenUserException e) {
+			refuse(entry, e);
+			return false;
+		} catch (FailedRequestException e) {
+			refuse(entry, e);
+			return false;
+		}
+
+		if (logger.isDebugEnabled())
+			logger.debug("Installed inline options as {}", entry.name);
+
+		synchronized(entries) {
+			entry.installed = true;
+		}
+		return true;
+	}
+	private void refuse(OptionsEntry entry, RuntimeException cause) {
+		if (logger.isWarnEnabled())
+			logger.warn("Could not store options as {}, so sending the options inline: {}",
+					entry.name, cause.getMessage());
+		synchronized(entries) {
+			entry.refused = true;
+		}
+	}
+
+	static SplitQuery split(Format format, String content) {
+		if (content == null || !content.contains("options"))
+			return null;
+		if (format == Format.JSON)
+			return splitJSON(content);
+		if (format == Format.XML || format == Format.UNKNOWN || format == null)
+			return splitXML(content);
+		return null;
+	}
+	static private SplitQuery splitJSON(String content) {
+		try {
+			JsonNode root = mapper.readTree(content);
+			JsonNode search = (root == null) ? null : root.get("search");
+			if (!(search instanceof ObjectNode))
+				return null;
+			JsonNode options = ((ObjectNode) search).remove("options");
+			if (options == null)
+				return null;
+			ObjectNode optionsRoot = mapper.createObjectNode();
+			optionsRoot.set("options", options);
+			return new SplitQuery(Format.JSON, root.toString(), optionsRoot.toString());
+		} catch (IOException e) {
+			// the server reports errors in the query
+			return null;
+		}
+	}
+	static private SplitQuery splitXML(String content) {
+		Document document = null;
+		try {
+			document = XMLFactories.getDocumentBuilder().parse(
+					new InputSource(new StringReader(content)));
+		} catch (Exception e) {
+			// the server reports errors in the query
+			return null;
+		}
+
+		Element root = document.getDocumentElement();
+		if (root == null || !"search".equals(root.getLocalName()) ||
+				!StructuredQueryBuilder.SEARCH_API_NS.equals(root.getNamespaceURI()))
+			return null;
+
+		Element options = null;
+		for (Node child = root.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE &&
+					"options".equals(child.getLocalName()) &&
+					StructuredQueryBuilder.SEARCH_API_NS.equals(child.getNamespaceURI())) {
+				options = (Element) child;
+				break;
+			}
+		}
+		if (options == null)
+			return null;
+
+		LSSerializer serializer =
+			((DOMImplementationLS) document.getImplementation()).createLSSerializer();
+		serializer.getDomConfig().setParameter("xml-declaration", false);
+
+		String optionsContent = serializer.writeToString(options);
+		root.removeChild(options);
+		return new SplitQuery(Format.XML, serializer.writeToString(document), optionsContent);
+	}
+
+	static String fingerprint(Format format, String options) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(format.name().getBytes(UTF8));
+			digest.update(options.getBytes(UTF8));
+			byte[] hash = digest.digest();
+
+			// 128 bits are plenty to tell options apart
+			char[] hex = new char[32];
+			for (int i=0; i < 16; i++) {
+				hex[2 * i]     = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+				hex[2 * i + 1] = HEX_DIGITS[hash[i] & 0xF];
+			}
+			return new String(hex);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.query.FacetResult;
+import com.marklogic.client.query.FacetValue;
+import com.marklogic.client.query.PartitionAggregator;
+import com.marklogic.client.query.QueryDefinition;
+import com.marklogic.client.query.QueryManager.QueryView;
+import com.marklogic.client.query.ValuesDefinition;
+import com.marklogic.client.util.XMLFactories;
+
+class PartitionAggregatorImpl implements PartitionAggregator {
+	static final private Logger logger = LoggerFactory.getLogger(PartitionAggregatorImpl.class);
+
+	static final private String SEARCH_NS = "http://marklogic.com/appservices/search";
+
+	static final private AtomicInteger aggregationCounter = new AtomicInteger();
+
+	// the aggregates that can be combined from the aggregates of the partitions
+	static final private List<String> COMBINABLE =
+		Arrays.asList("count", "sum", "min", "max");
+
+	static final private Comparator<Frequency> DESCENDING_COUNT = new Comparator<Frequency>() {
+		@Override
+		public int compare(Frequency first, Frequency second) {
+			if (first.count != second.count)
+				return (first.count > second.count) ? -1 : 1;
+			return first.key.compareTo(second.key);
+		}
+	};
+
+	private RESTServices services;
+	private int          threadCount = DEFAULT_THREAD_COUNT;
+
+	PartitionAggregatorImpl(RESTServices services) {
+		super();
+		this.services = services;
+	}
+
+	@Override
+	public int getThreadCount() {
+		return threadCount;
+	}
+	@Override
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1)
+			throw new IllegalArgumentException("thread count must be at least 1: "+threadCount);
+		this.threadCount = threadCount;
+	}
+
+	@Override
+	public FacetResult[] facets(QueryDefinition... partitions) {
+		if (partitions == null || partitions.length == 0)
+			throw new IllegalArgumentException("no partitions for facets");
+
+		List<Callable<Map<String, Map<String, Frequency>>>> tasks =
+			new ArrayList<Callable<Map<String, Map<String, Frequency>>>>(partitions.length);
+		for (final QueryDefinition querydef: partitions) {
+			if (querydef == null)
+				throw new IllegalArgumentException("null query for partition");
+			tasks.add(new Callable<Map<String, Map<String, Frequency>>>() {
+				@Override
+				public Map<String, Map<String, Frequency>> call() {
+					return readFacets(services.search(null, InputStream.class, querydef,
+							"application/xml", 1, 0, QueryView.FACETS, null));
+				}
+			});
+		}
+
+		// each partition reports only the values within the facet limit of the options,
+		// so a value outside the limit for some partitions is undercounted
+		final Map<String, Map<String, Frequency>> combined =
+			new LinkedHashMap<String, Map<String, Frequency>>();
+		run(tasks, new Merger<Map<String, Map<String, Frequency>>>() {
+			@Override
+			public void merge(Map<String, Map<String, Frequency>> facets) {
+				for (Map.Entry<String, Map<String, Frequency>> facet: facets.entrySet()) {
+					Map<String, Frequency> values = combined.get(facet.getKey());
+					if (values == null)
+						combined.put(facet.getKey(), facet.getValue());
+					else
+						mergeFrequencies(values, facet.getValue());
+				}
+			}
+		});
+
+		FacetResult[] results = new FacetResult[combined.size()];
+		int i = 0;
+		for (Map.Entry<String, Map<String, Frequency>> facet: combined.entrySet()) {
+			results[i++] = new CombinedFacet(facet.getKey(), sortFrequencies(facet.getValue().values()));
+		}
+		return results;
+	}
+
+	@Override
+	public CombinedValues values(ValuesDefinition... partitions) {
+		if (partitions == null || partitions.length == 0)
+			throw new IllegalArgumentException("no partitions for values");
+
+		List<Callable<PartitionValues>> tasks = new ArrayList<Callable<PartitionValues>>(partitions.length);
+		for (final ValuesDefinition valdef: partitions) {
+			if (valdef == null)
+				throw new IllegalArgumentException("null values definition for partition");
+			tasks.add(new Callable<PartitionValues>() {
+				@Override
+				public PartitionValues call() {
+					return readValues(services.values(InputStream.class, valdef,
+							"application/xml", -1, -1, null));
+				}
+			});
+		}
+
+		final CombinedValuesImpl combined = new CombinedValuesImpl(partitions.length);
+		run(tasks, new Merger<PartitionValues>() {
+			@Override
+			public void merge(PartitionValues values) {
+				if (combined.name == null)
+					combined.name = values.name;
+				mergeFrequencies(combined.frequencies, values.frequencies);
+				for (Map.Entry<String, String> aggregate: values.aggregates.entrySet()) {
+					String name = aggregate.getKey();
+					combined.aggregates.put(name,
+							combineAggregate(name, combined.aggregates.get(name), aggregate.getValue()));
+				}
+			}
+		});
+		combined.sorted = sortFrequencies(combined.frequencies.values());
+		combined.frequencies = null;
+		return combined;
+	}
+
+	private interface Merger<T> {
+		public void merge(T result);
+	}
+
+	// merges the result of each partition in the calling thread as the partition completes
+	private <T> void run(List<Callable<T>> tasks, Merger<T> merger) {
+		int aggregationNumber = aggregationCounter.incrementAndGet();
+		ExecutorService executor = ClientThreads.newFixedThreadPool(
+				Math.min(threadCount, tasks.size()), "marklogic-aggregate-"+aggregationNumber+"-");
+		try {
+			long startTime = System.currentTimeMillis();
+			CompletionService<T> completion = new ExecutorCompletionService<T>(executor);
+			for (Callable<T> task: tasks) {
+				completion.submit(task);
+			}
+			for (int i=0; i < tasks.size(); i++) {
+				merger.merge(completion.take().get());
+			}
+			if (logger.isDebugEnabled())
+				logger.debug("Combined {} partitions in {} ms",
+						tasks.size(), System.currentTimeMillis() - startTime);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MarkLogicIOException("Interrupted while aggregating partitions", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new MarkLogicIOException("Could not aggregate partition", cause);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	static private void mergeFrequencies(Map<String, Frequency> combined, Map<String, Frequency> partition) {
+		for (Frequency frequency: partition.values()) {
+			Frequency existing = combined.get(frequency.key);
+			if (existing == null)
+				combined.put(frequency.key, frequency);
+			else
+				existing.count += frequency.count;
+		}
+	}
+	static private Frequency[] sortFrequencies(Collection<Frequency> frequencies) {
+		Frequency[] sorted = frequencies.toArray(new Frequency[frequencies.size()]);
+		Arrays.sort(sorted, DESCENDING_COUNT);
+		return sorted;
+	}
+
+	static String combineAggregate(String name, String combined, String value) {
+		if (combined == null)
+			return value;
+		if (value == null)
+			return combined;
+		if ("count".equals(name) || "sum".equals(name)) {
+			return new BigDecimal(combined).add(new BigDecimal(value)).toPlainString();
+		}
+		int comparison = compareValues(combined, value);
+		if ("min".equals(name))
+			return (comparison <= 0) ? combined : value;
+		return (comparison >= 0) ? combined : value;
+	}
+	// compares numbers numerically and other values such as dates as strings
+	static private int compareValues(String first, String second) {
+		try {
+			return new BigDecimal(first.trim()).compareTo(new BigDecimal(second.trim()));
+		} catch (NumberFormatException e) {
+			return first.compareTo(second);
+		}
+	}
+
+	// reads only the facet values from a search response without building the search model
+	static Map<String, Map<String, Frequency>> readFacets(InputStream stream) {
+		Map<String, Map<String, Frequency>> facets = new LinkedHashMap<String, Map<String, Frequency>>();
+		if (stream == null)
+			return facets;
+		try {
+			XMLStreamReader reader = XMLFactories.getInputFactory().createXMLStreamReader(stream);
+			try {
+				Map<String, Frequency> values = null;
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event != XMLStreamConstants.START_ELEMENT ||
+							!SEARCH_NS.equals(reader.getNamespaceURI()))
+						continue;
+					String localName = reader.getLocalName();
+					if ("facet".equals(localName)) {
+						String facetName = reader.getAttributeValue(null, "name");
+						values = new LinkedHashMap<String, Frequency>();
+						facets.put(facetName, values);
+					} else if ("facet-value".equals(localName) && values != null) {
+						String name  = reader.getAttributeValue(null, "name");
+						long   count = parseCount(reader.getAttributeValue(null, "count"));
+						String label = reader.getElementText();
+						if (name == null)
+							name = label;
+						Frequency frequency = values.get(name);
+						if (frequency == null)
+							values.put(name, new Frequency(name, new String[]{name}, label, count));
+						else
+							frequency.count += count;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new MarkLogicIOException("Could not read facets from search response", e);
+		} finally {
+			close(stream);
+		}
+		return facets;
+	}
+
+	// reads the distinct values or tuples and aggregates from a values response
+	static PartitionValues readValues(InputStream stream) {
+		PartitionValues values = new PartitionValues();
+		if (stream == null)
+			return values;
+		try {
+			XMLStreamReader reader = XMLFactories.getInputFactory().createXMLStreamReader(stream);
+			try {
+				List<String> tupleValues = null;
+				long         tupleCount  = 0;
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.END_ELEMENT) {
+						if (tupleValues != null && "tuple".equals(reader.getLocalName())) {
+							values.add(tupleValues.toArray(new String[tupleValues.size()]), tupleCount);
+							tupleValues = null;
+						}
+						continue;
+					}
+					if (event != XMLStreamConstants.START_ELEMENT ||
+							!SEARCH_NS.equals(reader.getNamespaceURI()))
+						continue;
+					String localName = reader.getLocalName();
+					if ("values-response".equals(localName)) {
+						values.name = reader.getAttributeValue(null, "name");
+					} else if ("tuple".equals(localName)) {
+						tupleValues = new ArrayList<String>();
+						tupleCount  = parseCount(reader.getAttributeValue(null, "frequency"));
+					} else if ("distinct-value".equals(localName)) {
+						if (tupleValues != null) {
+							tupleValues.add(reader.getElementText());
+						} else {
+							long count = parseCount(reader.getAttributeValue(null, "frequency"));
+							values.add(new String[]{reader.getElementText()}, count);
+						}
+					} else if ("aggregate-result".equals(localName)) {
+						String name = reader.getAttributeValue(null, "name");
+						String text = reader.getElementText();
+						if (name != null && COMBINABLE.contains(name))
+							values.aggregates.put(name, text);
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new MarkLogicIOException("Could not read values from values response", e);
+		} finally {
+			close(stream);
+		}
+		return values;
+	}
+
+	static private long parseCount(String count) {
+		if (count == null || count.length() == 0)
+			return 0;
+		return Long.parseLong(count.trim());
+	}
+	static private void close(InputStream stream) {
+		try {
+			stream.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	static class PartitionValues {
+		String                 name;
+		Map<String, Frequency> frequencies = new LinkedHashMap<String, Frequency>();
+		Map<String, String>    aggregates  = new LinkedHashMap<String, String>();
+		void add(String[] values, long count) {
+			String key = (values.length == 1) ? values[0] : joinKey(values);
+			Frequency frequency = frequencies.get(key);
+			if (frequency == null)
+				frequencies.put(key, new Frequency(key, values, null, count));
+			else
+				frequency.count += count;
+		}
+		static private String joinKey(String[] values) {
+			StringBuilder key = new StringBuilder();
+			for (int i=0; i < values.length; i++) {
+				if (i > 0)
+					key.append('\u0000');
+				key.append(values[i]);
+			}
+			return key.toString();
+		}
+	}
+
+	static class Frequency implements CombinedFrequency, FacetValue {
+		final private String   key;
+		final private String[] values;
+		final private String   label;
+		private long count;
+		Frequency(String key, String[] values, String label, long count) {
+			this.key    = key;
+			this.values = values;
+			this.label  = label;
+			this.count  = count;
+		}
+		@Override
+		public String[] getValues() {
+			return values;
+		}
+		@Override
+		public long getCount() {
+			return count;
+		}
+		@Override
+		public String getName() {
+			return key;
+		}
+		@Override
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	static class CombinedFacet implements FacetResult {
+		final private String      name;
+		final private FacetValue[] values;
+		CombinedFacet(String name, FacetValue[] values) {
+			this.name   = name;
+			this.values = values;
+		}
+		@Override
+		public String getName() {
+			return name;
+		}
+		@Override
+		public FacetValue[] getFacetValues() {
+			return values;
+		}
+	}
+
+	static class CombinedValuesImpl implements CombinedValues {
+		final private int      partitionCount;
+		private String         name;
+		private Map<String, Frequency> frequencies = new LinkedHashMap<String, Frequency>();
+		private Frequency[]    sorted;
+		final private Map<String, String> aggregates = new LinkedHashMap<String, String>();
+		CombinedValuesImpl(int partitionCount) {
+			this.partitionCount = partitionCount;
+		}
+		@Override
+		public String getName() {
+			return name;
+		}
+		@Override
+		public int getPartitionCount() {
+			return partitionCount;
+		}
+		@Override
+		public CombinedFrequency[] getFrequencies() {
+			return sorted;
+		}
+		@Override
+		public String[] getAggregateNames() {
+			return aggregates.keySet().toArray(new String[aggregates.size()]);
+		}
+		@Override
+		public String getAggregate(String name) {
+			return aggregates.get(name);
+		}
+	}
+}
@@ -24,6 +24,7 @@ import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
 
 import com.marklogic.client.DatabaseClientFactory.HandleFactoryRegistry;
+import com.marklogic.client.FailedRequestException;
 import com.marklogic.client.Transaction;
 import com.marklogic.client.io.DOMHandle;
 import com.marklogic.client.io.Format;
@@ -40,9 +41,11 @@ import com.marklogic.client.io.marker.ValuesListReadHandle;
 import com.marklogic.client.io.marker.ValuesReadHandle;
 import com.marklogic.client.query.DeleteQueryDefinition;
 import com.marklogic.client.query.ElementLocator;
+import com.marklogic.client.query.ForestQueryExecutor;
 import com.marklogic.client.query.KeyLocator;
 import com.marklogic.client.query.KeyValueQueryDefinition;
 import com.marklogic.client.query.MatchDocumentSummary;
+import com.marklogic.client.query.PartitionAggregator;
 import com.marklogic.client.query.QueryDefinition;
 import com.marklogic.client.query.QueryManager;
 import com.marklogic.client.query.RawCombinedQueryDefinition;
@@ -60,6 +63,8 @@ public class QueryManagerImpl
 {
     private RESTServices          services;
 	private HandleFactoryRegistry handleRegistry;
+	private OptionsPromoter       optionsPromoter;
+	private boolean               optionsPromotion = false;
     private long pageLen = -1;
     private QueryView view = QueryView.DEFAULT;
 
@@ -74,6 +79,9 @@ public class QueryManagerImpl
 	void setHandleRegistry(HandleFactoryRegistry handleRegistry) {
 		this.handleRegistry = handleRegistry;
 	}
+	void setOptionsPromoter(OptionsPromoter optionsPromoter) {
+		this.optionsPromoter = optionsPromoter;
+	}
 
     @Override
     public long getPageLength() {
@@ -93,6 +101,17 @@ public class QueryManagerImpl
     	this.view = (view == null) ? QueryView.DEFAULT : view;
     }
 
+    @Override
+    public boolean isOptionsPromotion() {
+        return optionsPromotion;
+    }
+    @Override
+    public void setOptionsPromotion(boolean promotion) {
+        if (promotion && optionsPromoter == null)
+            optionsPromoter = new OptionsPromoter(services);
+        optionsPromotion = promotion;
+    }
+
     @Override
     public StringQueryDefinition newStringDefinition() {
         return new StringQueryDefinitionImpl(null);
@@ -148,6 +167,16 @@ public class QueryManagerImpl
         return new ValuesDefinitionImpl(name, optionsName);
     }
 
+    @Override
+    public PartitionAggregator newPartitionAggregator() {
+        return new PartitionAggregatorImpl(services);
+    }
+
+    @Override
+    public ForestQueryExecutor newForestQueryExecutor() {
+        return new ForestQueryExecutorImpl(services, handleRegistry);
+    }
+
     @Override
     public ValuesListDefinition newValuesListDefinition() {
         return new ValuesListDefinitionImpl(null);
@@ -195,6 +224,22 @@ public class QueryManagerImpl
 
         String mimetype = searchFormat.getDefaultMimetype();
 
+        OptionsPromoter.Promotion promotion = optionsPromotion ?
+                optionsPromoter.promote(requestLogger, querydef) : null;
+        if (promotion != null) {
+            try {
+                searchBase.receiveContent(services.search(requestLogger, searchBase.receiveAs(),
+                        promotion.getQueryDefinition(), mimetype, start, pageLen, view, transaction));
+                return searchHandle;
+            } catch (FailedRequestException e) {
+                // the stored options may have been deleted or changed on the server,
+                // but any other failure would fail with inline options as well
+                if (!optionsPromoter.isMissingOptions(e))
+                    throw e;
+                optionsPromoter.invalidate(promotion, e);
+            }
+        }
+
         searchBase.receiveContent(services.search(requestLogger, searchBase.receiveAs(), querydef, mimetype, start, pageLen, view, transaction));
         return searchHandle;
     }
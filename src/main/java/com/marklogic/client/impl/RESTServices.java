@@ -22,6 +22,7 @@ import java.util.Set;
 
 import javax.net.ssl.SSLContext;
 
+import com.marklogic.client.CompressionPolicy;
 import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.DatabaseClientFactory.Authentication;
 import com.marklogic.client.DatabaseClientFactory.SSLHostnameVerifier;
@@ -67,8 +68,14 @@ public interface RESTServices {
 			SSLContext context, SSLHostnameVerifier verifier);
 	public DatabaseClient getDatabaseClient();
 	public void setDatabaseClient(DatabaseClient client);
+
+	public CompressionPolicy getCompressionPolicy();
+	public void setCompressionPolicy(CompressionPolicy policy);
 	public void release();
 
+	// the number of 503 responses received by the calling thread, including retried requests
+	public long getUnavailableCount();
+
 	public TemporalDescriptor deleteDocument(RequestLogger logger, DocumentDescriptor desc, Transaction transaction,
 			Set<Metadata> categories, RequestParameters extraParams)
 		throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException;
@@ -89,6 +96,11 @@ public interface RESTServices {
 			long start, long pageLength, Transaction transaction, SearchReadHandle searchHandle, 
             QueryView view, Set<Metadata> categories, Format format, RequestParameters extraParams)
 		throws ResourceNotFoundException, ForbiddenUserException,  FailedRequestException;
+	public DocumentPage getBulkDocuments(RequestLogger logger, QueryDefinition querydef,
+			long start, long pageLength, Transaction transaction, SearchReadHandle searchHandle,
+			QueryView view, Set<Metadata> categories, Format format, RequestParameters extraParams,
+			boolean withContent)
+		throws ResourceNotFoundException, ForbiddenUserException,  FailedRequestException;
 
 	public void postBulkDocuments(RequestLogger logger, DocumentWriteSet writeSet,
 			ServerTransform transform, Transaction transaction, Format defaultFormat)
@@ -133,6 +145,7 @@ public interface RESTServices {
 		throws ForbiddenUserException, FailedRequestException;
 	public void rollbackTransaction(Transaction transaction)
 		throws ForbiddenUserException, FailedRequestException;
+	public List<Transaction> getOpenTransactions();
 
     public <T> T values(Class <T> as, ValuesDefinition valdef, String mimetype, long start, long pageLength, Transaction transaction)
             throws ForbiddenUserException, FailedRequestException;
@@ -147,6 +160,9 @@ public interface RESTServices {
 	public <T> T getValue(RequestLogger logger, String type, String key,
 			boolean isNullable, String mimetype, Class<T> as)
 		throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException;
+	public <T> T getValue(RequestLogger logger, String type, String key, Transaction transaction,
+			boolean isNullable, String mimetype, Class<T> as)
+		throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException;
 	public <T> T getValues(RequestLogger logger, String type, String mimetype, Class<T> as)
 		throws ForbiddenUserException, FailedRequestException;
 	public <T> T getValues(RequestLogger reqlog, String type, RequestParameters extraParams,
@@ -175,6 +191,9 @@ public interface RESTServices {
 	public ServiceResultIterator getIteratedResource(
 			RequestLogger reqlog, String path, Transaction transaction, RequestParameters params, String... mimetypes)
 		throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException;
+	public ServiceResultIterator getStreamedResource(
+			RequestLogger reqlog, String path, Transaction transaction, RequestParameters params, String... mimetypes)
+		throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException;
 
 	public <R extends AbstractReadHandle> R putResource(
 			RequestLogger reqlog, String path, Transaction transaction, RequestParameters params,
@@ -212,6 +231,16 @@ public interface RESTServices {
 			W[] input, String... outputMimetypes)
 		throws ResourceNotFoundException, ResourceNotResendableException, ForbiddenUserException,
 			FailedRequestException;
+	public ServiceResultIterator postStreamedResource(
+			RequestLogger reqlog, String path, Transaction transaction, RequestParameters params,
+			AbstractWriteHandle input, String... outputMimetypes)
+		throws ResourceNotFoundException, ResourceNotResendableException, ForbiddenUserException,
+			FailedRequestException;
+	public <W extends AbstractWriteHandle> ServiceResultIterator postStreamedResource(
+			RequestLogger reqlog, String path, Transaction transaction, RequestParameters params,
+			W[] input, String... outputMimetypes)
+		throws ResourceNotFoundException, ResourceNotResendableException, ForbiddenUserException,
+			FailedRequestException;
 	public EvalResultIterator postEvalInvoke(RequestLogger reqlog, String code, String modulePath,
 			ServerEvaluationCallImpl.Context evalContext, Map<String, Object> variables,
 			EditableNamespaceContext namespaces, Transaction transaction) 
@@ -273,6 +302,7 @@ public interface RESTServices {
 	
 	public InputStream match(StructureWriteHandle document, String[] candidateRules, String mimeType, ServerTransform transform);
 	public InputStream match(String[] docIds, String[] candidateRules, ServerTransform transform);
+	public InputStream postMatch(String[] docIds, String[] candidateRules, ServerTransform transform);
 	public InputStream match(QueryDefinition queryDef, long start, long pageLength, String[] candidateRules, ServerTransform transform);
 	
 	public <R extends AbstractReadHandle> R getGraphUris(RequestLogger reqlog, R output)
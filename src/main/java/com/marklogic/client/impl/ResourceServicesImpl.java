@@ -29,6 +29,7 @@ class ResourceServicesImpl
 {
 	private String       resourceName;
 	private RESTServices services;
+	private boolean      resultStreaming = false;
 
 	ResourceServicesImpl(RESTServices services, String resourceName) {
 		super();
@@ -40,6 +41,15 @@ class ResourceServicesImpl
 	public String getResourceName() {
 		return resourceName;
 	}
+	@Override
+	public boolean isResultStreaming() {
+		return resultStreaming;
+	}
+	@Override
+	public void setResultStreaming(boolean streaming) {
+		this.resultStreaming = streaming;
+	}
+
 	private String getResourcePath() {
 		return "resources/"+getResourceName();
 	}
@@ -59,6 +69,9 @@ class ResourceServicesImpl
 	}
 	@Override
 	public ServiceResultIterator get(RequestParameters params, Transaction transaction, String... outputMimetypes) {
+		if (resultStreaming)
+			return services.getStreamedResource(requestLogger, getResourcePath(),
+					transaction, prepareParams(params), outputMimetypes);
 		return services.getIteratedResource(requestLogger, getResourcePath(), 
 				transaction, prepareParams(params), outputMimetypes);
 	}
@@ -97,6 +110,9 @@ class ResourceServicesImpl
 	}
 	@Override
 	public ServiceResultIterator post(RequestParameters params, AbstractWriteHandle input, Transaction transaction, String... outputMimetypes) {
+		if (resultStreaming)
+			return services.postStreamedResource(
+					requestLogger, getResourcePath(), transaction, prepareParams(params), input, outputMimetypes);
 		return services.postIteratedResource(
 				requestLogger, getResourcePath(), transaction, prepareParams(params), input, outputMimetypes);
 	}
@@ -115,6 +131,9 @@ class ResourceServicesImpl
 	}
 	@Override
 	public <W extends AbstractWriteHandle> ServiceResultIterator post(RequestParameters params, W[] input, Transaction transaction, String... outputMimetypes) {
+		if (resultStreaming)
+			return services.postStreamedResource(
+					requestLogger, getResourcePath(), transaction, prepareParams(params), input, outputMimetypes);
 		return services.postIteratedResource(
 				requestLogger, getResourcePath(), transaction, prepareParams(params), input, outputMimetypes);
 	}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.Transaction;
+import com.marklogic.client.query.QueryDefinition;
+import com.marklogic.client.query.QueryManager.QueryView;
+import com.marklogic.client.util.RequestLogger;
+import com.marklogic.client.util.XMLFactories;
+
+// reads only the uris from a page of search results without building the SearchHandle model
+class SearchUriReader {
+	static final private String SEARCH_NS = "http://marklogic.com/appservices/search";
+
+	static String[] readUris(RESTServices services, RequestLogger reqlog,
+			QueryDefinition querydef, long start, long pageLength, Transaction transaction) {
+		InputStream stream = services.search(reqlog, InputStream.class, querydef,
+				"application/xml", start, pageLength, QueryView.RESULTS, transaction);
+		if (stream == null)
+			return new String[0];
+
+		List<String> uris = new ArrayList<String>((int) Math.min(pageLength, 1024));
+		try {
+			XMLStreamReader reader = XMLFactories.getInputFactory().createXMLStreamReader(stream);
+			try {
+				int depth = 0;
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						depth++;
+						// only the result children of the response element
+						if (depth == 2 && "result".equals(reader.getLocalName()) &&
+								SEARCH_NS.equals(reader.getNamespaceURI())) {
+							String uri = reader.getAttributeValue(null, "uri");
+							if (uri != null)
+								uris.add(uri);
+						}
+					} else if (event == XMLStreamConstants.END_ELEMENT) {
+						depth--;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new MarkLogicIOException("Could not read uris from search response", e);
+		} finally {
+			try {
+				stream.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+
+		return uris.toArray(new String[uris.size()]);
+	}
+}
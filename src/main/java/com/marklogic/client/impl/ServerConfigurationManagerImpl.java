@@ -19,8 +19,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
@@ -42,6 +40,7 @@ import com.marklogic.client.admin.ServerConfigurationManager;
 import com.marklogic.client.admin.TransformExtensionsManager;
 import com.marklogic.client.io.OutputStreamHandle;
 import com.marklogic.client.io.OutputStreamSender;
+import com.marklogic.client.util.XMLFactories;
 
 class ServerConfigurationManagerImpl
 	implements ServerConfigurationManager, OutputStreamSender
@@ -84,11 +83,7 @@ class ServerConfigurationManagerImpl
 			if (stream == null)
 				return;
 
-			XMLInputFactory factory = XMLInputFactory.newFactory();
-			factory.setProperty("javax.xml.stream.isNamespaceAware", true);
-			factory.setProperty("javax.xml.stream.isValidating",     false);
-
-			XMLStreamReader reader = factory.createXMLStreamReader(stream);
+			XMLStreamReader reader = XMLFactories.getInputFactory().createXMLStreamReader(stream);
 
 			validatingQueries               = null;
 			validatingQueryOptions          = null;
@@ -148,10 +143,7 @@ class ServerConfigurationManagerImpl
 	@Override
 	public void write(OutputStream out) throws IOException {
 		try {
-			XMLOutputFactory factory = XMLOutputFactory.newFactory();
-			factory.setProperty("javax.xml.stream.isRepairingNamespaces", true);
-
-			XMLStreamWriter serializer = factory.createXMLStreamWriter(out, "utf-8");
+			XMLStreamWriter serializer = XMLFactories.getOutputFactory().createXMLStreamWriter(out, "utf-8");
 
 			serializer.writeStartElement(REST_API_NS, "properties");
 
@@ -22,6 +22,7 @@ import javax.ws.rs.core.StreamingOutput;
 
 import com.marklogic.client.util.RequestLogger;
 import com.marklogic.client.io.OutputStreamSender;
+import com.marklogic.client.io.StringHandle;
 
 class StreamingOutputImpl implements StreamingOutput {
 	private OutputStreamSender handle;
@@ -46,4 +47,13 @@ class StreamingOutputImpl implements StreamingOutput {
 
 		handle.write(out);
 	}
+
+	// the length of content that is known without serializing, otherwise -1
+	long getContentLength() {
+		if (handle instanceof StringHandle) {
+			String content = ((StringHandle) handle).get();
+			return (content != null) ? content.length() : 0;
+		}
+		return -1;
+	}
 }
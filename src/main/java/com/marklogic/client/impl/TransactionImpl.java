@@ -30,6 +30,7 @@ class TransactionImpl implements Transaction {
 
 	private RESTServices    services;
 	private String          transactionId;
+	private int             timeLimit;
 	private String          hostId;
 	// we keep cookies scoped with each tranasaction to work with load balancers
 	// that need to keep requests for one transaction on a specific MarkLogic Server host
@@ -37,8 +38,12 @@ class TransactionImpl implements Transaction {
 	private Calendar        created = Calendar.getInstance();
 
 	TransactionImpl(RESTServices services, String transactionId, List<NewCookie> cookies) {
+		this(services, transactionId, DEFAULT_TIMELIMIT, cookies);
+	}
+	TransactionImpl(RESTServices services, String transactionId, int timeLimit, List<NewCookie> cookies) {
 		this.services      = services;
 		this.transactionId = transactionId;
+		this.timeLimit     = timeLimit;
 		if ( cookies != null ) {
 			for ( NewCookie cookie : cookies ) {
 				// make a clone to ensure we're not holding on to any resources
@@ -69,10 +74,21 @@ class TransactionImpl implements Transaction {
 		this.hostId = hostId;
 	}
 
+	@Override
 	public Calendar getCreatedTimestamp() {
 		return created;
 	}
 
+	int getTimeLimit() {
+		return timeLimit;
+	}
+	// only known when the transaction was opened with an explicit time limit
+	boolean isExpired() {
+		if (timeLimit <= 0)
+			return false;
+		return System.currentTimeMillis() - created.getTimeInMillis() > timeLimit * 1000L;
+	}
+
 	@Override
     @SuppressWarnings({ "rawtypes", "unchecked" })
 	public <T extends StructureReadHandle> T readStatus(T handle) throws ForbiddenUserException, FailedRequestException {
@@ -86,6 +102,7 @@ class TransactionImpl implements Transaction {
 						null,
 						"transactions",
 						getTransactionId(),
+						this,
 						false,
 						handleBase.getMimetype(),
 						handleBase.receiveAs()
@@ -23,6 +23,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
@@ -30,12 +31,8 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLEventWriter;
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.events.XMLEvent;
 import javax.xml.transform.Source;
@@ -52,25 +49,9 @@ import com.marklogic.client.io.marker.AbstractWriteHandle;
 import com.marklogic.client.io.marker.ContentHandle;
 import com.marklogic.client.io.marker.StructureWriteHandle;
 import com.marklogic.client.io.marker.XMLWriteHandle;
+import com.marklogic.client.util.XMLFactories;
 
 public final class Utilities {
-	private static DocumentBuilderFactory factory;
-
-	private static DocumentBuilderFactory getFactory()
-			throws ParserConfigurationException {
-		if (factory == null)
-			factory = makeDocumentBuilderFactory();
-		return factory;
-	}
-
-	private static DocumentBuilderFactory makeDocumentBuilderFactory()
-			throws ParserConfigurationException {
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-		factory.setNamespaceAware(true);
-		factory.setValidating(false);
-		return factory;
-	}
-
 	/**
 	 * Construct a dom Element from a string. A utility function for creating
 	 * DOM elements when needed for other builder functions.
@@ -84,7 +65,7 @@ public final class Utilities {
 		try {
 			ByteArrayInputStream bais = new ByteArrayInputStream(
 					xmlString.getBytes(Charset.forName("UTF-8")));
-			element = getFactory().newDocumentBuilder().parse(bais)
+			element = XMLFactories.getDocumentBuilder().parse(bais)
 					.getDocumentElement();
 		} catch (SAXException e) {
 			throw new MarkLogicIOException(
@@ -92,9 +73,6 @@ public final class Utilities {
 		} catch (IOException e) {
 			throw new MarkLogicIOException(
 					"Could not make Element from xmlString" + xmlString, e);
-		} catch (ParserConfigurationException e) {
-			throw new MarkLogicIOException(
-					"Could not make Element from xmlString" + xmlString, e);
 		}
 		return element;
 	}
@@ -170,7 +148,7 @@ public final class Utilities {
 			if (stream == null) {
 				return null;
 			}
-			return makeInputFactory().createXMLEventReader(stream);
+			return XMLFactories.getInputFactory().createXMLEventReader(stream);
 		} catch (XMLStreamException e) {
 			throw new MarkLogicIOException(e);
 		}
@@ -192,7 +170,7 @@ public final class Utilities {
 			if (reader == null) {
 				return null;
 			}
-			return makeInputFactory().createXMLEventReader(reader);
+			return XMLFactories.getInputFactory().createXMLEventReader(reader);
 		} catch (XMLStreamException e) {
 			throw new MarkLogicIOException(e);
 		}
@@ -203,13 +181,6 @@ public final class Utilities {
 		}
 		return readReader(new StringReader(string));
 	}
-	static XMLInputFactory makeInputFactory() {
-		XMLInputFactory factory = XMLInputFactory.newInstance();
-		factory.setProperty("javax.xml.stream.isNamespaceAware", true);
-		factory.setProperty("javax.xml.stream.isValidating",     false);
-
-		return factory;
-	}
 	static public List<XMLEvent> readerToEvents(XMLEventReader reader) {
 		try {
 			if (reader == null) {
@@ -278,6 +249,56 @@ public final class Utilities {
 					);
 		}
 	}
+	public static <T extends AbstractReadHandle> T exportBytesToHandle(
+			byte[] content, T handle
+			) {
+		if (handle == null) {
+			return null;
+		}
+
+		@SuppressWarnings("rawtypes")
+		HandleImplementation baseHandle = HandleAccessor.checkHandle(handle,
+				"export");
+
+		baseHandle.receiveContent(
+				bytesToObject(content, baseHandle.receiveAs())
+				);
+
+		return handle;
+	}
+	// converts serialized events, which avoids serializing the events again for each handle
+	public static Object bytesToObject(byte[] bytes, Class<?> as) {
+		if (bytes == null || bytes.length == 0) {
+			return null;
+		}
+
+		if (byte[].class.isAssignableFrom(as)) {
+			return bytes;
+		} else if (File.class.isAssignableFrom(as)) {
+			try {
+				File tempFile = File.createTempFile("tmp", ".xml");
+				FileOutputStream out = new FileOutputStream(tempFile);
+				try {
+					out.write(bytes);
+				} finally {
+					out.close();
+				}
+				return tempFile;
+			} catch (IOException e) {
+				throw new MarkLogicIOException(e);
+			}
+		} else if (InputStream.class.isAssignableFrom(as)) {
+			return new ByteArrayInputStream(bytes);
+		} else if (Reader.class.isAssignableFrom(as)) {
+			return new InputStreamReader(new ByteArrayInputStream(bytes), Charset.forName("UTF-8"));
+		} else if (String.class.isAssignableFrom(as)) {
+			return new String(bytes, Charset.forName("UTF-8"));
+		} else {
+			throw new IllegalArgumentException(
+					"Unrecognized class for export: "+as.getName()
+					);
+		}
+	}
 	public static byte[] eventsToBytes(List<XMLEvent> events) {
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
 		if (!writeEvents(events, baos)) {
@@ -334,10 +355,7 @@ public final class Utilities {
 		}
 
 		try {
-			XMLOutputFactory factory = XMLOutputFactory.newInstance();
-			factory.setProperty("javax.xml.stream.isRepairingNamespaces", true);
-
-			XMLEventWriter eventWriter = factory.createXMLEventWriter(out, "UTF-8");
+			XMLEventWriter eventWriter = XMLFactories.getOutputFactory().createXMLEventWriter(out, "UTF-8");
 
 			for (XMLEvent event: events) {
 				eventWriter.add(event);
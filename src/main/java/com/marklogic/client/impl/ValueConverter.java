@@ -18,6 +18,10 @@ package com.marklogic.client.impl;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.bind.DatatypeConverter;
 import javax.xml.datatype.DatatypeConfigurationException;
@@ -32,6 +36,13 @@ import com.marklogic.client.MarkLogicInternalException;
  * Note that ValueConverter does not enable Java equivalents for the following
  * XML Schema concrete atomic datatypes:  anyUri, gYear, gMonth, gDay, gMonthDay,
  * hexBinary, ID, language, Name, NCName, xs:unsignedByte, or token.
+ *
+ * The conversions dispatch on the class of the Java value or the name of
+ * the XML Schema type through a lookup table.  Numbers, booleans, and
+ * dates are printed and parsed directly rather than through
+ * DatatypeConverter.  The lexical forms of Java long, int, and boolean
+ * values are the same as for XML Schema, so StringBuilder.append()
+ * prints those values without a ValueConverter call.
  */
 public class ValueConverter {
 	/**
@@ -56,47 +67,118 @@ public class ValueConverter {
 	 */
 	final static public int        MAX_UNSIGNED_SHORT = 65535;
 
-	static private DatatypeFactory datatypeFactory;
-	
+	private enum JavaType {
+		BIG_DECIMAL, BIG_INTEGER, BOOLEAN, BYTE, BYTES, CALENDAR, DOUBLE, DURATION,
+		FLOAT, INTEGER, LONG, SHORT, STRING, OTHER;
+	}
+	private enum SchemaType {
+		ANY_SIMPLE_TYPE, BASE64_BINARY, BOOLEAN, BYTE, DATE, DATE_TIME, DAY_TIME_DURATION,
+		DECIMAL, DOUBLE, DURATION, FLOAT, INT, INTEGER, LONG, SHORT, STRING, TIME,
+		UNSIGNED_INT, UNSIGNED_LONG, UNSIGNED_SHORT, YEAR_MONTH_DURATION;
+	}
+
+	// subclasses such as GregorianCalendar are added on first use
+	final static private ConcurrentHashMap<Class<?>,JavaType> javaTypes =
+		new ConcurrentHashMap<Class<?>,JavaType>();
+	final static private Map<String,SchemaType> schemaTypes = new HashMap<String,SchemaType>();
+	static {
+		javaTypes.put(BigDecimal.class, JavaType.BIG_DECIMAL);
+		javaTypes.put(BigInteger.class, JavaType.BIG_INTEGER);
+		javaTypes.put(Boolean.class,    JavaType.BOOLEAN);
+		javaTypes.put(Byte.class,       JavaType.BYTE);
+		javaTypes.put(byte[].class,     JavaType.BYTES);
+		javaTypes.put(Double.class,     JavaType.DOUBLE);
+		javaTypes.put(Float.class,      JavaType.FLOAT);
+		javaTypes.put(Integer.class,    JavaType.INTEGER);
+		javaTypes.put(Long.class,       JavaType.LONG);
+		javaTypes.put(Short.class,      JavaType.SHORT);
+		javaTypes.put(String.class,     JavaType.STRING);
+
+		schemaTypes.put("xs:anySimpleType",     SchemaType.ANY_SIMPLE_TYPE);
+		schemaTypes.put("xs:base64Binary",      SchemaType.BASE64_BINARY);
+		schemaTypes.put("xs:boolean",           SchemaType.BOOLEAN);
+		schemaTypes.put("xs:byte",              SchemaType.BYTE);
+		schemaTypes.put("xs:date",              SchemaType.DATE);
+		schemaTypes.put("xs:dateTime",          SchemaType.DATE_TIME);
+		schemaTypes.put("xs:dayTimeDuration",   SchemaType.DAY_TIME_DURATION);
+		schemaTypes.put("xs:decimal",           SchemaType.DECIMAL);
+		schemaTypes.put("xs:double",            SchemaType.DOUBLE);
+		schemaTypes.put("xs:duration",          SchemaType.DURATION);
+		schemaTypes.put("xs:float",             SchemaType.FLOAT);
+		schemaTypes.put("xs:int",               SchemaType.INT);
+		schemaTypes.put("xs:integer",           SchemaType.INTEGER);
+		schemaTypes.put("xs:long",              SchemaType.LONG);
+		schemaTypes.put("xs:short",             SchemaType.SHORT);
+		schemaTypes.put("xs:string",            SchemaType.STRING);
+		schemaTypes.put("xs:time",              SchemaType.TIME);
+		schemaTypes.put("xs:unsignedInt",       SchemaType.UNSIGNED_INT);
+		schemaTypes.put("xs:unsignedLong",      SchemaType.UNSIGNED_LONG);
+		schemaTypes.put("xs:unsignedShort",     SchemaType.UNSIGNED_SHORT);
+		schemaTypes.put("xs:yearMonthDuration", SchemaType.YEAR_MONTH_DURATION);
+	}
+
+	// the buffer for printing dates in each thread
+	static final private ThreadLocal<StringBuilder> textBuffer = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder(32);
+		}
+	};
+
+	// initialized on first use by the class loader, which is thread safe
+	static private class FactoryHolder {
+		static final DatatypeFactory datatypeFactory = makeFactory();
+	}
+
 	private ValueConverter() {
 		super();
 	}
 
 	static public void convertFromJava(Object value, ValueProcessor processor) {
-		if (value == null)
+		if (value == null) {
 			processor.process(null, null, null);
-		else if (value instanceof BigDecimal)
-			convertFromJava((BigDecimal) value, processor);
-		else if (value instanceof BigInteger)
-			convertFromJava((BigInteger) value, processor);
-		else if (value instanceof Boolean)
-			convertFromJava((Boolean) value, processor);
-		else if (value instanceof Byte)
-			convertFromJava((Byte) value, processor);
-		else if (value instanceof byte[])
-			convertFromJava((byte[]) value, processor);
-		else if (value instanceof Calendar)
-			convertFromJava((Calendar) value, processor);
-		else if (value instanceof Double)
-			convertFromJava((Double) value, processor);
-		else if (value instanceof Duration)
-			convertFromJava((Duration) value, processor);
-		else if (value instanceof Float)
-			convertFromJava((Float) value, processor);
-		else if (value instanceof Integer)
-			convertFromJava((Integer) value, processor);
-		else if (value instanceof Long)
-			convertFromJava((Long) value, processor);
-		else if (value instanceof Short)
-			convertFromJava((Short) value, processor);
-		else if (value instanceof String)
-			convertFromJava((String) value, processor);
-		else
+			return;
+		}
+		switch(getJavaType(value)) {
+		case BIG_DECIMAL: convertFromJava((BigDecimal) value, processor); break;
+		case BIG_INTEGER: convertFromJava((BigInteger) value, processor); break;
+		case BOOLEAN:     convertFromJava((Boolean)    value, processor); break;
+		case BYTE:        convertFromJava((Byte)       value, processor); break;
+		case BYTES:       convertFromJava((byte[])     value, processor); break;
+		case CALENDAR:    convertFromJava((Calendar)   value, processor); break;
+		case DOUBLE:      convertFromJava((Double)     value, processor); break;
+		case DURATION:    convertFromJava((Duration)   value, processor); break;
+		case FLOAT:       convertFromJava((Float)      value, processor); break;
+		case INTEGER:     convertFromJava((Integer)    value, processor); break;
+		case LONG:        convertFromJava((Long)       value, processor); break;
+		case SHORT:       convertFromJava((Short)      value, processor); break;
+		case STRING:      convertFromJava((String)     value, processor); break;
+		default:
 			processor.process(
 					value,
 					"xs:anySimpleType",
-					DatatypeConverter.printString(value.toString())
+					value.toString()
 					);
+		}
+	}
+	static private JavaType getJavaType(Object value) {
+		Class<?> valueClass = value.getClass();
+		JavaType javaType = javaTypes.get(valueClass);
+		if (javaType != null)
+			return javaType;
+
+		if (value instanceof BigDecimal)
+			javaType = JavaType.BIG_DECIMAL;
+		else if (value instanceof BigInteger)
+			javaType = JavaType.BIG_INTEGER;
+		else if (value instanceof Calendar)
+			javaType = JavaType.CALENDAR;
+		else if (value instanceof Duration)
+			javaType = JavaType.DURATION;
+		else
+			javaType = JavaType.OTHER;
+		javaTypes.putIfAbsent(valueClass, javaType);
+		return javaType;
 	}
 	static public void convertFromJava(BigDecimal value, ValueProcessor processor) {
 		if (value == null) {
@@ -106,7 +188,7 @@ public class ValueConverter {
 		processor.process(
 				value,
 				"xs:decimal",
-				DatatypeConverter.printDecimal(value)
+				value.toPlainString()
 				);
 	}
 	static public void convertFromJava(BigInteger value, ValueProcessor processor) {
@@ -116,17 +198,16 @@ public class ValueConverter {
 		}
 		if (MIN_UNSIGNED.compareTo(value) <= 0 &&
 				MAX_UNSIGNED_LONG.compareTo(value) >= 0)
-			// DatatypeConverter doesn't provide printUnsignedLong()
 			processor.process(
 				value,
 				"xs:unsignedLong",
-				DatatypeConverter.printInteger(value)
+				value.toString()
 				);
 		else
 			processor.process(
 				value,
 				"xs:integer",
-				DatatypeConverter.printInteger(value)
+				value.toString()
 				);
 	}
 	static public void convertFromJava(Boolean value, ValueProcessor processor) {
@@ -137,7 +218,7 @@ public class ValueConverter {
 		processor.process(
 				value,
 				"xs:boolean",
-				DatatypeConverter.printBoolean(value)
+				value.booleanValue() ? "true" : "false"
 				);
 	}
 	static public void convertFromJava(Byte value, ValueProcessor processor) {
@@ -148,7 +229,7 @@ public class ValueConverter {
 		processor.process(
 				value,
 				"xs:byte",
-				DatatypeConverter.printByte(value)
+				String.valueOf(value.byteValue())
 				);
 	}
 	static public void convertFromJava(byte[] value, ValueProcessor processor) {
@@ -171,19 +252,19 @@ public class ValueConverter {
 			processor.process(
 					value,
 					"xs:time",
-					DatatypeConverter.printTime(value)
+					printTime(value)
 					);
 		else if (value.isSet(Calendar.HOUR_OF_DAY))
 			processor.process(
 					value,
 					"xs:dateTime",
-					DatatypeConverter.printDateTime(value)
+					printDateTime(value)
 					);
 		else
 			processor.process(
 					value,
 					"xs:date",
-					DatatypeConverter.printDate(value)
+					printDate(value)
 					);
 	}
 	static public void convertFromJava(Double value, ValueProcessor processor) {
@@ -194,7 +275,7 @@ public class ValueConverter {
 		processor.process(
 				value,
 				"xs:double",
-				DatatypeConverter.printDouble(value)
+				printDouble(value.doubleValue())
 				);
 	}
 	static public void convertFromJava(Duration value, ValueProcessor processor) {
@@ -216,7 +297,7 @@ public class ValueConverter {
 		processor.process(
 				value,
 				"xs:float",
-				DatatypeConverter.printFloat(value)
+				printFloat(value.floatValue())
 				);
 	}
 	static public void convertFromJava(Integer value, ValueProcessor processor) {
@@ -229,13 +310,13 @@ public class ValueConverter {
 			processor.process(
 				value,
 				"xs:unsignedShort",
-				DatatypeConverter.printUnsignedShort(ival)
+				String.valueOf(ival)
 				);
 		else
 			processor.process(
 				value,
 				"xs:int",
-				DatatypeConverter.printInt(ival)
+				String.valueOf(ival)
 				);
 	}
 	static public void convertFromJava(Long value, ValueProcessor processor) {
@@ -243,18 +324,18 @@ public class ValueConverter {
 			processor.process(null, null, null);
 			return;
 		}
-		long longVal = ((Long) value).longValue();
+		long longVal = value.longValue();
 		if (0 <= longVal && longVal <= MAX_UNSIGNED_INT)
 			processor.process(
 				value,
 				"xs:unsignedInt",
-				DatatypeConverter.printUnsignedInt(longVal)
+				String.valueOf(longVal)
 				);
 		else
 			processor.process(
 				value,
 				"xs:long",
-				DatatypeConverter.printLong(longVal)
+				String.valueOf(longVal)
 				);
 	}
 	static public void convertFromJava(Short value, ValueProcessor processor) {
@@ -265,7 +346,7 @@ public class ValueConverter {
 		processor.process(
 			value,
 			"xs:short",
-			DatatypeConverter.printShort(value)
+			String.valueOf(value.shortValue())
 			);
 	}
 	static public void convertFromJava(String value, ValueProcessor processor) {
@@ -276,71 +357,331 @@ public class ValueConverter {
 		processor.process(
 				value,
 				"xs:string",
-				DatatypeConverter.printString(value)
+				value
 				);
 	}
 	static public Object convertToJava(String type, String value) {
-		if ("xs:anySimpleType".equals(type))
-			return DatatypeConverter.parseAnySimpleType(value);
-		if ("xs:base64Binary".equals(type))
-			return DatatypeConverter.parseBase64Binary(value);
-		if ("xs:boolean".equals(type))
-			return DatatypeConverter.parseBoolean(value);
-		if ("xs:byte".equals(type))
-			return DatatypeConverter.parseByte(value);
-		if ("xs:date".equals(type))
-			return DatatypeConverter.parseDate(value);
-		if ("xs:dateTime".equals(type))
-			return DatatypeConverter.parseDateTime(value);
-		if ("xs:dayTimeDuration".equals(type))
-			return getFactory().newDurationDayTime(value);
-		if ("xs:decimal".equals(type))
-			return DatatypeConverter.parseDecimal(value);
-		if ("xs:double".equals(type))
-			return DatatypeConverter.parseDouble(value);
-		if ("xs:duration".equals(type))
-			return getFactory().newDuration(value);
-		if ("xs:float".equals(type))
-			return DatatypeConverter.parseFloat(value);
-		if ("xs:int".equals(type))
-			return DatatypeConverter.parseInt(value);
-		if ("xs:integer".equals(type))
-			return DatatypeConverter.parseInteger(value);
-		if ("xs:long".equals(type))
-			return DatatypeConverter.parseLong(value);
-		if ("xs:short".equals(type))
-			return DatatypeConverter.parseShort(value);
-		if ("xs:string".equals(type))
-			return DatatypeConverter.parseString(value);
-		if ("xs:time".equals(type))
-			return DatatypeConverter.parseTime(value);
-		if ("xs:unsignedInt".equals(type))
-			return DatatypeConverter.parseUnsignedInt(value);
-        if ("xs:unsignedLong".equals(type)) {
-            BigInteger bi = DatatypeConverter.parseInteger(value);
-            if (bi.compareTo(MAX_UNSIGNED_LONG) < 0) {
-                return bi.longValue();
-            } else {
-                return bi;
-            }
-        } if ("xs:unsignedShort".equals(type))
-            return DatatypeConverter.parseUnsignedShort(value);
-		if ("xs:yearMonthDuration".equals(type))
-			return getFactory().newDurationYearMonth(value);
-		return value;
+		SchemaType schemaType = (type == null) ? null : schemaTypes.get(type);
+		if (schemaType == null)
+			return value;
+		switch(schemaType) {
+		case ANY_SIMPLE_TYPE:     return value;
+		case BASE64_BINARY:       return DatatypeConverter.parseBase64Binary(value);
+		case BOOLEAN:             return parseBoolean(value);
+		case BYTE:                return (byte) parseInteger(value, Byte.MIN_VALUE, Byte.MAX_VALUE);
+		case DATE:                return parseCalendar(value);
+		case DATE_TIME:           return parseCalendar(value);
+		case DAY_TIME_DURATION:   return getFactory().newDurationDayTime(value);
+		case DECIMAL:             return new BigDecimal(removePlus(value.trim()));
+		case DOUBLE:              return parseDouble(value);
+		case DURATION:            return getFactory().newDuration(value);
+		case FLOAT:               return parseFloat(value);
+		case INT:                 return parseInt(value);
+		case INTEGER:             return new BigInteger(removePlus(value.trim()));
+		case LONG:                return parseLong(value);
+		case SHORT:               return (short) parseInteger(value, Short.MIN_VALUE, Short.MAX_VALUE);
+		case STRING:              return value;
+		case TIME:                return parseCalendar(value);
+		case UNSIGNED_INT:        return parseInteger(value, 0, MAX_UNSIGNED_INT);
+		case UNSIGNED_LONG: {
+			BigInteger bi = new BigInteger(removePlus(value.trim()));
+			if (bi.compareTo(MAX_UNSIGNED_LONG) < 0) {
+				return bi.longValue();
+			} else {
+				return bi;
+			}
+		}
+		case UNSIGNED_SHORT:      return (int) parseInteger(value, 0, MAX_UNSIGNED_SHORT);
+		case YEAR_MONTH_DURATION: return getFactory().newDurationYearMonth(value);
+		default:
+			throw new MarkLogicInternalException("unknown schema type: "+type);
+		}
 	}
     @SuppressWarnings("unchecked")
 	static public <T> T convertToJava(String type, String value, Class<T> as) {
         return (T) convertToJava(type, value);
     }
+
+	/**
+	 * Prints a double in the lexical form of xs:double.
+	 * @param value	the value
+	 * @return	the lexical form
+	 */
+	static public String printDouble(double value) {
+		if (value == Double.POSITIVE_INFINITY)
+			return "INF";
+		if (value == Double.NEGATIVE_INFINITY)
+			return "-INF";
+		if (Double.isNaN(value))
+			return "NaN";
+		return String.valueOf(value);
+	}
+	static private String printFloat(float value) {
+		if (value == Float.POSITIVE_INFINITY)
+			return "INF";
+		if (value == Float.NEGATIVE_INFINITY)
+			return "-INF";
+		if (Float.isNaN(value))
+			return "NaN";
+		return String.valueOf(value);
+	}
+	/**
+	 * Prints a calendar in the lexical form of xs:dateTime.
+	 * @param value	the value
+	 * @return	the lexical form
+	 */
+	static public String printDateTime(Calendar value) {
+		return appendDateTime(takeBuffer(), value).toString();
+	}
+	/**
+	 * Prints a calendar in the lexical form of xs:date.
+	 * @param value	the value
+	 * @return	the lexical form
+	 */
+	static public String printDate(Calendar value) {
+		return appendDate(takeBuffer(), value).toString();
+	}
+	/**
+	 * Prints a calendar in the lexical form of xs:time.
+	 * @param value	the value
+	 * @return	the lexical form
+	 */
+	static public String printTime(Calendar value) {
+		return appendTime(takeBuffer(), value).toString();
+	}
+	/**
+	 * Appends a calendar in the lexical form of xs:dateTime.
+	 * @param buf	the buffer receiving the lexical form
+	 * @param value	the value
+	 * @return	the buffer
+	 */
+	static public StringBuilder appendDateTime(StringBuilder buf, Calendar value) {
+		appendDay(buf, value);
+		buf.append('T');
+		appendClock(buf, value);
+		appendZone(buf, value);
+		return buf;
+	}
+	/**
+	 * Appends a calendar in the lexical form of xs:date.
+	 * @param buf	the buffer receiving the lexical form
+	 * @param value	the value
+	 * @return	the buffer
+	 */
+	static public StringBuilder appendDate(StringBuilder buf, Calendar value) {
+		appendDay(buf, value);
+		appendZone(buf, value);
+		return buf;
+	}
+	/**
+	 * Appends a calendar in the lexical form of xs:time.
+	 * @param buf	the buffer receiving the lexical form
+	 * @param value	the value
+	 * @return	the buffer
+	 */
+	static public StringBuilder appendTime(StringBuilder buf, Calendar value) {
+		appendClock(buf, value);
+		appendZone(buf, value);
+		return buf;
+	}
+	static private void appendDay(StringBuilder buf, Calendar value) {
+		// years before the common era count back from year zero
+		int year = value.get(Calendar.YEAR);
+		if (value.isSet(Calendar.ERA) && value.get(Calendar.ERA) == 0)
+			year = 1 - year;
+		int digits = Math.abs(year);
+		if (year < 0)
+			buf.append('-');
+		for (int limit=1000; limit > 1 && digits < limit; limit /= 10) {
+			buf.append('0');
+		}
+		buf.append(digits).append('-');
+		appendTwoDigits(buf, value.get(Calendar.MONTH) + 1);
+		buf.append('-');
+		appendTwoDigits(buf, value.get(Calendar.DAY_OF_MONTH));
+	}
+	static private void appendClock(StringBuilder buf, Calendar value) {
+		appendTwoDigits(buf, value.get(Calendar.HOUR_OF_DAY));
+		buf.append(':');
+		appendTwoDigits(buf, value.get(Calendar.MINUTE));
+		buf.append(':');
+		appendTwoDigits(buf, value.get(Calendar.SECOND));
+		int millis = value.isSet(Calendar.MILLISECOND) ? value.get(Calendar.MILLISECOND) : 0;
+		if (millis != 0) {
+			buf.append('.');
+			if (millis < 100)
+				buf.append('0');
+			if (millis < 10)
+				buf.append('0');
+			buf.append(millis);
+		}
+	}
+	static private void appendZone(StringBuilder buf, Calendar value) {
+		TimeZone zone = value.getTimeZone();
+		if (zone == null)
+			return;
+		int offset = (value.get(Calendar.ZONE_OFFSET) + value.get(Calendar.DST_OFFSET)) / 60000;
+		if (offset == 0) {
+			buf.append('Z');
+			return;
+		}
+		if (offset > 0) {
+			buf.append('+');
+		} else {
+			buf.append('-');
+			offset = -offset;
+		}
+		appendTwoDigits(buf, offset / 60);
+		buf.append(':');
+		appendTwoDigits(buf, offset % 60);
+	}
+	static private void appendTwoDigits(StringBuilder buf, int value) {
+		if (value < 10)
+			buf.append('0');
+		buf.append(value);
+	}
+	static private StringBuilder takeBuffer() {
+		StringBuilder buf = textBuffer.get();
+		buf.setLength(0);
+		return buf;
+	}
+
+	/**
+	 * Parses the lexical form of xs:long, allowing surrounding whitespace
+	 * and a leading plus sign.
+	 * @param value	the lexical form
+	 * @return	the value
+	 * @throws NumberFormatException	if the lexical form is not a long
+	 */
+	static public long parseLong(CharSequence value) {
+		return parseInteger(value, Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+	/**
+	 * Parses the lexical form of xs:int, allowing surrounding whitespace
+	 * and a leading plus sign.
+	 * @param value	the lexical form
+	 * @return	the value
+	 * @throws NumberFormatException	if the lexical form is not an int
+	 */
+	static public int parseInt(CharSequence value) {
+		return (int) parseInteger(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+	/**
+	 * Parses the lexical form of xs:double including INF, -INF, and NaN.
+	 * @param value	the lexical form
+	 * @return	the value
+	 * @throws NumberFormatException	if the lexical form is not a double
+	 */
+	static public double parseDouble(CharSequence value) {
+		String text = value.toString().trim();
+		if ("INF".equals(text))
+			return Double.POSITIVE_INFINITY;
+		if ("-INF".equals(text))
+			return Double.NEGATIVE_INFINITY;
+		if ("NaN".equals(text))
+			return Double.NaN;
+		return Double.parseDouble(text);
+	}
+	static private float parseFloat(CharSequence value) {
+		String text = value.toString().trim();
+		if ("INF".equals(text))
+			return Float.POSITIVE_INFINITY;
+		if ("-INF".equals(text))
+			return Float.NEGATIVE_INFINITY;
+		if ("NaN".equals(text))
+			return Float.NaN;
+		return Float.parseFloat(text);
+	}
+	/**
+	 * Parses the lexical form of xs:boolean, which is true, false, 1, or 0.
+	 * @param value	the lexical form
+	 * @return	the value
+	 * @throws IllegalArgumentException	if the lexical form is not a boolean
+	 */
+	static public boolean parseBoolean(CharSequence value) {
+		int start = skipSpace(value, 0);
+		int end   = trimSpace(value, start);
+		if (matches(value, start, end, "true") || matches(value, start, end, "1"))
+			return true;
+		if (matches(value, start, end, "false") || matches(value, start, end, "0"))
+			return false;
+		throw new IllegalArgumentException("invalid xs:boolean: "+value);
+	}
+
+	// accumulates negatively so the minimum value doesn't overflow
+	static private long parseInteger(CharSequence value, long min, long max) {
+		if (value == null)
+			throw new NumberFormatException("null integer");
+		int start = skipSpace(value, 0);
+		int end   = trimSpace(value, start);
+		boolean isNegative = false;
+		if (start < end) {
+			char sign = value.charAt(start);
+			if (sign == '-' || sign == '+') {
+				isNegative = (sign == '-');
+				start++;
+			}
+		}
+		if (start == end)
+			throw new NumberFormatException("invalid integer: "+value);
+		long limit    = isNegative ? min : -max;
+		long multiMin = limit / 10;
+		long result   = 0;
+		for (int i=start; i < end; i++) {
+			int digit = value.charAt(i) - '0';
+			if (digit < 0 || digit > 9)
+				throw new NumberFormatException("invalid integer: "+value);
+			if (result < multiMin)
+				throw new NumberFormatException("integer out of range: "+value);
+			result *= 10;
+			if (result < limit + digit)
+				throw new NumberFormatException("integer out of range: "+value);
+			result -= digit;
+		}
+		return isNegative ? result : -result;
+	}
+	static private int skipSpace(CharSequence value, int start) {
+		int end = value.length();
+		while (start < end && isSpace(value.charAt(start))) {
+			start++;
+		}
+		return start;
+	}
+	static private int trimSpace(CharSequence value, int start) {
+		int end = value.length();
+		while (end > start && isSpace(value.charAt(end - 1))) {
+			end--;
+		}
+		return end;
+	}
+	static private boolean isSpace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+	static private boolean matches(CharSequence value, int start, int end, String expected) {
+		if (end - start != expected.length())
+			return false;
+		for (int i=0; i < expected.length(); i++) {
+			if (value.charAt(start + i) != expected.charAt(i))
+				return false;
+		}
+		return true;
+	}
+	static private String removePlus(String value) {
+		return (value.length() > 1 && value.charAt(0) == '+') ? value.substring(1) : value;
+	}
+
+	// the same conversion as DatatypeConverter.parseDateTime(), parseDate(), and parseTime()
+	static private Calendar parseCalendar(String value) {
+		return getFactory().newXMLGregorianCalendar(value.trim()).toGregorianCalendar();
+	}
 	static private DatatypeFactory getFactory() {
-		if (datatypeFactory == null) {
+		return FactoryHolder.datatypeFactory;
+	}
+	static private DatatypeFactory makeFactory() {
 		try {
-			datatypeFactory = DatatypeFactory.newInstance();
+			return DatatypeFactory.newInstance();
 		} catch (DatatypeConfigurationException e) {
 			throw new MarkLogicInternalException(e);
 		}
-		}
-		return datatypeFactory;
 	}
 }
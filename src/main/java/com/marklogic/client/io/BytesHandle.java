@@ -16,6 +16,7 @@
 package com.marklogic.client.io;
 
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 
 import com.marklogic.client.MarkLogicIOException;
 import com.marklogic.client.io.marker.BinaryReadHandle;
@@ -27,6 +28,7 @@ import com.marklogic.client.io.marker.GenericReadHandle;
 import com.marklogic.client.io.marker.GenericWriteHandle;
 import com.marklogic.client.io.marker.JSONReadHandle;
 import com.marklogic.client.io.marker.JSONWriteHandle;
+import com.marklogic.client.io.marker.PooledBufferableHandle;
 import com.marklogic.client.io.marker.QuadsWriteHandle;
 import com.marklogic.client.io.marker.StructureReadHandle;
 import com.marklogic.client.io.marker.StructureWriteHandle;
@@ -47,7 +49,7 @@ import com.marklogic.client.io.marker.XMLWriteHandle;
  */
 public class BytesHandle
 	extends BaseHandle<byte[], byte[]>
-	implements BufferableHandle, ContentHandle<byte[]>,
+	implements BufferableHandle, PooledBufferableHandle, ContentHandle<byte[]>,
 		BinaryReadHandle, BinaryWriteHandle,
 		GenericReadHandle, GenericWriteHandle,
 		JSONReadHandle, JSONWriteHandle, 
@@ -152,6 +154,10 @@ public class BytesHandle
 		content = buffer;
 	}
 	@Override
+	public void fromBuffer(byte[] buffer, int offset, int length) {
+		content = (buffer == null) ? null : Arrays.copyOfRange(buffer, offset, offset + length);
+	}
+	@Override
 	public byte[] toBuffer() {
 		return content;
 	}
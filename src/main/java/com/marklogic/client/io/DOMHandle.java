@@ -23,6 +23,7 @@ import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 
 import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPath;
@@ -49,17 +50,21 @@ import com.marklogic.client.MarkLogicInternalException;
 import com.marklogic.client.io.marker.BufferableHandle;
 import com.marklogic.client.io.marker.ContentHandle;
 import com.marklogic.client.io.marker.ContentHandleFactory;
+import com.marklogic.client.io.marker.PooledBufferableHandle;
+import com.marklogic.client.io.marker.ReusableContentHandleFactory;
 import com.marklogic.client.io.marker.StructureReadHandle;
 import com.marklogic.client.io.marker.StructureWriteHandle;
 import com.marklogic.client.io.marker.XMLReadHandle;
 import com.marklogic.client.io.marker.XMLWriteHandle;
+import com.marklogic.client.util.BufferPool;
+import com.marklogic.client.util.XMLFactories;
 
 /**
  * A DOM Handle represents XML content as a DOM document for reading or writing.
  */
 public class DOMHandle
 	extends BaseHandle<InputStream, OutputStreamSender>
-	implements OutputStreamSender, BufferableHandle, ContentHandle<Document>,
+	implements OutputStreamSender, BufferableHandle, PooledBufferableHandle, ContentHandle<Document>,
 		XMLReadHandle, XMLWriteHandle,
 		StructureReadHandle, StructureWriteHandle
 {
@@ -75,7 +80,7 @@ public class DOMHandle
 	 * @return	the factory
 	 */
 	static public ContentHandleFactory newFactory() {
-		return new ContentHandleFactory() {
+		return new ReusableContentHandleFactory() {
 			@Override
 			public Class<?>[] getHandledClasses() {
 				return new Class<?>[]{ Document.class };
@@ -91,6 +96,13 @@ public class DOMHandle
 						(ContentHandle<C>) new DOMHandle() : null;
 				return handle;
 			}
+			@Override
+			public boolean resetHandle(ContentHandle<?> handle) {
+				if (!(handle instanceof DOMHandle))
+					return false;
+				((DOMHandle) handle).reset();
+				return true;
+			}
 		};
 	}
 
@@ -111,6 +123,13 @@ public class DOMHandle
 		set(content);
 	}
 
+	// keeps the document builder factory and XPath processor for reuse
+	private void reset() {
+		content = null;
+		setMimetype(null);
+		setByteLength(UNKNOWN_LENGTH);
+	}
+
 	/**
 	 * Returns the resolver for resolving references while parsing the document.
 	 * @return	the resolver
@@ -180,15 +199,25 @@ public class DOMHandle
 			receiveContent(new ByteArrayInputStream(buffer));
 	}
 	@Override
+	public void fromBuffer(byte[] buffer, int offset, int length) {
+		if (buffer == null || length == 0)
+			content = null;
+		else
+			receiveContent(new ByteArrayInputStream(buffer, offset, length));
+	}
+	@Override
 	public byte[] toBuffer() {
 		try {
 			if (content == null)
 				return null;
 
-			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			ByteArrayOutputStream buffer = BufferPool.newOutputStream();
 			write(buffer);
 
-			return buffer.toByteArray();
+			byte[] b = buffer.toByteArray();
+			buffer.close();
+
+			return b;
 		} catch (IOException e) {
 			throw new MarkLogicIOException(e);
 		}
@@ -224,6 +253,12 @@ public class DOMHandle
 	public void setFactory(DocumentBuilderFactory factory) {
 		this.factory = factory;
 	}
+	// a factory specified for the handle takes precedence over the shared document builders
+	private DOMImplementationLS getDOMImplementation() throws ParserConfigurationException {
+		DocumentBuilder builder = (factory != null) ?
+				factory.newDocumentBuilder() : XMLFactories.getDocumentBuilder();
+		return (DOMImplementationLS) builder.getDOMImplementation();
+	}
 	protected DocumentBuilderFactory makeDocumentBuilderFactory() throws ParserConfigurationException {
 		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 		factory.setNamespaceAware(true);
@@ -384,12 +419,7 @@ public class DOMHandle
 			if (logger.isInfoEnabled())
 				logger.info("Parsing DOM document from input stream");
 
-			DocumentBuilderFactory factory = getFactory();
-			if (factory == null) {
-				throw new MarkLogicInternalException("Failed to make DOM document builder factory");
-			}
-
-			DOMImplementationLS domImpl = (DOMImplementationLS) factory.newDocumentBuilder().getDOMImplementation();
+			DOMImplementationLS domImpl = getDOMImplementation();
 
 			LSParser parser = domImpl.createLSParser(DOMImplementationLS.MODE_SYNCHRONOUS, null);
 			if (resolver != null) {
@@ -427,12 +457,7 @@ public class DOMHandle
 			if (logger.isInfoEnabled())
 				logger.info("Serializing DOM document to output stream");
 
-			DocumentBuilderFactory factory = getFactory();
-			if (factory == null) {
-				throw new MarkLogicInternalException("Failed to make DOM document builder factory");
-			}
-
-			DOMImplementationLS domImpl = (DOMImplementationLS) factory.newDocumentBuilder().getDOMImplementation();
+			DOMImplementationLS domImpl = getDOMImplementation();
 			LSOutput domOutput = domImpl.createLSOutput();
 			domOutput.setEncoding("UTF-8");
 			domOutput.setByteStream(out);
@@ -34,9 +34,6 @@ import javax.xml.XMLConstants;
 import javax.xml.datatype.Duration;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.TransformerException;
@@ -59,14 +56,17 @@ import com.marklogic.client.impl.ValueConverter;
 import com.marklogic.client.io.marker.BufferableHandle;
 import com.marklogic.client.io.marker.DocumentMetadataReadHandle;
 import com.marklogic.client.io.marker.DocumentMetadataWriteHandle;
+import com.marklogic.client.io.marker.PooledBufferableHandle;
+import com.marklogic.client.util.BufferPool;
 import com.marklogic.client.util.NameMap;
+import com.marklogic.client.util.XMLFactories;
 
 /**
  * A DocumentMetadataHandle represents the metadata for a database document.
  */
 public class DocumentMetadataHandle
 	extends BaseHandle<InputStream, OutputStreamSender>
-    implements OutputStreamSender, BufferableHandle,
+    implements OutputStreamSender, BufferableHandle, PooledBufferableHandle,
     	DocumentMetadataReadHandle, DocumentMetadataWriteHandle
 {
 	final static private Logger logger = LoggerFactory.getLogger(DOMHandle.class);
@@ -438,12 +438,22 @@ public class DocumentMetadataHandle
 			receiveContent(new ByteArrayInputStream(buffer));
 	}
 	@Override
+	public void fromBuffer(byte[] buffer, int offset, int length) {
+		if (buffer == null || length == 0)
+			receiveContent(null);
+		else
+			receiveContent(new ByteArrayInputStream(buffer, offset, length));
+	}
+	@Override
 	public byte[] toBuffer() {
 		try {
-			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			ByteArrayOutputStream buffer = BufferPool.newOutputStream();
 			write(buffer);
 
-			return buffer.toByteArray();
+			byte[] b = buffer.toByteArray();
+			buffer.close();
+
+			return b;
 		} catch (IOException e) {
 			throw new MarkLogicIOException(e);
 		}
@@ -472,10 +482,7 @@ public class DocumentMetadataHandle
 
 			Document document = null;
 			if (content != null) {
-				DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-				factory.setNamespaceAware(true);
-				factory.setValidating(false);
-				DocumentBuilder builder = factory.newDocumentBuilder();
+				DocumentBuilder builder = XMLFactories.getDocumentBuilder();
 				document = builder.parse(new InputSource(new InputStreamReader(content, "UTF-8")));
 				content.close();
 			}
@@ -487,9 +494,6 @@ public class DocumentMetadataHandle
 		} catch (IOException e) {
 			logger.error("Failed to parse metadata structure from input stream",e);
 			throw new MarkLogicInternalException(e);
-		} catch (ParserConfigurationException e) {
-			logger.error("Failed to parse metadata structure from input stream",e);
-			throw new MarkLogicInternalException(e);
 		}
 	}
 	@Override
@@ -656,12 +660,9 @@ public class DocumentMetadataHandle
 	// TODO: select the metadata sent
 	private void sendMetadataImpl(OutputStream out) {
 		try {
-			XMLOutputFactory factory = XMLOutputFactory.newInstance();
-			factory.setProperty("javax.xml.stream.isRepairingNamespaces", true);
-
 			valueSerializer = null;
 
-			XMLStreamWriter serializer = factory.createXMLStreamWriter(out, "UTF-8");
+			XMLStreamWriter serializer = XMLFactories.getOutputFactory().createXMLStreamWriter(out, "UTF-8");
 
 			serializer.writeStartDocument("utf-8", "1.0");
 
@@ -63,6 +63,28 @@ public enum Format {
     	}
     }
 	
+	/**
+	 * Returns the format for the extension of a file name, which is XML,
+	 * JSON, or TEXT for the common extensions of those formats and BINARY
+	 * otherwise.
+	 * @param extension	the extension without the period, such as "xml"
+	 * @return	the format or UNKNOWN if the extension is null or empty
+	 */
+	public static Format getFromExtension(String extension) {
+		if ( extension == null || extension.length() == 0 ) return UNKNOWN;
+		String ext = extension.toLowerCase();
+		if      ( "xml".equals(ext) || "xsd".equals(ext) || "xsl".equals(ext) ||
+				"xslt".equals(ext) || "xhtml".equals(ext) || "svg".equals(ext) ||
+				"rdf".equals(ext) ) return XML;
+		else if ( "json".equals(ext) ) return JSON;
+		else if ( "txt".equals(ext) || "text".equals(ext) || "csv".equals(ext) ||
+				"tsv".equals(ext) || "html".equals(ext) || "htm".equals(ext) ||
+				"css".equals(ext) || "js".equals(ext) || "sjs".equals(ext) ||
+				"xqy".equals(ext) || "md".equals(ext) || "nt".equals(ext) ||
+				"ttl".equals(ext) ) return TEXT;
+		else return BINARY;
+	}
+
 	public static Format getFromMimetype(String mimeType) {
 		if      ( mimeType == null ) return UNKNOWN;
 		else if ( "application/xml".equals(mimeType) ) return XML;
@@ -28,7 +28,6 @@ import java.io.UnsupportedEncodingException;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.validation.Schema;
@@ -52,6 +51,8 @@ import com.marklogic.client.io.marker.StructureReadHandle;
 import com.marklogic.client.io.marker.StructureWriteHandle;
 import com.marklogic.client.io.marker.XMLReadHandle;
 import com.marklogic.client.io.marker.XMLWriteHandle;
+import com.marklogic.client.util.BufferPool;
+import com.marklogic.client.util.XMLFactories;
 
 /**
  * <p>An Input Source Handle represents XML content as an input source for reading or writing.
@@ -232,10 +233,11 @@ public class InputSourceHandle
 			if (content == null)
 				return null;
 
-			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			ByteArrayOutputStream buffer = BufferPool.newOutputStream();
 			write(buffer);
 
 			byte[] b = buffer.toByteArray();
+			buffer.close();
 			fromBuffer(b);
 
 			return b;
@@ -372,7 +374,7 @@ public class InputSourceHandle
 	@Override
 	public void write(OutputStream out) throws IOException {
 		try {
-			TransformerFactory.newInstance().newTransformer().transform(
+			XMLFactories.getTransformer().transform(
 					new SAXSource(makeReader(true), content),
 					new StreamResult(new OutputStreamWriter(out, "UTF-8"))
 					);
@@ -45,6 +45,7 @@ import com.marklogic.client.io.marker.TriplesReadHandle;
 import com.marklogic.client.io.marker.TriplesWriteHandle;
 import com.marklogic.client.io.marker.XMLReadHandle;
 import com.marklogic.client.io.marker.XMLWriteHandle;
+import com.marklogic.client.util.BufferPool;
 
 /**
  * <p>An InputStreamHandle represents a resource as an InputStream for reading or writing.</p>
@@ -182,7 +183,7 @@ public class InputStreamHandle
 			if (content == null)
 				return null;
 
-			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			ByteArrayOutputStream buffer = BufferPool.newOutputStream();
 
 			byte[] b = new byte[BUFFER_SIZE];
 			int len = 0;
@@ -192,6 +193,7 @@ public class InputStreamHandle
 			content.close();
 
 			b = buffer.toByteArray();
+			buffer.close();
 			fromBuffer(b);
 
 			return b;
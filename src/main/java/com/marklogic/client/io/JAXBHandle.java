@@ -24,12 +24,16 @@ import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,8 +42,12 @@ import com.marklogic.client.MarkLogicIOException;
 import com.marklogic.client.io.marker.BufferableHandle;
 import com.marklogic.client.io.marker.ContentHandle;
 import com.marklogic.client.io.marker.ContentHandleFactory;
+import com.marklogic.client.io.marker.PooledBufferableHandle;
+import com.marklogic.client.io.marker.ReusableContentHandleFactory;
 import com.marklogic.client.io.marker.XMLReadHandle;
 import com.marklogic.client.io.marker.XMLWriteHandle;
+import com.marklogic.client.util.BufferPool;
+import com.marklogic.client.util.XMLFactories;
 
 /**
  * A JAXB Handle roundtrips a POJO (a Java data structure) to and from a database document.
@@ -49,19 +57,41 @@ import com.marklogic.client.io.marker.XMLWriteHandle;
  * The JAXB Handle must be initialized with a JAXB Context with which the root POJO classes
  * have been registered.
  * 
+ * Unless the handle has its own unmarshaller or marshaller from getUnmarshaller()
+ * or getMarshaller(), the handle borrows an unmarshaller or marshaller for its
+ * JAXB context from a cache kept by each thread, so reading or writing many
+ * documents doesn't create a new unmarshaller or marshaller for every document.
+ * 
  * @param	<C>	one of the classes (or the &lt;?&gt; wildcard for any of the classes) registered with the JAXB Context
  */
 public class JAXBHandle<C>
 	extends BaseHandle<InputStream, OutputStreamSender>
-    implements OutputStreamSender, BufferableHandle, ContentHandle<C>,
+    implements OutputStreamSender, BufferableHandle, PooledBufferableHandle, ContentHandle<C>,
         XMLReadHandle, XMLWriteHandle
 {
 	static final private Logger logger = LoggerFactory.getLogger(JAXBHandle.class);
 
+	// the number of JAXB contexts for which a thread caches an unmarshaller and marshaller
+	static final private int MAX_CACHED_CONTEXTS = 16;
+
+	static private class ThreadCoders {
+		Map<JAXBContext,Unmarshaller> unmarshallers = newCache();
+		Map<JAXBContext,Marshaller>   marshallers   = newCache();
+	}
+
+	static final private ThreadLocal<ThreadCoders> threadCoders =
+		new ThreadLocal<ThreadCoders>() {
+			@Override
+			protected ThreadCoders initialValue() {
+				return new ThreadCoders();
+			}
+		};
+
 	private JAXBContext  context;
 	private Unmarshaller unmarshaller;
 	private Marshaller   marshaller;
 	private C            content;
+	private boolean      staxBinding = false;
 
 	/**
 	 * Creates a factory to create a JAXBHandle instance for POJO instances
@@ -90,6 +120,25 @@ public class JAXBHandle<C>
 			return null;
 		return new JAXBHandleFactory(context, pojoClasses);
 	}
+	/**
+	 * Creates a factory to create a JAXBHandle instance for POJO instances
+	 * of the specified classes, specifying whether the handles unmarshal
+	 * directly from a StAX stream reader.
+	 * @param context	the JAXB context for marshaling the POJO classes
+	 * @param staxBinding	whether the handles unmarshal from a StAX stream reader
+	 * @param pojoClasses	the POJO classes for which this factory provides a handle
+	 * @return	the factory
+	 * @throws JAXBException if a JAXB error occurs while initializing the new factory
+	 * @see #setStAXBinding(boolean)
+	 */
+	static public ContentHandleFactory newFactory(JAXBContext context, boolean staxBinding, Class<?>... pojoClasses)
+	throws JAXBException {
+		if (context == null || pojoClasses == null || pojoClasses.length == 0)
+			return null;
+		JAXBHandleFactory factory = new JAXBHandleFactory(context, pojoClasses);
+		factory.staxBinding = staxBinding;
+		return factory;
+	}
 
 	/**
 	 * Initializes the JAXB handle with the JAXB context for the classes
@@ -177,6 +226,35 @@ public class JAXBHandle<C>
 		return this;
 	}
 
+	/**
+	 * Returns whether the handle unmarshals directly from a StAX stream
+	 * reader over the content.
+	 * @return	true if the handle unmarshals from a stream reader
+	 */
+	public boolean isStAXBinding() {
+		return staxBinding;
+	}
+	/**
+	 * Specifies whether the handle unmarshals directly from a StAX stream
+	 * reader over the content, which is created with the input factory
+	 * kept by the thread instead of a parser created by the unmarshaller.
+	 * For documents read at a high rate, the stream reader is usually faster.
+	 * @param staxBinding	true to unmarshal from a stream reader
+	 */
+	public void setStAXBinding(boolean staxBinding) {
+		this.staxBinding = staxBinding;
+	}
+	/**
+	 * Specifies whether the handle unmarshals directly from a StAX stream
+	 * reader and returns the handle as a fluent convenience.
+	 * @param staxBinding	true to unmarshal from a stream reader
+	 * @return	this handle
+	 */
+	public JAXBHandle<C> withStAXBinding(boolean staxBinding) {
+		setStAXBinding(staxBinding);
+		return this;
+	}
+
 	/**
      * fromBuffer() unmarshals a JAXB POJO from a byte array
      * buffer.  The buffer must store the marshaled XML for the 
@@ -190,15 +268,25 @@ public class JAXBHandle<C>
 			receiveContent(new ByteArrayInputStream(buffer));
 	}
 	@Override
+	public void fromBuffer(byte[] buffer, int offset, int length) {
+		if (buffer == null || length == 0)
+			content = null;
+		else
+			receiveContent(new ByteArrayInputStream(buffer, offset, length));
+	}
+	@Override
 	public byte[] toBuffer() {
 		try {
 			if (content == null)
 				return null;
 
-			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			ByteArrayOutputStream buffer = BufferPool.newOutputStream();
 			write(buffer);
 
-			return buffer.toByteArray();
+			byte[] b = buffer.toByteArray();
+			buffer.close();
+
+			return b;
 		} catch (IOException e) {
 			throw new MarkLogicIOException(e);
 		}
@@ -259,33 +347,86 @@ public class JAXBHandle<C>
 	public Marshaller getMarshaller(boolean reuse)
 	throws JAXBException {
 		if (!reuse || this.marshaller == null) {
-			Marshaller marshaller = context.createMarshaller();
-			marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-			marshaller.setProperty(Marshaller.JAXB_ENCODING,         "UTF-8");
-			this.marshaller = marshaller;
+			this.marshaller = newMarshaller(context);
 		}
 		return this.marshaller;
 	}
 
+	static private Marshaller newMarshaller(JAXBContext context)
+	throws JAXBException {
+		Marshaller marshaller = context.createMarshaller();
+		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+		marshaller.setProperty(Marshaller.JAXB_ENCODING,         "UTF-8");
+		return marshaller;
+	}
+	static private <V> Map<JAXBContext,V> newCache() {
+		return new LinkedHashMap<JAXBContext,V>(MAX_CACHED_CONTEXTS + 1, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<JAXBContext,V> eldest) {
+				return size() > MAX_CACHED_CONTEXTS;
+			}
+		};
+	}
+	// removed from the cache while in use so a nested call on the thread gets its own
+	private Unmarshaller borrowUnmarshaller()
+	throws JAXBException {
+		if (unmarshaller != null)
+			return unmarshaller;
+		Unmarshaller cached = threadCoders.get().unmarshallers.remove(context);
+		return (cached != null) ? cached : context.createUnmarshaller();
+	}
+	private void returnUnmarshaller(Unmarshaller borrowed) {
+		if (borrowed != null && borrowed != unmarshaller)
+			threadCoders.get().unmarshallers.put(context, borrowed);
+	}
+	private Marshaller borrowMarshaller()
+	throws JAXBException {
+		if (marshaller != null)
+			return marshaller;
+		Marshaller cached = threadCoders.get().marshallers.remove(context);
+		return (cached != null) ? cached : newMarshaller(context);
+	}
+	private void returnMarshaller(Marshaller borrowed) {
+		if (borrowed != null && borrowed != marshaller)
+			threadCoders.get().marshallers.put(context, borrowed);
+	}
+
 	@Override
 	protected Class<InputStream> receiveAs() {
     	return InputStream.class;
     }
     @Override
 	protected void receiveContent(InputStream content) {
+		Unmarshaller borrowed = null;
 		try {
+			borrowed = borrowUnmarshaller();
+			Object unmarshalled = null;
+			if (staxBinding) {
+				XMLStreamReader reader =
+					XMLFactories.getInputFactory().createXMLStreamReader(content, "UTF-8");
+				try {
+					unmarshalled = borrowed.unmarshal(reader);
+				} finally {
+					reader.close();
+				}
+			} else {
+				unmarshalled = borrowed.unmarshal(new InputStreamReader(content, "UTF-8"));
+			}
 			@SuppressWarnings("unchecked")
-			C unmarshalled = (C) getUnmarshaller().unmarshal(
-					new InputStreamReader(content, "UTF-8")
-					);
-			this.content = unmarshalled;
+			C typed = (C) unmarshalled;
+			this.content = typed;
 		} catch (JAXBException e) {
 			logger.error("Failed to unmarshall object read from database document",e);
 			throw new MarkLogicIOException(e);
+		} catch (XMLStreamException e) {
+			logger.error("Failed to unmarshall object read from database document",e);
+			throw new MarkLogicIOException(e);
 		} catch (UnsupportedEncodingException e) {
 			logger.error("Failed to unmarshall object read from database document",e);
 			throw new MarkLogicIOException(e);
 		}  finally {
+			returnUnmarshaller(borrowed);
 			try {
 				content.close();
 			} catch (IOException e) {
@@ -304,18 +445,23 @@ public class JAXBHandle<C>
 
 	@Override
 	public void write(OutputStream out) throws IOException {
+		Marshaller borrowed = null;
 		try {
-			getMarshaller().marshal(content, out);
+			borrowed = borrowMarshaller();
+			borrowed.marshal(content, out);
 		} catch (JAXBException e) {
 			logger.error("Failed to marshall object for writing to database document",e);
 			throw new MarkLogicIOException(e);
+		} finally {
+			returnMarshaller(borrowed);
 		}
 	}
 
-	static private class JAXBHandleFactory implements ContentHandleFactory {
+	static private class JAXBHandleFactory implements ReusableContentHandleFactory {
 		private Class<?>[]    pojoClasses;
 		private JAXBContext   factoryContext;
 		private Set<Class<?>> classSet;
+		private boolean       staxBinding = false;
 
 		private JAXBHandleFactory(Class<?>... pojoClasses)
 		throws JAXBException {
@@ -339,9 +485,22 @@ public class JAXBHandle<C>
 		}
 		@Override
 		public <C> ContentHandle<C> newHandle(Class<C> type) {
-			ContentHandle<C> handle = isHandled(type) ?
-					(ContentHandle<C>) new JAXBHandle<C>(factoryContext) : null;
+			if (!isHandled(type))
+				return null;
+			JAXBHandle<C> handle = new JAXBHandle<C>(factoryContext);
+			handle.setStAXBinding(staxBinding);
 			return handle;
 		}
+		@Override
+		public boolean resetHandle(ContentHandle<?> handle) {
+			if (!(handle instanceof JAXBHandle))
+				return false;
+			JAXBHandle<?> jaxbHandle = (JAXBHandle<?>) handle;
+			// keeps the unmarshaller and marshaller for reuse
+			jaxbHandle.content = null;
+			jaxbHandle.setMimetype(null);
+			jaxbHandle.setByteLength(UNKNOWN_LENGTH);
+			return true;
+		}
 	}
 }
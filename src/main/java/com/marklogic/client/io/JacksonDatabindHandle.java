@@ -33,6 +33,7 @@ import com.marklogic.client.io.marker.ContentHandle;
 import com.marklogic.client.io.marker.ContentHandleFactory;
 import com.marklogic.client.io.marker.JSONReadHandle;
 import com.marklogic.client.io.marker.JSONWriteHandle;
+import com.marklogic.client.io.marker.ReusableContentHandleFactory;
 import com.marklogic.client.io.marker.StructureReadHandle;
 import com.marklogic.client.io.marker.StructureWriteHandle;
 import com.marklogic.client.io.marker.TextReadHandle;
@@ -194,7 +195,7 @@ public class JacksonDatabindHandle<T>
         getMapper().writeValue(new OutputStreamWriter(out, "UTF-8"), get());
     }
 
-    static private class JacksonDatabindHandleFactory implements ContentHandleFactory {
+    static private class JacksonDatabindHandleFactory implements ReusableContentHandleFactory {
         private Class<?>[] contentClasses;
         private ObjectMapper mapper = null;
         private Set<Class<?>> classSet;
@@ -225,5 +226,16 @@ public class JacksonDatabindHandle<T>
             if ( mapper != null ) handle.setMapper(mapper);
             return handle;
         }
+        @Override
+        public boolean resetHandle(ContentHandle<?> handle) {
+            if ( ! (handle instanceof JacksonDatabindHandle) ) return false;
+            JacksonDatabindHandle<?> databindHandle = (JacksonDatabindHandle<?>) handle;
+            // keeps the object mapper for reuse
+            databindHandle.content = null;
+            databindHandle.setFormat(Format.JSON);
+            databindHandle.setMimetype(null);
+            databindHandle.setByteLength(UNKNOWN_LENGTH);
+            return true;
+        }
     }
 }
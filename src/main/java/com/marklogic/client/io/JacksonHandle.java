@@ -30,6 +30,7 @@ import com.marklogic.client.io.marker.ContentHandle;
 import com.marklogic.client.io.marker.ContentHandleFactory;
 import com.marklogic.client.io.marker.JSONReadHandle;
 import com.marklogic.client.io.marker.JSONWriteHandle;
+import com.marklogic.client.io.marker.ReusableContentHandleFactory;
 import com.marklogic.client.io.marker.SPARQLResultsReadHandle;
 import com.marklogic.client.io.marker.StructureReadHandle;
 import com.marklogic.client.io.marker.StructureWriteHandle;
@@ -61,7 +62,7 @@ public class JacksonHandle
 	 * @return	the factory
 	 */
 	static public ContentHandleFactory newFactory() {
-		return new ContentHandleFactory() {
+		return new ReusableContentHandleFactory() {
 			@Override
 			public Class<?>[] getHandledClasses() {
 				return new Class<?>[]{ JsonNode.class };
@@ -77,6 +78,18 @@ public class JacksonHandle
 						(ContentHandle<C>) new JacksonHandle() : null;
 				return handle;
 			}
+			@Override
+			public boolean resetHandle(ContentHandle<?> handle) {
+				if (!(handle instanceof JacksonHandle))
+					return false;
+				JacksonHandle jacksonHandle = (JacksonHandle) handle;
+				// keeps the object mapper for reuse
+				jacksonHandle.set(null);
+				jacksonHandle.setFormat(Format.JSON);
+				jacksonHandle.setMimetype(null);
+				jacksonHandle.setByteLength(UNKNOWN_LENGTH);
+				return true;
+			}
 		};
 	}
 
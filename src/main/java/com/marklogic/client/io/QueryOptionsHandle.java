@@ -39,7 +39,6 @@ import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
 
@@ -78,6 +77,8 @@ import com.marklogic.client.impl.QueryOptionsTransformInjectNS;
 import com.marklogic.client.io.marker.BufferableHandle;
 import com.marklogic.client.io.marker.QueryOptionsReadHandle;
 import com.marklogic.client.io.marker.QueryOptionsWriteHandle;
+import com.marklogic.client.util.BufferPool;
+import com.marklogic.client.util.XMLFactories;
 
 /**
  * @deprecated Use a JSON or XML 
@@ -108,7 +109,6 @@ public final class QueryOptionsHandle
 			.getLogger(QueryOptionsHandle.class);
 
     private static SAXParserFactory pfactory = SAXParserFactory.newInstance();
-    private static TransformerFactory tfactory = TransformerFactory.newInstance();
 
     static {
         pfactory.setValidating(false);
@@ -927,7 +927,7 @@ public final class QueryOptionsHandle
 
             itransform.setParent(reader);
 
-            Transformer transformer = tfactory.newTransformer();
+            Transformer transformer = XMLFactories.getTransformer();
             transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
             transformer.setOutputProperty(OutputKeys.INDENT, "no");
 
@@ -975,10 +975,13 @@ public final class QueryOptionsHandle
 	@Override
 	public byte[] toBuffer() {
 		try {
-			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			ByteArrayOutputStream buffer = BufferPool.newOutputStream();
 			write(buffer);
 
-			return buffer.toByteArray();
+			byte[] b = buffer.toByteArray();
+			buffer.close();
+
+			return b;
 		} catch (IOException e) {
 			throw new MarkLogicIOException(e);
 		}
@@ -1006,7 +1009,7 @@ public final class QueryOptionsHandle
             SAXParser parser = pfactory.newSAXParser();
             XMLReader reader = parser.getXMLReader();
 
-            Transformer transformer = tfactory.newTransformer();
+            Transformer transformer = XMLFactories.getTransformer();
             transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
             transformer.setOutputProperty(OutputKeys.INDENT, "no");
 
@@ -48,6 +48,7 @@ import com.marklogic.client.io.marker.TriplesReadHandle;
 import com.marklogic.client.io.marker.TriplesWriteHandle;
 import com.marklogic.client.io.marker.XMLReadHandle;
 import com.marklogic.client.io.marker.XMLWriteHandle;
+import com.marklogic.client.util.BufferPool;
 
 /**
  * <p>A Reader Handle represents a character content as a reader
@@ -178,10 +179,11 @@ public class ReaderHandle
 			if (content == null)
 				return null;
 
-			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			ByteArrayOutputStream buffer = BufferPool.newOutputStream();
 			write(buffer);
 
 			byte[] b = buffer.toByteArray();
+			buffer.close();
 			fromBuffer(b);
 
 			return b;
@@ -30,7 +30,6 @@ import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
-import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.events.Attribute;
@@ -66,6 +65,7 @@ import com.marklogic.client.query.MatchSnippet;
 import com.marklogic.client.query.QueryDefinition;
 import com.marklogic.client.query.SearchMetrics;
 import com.marklogic.client.query.SearchResults;
+import com.marklogic.client.util.XMLFactories;
 
 /**
  * A SearchHandle represents a set of search results returned by the server.
@@ -158,12 +158,7 @@ public class SearchHandle
 	@Override
 	protected void receiveContent(InputStream content) {
 		try {
-	    	XMLInputFactory factory = XMLInputFactory.newFactory();
-			factory.setProperty("javax.xml.stream.isNamespaceAware", true);
-			factory.setProperty("javax.xml.stream.isValidating",     false);
-			factory.setProperty("javax.xml.stream.isCoalescing",     true);
-
-			XMLEventReader reader = factory.createXMLEventReader(content, "UTF-8");
+			XMLEventReader reader = XMLFactories.getCoalescingInputFactory().createXMLEventReader(content, "UTF-8");
 			SearchResponseImpl response = new SearchResponseImpl();
 			response.parse(reader);
 			reader.close();
@@ -434,29 +429,6 @@ public class SearchHandle
 
     	return eventList.subList(eventRange.getFirst(), eventRange.getNext());
     }
-	private Document[] getEventDocuments(List<XMLEvent> eventList, List<EventRange> rangeList) {
-    	if (rangeList == null || rangeList.size() < 1) {
-    		return new Document[0];
-    	}
-
-    	ArrayList<Document> documents = new ArrayList<Document>();
-
-    	DOMHandle handle = new DOMHandle();
-    	for (int i=0; i < rangeList.size(); i++) {
-    		EventRange eventRange = rangeList.get(i);
-    		handle = Utilities.exportToHandle(
-    				getSlice(eventList, eventRange), handle
-            		);
-    		Document document = (handle == null) ? null : handle.get();
-    		if (document != null) {
-    			documents.add(document);
-    		}
-    	}
-
-    	int size = documents.size();
-    	return (size == 0) ? null : documents.toArray(new Document[size]);
-    }
-
 	static private class SearchMetricsImpl implements SearchMetrics {
         long qrTime = -1;
         long frTime = -1;
@@ -538,6 +510,13 @@ public class SearchHandle
     	private ArrayList<String>     similarUris;
         private String                extractSelected;
 
+        // decoded on first access and then reused
+        private byte[][]              snippetContent;
+        private Document[]            snippetDocuments;
+        private byte[]                metadataContent;
+        private Document              metadataDocument;
+        private ExtractedResultImpl   extracted;
+
         public MatchDocumentSummaryImpl(String uri, int score, double confidence, double fitness, String path, String mimeType, Format format, String extractSelected) {
             this.uri = uri;
             this.score = score;
@@ -576,9 +555,13 @@ public class SearchHandle
 
         @Override
         public ExtractedResult getExtracted() {
-            ExtractedResultImpl result = new ExtractedResultImpl();
-            populateExtractedResult( result, events, extractedEvents );
-            return result;
+            if (extracted == null) {
+                ExtractedResultImpl result = new ExtractedResultImpl(getHandleRegistry());
+                populateExtractedResult( result, events, extractedEvents );
+                extracted = result;
+            }
+            // each caller gets its own iteration over the same items
+            return extracted.copy();
         }
 
         private void populateExtractedResult(ExtractedResultImpl result, List<XMLEvent> events, 
@@ -672,6 +655,15 @@ public class SearchHandle
         @Override
         public <T> T getFirstSnippetAs(Class<T> as) {
 			ContentHandle<T> handle = getHandleRegistry().makeHandle(as);
+			if (isTextSnippet()) {
+				// binds the text of a raw JSON or text snippet directly such as to a JsonNode or POJO
+				String text = getFirstSnippetText();
+				if (text == null) {
+					return null;
+				}
+				HandleAccessor.receiveContent(handle, text);
+				return handle.get();
+			}
 			if (!XMLReadHandle.class.isAssignableFrom(handle.getClass())) {
 				throw new IllegalArgumentException("cannot read snippet from XML with "+handle.getClass());
 			}
@@ -688,9 +680,7 @@ public class SearchHandle
         		return null;
         	}
 
-        	return Utilities.exportToHandle(
-            		getSlice(events, snippetEvents.get(0)), handle
-            		);
+        	return Utilities.exportBytesToHandle(getSnippetContent(0), handle);
         }
         @Override
         public String getFirstSnippetText() {
@@ -705,16 +695,68 @@ public class SearchHandle
 
         @Override
         public Document[] getSnippets() {
-        	return getEventDocuments(events, snippetEvents);
+        	if (snippetEvents == null || snippetEvents.size() < 1) {
+        		return new Document[0];
+        	}
+
+        	if (snippetDocuments == null) {
+        		ArrayList<Document> documents = new ArrayList<Document>(snippetEvents.size());
+        		for (int i=0; i < snippetEvents.size(); i++) {
+        			Document document = Utilities.exportBytesToHandle(
+        					getSnippetContent(i), new DOMHandle()
+        					).get();
+        			if (document != null) {
+        				documents.add(document);
+        			}
+        		}
+        		snippetDocuments = documents.toArray(new Document[documents.size()]);
+        	}
+
+        	return (snippetDocuments.length == 0) ? null : snippetDocuments.clone();
         }
         @Override
-        public <T extends XMLReadHandle> Iterator<T> getSnippetIterator(T handle) {
+        public <T extends XMLReadHandle> Iterator<T> getSnippetIterator(final T handle) {
         	if (snippetEvents == null || snippetEvents.size() < 1) {
         		List<T> list = Collections.emptyList();
         		return list.iterator();
         	}
 
-            return new EventIterator<T>(events, snippetEvents, handle);
+            return new Iterator<T>() {
+            	private int nextSnippet = 0;
+				@Override
+				public boolean hasNext() {
+					return nextSnippet < snippetEvents.size();
+				}
+				@Override
+				public T next() {
+					if (!hasNext()) {
+						return null;
+					}
+					return Utilities.exportBytesToHandle(getSnippetContent(nextSnippet++), handle);
+				}
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException("Remove not supported");
+				}
+            };
+        }
+        // a raw snippet of a JSON or text document has no elements
+        private boolean isTextSnippet() {
+        	if (snippetEvents == null || snippetEvents.size() < 1) {
+        		return false;
+        	}
+        	EventRange range = snippetEvents.get(0);
+        	return range.getNext() - range.getFirst() == 1 && events.get(range.getFirst()).isCharacters();
+        }
+        // serializes a snippet once for all of the handles that read it
+        private byte[] getSnippetContent(int i) {
+        	if (snippetContent == null) {
+        		snippetContent = new byte[snippetEvents.size()][];
+        	}
+        	if (snippetContent[i] == null) {
+        		snippetContent[i] = Utilities.eventsToBytes(getSlice(events, snippetEvents.get(i)));
+        	}
+        	return snippetContent[i];
         }
 
         @Override
@@ -728,8 +770,11 @@ public class SearchHandle
 
         @Override
         public Document getMetadata() {
-        	DOMHandle handle = getMetadata(new DOMHandle());
-        	return (handle == null) ? null : handle.get();
+        	if (metadataDocument == null) {
+        		DOMHandle handle = getMetadata(new DOMHandle());
+        		metadataDocument = (handle == null) ? null : handle.get();
+        	}
+        	return metadataDocument;
         }
         @Override
         public <T> T getMetadataAs(Class<T> as) {
@@ -745,9 +790,10 @@ public class SearchHandle
         }
         @Override
         public <T extends XMLReadHandle> T getMetadata(T handle) {
-            return Utilities.exportToHandle(
-            		getSlice(events, metadataEvents), handle
-            		);
+        	if (metadataContent == null) {
+        		metadataContent = Utilities.eventsToBytes(getSlice(events, metadataEvents));
+        	}
+            return Utilities.exportBytesToHandle(metadataContent, handle);
         }
 
         @Override
@@ -1628,9 +1674,11 @@ public class SearchHandle
 
     static private class ExtractedItemImpl implements ExtractedItem {
         String item;
+        HandleFactoryRegistry registry;
 
-        public ExtractedItemImpl(String item) {
+        public ExtractedItemImpl(String item, HandleFactoryRegistry registry) {
             this.item = item;
+            this.registry = registry;
         }
 
         public <T extends StructureReadHandle> T get(T handle) {
@@ -1638,7 +1686,9 @@ public class SearchHandle
             return handle;
         }
         public <T> T getAs(Class<T> as) {
-            ContentHandle<T> readHandle = DatabaseClientFactory.getHandleRegistry().makeHandle(as);
+            // prefers the handles registered for the database client such as POJO bindings
+            ContentHandle<T> readHandle = (registry != null) ?
+                registry.makeHandle(as) : DatabaseClientFactory.getHandleRegistry().makeHandle(as);
             if ( readHandle == null ) return null;
             HandleAccessor.receiveContent(readHandle, item);
             return readHandle.get();
@@ -1646,12 +1696,29 @@ public class SearchHandle
     }
 
     static private class ExtractedResultImpl implements ExtractedResult {
+        HandleFactoryRegistry registry;
         boolean isEmpty = false;
         String kind;
         private List<String> itemStrings;
         private List<ExtractedItem> items;
         private Iterator<ExtractedItem> internalIterator;
 
+        ExtractedResultImpl(HandleFactoryRegistry registry) {
+            this.registry = registry;
+        }
+
+        ExtractedResultImpl copy() {
+            ExtractedResultImpl result = new ExtractedResultImpl(registry);
+            result.isEmpty = isEmpty;
+            result.kind    = kind;
+            if ( items != null ) {
+                result.itemStrings      = itemStrings;
+                result.items            = items;
+                result.internalIterator = items.iterator();
+            }
+            return result;
+        }
+
         public boolean isEmpty() {
             return isEmpty;
         }
@@ -1672,7 +1739,7 @@ public class SearchHandle
             this.itemStrings = itemStrings;
             items = new ArrayList<ExtractedItem>(itemStrings.size());
             for ( String itemString : itemStrings ) {
-                items.add( new ExtractedItemImpl(itemString) );
+                items.add( new ExtractedItemImpl(itemString, registry) );
             }
             internalIterator = items.iterator();
         }
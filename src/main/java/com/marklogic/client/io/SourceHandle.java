@@ -29,7 +29,6 @@ import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
@@ -44,6 +43,8 @@ import com.marklogic.client.io.marker.StructureReadHandle;
 import com.marklogic.client.io.marker.StructureWriteHandle;
 import com.marklogic.client.io.marker.XMLReadHandle;
 import com.marklogic.client.io.marker.XMLWriteHandle;
+import com.marklogic.client.util.BufferPool;
+import com.marklogic.client.util.XMLFactories;
 
 /**
  * <p>A Source Handle represents XML content as a transform source for reading
@@ -178,7 +179,7 @@ public class SourceHandle
 			} else {
 				if (logger.isWarnEnabled())
 					logger.warn("No transformer, so using identity transform");
-				transformer = TransformerFactory.newInstance().newTransformer();
+				transformer = XMLFactories.getTransformer();
 			}
 
 			transformer.transform(content, result);
@@ -219,10 +220,11 @@ public class SourceHandle
 			if (content == null)
 				return null;
 
-			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			ByteArrayOutputStream buffer = BufferPool.newOutputStream();
 			write(buffer);
 
 			byte[] b = buffer.toByteArray();
+			buffer.close();
 			fromBuffer(b);
 
 			return b;
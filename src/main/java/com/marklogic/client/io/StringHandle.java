@@ -17,15 +17,16 @@ package com.marklogic.client.io;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.UnsupportedEncodingException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 
-import com.marklogic.client.MarkLogicIOException;
 import com.marklogic.client.io.marker.BufferableHandle;
 import com.marklogic.client.io.marker.ContentHandle;
 import com.marklogic.client.io.marker.ContentHandleFactory;
 import com.marklogic.client.io.marker.JSONReadHandle;
 import com.marklogic.client.io.marker.JSONWriteHandle;
+import com.marklogic.client.io.marker.PooledBufferableHandle;
 import com.marklogic.client.io.marker.QuadsWriteHandle;
 import com.marklogic.client.io.marker.SPARQLResultsReadHandle;
 import com.marklogic.client.io.marker.StructureReadHandle;
@@ -42,7 +43,7 @@ import com.marklogic.client.io.marker.XMLWriteHandle;
  */
 public class StringHandle
 	extends BaseHandle<byte[], OutputStreamSender>
-	implements OutputStreamSender, BufferableHandle, ContentHandle<String>,
+	implements OutputStreamSender, BufferableHandle, PooledBufferableHandle, ContentHandle<String>,
 		JSONReadHandle, JSONWriteHandle, 
 		TextReadHandle, TextWriteHandle,
 		XMLReadHandle, XMLWriteHandle,
@@ -51,6 +52,8 @@ public class StringHandle
 		TriplesReadHandle, TriplesWriteHandle,
 		SPARQLResultsReadHandle
 {
+	final static private Charset UTF8 = Charset.forName("UTF-8");
+
 	private String content;
 
 	/**
@@ -146,14 +149,21 @@ public class StringHandle
 		if (buffer == null || buffer.length == 0)
 			content = null;
 		else
-			content = new String(buffer, Charset.forName("UTF-8"));
+			content = new String(buffer, UTF8);
+	}
+	@Override
+	public void fromBuffer(byte[] buffer, int offset, int length) {
+		if (buffer == null || length == 0)
+			content = null;
+		else
+			content = new String(buffer, offset, length, UTF8);
 	}
 	@Override
 	public byte[] toBuffer() {
 		if (content == null)
 			return null;
 
-		return content.getBytes(Charset.forName("UTF-8"));
+		return content.getBytes(UTF8);
 	}
 	/**
 	 * Returns the content.
@@ -169,16 +179,12 @@ public class StringHandle
 	}
 	@Override
 	protected void receiveContent(byte[] content) {
-		try {
-			if (content == null) {
-				this.content = null;
-				return;
-			}
-
-			this.content = new String(content, "UTF-8");
-		} catch (UnsupportedEncodingException e) {
-			throw new MarkLogicIOException(e);
+		if (content == null) {
+			this.content = null;
+			return;
 		}
+
+		this.content = new String(content, UTF8);
 	}
 	@Override
 	protected OutputStreamSender sendContent() {
@@ -190,6 +196,9 @@ public class StringHandle
 	}
 	@Override
 	public void write(OutputStream out) throws IOException {
-		out.write(toBuffer());
+		// encodes in chunks rather than copying the whole string into a byte array
+		Writer writer = new OutputStreamWriter(out, UTF8);
+		writer.write(content);
+		writer.flush();
 	}
 }
@@ -43,6 +43,7 @@ import com.marklogic.client.io.marker.StructureReadHandle;
 import com.marklogic.client.io.marker.StructureWriteHandle;
 import com.marklogic.client.io.marker.XMLReadHandle;
 import com.marklogic.client.io.marker.XMLWriteHandle;
+import com.marklogic.client.util.BufferPool;
 
 /**
  * <p>An XML Event Reader Handle represents XML content as an XML event reader
@@ -186,10 +187,11 @@ public class XMLEventReaderHandle
 			if (content == null)
 				return null;
 
-			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			ByteArrayOutputStream buffer = BufferPool.newOutputStream();
 			write(buffer);
 
 			byte[] b = buffer.toByteArray();
+			buffer.close();
 			fromBuffer(b);
 
 			return b;
@@ -44,6 +44,7 @@ import com.marklogic.client.io.marker.StructureReadHandle;
 import com.marklogic.client.io.marker.StructureWriteHandle;
 import com.marklogic.client.io.marker.XMLReadHandle;
 import com.marklogic.client.io.marker.XMLWriteHandle;
+import com.marklogic.client.util.BufferPool;
 
 /**
  * <p>An XML Stream Reader Handle represents XML content as an XML stream reader
@@ -187,10 +188,11 @@ public class XMLStreamReaderHandle
 			if (content == null)
 				return null;
 
-			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			ByteArrayOutputStream buffer = BufferPool.newOutputStream();
 			write(buffer);
 
 			byte[] b = buffer.toByteArray();
+			buffer.close();
 			fromBuffer(b);
 
 			return b;
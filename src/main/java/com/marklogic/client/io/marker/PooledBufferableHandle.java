@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.io.marker;
+
+/**
+ * A Pooled Bufferable Handle can read content from a region of a byte[]
+ * buffer.  The handle copies or parses the region before returning and
+ * does not keep a reference to the buffer, so the caller can reuse the
+ * buffer for the next document, for instance, a buffer acquired from
+ * the BufferPool.
+ * 
+ * For JSON, text, or XML content, the byte array must be encoded in UTF-8. 
+ */
+public interface PooledBufferableHandle extends BufferableHandle {
+	/**
+	 * Sets the content of the handle by copying or parsing a region
+	 * of a byte array buffer encoded in UTF-8.
+	 * @param buffer	the byte array
+	 * @param offset	the position of the first byte of the content
+	 * @param length	the number of bytes of content
+	 */
+	public void fromBuffer(byte[] buffer, int offset, int length);
+}
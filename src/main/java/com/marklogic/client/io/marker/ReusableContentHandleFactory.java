@@ -0,0 +1,34 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.io.marker;
+
+/**
+ * A Reusable Content Handle Factory can reset the handles that it creates
+ * so a registry with handle pooling turned on can reuse a handle for
+ * the next read on the same thread instead of creating a new handle.
+ * A reused handle keeps the parser factories, object mappers, or
+ * unmarshallers that it created for earlier reads.
+ * @see com.marklogic.client.DatabaseClientFactory.HandleFactoryRegistry#setHandlePooling(boolean)
+ */
+public interface ReusableContentHandleFactory extends ContentHandleFactory {
+	/**
+	 * Clears the content of a handle created by the factory and restores
+	 * the format, mimetype, and length of a new handle.
+	 * @param handle	the handle to reset
+	 * @return	whether the handle can be reused
+	 */
+	public boolean resetHandle(ContentHandle<?> handle);
+}
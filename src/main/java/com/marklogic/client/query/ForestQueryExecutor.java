@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.query;
+
+import com.marklogic.client.bulk.ExportIterator;
+import com.marklogic.client.document.DocumentManager.Metadata;
+import com.marklogic.client.document.DocumentRecord;
+
+/**
+ * A Forest Query Executor runs the same query against each forest of the
+ * database at the same time, so a scan of the whole database pages through
+ * many short result lists in parallel instead of paging deep into one
+ * result list.  The throughput of a scan grows with the number of forests.
+ *
+ * Each request restricts the query to one forest or a group of forests
+ * with the forest option of a combined query, so the query can be a string,
+ * structured, or combined query with or without stored options.  Query
+ * by example and key-value queries cannot be restricted to forests.
+ *
+ * The items of different forests are interleaved in the order that the
+ * forests respond.  Within a forest, the items keep the order of the search.
+ * @see QueryManager#newForestQueryExecutor()
+ */
+public interface ForestQueryExecutor {
+	/**
+	 * The default number of forest requests at the same time.
+	 */
+	final static public int DEFAULT_THREAD_COUNT      = 4;
+	/**
+	 * The default number of documents requested from a forest at one time.
+	 */
+	final static public int DEFAULT_PAGE_LENGTH       = 1000;
+	/**
+	 * The default number of forests searched by each request.
+	 */
+	final static public int DEFAULT_FORESTS_PER_QUERY = 1;
+
+	/**
+	 * Returns the ids of the forests searched by the executor.  Unless the
+	 * forest ids were specified, the executor asks the server for the forests
+	 * of the database on the first call, which requires the privilege to
+	 * evaluate code on the server.
+	 * @return	the forest ids
+	 */
+	public String[] getForestIds();
+	/**
+	 * Specifies the ids of the forests to search, for instance, to scan
+	 * only some forests or to avoid looking up the forests on the server.
+	 * @param forestIds	the forest ids or none to look up the forests of the database
+	 */
+	public void setForestIds(String... forestIds);
+
+	/**
+	 * Returns the number of forests searched by each request.
+	 * @return	the number of forests
+	 */
+	public int getForestsPerQuery();
+	/**
+	 * Specifies the number of forests searched by each request.  Searching
+	 * a group of forests in one request cuts the number of requests for
+	 * a database with many small forests.
+	 * @param forestsPerQuery	the number of forests
+	 */
+	public void setForestsPerQuery(int forestsPerQuery);
+
+	/**
+	 * Returns the number of forest requests at the same time.
+	 * @return	the thread count
+	 */
+	public int getThreadCount();
+	/**
+	 * Specifies the number of forest requests at the same time.  Each
+	 * thread uses one connection from the pool of the database client.
+	 * @param threadCount	the thread count
+	 */
+	public void setThreadCount(int threadCount);
+
+	/**
+	 * Returns the number of documents requested from a forest at one time.
+	 * @return	the page length
+	 */
+	public int getPageLength();
+	/**
+	 * Specifies the number of documents requested from a forest at one time.
+	 * @param pageLength	the page length
+	 */
+	public void setPageLength(int pageLength);
+
+	/**
+	 * Estimates the number of documents that match a query by summing
+	 * the estimates of the forests.
+	 * @param querydef	the query for the documents
+	 * @return	the estimated number of documents
+	 */
+	public long count(QueryDefinition querydef);
+
+	/**
+	 * Exports the uris of the documents that match a query from all of
+	 * the forests at the same time.  Only the uris are read from the
+	 * search results.
+	 * @param querydef	the query for the documents
+	 * @return	an iterator over the uris
+	 */
+	public ExportIterator<String> exportUris(QueryDefinition querydef);
+	/**
+	 * Exports the documents that match a query from all of the forests
+	 * at the same time.  Read the content of a record before advancing
+	 * past the last record of its page because the page is released then.
+	 * @param querydef	the query for the documents
+	 * @param categories	the metadata categories to read with the content, if any
+	 * @return	an iterator over the document records
+	 */
+	public ExportIterator<DocumentRecord> exportDocuments(QueryDefinition querydef, Metadata... categories);
+}
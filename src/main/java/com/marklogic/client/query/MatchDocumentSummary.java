@@ -77,6 +77,9 @@ public interface MatchDocumentSummary {
      * DOM documents, getMatchLocations() will return null and getSnippets() will
      * return the documents.
      *
+     * The snippet documents are built on the first call and shared
+     * by later calls.
+     *
      * @return The array of snippet documents.
      */
     public Document[] getSnippets();
@@ -101,6 +104,9 @@ public interface MatchDocumentSummary {
      * 
      * <a href="../../../../overview-summary.html#ShortcutMethods">Learn more about shortcut methods</a>
      * 
+     * For a raw snippet of a JSON document, the IO class can also be
+     * a class registered for JSON such as JsonNode or a POJO class.
+     * 
      * @param as	the IO class for reading the first snippet for the result
      * @param <T> the type of object that will be returned by the handle registered for it
      * @return	an object of the IO class with the content of the document in the first snippet
@@ -126,6 +132,8 @@ public interface MatchDocumentSummary {
 
 	/**
      * Returns the metadata associated with this document.
+     * The metadata document is built on the first call and shared
+     * by later calls.
      *
      * @return the metadata
      */
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.query;
+
+/**
+ * A Partition Aggregator sends the same facet, values, or tuples request
+ * for many partitions of the database concurrently, such as one query
+ * for each collection or time bucket, and combines the results of the
+ * partitions on the client.
+ *
+ * The results of each partition are merged into counters as the partition
+ * completes, so only the combined frequencies are kept in memory.
+ * Frequencies are summed across partitions, which counts a document
+ * once for each partition that matches it.
+ * @see QueryManager#newPartitionAggregator()
+ */
+public interface PartitionAggregator {
+	/**
+	 * The default number of partitions requested at the same time.
+	 */
+	final static public int DEFAULT_THREAD_COUNT = 4;
+
+	/**
+	 * CombinedValues provides the frequencies and aggregates of a values
+	 * or tuples request combined across the partitions.
+	 */
+	public interface CombinedValues {
+		/**
+		 * Returns the name of the values or tuples lexicon.
+		 * @return	the name
+		 */
+		public String getName();
+		/**
+		 * Returns the number of partitions that were combined.
+		 * @return	the partition count
+		 */
+		public int getPartitionCount();
+		/**
+		 * Returns the combined frequencies ordered by descending count.
+		 * @return	the frequencies
+		 */
+		public CombinedFrequency[] getFrequencies();
+		/**
+		 * Returns the names of the combined aggregates.  Only the count,
+		 * sum, min, and max aggregates can be combined across partitions;
+		 * other aggregates are not included.
+		 * @return	the aggregate names
+		 */
+		public String[] getAggregateNames();
+		/**
+		 * Returns the combined value of an aggregate.
+		 * @param name	the aggregate name such as sum
+		 * @return	the value or null if the aggregate was not combined
+		 */
+		public String getAggregate(String name);
+	}
+
+	/**
+	 * CombinedFrequency provides the total count for a value or,
+	 * for tuples, for a co-occurrence of values.
+	 */
+	public interface CombinedFrequency {
+		/**
+		 * Returns the value or, for tuples, the values that occur together.
+		 * @return	the values
+		 */
+		public String[] getValues();
+		/**
+		 * Returns the count summed across the partitions.
+		 * @return	the count
+		 */
+		public long getCount();
+	}
+
+	/**
+	 * Returns the number of partitions requested at the same time.
+	 * @return	the thread count
+	 */
+	public int getThreadCount();
+	/**
+	 * Specifies the number of partitions requested at the same time.
+	 * @param threadCount	the thread count
+	 */
+	public void setThreadCount(int threadCount);
+
+	/**
+	 * Searches each partition for the facets specified by the query
+	 * options and combines the facet values.  The facet values of each
+	 * combined facet are ordered by descending count.
+	 *
+	 * Each partition returns only the top values of a facet up to the
+	 * limit of the facet in the query options, which is 10 unless the
+	 * options specify a limit facet option.  A value outside the limit
+	 * of a partition is not counted for that partition, so when a facet
+	 * has more values than its limit the combined counts are approximate:
+	 * each count is a lower bound and the order may differ from the order
+	 * of the exact counts.  For exact counts, specify a limit facet option
+	 * of at least the number of distinct values of the facet, or combine
+	 * the frequencies of the range index with {@link #values(ValuesDefinition...)}.
+	 * @param partitions	the queries for the partitions
+	 * @return	the combined facets
+	 */
+	public FacetResult[] facets(QueryDefinition... partitions);
+
+	/**
+	 * Gets the values or the tuples of a lexicon for each partition
+	 * and combines the frequencies and aggregates.  Each definition
+	 * typically has the same name and options but a different query.
+	 * @param partitions	the values definitions for the partitions
+	 * @return	the combined values
+	 */
+	public CombinedValues values(ValuesDefinition... partitions);
+}
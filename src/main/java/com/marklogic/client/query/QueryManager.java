@@ -98,6 +98,25 @@ public interface QueryManager {
      */
     public void setView(QueryView view);
 
+    /**
+     * Returns whether searches store repeated inline query options
+     * on the server and refer to them by name.
+     * @return	true if searches promote inline options
+     */
+    public boolean isOptionsPromotion();
+
+    /**
+     * Specifies whether searches with combined queries store repeated
+     * inline query options on the server and refer to them by name,
+     * so the options are sent and parsed once instead of for every search.
+     * The stored options are named for a hash of their content.  Storing
+     * options requires the rest-admin role; without it, or if a search
+     * with the stored options fails, the search sends the options inline.
+     * The default is false.
+     * @param promotion	true to promote inline options
+     */
+    public void setOptionsPromotion(boolean promotion);
+
     /**
      * Creates a query definition based on a string and the default
      * query options.  The string
@@ -215,6 +234,20 @@ public interface QueryManager {
      */
     public ValuesListDefinition newValuesListDefinition(String optionsName);
 
+    /**
+     * Creates an aggregator that combines the facets, values, or tuples
+     * of many queries requested concurrently.
+     * @return	the partition aggregator
+     */
+    public PartitionAggregator newPartitionAggregator();
+
+    /**
+     * Creates an executor that runs the same query against each forest
+     * of the database concurrently and streams the combined results.
+     * @return	the forest query executor
+     */
+    public ForestQueryExecutor newForestQueryExecutor();
+
     /**
      * @deprecated Use {@link RawQueryByExampleDefinition Query By Example} instead for easy-to-write and much more full-featured key/value search.
      * <br><br>
@@ -26,21 +26,19 @@ import java.util.HashMap;
 import java.util.Map;
 
 import javax.xml.XMLConstants;
-import javax.xml.bind.DatatypeConverter;
 import javax.xml.namespace.QName;
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
 import com.marklogic.client.MarkLogicIOException;
 import com.marklogic.client.impl.AbstractQueryDefinition;
 import com.marklogic.client.impl.RawQueryDefinitionImpl;
+import com.marklogic.client.impl.ValueConverter;
 import com.marklogic.client.io.BaseHandle;
 import com.marklogic.client.io.Format;
 import com.marklogic.client.io.OutputStreamSender;
@@ -50,6 +48,7 @@ import com.marklogic.client.io.marker.StructureWriteHandle;
 import com.marklogic.client.io.marker.XMLWriteHandle;
 import com.marklogic.client.util.EditableNamespaceContext;
 import com.marklogic.client.util.IterableNamespaceContext;
+import com.marklogic.client.util.XMLFactories;
 
 /**
  * StructuredQueryBuilder builds a query for documents in the database.
@@ -1866,11 +1865,11 @@ public class StructuredQueryBuilder {
               value = cal;
             }
             if ( type.endsWith("date") ) {
-              return DatatypeConverter.printDate((Calendar) value);
+              return ValueConverter.printDate((Calendar) value);
             } else if ( type.endsWith("dateTime") ) {
-              return DatatypeConverter.printDateTime((Calendar) value);
+              return ValueConverter.printDateTime((Calendar) value);
             } else if ( type.endsWith("time") ) {
-              return DatatypeConverter.printTime((Calendar) value);
+              return ValueConverter.printTime((Calendar) value);
             }
           }
           return value.toString();
@@ -2443,11 +2442,8 @@ public class StructuredQueryBuilder {
     }
 
     static private XMLStreamWriter makeSerializer(OutputStream out) {
-        XMLOutputFactory factory = XMLOutputFactory.newInstance();
-        factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
-
         try {
-            XMLStreamWriter serializer = factory.createXMLStreamWriter(out, "UTF-8");
+            XMLStreamWriter serializer = XMLFactories.getOutputFactory().createXMLStreamWriter(out, "UTF-8");
 
             serializer.setDefaultNamespace(SEARCH_API_NS);
             serializer.setPrefix("xs",  XMLConstants.W3C_XML_SCHEMA_NS_URI);
@@ -2516,7 +2512,7 @@ public class StructuredQueryBuilder {
     static private Transformer makeExtractorTransformer() {
         try {
             if (extractor == null) {
-                extractor = TransformerFactory.newInstance().newTemplates(new StreamSource(new StringReader(
+                extractor = XMLFactories.getTransformerFactory().newTemplates(new StreamSource(new StringReader(
                         "<xsl:stylesheet version='1.0'"+
                             " xmlns:xsl='http://www.w3.org/1999/XSL/Transform'"+
                             " xmlns:search='http://marklogic.com/appservices/search'"+
@@ -2840,8 +2836,8 @@ public class StructuredQueryBuilder {
      * @return a temporal period
      */
     public StructuredQueryBuilder.Period period(Calendar start, Calendar end) {
-        return new TemporalPeriod(DatatypeConverter.printDateTime(start),
-            DatatypeConverter.printDateTime(end));
+        return new TemporalPeriod(ValueConverter.printDateTime(start),
+            ValueConverter.printDateTime(end));
     }
 
     /**
@@ -2940,7 +2936,7 @@ public class StructuredQueryBuilder {
         double weight, String... options)
     {
         if ( temporalCollection == null ) throw new IllegalArgumentException("temporalCollection cannot be null");
-        return new TemporalLsqtQuery(temporalCollection, DatatypeConverter.printDateTime(time), weight, options);
+        return new TemporalLsqtQuery(temporalCollection, ValueConverter.printDateTime(time), weight, options);
     }
 
     /**
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * BufferPool keeps a reusable byte buffer for each thread so handles
+ * can read and write content without allocating a new scratch buffer
+ * for every document.
+ *
+ * A thread that reads many documents of similar size reuses the same
+ * buffer, so only the final content, such as a String, is allocated for
+ * each document.  Buffers larger than the maximum pooled length are not
+ * kept, and the garbage collector can reclaim a pooled buffer when
+ * memory is low.
+ *
+ * A buffer acquired from the pool belongs to the calling thread until
+ * it is released.  Don't keep a reference to a buffer after releasing it.
+ */
+public final class BufferPool {
+	/**
+	 * The default for the largest buffer kept by the pool.
+	 */
+	final static public int DEFAULT_MAX_POOLED_LENGTH = 1024 * 1024;
+
+	final static private int MIN_LENGTH = 8192;
+
+	final static private Charset UTF8 = Charset.forName("UTF-8");
+
+	static private volatile int maxPooledLength = DEFAULT_MAX_POOLED_LENGTH;
+
+	static final private ThreadLocal<SoftReference<byte[]>> threadBuffer =
+		new ThreadLocal<SoftReference<byte[]>>();
+
+	static private class PooledOutputStream extends ByteArrayOutputStream {
+		PooledOutputStream(int minLength) {
+			super(0);
+			buf = acquire(minLength);
+		}
+		@Override
+		public void close() {
+			byte[] pooled = buf;
+			buf   = new byte[0];
+			count = 0;
+			release(pooled);
+		}
+	}
+
+	private BufferPool() {
+	}
+
+	/**
+	 * Returns the length of the largest buffer kept by the pool.
+	 * @return	the length in bytes
+	 */
+	static public int getMaxPooledLength() {
+		return maxPooledLength;
+	}
+	/**
+	 * Specifies the length of the largest buffer kept by the pool.
+	 * Zero turns off pooling.
+	 * @param length	the length in bytes
+	 */
+	static public void setMaxPooledLength(int length) {
+		if (length < 0)
+			throw new IllegalArgumentException("negative maximum pooled length: "+length);
+		maxPooledLength = length;
+	}
+
+	/**
+	 * Gets a buffer with at least the specified length, which is
+	 * the pooled buffer of the thread if it is large enough.
+	 * @param minLength	the minimum length in bytes
+	 * @return	the buffer
+	 */
+	static public byte[] acquire(int minLength) {
+		SoftReference<byte[]> reference = threadBuffer.get();
+		byte[] buffer = (reference == null) ? null : reference.get();
+		if (buffer != null && buffer.length >= minLength) {
+			// a nested acquire gets a new buffer until this one is released
+			threadBuffer.remove();
+			return buffer;
+		}
+		return new byte[Math.max(minLength, MIN_LENGTH)];
+	}
+	/**
+	 * Returns a buffer to the pool of the thread.  The pool keeps
+	 * the largest released buffer up to the maximum pooled length.
+	 * @param buffer	the buffer
+	 */
+	static public void release(byte[] buffer) {
+		if (buffer == null || buffer.length > maxPooledLength)
+			return;
+		SoftReference<byte[]> reference = threadBuffer.get();
+		byte[] pooled = (reference == null) ? null : reference.get();
+		if (pooled == null || pooled.length < buffer.length)
+			threadBuffer.set(new SoftReference<byte[]>(buffer));
+	}
+
+	/**
+	 * Creates an output stream that writes to a pooled buffer.  Closing
+	 * the stream releases the buffer, so call toByteArray() or toString()
+	 * before closing the stream.
+	 * @return	the output stream
+	 */
+	static public ByteArrayOutputStream newOutputStream() {
+		return new PooledOutputStream(MIN_LENGTH);
+	}
+
+	/**
+	 * Reads an input stream to the end into a byte array of the exact length
+	 * of the content.  The stream is not closed.
+	 * @param in	the input stream
+	 * @param length	the length of the content or -1 if unknown
+	 * @return	the content
+	 * @throws IOException	if the stream cannot be read
+	 */
+	static public byte[] readBytes(InputStream in, long length) throws IOException {
+		if (length >= 0 && length < Integer.MAX_VALUE) {
+			byte[] content = new byte[(int) length];
+			int offset = readFully(in, content, 0);
+			if (offset == content.length) {
+				int next = in.read();
+				if (next == -1)
+					return content;
+
+				// the content is longer than declared
+				byte[] buffer = grow(content, content.length);
+				buffer[content.length] = (byte) next;
+				return readRemaining(in, buffer, content.length + 1);
+			}
+			return Arrays.copyOf(content, offset);
+		}
+
+		return readRemaining(in, acquire(guessLength(in)), 0);
+	}
+	/**
+	 * Reads an input stream to the end and decodes the content as a string
+	 * using a pooled buffer.  The stream is not closed.
+	 * @param in	the input stream
+	 * @param length	the length of the content in bytes or -1 if unknown
+	 * @param charset	the encoding of the content or null for UTF-8
+	 * @return	the content
+	 * @throws IOException	if the stream cannot be read
+	 */
+	static public String readString(InputStream in, long length, Charset charset) throws IOException {
+		int initialLength = (length >= 0 && length < Integer.MAX_VALUE) ?
+				(int) length + 1 : guessLength(in);
+		byte[] buffer = acquire(initialLength);
+		int count = 0;
+		while (true) {
+			count = readFully(in, buffer, count);
+			if (count < buffer.length)
+				break;
+			buffer = grow(buffer, count);
+		}
+		String content = new String(buffer, 0, count, (charset != null) ? charset : UTF8);
+		release(buffer);
+		return content;
+	}
+
+	static private byte[] readRemaining(InputStream in, byte[] buffer, int count) throws IOException {
+		while (true) {
+			count = readFully(in, buffer, count);
+			if (count < buffer.length)
+				break;
+			buffer = grow(buffer, count);
+		}
+		byte[] content = Arrays.copyOf(buffer, count);
+		release(buffer);
+		return content;
+	}
+	// returns a count less than the buffer length only at the end of the stream
+	static private int readFully(InputStream in, byte[] buffer, int offset) throws IOException {
+		while (offset < buffer.length) {
+			int len = in.read(buffer, offset, buffer.length - offset);
+			if (len == -1)
+				break;
+			offset += len;
+		}
+		return offset;
+	}
+	static private byte[] grow(byte[] buffer, int count) {
+		int newLength = (buffer.length < Integer.MAX_VALUE / 2) ?
+				Math.max(buffer.length * 2, MIN_LENGTH) : Integer.MAX_VALUE - 8;
+		if (newLength <= buffer.length)
+			throw new OutOfMemoryError("content too large for a byte array");
+		byte[] larger = acquire(newLength);
+		System.arraycopy(buffer, 0, larger, 0, count);
+		release(buffer);
+		return larger;
+	}
+	static private int guessLength(InputStream in) throws IOException {
+		// an extra byte avoids growing the buffer to detect the end of the stream
+		int available = in.available();
+		return (available > 0 && available < Integer.MAX_VALUE) ? available + 1 : MIN_LENGTH;
+	}
+}
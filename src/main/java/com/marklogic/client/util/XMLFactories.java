@@ -0,0 +1,289 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+
+import com.marklogic.client.MarkLogicInternalException;
+
+/**
+ * XMLFactories supplies the JAXP factories, parsers, and transformers
+ * used by the API for XML content.
+ *
+ * Looking up a JAXP implementation is expensive, and the JAXP
+ * factories, DOM document builders, and transformers are not guaranteed
+ * to be thread safe.  XMLFactories keeps one set of factories and
+ * reusable objects for each thread, so a thread pays for the
+ * lookup once instead of for every request.
+ *
+ * By default, the implementations are found with the standard
+ * JAXP lookup.  To use a specific parser or transformer
+ * implementation, set its factory class before
+ * processing XML.  Threads replace their cached factories after the next
+ * request.
+ *
+ * The objects returned belong to the calling thread.  Don't share them with
+ * other threads or change the properties of the factories.
+ */
+public final class XMLFactories {
+	static private class ThreadFactories {
+		int                    generation;
+		DocumentBuilderFactory documentBuilderFactory;
+		DocumentBuilder        documentBuilder;
+		XMLInputFactory        inputFactory;
+		XMLInputFactory        coalescingInputFactory;
+		XMLOutputFactory       outputFactory;
+		XMLEventFactory        eventFactory;
+		TransformerFactory     transformerFactory;
+		Transformer            transformer;
+	}
+
+	static private volatile String documentBuilderFactoryClass;
+	static private volatile String inputFactoryClass;
+	static private volatile String outputFactoryClass;
+	static private volatile String transformerFactoryClass;
+
+	// incremented when a factory class changes so threads discard their cached objects
+	static final private AtomicInteger generation = new AtomicInteger();
+
+	static final private ThreadLocal<ThreadFactories> threadFactories =
+		new ThreadLocal<ThreadFactories>() {
+			@Override
+			protected ThreadFactories initialValue() {
+				return new ThreadFactories();
+			}
+		};
+
+	private XMLFactories() {
+	}
+
+	/**
+	 * Specifies the implementation class for DOM document builder factories
+	 * or null to use the JAXP lookup.
+	 * @param className	the DocumentBuilderFactory implementation class
+	 */
+	static public void setDocumentBuilderFactoryClass(String className) {
+		if (className != null)
+			newInstance(className, DocumentBuilderFactory.class);
+		documentBuilderFactoryClass = className;
+		generation.incrementAndGet();
+	}
+	/**
+	 * Specifies the implementation class for StAX input factories
+	 * or null to use the JAXP lookup.
+	 * @param className	the XMLInputFactory implementation class
+	 */
+	static public void setInputFactoryClass(String className) {
+		if (className != null)
+			newInstance(className, XMLInputFactory.class);
+		inputFactoryClass = className;
+		generation.incrementAndGet();
+	}
+	/**
+	 * Specifies the implementation class for StAX output factories
+	 * or null to use the JAXP lookup.
+	 * @param className	the XMLOutputFactory implementation class
+	 */
+	static public void setOutputFactoryClass(String className) {
+		if (className != null)
+			newInstance(className, XMLOutputFactory.class);
+		outputFactoryClass = className;
+		generation.incrementAndGet();
+	}
+	/**
+	 * Specifies the implementation class for transformer factories
+	 * or null to use the JAXP lookup.
+	 * @param className	the TransformerFactory implementation class
+	 */
+	static public void setTransformerFactoryClass(String className) {
+		if (className != null)
+			newInstance(className, TransformerFactory.class);
+		transformerFactoryClass = className;
+		generation.incrementAndGet();
+	}
+
+	/**
+	 * Returns the namespace-aware, non-validating factory for DOM document
+	 * builders for the current thread.
+	 * @return	the document builder factory
+	 */
+	static public DocumentBuilderFactory getDocumentBuilderFactory() {
+		ThreadFactories factories = getThreadFactories();
+		if (factories.documentBuilderFactory == null) {
+			DocumentBuilderFactory factory = (documentBuilderFactoryClass != null) ?
+				newInstance(documentBuilderFactoryClass, DocumentBuilderFactory.class) :
+				DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(true);
+			factory.setValidating(false);
+			factories.documentBuilderFactory = factory;
+		}
+		return factories.documentBuilderFactory;
+	}
+	/**
+	 * Returns a DOM document builder for the current thread, reset to its
+	 * initial configuration.
+	 * @return	the document builder
+	 */
+	static public DocumentBuilder getDocumentBuilder() {
+		ThreadFactories factories = getThreadFactories();
+		if (factories.documentBuilder == null) {
+			try {
+				factories.documentBuilder = getDocumentBuilderFactory().newDocumentBuilder();
+			} catch (ParserConfigurationException e) {
+				throw new MarkLogicInternalException(e);
+			}
+		} else {
+			factories.documentBuilder.reset();
+		}
+		return factories.documentBuilder;
+	}
+
+	/**
+	 * Returns the namespace-aware, non-validating StAX input factory
+	 * for the current thread.
+	 * @return	the input factory
+	 */
+	static public XMLInputFactory getInputFactory() {
+		ThreadFactories factories = getThreadFactories();
+		if (factories.inputFactory == null) {
+			factories.inputFactory = makeInputFactory(false);
+		}
+		return factories.inputFactory;
+	}
+	/**
+	 * Returns a StAX input factory for the current thread that is configured
+	 * like the {@link #getInputFactory() input factory} but also coalesces
+	 * adjacent text.
+	 * @return	the coalescing input factory
+	 */
+	static public XMLInputFactory getCoalescingInputFactory() {
+		ThreadFactories factories = getThreadFactories();
+		if (factories.coalescingInputFactory == null) {
+			factories.coalescingInputFactory = makeInputFactory(true);
+		}
+		return factories.coalescingInputFactory;
+	}
+
+	/**
+	 * Returns the namespace-repairing StAX output factory for the current thread.
+	 * @return	the output factory
+	 */
+	static public XMLOutputFactory getOutputFactory() {
+		ThreadFactories factories = getThreadFactories();
+		if (factories.outputFactory == null) {
+			XMLOutputFactory factory = (outputFactoryClass != null) ?
+				newInstance(outputFactoryClass, XMLOutputFactory.class) :
+				XMLOutputFactory.newFactory();
+			factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+			factories.outputFactory = factory;
+		}
+		return factories.outputFactory;
+	}
+
+	/**
+	 * Returns the StAX event factory for the current thread.
+	 * @return	the event factory
+	 */
+	static public XMLEventFactory getEventFactory() {
+		ThreadFactories factories = getThreadFactories();
+		if (factories.eventFactory == null) {
+			factories.eventFactory = XMLEventFactory.newFactory();
+		}
+		return factories.eventFactory;
+	}
+
+	/**
+	 * Returns the transformer factory for the current thread.
+	 * @return	the transformer factory
+	 */
+	static public TransformerFactory getTransformerFactory() {
+		ThreadFactories factories = getThreadFactories();
+		if (factories.transformerFactory == null) {
+			factories.transformerFactory = (transformerFactoryClass != null) ?
+				newInstance(transformerFactoryClass, TransformerFactory.class) :
+				TransformerFactory.newInstance();
+		}
+		return factories.transformerFactory;
+	}
+	/**
+	 * Returns an identity transformer for the current thread, reset
+	 * to its initial configuration without any output properties.
+	 * @return	the identity transformer
+	 */
+	static public Transformer getTransformer() {
+		ThreadFactories factories = getThreadFactories();
+		if (factories.transformer == null) {
+			try {
+				factories.transformer = getTransformerFactory().newTransformer();
+			} catch (TransformerConfigurationException e) {
+				throw new MarkLogicInternalException(e);
+			}
+		} else {
+			factories.transformer.reset();
+		}
+		return factories.transformer;
+	}
+
+	static private ThreadFactories getThreadFactories() {
+		ThreadFactories factories = threadFactories.get();
+		int current = generation.get();
+		if (factories.generation != current) {
+			factories = new ThreadFactories();
+			factories.generation = current;
+			threadFactories.set(factories);
+		}
+		return factories;
+	}
+
+	static private XMLInputFactory makeInputFactory(boolean isCoalescing) {
+		XMLInputFactory factory = (inputFactoryClass != null) ?
+			newInstance(inputFactoryClass, XMLInputFactory.class) :
+			XMLInputFactory.newFactory();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		factory.setProperty(XMLInputFactory.IS_VALIDATING,      false);
+		if (isCoalescing)
+			factory.setProperty(XMLInputFactory.IS_COALESCING,  true);
+		return factory;
+	}
+
+	static private <T> T newInstance(String className, Class<T> as) {
+		try {
+			ClassLoader loader = Thread.currentThread().getContextClassLoader();
+			if (loader == null)
+				loader = XMLFactories.class.getClassLoader();
+			Class<?> factoryClass = Class.forName(className, true, loader);
+			return as.cast(factoryClass.newInstance());
+		} catch (ClassNotFoundException e) {
+			throw new IllegalArgumentException("Could not find "+as.getSimpleName()+" class "+className, e);
+		} catch (InstantiationException e) {
+			throw new IllegalArgumentException("Could not instantiate "+as.getSimpleName()+" class "+className, e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("Could not access "+as.getSimpleName()+" class "+className, e);
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException(className+" is not a "+as.getSimpleName(), e);
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.bulk.Batch;
+import com.marklogic.client.bulk.BatchListener;
+import com.marklogic.client.bulk.BatchSummary;
+import com.marklogic.client.bulk.CSVLoader;
+import com.marklogic.client.test.util.MockRESTServer;
+
+public class AdaptiveBulkTest {
+	private MockRESTServer server;
+	private DatabaseClient client;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new MockRESTServer();
+		client = server.newClient();
+	}
+	@After
+	public void tearDown() {
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void testIncrease() {
+		List<Integer> sizes = new CopyOnWriteArrayList<Integer>();
+		CSVLoader loader = newLoader(sizes, -1);
+		BatchSummary summary = loader.load(new StringReader(makeRows(5000)));
+
+		assertEquals("Wrong loaded count", 5000, summary.getSucceededCount());
+		assertEquals("Wrong document count", 5000, server.getDocumentCount());
+		assertEquals("Did not start at half the batch size", 50, (int) sizes.get(0));
+		assertEquals("Did not reach the maximum batch size", 100, max(sizes, 0, sizes.size()));
+		assertTrue("Exceeded the thread count", server.getMaxConcurrentRequests() <= 8);
+	}
+
+	@Test
+	public void testDecrease() {
+		List<Integer> sizes = new CopyOnWriteArrayList<Integer>();
+		CSVLoader loader = newLoader(sizes, 60);
+		BatchSummary summary = loader.load(new StringReader(makeRows(12000)));
+
+		assertEquals("Lost documents after retry", 12000, summary.getSucceededCount());
+		assertEquals("Wrong document count", 12000, server.getDocumentCount());
+		assertEquals("Did not reach the maximum batch size", 100, max(sizes, 0, 60));
+		// batches queued before the 503 keep their size
+		assertEquals("Did not halve the batch size after 503", 50, min(sizes, 60, sizes.size()));
+	}
+
+	private CSVLoader newLoader(final List<Integer> sizes, final int unavailableBatch) {
+		CSVLoader loader = client.newBulkManager().newCSVLoader();
+		loader.setHeader(false);
+		loader.setBatchSize(100);
+		loader.setThreadCount(8);
+		loader.setAdaptive(true);
+		loader.setBatchListener(new BatchListener() {
+			@Override
+			public void batchSucceeded(Batch batch) {
+				sizes.add(batch.getUris().length);
+				if (sizes.size() == unavailableBatch)
+					server.setUnavailableRequests(1);
+			}
+			@Override
+			public void batchFailed(Batch batch) {
+				sizes.add(batch.getUris().length);
+			}
+		});
+		return loader;
+	}
+
+	private int max(List<Integer> sizes, int start, int end) {
+		int max = 0;
+		for (int i=start; i < Math.min(end, sizes.size()); i++)
+			max = Math.max(max, sizes.get(i));
+		return max;
+	}
+	private int min(List<Integer> sizes, int start, int end) {
+		int min = Integer.MAX_VALUE;
+		// ignores the final partial batch
+		for (int i=start; i < Math.min(end, sizes.size() - 1); i++)
+			min = Math.min(min, sizes.get(i));
+		return min;
+	}
+	private String makeRows(int count) {
+		StringBuilder buf = new StringBuilder();
+		for (int i=1; i <= count; i++)
+			buf.append(i).append(",row ").append(i).append('\n');
+		return buf.toString();
+	}
+}
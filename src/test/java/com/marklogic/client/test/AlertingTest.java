@@ -16,6 +16,7 @@
 package com.marklogic.client.test;
 
 import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -24,6 +25,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
 
 import javax.xml.namespace.QName;
 import javax.xml.parsers.ParserConfigurationException;
@@ -46,6 +50,8 @@ import com.marklogic.client.alerting.RuleDefinition;
 import com.marklogic.client.alerting.RuleDefinition.RuleMetadata;
 import com.marklogic.client.alerting.RuleDefinitionList;
 import com.marklogic.client.alerting.RuleManager;
+import com.marklogic.client.bulk.BatchSummary;
+import com.marklogic.client.bulk.BulkAlerter;
 import com.marklogic.client.document.ServerTransform;
 import com.marklogic.client.document.XMLDocumentManager;
 import com.marklogic.client.io.BytesHandle;
@@ -379,6 +385,40 @@ public class AlertingTest {
 
 	}
 
+	@Test
+	public void testBulkMatchDocumentUris() {
+		// the bulk alerter posts the uris and rules instead of sending them in the URL
+		final Map<String,String[]> matches = new TreeMap<String,String[]>();
+		BulkAlerter alerter = Common.client.newBulkManager().newAlerter();
+		alerter.setBatchSize(3);
+		alerter.setMatchListener(new BulkAlerter.MatchListener() {
+			@Override
+			public void matched(String uri, String[] ruleNames) {
+				synchronized(matches) {
+					matches.put(uri, ruleNames);
+				}
+			}
+		});
+
+		String[] docs = new String[] { "/alert/first.xml", "/alert/second.xml", "/alert/third.xml" };
+		BatchSummary summary = alerter.match(Arrays.asList(docs).iterator());
+		assertEquals("Wrong matched document count", 3, summary.getSucceededCount());
+		assertEquals("Wrong number of matching documents", 3, matches.size());
+		assertArrayEquals("Wrong rules for first document",
+				new String[] { "notfavorited" }, matches.get("/alert/first.xml"));
+		assertArrayEquals("Wrong rules for second document",
+				new String[] { "favorites" }, matches.get("/alert/second.xml"));
+		assertArrayEquals("Wrong rules for third document",
+				new String[] { "notfavorited" }, matches.get("/alert/third.xml"));
+
+		matches.clear();
+		alerter.setCandidateRules("notfavorited");
+		alerter.match(Arrays.asList(docs).iterator());
+		assertEquals("Wrong matches for candidate rule",
+				Arrays.asList("/alert/first.xml", "/alert/third.xml"),
+				Arrays.asList(matches.keySet().toArray(new String[matches.size()])));
+	}
+
 	@Test
 	public void testMatchGetQuery() {
 
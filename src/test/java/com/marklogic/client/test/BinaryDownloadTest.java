@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.ResourceNotFoundException;
+import com.marklogic.client.document.BinaryDocumentManager;
+import com.marklogic.client.test.util.MockRESTServer;
+import com.marklogic.client.util.BufferPool;
+
+public class BinaryDownloadTest {
+	private static final int SEGMENT_LENGTH = 256 * 1024;
+
+	private MockRESTServer server;
+	private DatabaseClient client;
+	private BinaryDocumentManager docMgr;
+	private byte[] content;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new MockRESTServer();
+		client = server.newClient();
+		docMgr = client.newBinaryDocumentManager();
+		docMgr.setDownloadSegmentLength(SEGMENT_LENGTH);
+		docMgr.setDownloadThreadCount(4);
+
+		// an uneven length leaves a short final segment
+		content = new byte[10 * SEGMENT_LENGTH + 1234];
+		new Random(45).nextBytes(content);
+		server.putDocument("/download/large.bin", "application/octet-stream", content);
+		server.resetCounts();
+		server.setLatency(20);
+	}
+	@After
+	public void tearDown() {
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void testFileDownload() throws IOException {
+		File file = File.createTempFile("download", ".bin");
+		try {
+			assertEquals("Wrong download length", content.length, docMgr.download("/download/large.bin", file));
+			assertEquals("Wrong file length", content.length, file.length());
+
+			InputStream in = new FileInputStream(file);
+			try {
+				assertArrayEquals("Wrong file content", content, BufferPool.readBytes(in, file.length()));
+			} finally {
+				in.close();
+			}
+		} finally {
+			file.delete();
+		}
+
+		// one request for the length and one for each segment
+		assertEquals("Wrong request count", 12, server.getRequestCount("documents"));
+		assertTrue("Segments not concurrent", server.getMaxConcurrentRequests() > 1);
+		assertTrue("Too many concurrent segments", server.getMaxConcurrentRequests() <= 4);
+	}
+
+	@Test
+	public void testStreamDownload() throws IOException {
+		InputStream in = docMgr.download("/download/large.bin");
+		try {
+			assertArrayEquals("Wrong streamed content", content, BufferPool.readBytes(in, -1));
+		} finally {
+			in.close();
+		}
+		assertEquals("Wrong request count", 12, server.getRequestCount("documents"));
+		assertTrue("Segments not read ahead", server.getMaxConcurrentRequests() > 1);
+
+		// closing early cancels the remaining segments
+		in = docMgr.download("/download/large.bin");
+		assertEquals("Wrong first byte", content[0] & 0xFF, in.read());
+		in.close();
+		assertEquals("Read after close", -1, in.read());
+
+		boolean notFound = false;
+		try {
+			docMgr.download("/download/missing.bin");
+		} catch (ResourceNotFoundException e) {
+			notFound = true;
+		}
+		assertTrue("Failed to report missing document", notFound);
+	}
+
+	@Test
+	public void testChangedDuringDownload() throws IOException {
+		InputStream in = docMgr.download("/download/large.bin");
+		try {
+			assertEquals("Wrong first byte", content[0] & 0xFF, in.read());
+
+			// the segments after the read ahead come from the new version
+			server.putDocument("/download/large.bin", "application/octet-stream", content.clone());
+
+			boolean changed = false;
+			try {
+				BufferPool.readBytes(in, -1);
+			} catch (IOException e) {
+				changed = true;
+			}
+			assertTrue("Failed to report changed document", changed);
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.document.BinaryDocumentManager;
+import com.marklogic.client.document.BinaryDocumentManager.UploadListener;
+import com.marklogic.client.test.util.MockRESTServer;
+
+public class BinaryUploadTest {
+	private static final int CHUNK_LENGTH = 128 * 1024;
+
+	private MockRESTServer server;
+	private DatabaseClient client;
+	private BinaryDocumentManager docMgr;
+	private byte[] content;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new MockRESTServer();
+		client = server.newClient();
+		docMgr = client.newBinaryDocumentManager();
+		docMgr.setUploadChunkLength(CHUNK_LENGTH);
+		docMgr.setUploadThreadCount(3);
+
+		content = new byte[10 * CHUNK_LENGTH + 4321];
+		new Random(46).nextBytes(content);
+	}
+	@After
+	public void tearDown() {
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void testUpload() throws IOException {
+		final List<Long> progress = new ArrayList<Long>();
+		UploadListener listener = new UploadListener() {
+			@Override
+			public void uploaded(String docId, long uploadedLength, long totalLength) {
+				assertEquals("Wrong total length", content.length, totalLength);
+				progress.add(uploadedLength);
+			}
+		};
+
+		File file = File.createTempFile("upload", ".bin");
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(content);
+			out.close();
+
+			server.setLatency(20);
+			assertEquals("Wrong upload length", content.length,
+					docMgr.upload("/upload/large.bin", file, listener));
+		} finally {
+			file.delete();
+		}
+
+		assertArrayEquals("Wrong uploaded content", content, server.getDocument("/upload/large.bin"));
+		assertEquals("Chunks not removed", 1, server.getDocumentCount());
+		assertEquals("Wrong progress count", 11, progress.size());
+		for (int i=1; i < progress.size(); i++) {
+			assertTrue("Progress not increasing", progress.get(i) > progress.get(i - 1));
+		}
+		assertEquals("Wrong final progress", content.length, progress.get(progress.size() - 1).longValue());
+		assertTrue("Chunks not concurrent", server.getMaxConcurrentRequests() > 1);
+	}
+
+	@Test
+	public void testRetryAndResume() throws NoSuchAlgorithmException {
+		// a chunk staged by an interrupted upload is reused
+		byte[] staged = new byte[CHUNK_LENGTH];
+		System.arraycopy(content, 0, staged, 0, staged.length);
+		server.putDocument("/upload/resumed.bin.chunks/0-"+digest(staged), "application/octet-stream", staged);
+
+		// chunks staged for other content are not reused and are deleted by the assembly
+		byte[] other = new byte[CHUNK_LENGTH];
+		server.putDocument("/upload/resumed.bin.chunks/1-"+digest(other), "application/octet-stream", other);
+		server.putDocument("/upload/resumed.bin.chunks/20-"+digest(other), "application/octet-stream", other);
+		server.resetCounts();
+
+		server.setFailedRequests(2);
+		assertEquals("Wrong upload length", content.length,
+				docMgr.upload("/upload/resumed.bin", new ByteArrayInputStream(content), null));
+		assertArrayEquals("Wrong resumed content", content, server.getDocument("/upload/resumed.bin"));
+		assertEquals("Chunks not removed", 1, server.getDocumentCount());
+
+		// a check and a write for each chunk except the staged chunk, the retries, and the assembly
+		assertEquals("Wrong request count", 11 + 10 + 2 + 1, server.getRequestCount());
+
+		byte[] empty = new byte[0];
+		assertEquals("Wrong empty upload length", 0,
+				docMgr.upload("/upload/empty.bin", new ByteArrayInputStream(empty), null));
+		assertTrue("Wrong empty content", Arrays.equals(empty, server.getDocument("/upload/empty.bin")));
+	}
+
+	@Test
+	public void testLargeUpload() throws NoSuchAlgorithmException {
+		// longer than 256 MB without holding the content in the test
+		long length = 300L * 1024 * 1024 + 4321;
+		docMgr.setUploadChunkLength(16 * 1024 * 1024);
+		GeneratedStream in = new GeneratedStream(length);
+		assertEquals("Wrong upload length", length, docMgr.upload("/upload/huge.bin", in, null));
+
+		byte[] uploaded = server.getDocument("/upload/huge.bin");
+		assertEquals("Wrong uploaded length", length, uploaded.length);
+		assertArrayEquals("Wrong uploaded content", in.digest.digest(),
+				MessageDigest.getInstance("SHA-1").digest(uploaded));
+		assertEquals("Chunks not removed", 1, server.getDocumentCount());
+	}
+
+	static private String digest(byte[] chunk) throws NoSuchAlgorithmException {
+		StringBuilder hex = new StringBuilder();
+		for (byte b: MessageDigest.getInstance("SHA-1").digest(chunk)) {
+			hex.append(String.format("%02x", b & 0xFF));
+		}
+		return hex.toString();
+	}
+
+	// generates content and its digest as the upload reads it
+	static private class GeneratedStream extends InputStream {
+		final private long          length;
+		final private MessageDigest digest;
+		private long                position = 0;
+		GeneratedStream(long length) throws NoSuchAlgorithmException {
+			this.length = length;
+			this.digest = MessageDigest.getInstance("SHA-1");
+		}
+		@Override
+		public int read() {
+			byte[] b = new byte[1];
+			return (read(b, 0, 1) == -1) ? -1 : b[0] & 0xFF;
+		}
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (position >= length)
+				return -1;
+			int count = (int) Math.min(len, length - position);
+			for (int i=0; i < count; i++) {
+				long next = position + i;
+				b[off + i] = (byte) (next * 31 + (next >>> 13));
+			}
+			digest.update(b, off, count);
+			position += count;
+			return count;
+		}
+	}
+}
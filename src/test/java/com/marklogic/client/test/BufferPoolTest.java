@@ -0,0 +1,142 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+import com.marklogic.client.impl.HandleAccessor;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.DOMHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.util.BufferPool;
+
+public class BufferPoolTest {
+	final static private Charset UTF8 = Charset.forName("UTF-8");
+
+	@Test
+	public void testReuse() {
+		byte[] buffer = BufferPool.acquire(10000);
+		BufferPool.release(buffer);
+		assertSame("Failed to reuse released buffer", buffer, BufferPool.acquire(5000));
+
+		byte[] nested = BufferPool.acquire(5000);
+		assertEquals("Nested acquire shared a buffer", false, nested == buffer);
+		BufferPool.release(buffer);
+		BufferPool.release(nested);
+
+		byte[] large = BufferPool.acquire(BufferPool.getMaxPooledLength() + 1);
+		BufferPool.release(large);
+		assertEquals("Pooled buffer over the maximum length", false,
+				BufferPool.acquire(BufferPool.getMaxPooledLength() + 1) == large);
+	}
+
+	@Test
+	public void testRead() throws IOException {
+		String text = makeText(20000);
+		byte[] bytes = text.getBytes(UTF8);
+
+		// exact, unknown, understated, and overstated lengths
+		for (long length: new long[]{bytes.length, -1, 100, bytes.length * 2}) {
+			assertArrayEquals("Wrong bytes for length "+length, bytes,
+					BufferPool.readBytes(new ByteArrayInputStream(bytes), length));
+			assertEquals("Wrong string for length "+length, text,
+					BufferPool.readString(new ByteArrayInputStream(bytes), length, null));
+		}
+		assertEquals("Wrong empty bytes", 0,
+				BufferPool.readBytes(new ByteArrayInputStream(new byte[0]), -1).length);
+		assertEquals("Wrong empty string", "",
+				BufferPool.readString(new ByteArrayInputStream(new byte[0]), 0, UTF8));
+
+		ByteArrayOutputStream out = BufferPool.newOutputStream();
+		out.write(bytes);
+		assertArrayEquals("Wrong pooled output", bytes, out.toByteArray());
+		out.close();
+		assertEquals("Closed output kept content", 0, out.size());
+	}
+
+	@Test
+	public void testHandles() {
+		String text = "<root>"+makeText(5000)+"</root>";
+		byte[] bytes = text.getBytes(UTF8);
+
+		StringHandle stringHandle = new StringHandle();
+		stringHandle.setByteLength(bytes.length);
+		assertEquals("Wrong entity class for string", InputStream.class,
+				HandleAccessor.receiveEntityAs(stringHandle));
+		HandleAccessor.receiveEntity(stringHandle, new ByteArrayInputStream(bytes));
+		assertEquals("Wrong string from stream", text, stringHandle.get());
+
+		HandleAccessor.receiveContent(stringHandle, bytes);
+		assertEquals("Wrong string from bytes", text, stringHandle.get());
+
+		BytesHandle bytesHandle = new BytesHandle();
+		bytesHandle.setByteLength(bytes.length);
+		HandleAccessor.receiveEntity(bytesHandle, new ByteArrayInputStream(bytes));
+		assertArrayEquals("Wrong bytes from stream", bytes, bytesHandle.get());
+
+		HandleAccessor.receiveEntity(bytesHandle, null);
+		assertNull("Content after null entity", bytesHandle.get());
+
+		// a subclass still receives the byte[] it declares
+		StringHandle upperHandle = new StringHandle() {
+			@Override
+			protected void receiveContent(byte[] content) {
+				super.receiveContent(content);
+				set(get().toUpperCase());
+			}
+		};
+		assertEquals("Wrong entity class for subclass", byte[].class,
+				HandleAccessor.receiveEntityAs(upperHandle));
+		HandleAccessor.receiveEntity(upperHandle, bytes);
+		assertEquals("Subclass receive bypassed", text.toUpperCase(), upperHandle.get());
+
+		byte[] buffer = BufferPool.acquire(bytes.length + 10);
+		System.arraycopy(bytes, 0, buffer, 10, bytes.length);
+
+		stringHandle.fromBuffer(buffer, 10, bytes.length);
+		bytesHandle.fromBuffer(buffer, 10, bytes.length);
+		DOMHandle domHandle = new DOMHandle();
+		domHandle.fromBuffer(buffer, 10, bytes.length);
+		BufferPool.release(buffer);
+
+		assertEquals("Wrong string from region", text, stringHandle.get());
+		assertArrayEquals("Wrong bytes from region", bytes, bytesHandle.get());
+		assertEquals("Wrong document from region", "root",
+				domHandle.get().getDocumentElement().getLocalName());
+		assertEquals("Wrong buffer from DOM", text,
+				new String(domHandle.toBuffer(), UTF8).replaceFirst("^<\\?xml[^>]*\\?>\\s*", ""));
+	}
+
+	private String makeText(int length) {
+		StringBuilder buf = new StringBuilder(length);
+		// includes multibyte characters
+		while (buf.length() < length) {
+			buf.append("text é中 ").append(buf.length());
+		}
+		return buf.toString();
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.alerting.RuleDefinition;
+import com.marklogic.client.bulk.BatchSummary;
+import com.marklogic.client.bulk.BulkAlerter;
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.document.DocumentWriteSet;
+import com.marklogic.client.document.XMLDocumentManager;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.query.StringQueryDefinition;
+import com.marklogic.client.test.util.MockRESTServer;
+
+public class BulkAlertTest {
+	final static private String RULE_QUERY =
+		"<search:search xmlns:search=\"http://marklogic.com/appservices/search\">"+
+		"<search:qtext>topic</search:qtext></search:search>";
+
+	private MockRESTServer server;
+	private DatabaseClient client;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new MockRESTServer();
+		client = server.newClient();
+	}
+	@After
+	public void tearDown() {
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void testWriteRulesAndMatch() {
+		BulkAlerter alerter = client.newBulkManager().newAlerter();
+		alerter.setBatchSize(10);
+		alerter.setThreadCount(3);
+
+		List<RuleDefinition> rules = new ArrayList<RuleDefinition>();
+		for (char c='a'; c <= 'y'; c++) {
+			RuleDefinition rule = new RuleDefinition("topic-"+c, "rule for topic "+c);
+			rule.importQueryDefinition(new StringHandle(RULE_QUERY).withFormat(Format.XML));
+			rules.add(rule);
+		}
+		BatchSummary summary = alerter.writeRules(rules.iterator());
+		assertEquals("Wrong rule batch count", 3, summary.getBatchCount());
+		assertEquals("Wrong rule count", 25, summary.getSucceededCount());
+		assertEquals("Failed to store rules", 25, server.getAlertRuleCount());
+		assertNotNull("Failed to store rule", server.getAlertRule("topic-m"));
+
+		// only two documents in different batches match any rules
+		XMLDocumentManager docMgr = client.newXMLDocumentManager();
+		DocumentWriteSet writeSet = docMgr.newWriteSet();
+		for (int i=0; i < 100; i++) {
+			String content = (i == 17) ? "<doc>topic-b topic-q</doc>" :
+				(i == 63) ? "<doc>topic-x</doc>" : "<doc>nothing "+i+"</doc>";
+			writeSet.add("/alert/doc"+(100 + i)+".xml",
+					new StringHandle(content).withFormat(Format.XML));
+		}
+		docMgr.write(writeSet);
+		server.resetCounts();
+
+		final Map<String,String[]> matches = new TreeMap<String,String[]>();
+		alerter.setMatchListener(new BulkAlerter.MatchListener() {
+			@Override
+			public void matched(String uri, String[] ruleNames) {
+				synchronized(matches) {
+					matches.put(uri, ruleNames);
+				}
+			}
+		});
+
+		StringQueryDefinition querydef = client.newQueryManager().newStringDefinition();
+		querydef.setCriteria("anything");
+		summary = alerter.match(querydef);
+
+		assertEquals("Wrong match batch count", 10, summary.getBatchCount());
+		assertEquals("Wrong matched document count", 100, summary.getSucceededCount());
+		assertEquals("Wrong matches",
+				Arrays.asList("/alert/doc117.xml", "/alert/doc163.xml"),
+				new ArrayList<String>(matches.keySet()));
+		assertArrayEquals("Wrong rules for first match",
+				new String[]{"topic-b", "topic-q"}, matches.get("/alert/doc117.xml"));
+		assertArrayEquals("Wrong rules for second match",
+				new String[]{"topic-x"}, matches.get("/alert/doc163.xml"));
+		// one request per batch plus the requests that bisect the two matching batches
+		assertEquals("Wrong match request count", 10 + 4 + 6, server.getRequestCount("alert"));
+	}
+
+	@Test
+	public void testMatchContent() {
+		for (String name: new String[]{"red", "green", "blue"}) {
+			RuleDefinition rule = new RuleDefinition(name, null);
+			rule.importQueryDefinition(new StringHandle(RULE_QUERY).withFormat(Format.XML));
+			client.newRuleManager().writeRule(rule);
+		}
+
+		List<DocumentWriteOperation> docs = new ArrayList<DocumentWriteOperation>();
+		XMLDocumentManager docMgr = client.newXMLDocumentManager();
+		DocumentWriteSet writeSet = docMgr.newWriteSet();
+		writeSet.add("/incoming/1.xml", new StringHandle("<doc>red and blue</doc>").withFormat(Format.XML));
+		writeSet.add("/incoming/2.json", new StringHandle("{\"color\":\"green\"}").withFormat(Format.JSON));
+		writeSet.add("/incoming/3.xml", new StringHandle("<doc>gray</doc>").withFormat(Format.XML));
+		writeSet.add("/incoming/4.txt", new StringHandle("red").withFormat(Format.TEXT));
+		docs.addAll(writeSet);
+
+		final Map<String,String[]> matches = new TreeMap<String,String[]>();
+		BulkAlerter alerter = client.newBulkManager().newAlerter();
+		alerter.setBatchSize(2);
+		alerter.setCandidateRules("red", "green");
+		alerter.setMatchListener(new BulkAlerter.MatchListener() {
+			@Override
+			public void matched(String uri, String[] ruleNames) {
+				synchronized(matches) {
+					matches.put(uri, ruleNames);
+				}
+			}
+		});
+		BatchSummary summary = alerter.matchContent(docs.iterator());
+
+		assertEquals("Wrong batch count", 2, summary.getBatchCount());
+		assertEquals("Wrong succeeded count", 3, summary.getSucceededCount());
+		assertEquals("Text content not rejected", 1, summary.getFailedCount());
+		assertEquals("Wrong match count", 2, matches.size());
+		assertArrayEquals("Candidate rules not applied",
+				new String[]{"red"}, matches.get("/incoming/1.xml"));
+		assertArrayEquals("Wrong JSON match",
+				new String[]{"green"}, matches.get("/incoming/2.json"));
+	}
+
+	@Test
+	public void testMatchContentWithManyRules() {
+		for (String name: new String[]{"red", "green", "blue"}) {
+			RuleDefinition rule = new RuleDefinition(name, null);
+			rule.importQueryDefinition(new StringHandle(RULE_QUERY).withFormat(Format.XML));
+			client.newRuleManager().writeRule(rule);
+		}
+
+		// too many candidate rules to send in the URL
+		List<String> candidates = new ArrayList<String>();
+		candidates.add("red");
+		candidates.add("green");
+		for (int i=0; i < 500; i++) {
+			candidates.add("unused-rule-"+i);
+		}
+
+		XMLDocumentManager docMgr = client.newXMLDocumentManager();
+		DocumentWriteSet writeSet = docMgr.newWriteSet();
+		writeSet.add("/incoming/1.xml", new StringHandle("<doc>red and blue</doc>").withFormat(Format.XML));
+		writeSet.add("/incoming/2.xml", new StringHandle("<doc>blue</doc>").withFormat(Format.XML));
+
+		final Map<String,String[]> matches = new TreeMap<String,String[]>();
+		BulkAlerter alerter = client.newBulkManager().newAlerter();
+		alerter.setCandidateRules(candidates.toArray(new String[candidates.size()]));
+		alerter.setMatchListener(new BulkAlerter.MatchListener() {
+			@Override
+			public void matched(String uri, String[] ruleNames) {
+				synchronized(matches) {
+					matches.put(uri, ruleNames);
+				}
+			}
+		});
+		BatchSummary summary = alerter.matchContent(writeSet.iterator());
+
+		assertEquals("Wrong succeeded count", 2, summary.getSucceededCount());
+		assertEquals("Wrong match count", 1, matches.size());
+		assertArrayEquals("Candidate rules not applied",
+				new String[]{"red"}, matches.get("/incoming/1.xml"));
+	}
+}
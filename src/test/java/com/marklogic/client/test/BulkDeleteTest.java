@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.bulk.Batch;
+import com.marklogic.client.bulk.BatchListener;
+import com.marklogic.client.bulk.BatchSummary;
+import com.marklogic.client.bulk.BulkDeleter;
+import com.marklogic.client.document.DocumentWriteSet;
+import com.marklogic.client.document.TextDocumentManager;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.query.StructuredQueryBuilder;
+import com.marklogic.client.test.util.MockRESTServer;
+
+public class BulkDeleteTest {
+	private static final String DIRECTORY = "/test/bulkdelete/";
+	private static final int    DOC_COUNT = 250;
+
+	@BeforeClass
+	public static void beforeClass() {
+		Common.connect();
+	}
+	@AfterClass
+	public static void afterClass() {
+		Common.release();
+	}
+
+	private List<String> writeDocs(String subdirectory) {
+		TextDocumentManager docMgr = Common.client.newTextDocumentManager();
+		List<String> uris = new ArrayList<String>();
+		DocumentWriteSet writeSet = docMgr.newWriteSet();
+		for (int i=0; i < DOC_COUNT; i++) {
+			String uri = DIRECTORY + subdirectory + i + ".txt";
+			uris.add(uri);
+			writeSet.add(uri, new StringHandle("bulk delete "+i));
+			if (writeSet.size() == 100) {
+				docMgr.write(writeSet);
+				writeSet = docMgr.newWriteSet();
+			}
+		}
+		if (writeSet.size() > 0)
+			docMgr.write(writeSet);
+		return uris;
+	}
+
+	@Test
+	public void testDeleteUris() {
+		List<String> uris = writeDocs("uris/");
+
+		final AtomicLong batches = new AtomicLong();
+		BulkDeleter deleter = Common.client.newBulkManager().newDeleter();
+		deleter.setBatchSize(20);
+		deleter.setThreadCount(3);
+		deleter.setBatchListener(new BatchListener() {
+			@Override
+			public void batchSucceeded(Batch batch) {
+				batches.incrementAndGet();
+			}
+			@Override
+			public void batchFailed(Batch batch) {
+			}
+		});
+
+		BatchSummary summary = deleter.delete(uris.iterator());
+		assertEquals("Wrong number of deleted uris", DOC_COUNT, summary.getSucceededCount());
+		assertEquals("Wrong number of failed uris", 0, summary.getFailedCount());
+		assertEquals("Wrong number of batches", 13, summary.getBatchCount());
+		assertEquals("Listener missed batches", 13, batches.get());
+
+		TextDocumentManager docMgr = Common.client.newTextDocumentManager();
+		assertNull("Document not deleted", docMgr.exists(uris.get(0)));
+		assertNull("Document not deleted", docMgr.exists(uris.get(DOC_COUNT - 1)));
+	}
+
+	@Test
+	public void testDeleteQuery() {
+		List<String> uris = writeDocs("query/");
+
+		BulkDeleter deleter = Common.client.newBulkManager().newDeleter();
+		deleter.setBatchSize(30);
+
+		StructuredQueryBuilder qb = new StructuredQueryBuilder();
+		BatchSummary summary = deleter.delete(qb.directory(true, DIRECTORY + "query/"));
+		assertEquals("Wrong number of deleted uris", DOC_COUNT, summary.getSucceededCount());
+
+		TextDocumentManager docMgr = Common.client.newTextDocumentManager();
+		assertNull("Document not deleted", docMgr.exists(uris.get(0)));
+	}
+
+	@Test
+	public void testDeleteQueryWithFailures() throws IOException {
+		MockRESTServer server = new MockRESTServer();
+		DatabaseClient client = server.newClient();
+		try {
+			for (int i=0; i < 50; i++) {
+				server.putDocument(DIRECTORY+"failures/"+(100 + i)+".txt", "text/plain",
+						("bulk delete "+i).getBytes());
+			}
+			// the failures are spread through the results
+			String[] undeletable = {DIRECTORY+"failures/105.txt",
+					DIRECTORY+"failures/120.txt", DIRECTORY+"failures/141.txt"};
+			server.setUndeletable(undeletable);
+
+			// each failure shares a batch with deletable documents
+			BulkDeleter deleter = client.newBulkManager().newDeleter();
+			deleter.setBatchSize(10);
+			deleter.setThreadCount(2);
+			BatchSummary summary = deleter.delete(client.newQueryManager().newStringDefinition());
+			assertEquals("Wrong number of deleted uris", 47, summary.getSucceededCount());
+			assertEquals("Failures counted more than once", 3, summary.getFailedCount());
+			assertEquals("Wrong remaining documents", 3, server.getDocumentCount());
+			for (String uri: undeletable) {
+				assertNotNull("Undeletable document missing", server.getDocument(uri));
+			}
+		} finally {
+			client.release();
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testDeleteUrisWithFailure() throws IOException {
+		MockRESTServer server = new MockRESTServer();
+		DatabaseClient client = server.newClient();
+		try {
+			List<String> uris = new ArrayList<String>();
+			for (int i=0; i < 10; i++) {
+				String uri = DIRECTORY+"failure/"+(100 + i)+".txt";
+				server.putDocument(uri, "text/plain", ("bulk delete "+i).getBytes());
+				uris.add(uri);
+			}
+			server.setUndeletable(DIRECTORY+"failure/106.txt");
+
+			BulkDeleter deleter = client.newBulkManager().newDeleter();
+			deleter.setBatchSize(10);
+			BatchSummary summary = deleter.delete(uris.iterator());
+			assertEquals("Wrong batch count", 1, summary.getBatchCount());
+			assertEquals("Deletable documents in the batch failed", 9, summary.getSucceededCount());
+			assertEquals("Wrong number of failed uris", 1, summary.getFailedCount());
+			assertEquals("Wrong remaining documents", 1, server.getDocumentCount());
+			assertNotNull("Undeletable document missing", server.getDocument(DIRECTORY+"failure/106.txt"));
+		} finally {
+			client.release();
+			server.stop();
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.bulk.BulkExporter;
+import com.marklogic.client.bulk.ExportIterator;
+import com.marklogic.client.document.DocumentManager.Metadata;
+import com.marklogic.client.document.DocumentRecord;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.query.StringQueryDefinition;
+import com.marklogic.client.test.util.MockRESTServer;
+
+public class BulkExportTest {
+	private static final String DIRECTORY = "/test/bulkexport/";
+	private static final int    DOC_COUNT = 25;
+
+	private MockRESTServer server;
+	private DatabaseClient client;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new MockRESTServer();
+		client = server.newClient();
+		for (int i=0; i < DOC_COUNT; i++) {
+			server.putDocument(DIRECTORY+(100 + i)+".xml", "application/xml",
+					("<doc>"+i+"</doc>").getBytes());
+		}
+		server.resetCounts();
+	}
+	@After
+	public void tearDown() {
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void testExportUris() {
+		BulkExporter exporter = client.newBulkManager().newExporter();
+		exporter.setPageLength(10);
+
+		List<String> uris = new ArrayList<String>();
+		ExportIterator<String> iterator = exporter.exportUris(newQuery());
+		while (iterator.hasNext()) {
+			uris.add(iterator.next());
+		}
+		iterator.close();
+
+		assertEquals("Wrong number of exported uris", DOC_COUNT, uris.size());
+		assertEquals("Wrong first uri", DIRECTORY+"100.xml", uris.get(0));
+		assertEquals("Wrong last uri", DIRECTORY+"124.xml", uris.get(DOC_COUNT - 1));
+		assertEquals("Wrong page count", 3, iterator.getPageCount());
+		assertEquals("Wrong search count", 3, server.getRequestCount("search"));
+		assertEquals("Read document content", 0, server.getRequestCount("documents"));
+	}
+
+	@Test
+	public void testExportMetadata() {
+		BulkExporter exporter = client.newBulkManager().newExporter();
+		exporter.setPageLength(10);
+		exporter.setPrefetchPages(1);
+
+		int count = 0;
+		ExportIterator<DocumentRecord> iterator =
+			exporter.exportMetadata(newQuery(), Metadata.COLLECTIONS);
+		while (iterator.hasNext()) {
+			DocumentRecord record = iterator.next();
+			assertEquals("Wrong exported uri", DIRECTORY+(100 + count)+".xml", record.getUri());
+			assertNull("Exported content format", record.getFormat());
+			assertTrue("Missing exported metadata",
+					record.getMetadataAs(String.class).contains("metadata"));
+			boolean hasContent = true;
+			try {
+				record.getContent(new StringHandle());
+			} catch (IllegalStateException e) {
+				hasContent = false;
+			}
+			assertTrue("Exported content", !hasContent);
+			count++;
+		}
+
+		assertEquals("Wrong number of exported records", DOC_COUNT, count);
+		assertEquals("Wrong page count", 3, iterator.getPageCount());
+	}
+
+	@Test
+	public void testClose() {
+		BulkExporter exporter = client.newBulkManager().newExporter();
+		exporter.setPageLength(5);
+
+		ExportIterator<String> iterator = exporter.exportUris(newQuery());
+		assertEquals("Wrong first uri", DIRECTORY+"100.xml", iterator.next());
+		iterator.close();
+		assertTrue("Items after close", !iterator.hasNext());
+		assertTrue("Read every page after close", server.getRequestCount("search") < 5);
+	}
+
+	private StringQueryDefinition newQuery() {
+		StringQueryDefinition querydef = client.newQueryManager().newStringDefinition();
+		querydef.setCriteria("bulk export");
+		return querydef;
+	}
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.bulk.BatchSummary;
+import com.marklogic.client.bulk.BulkLoader;
+import com.marklogic.client.document.DocumentUriTemplate;
+import com.marklogic.client.io.DocumentMetadataHandle;
+import com.marklogic.client.test.util.MockRESTServer;
+
+public class BulkLoadTest {
+	private MockRESTServer server;
+	private DatabaseClient client;
+	private File           tempDir;
+
+	@Before
+	public void setUp() throws IOException {
+		server  = new MockRESTServer();
+		client  = server.newClient();
+		tempDir = File.createTempFile("bulkload", "");
+		tempDir.delete();
+		tempDir.mkdirs();
+	}
+	@After
+	public void tearDown() {
+		client.release();
+		server.stop();
+		delete(tempDir);
+	}
+
+	@Test
+	public void testLoadDirectory() throws IOException {
+		File source = new File(tempDir, "source");
+		writeFile(new File(source, "a.xml"),          "<a/>");
+		writeFile(new File(source, "b.json"),         "{\"b\":true}");
+		writeFile(new File(source, "sub/c.txt"),      "c");
+		writeFile(new File(source, "sub/deep/d.bin"), "d");
+		writeFile(new File(source, "sub/e.xml"),      "<e/>");
+
+		BulkLoader loader = client.newBulkManager().newLoader();
+		loader.setBatchSize(2);
+		loader.setThreadCount(2);
+		loader.setMetadata(new DocumentMetadataHandle().withCollections("loaded"));
+		BatchSummary summary = loader.loadDirectory(source);
+
+		assertEquals("Wrong batch count", 3, summary.getBatchCount());
+		assertEquals("Wrong loaded count", 5, summary.getSucceededCount());
+		assertEquals("Wrong document count", 5, server.getDocumentCount());
+		assertEquals("Wrong content", "<a/>", new String(server.getDocument("/a.xml")));
+		assertEquals("Wrong nested content", "d",
+				new String(server.getDocument("/sub/deep/d.bin")));
+		assertEquals("Wrong XML mimetype", "application/xml",
+				server.getDocumentMimetype("/a.xml"));
+		assertEquals("Wrong JSON mimetype", "application/json",
+				server.getDocumentMimetype("/b.json"));
+		assertEquals("Wrong text mimetype", "text/plain",
+				server.getDocumentMimetype("/sub/c.txt"));
+		assertEquals("Wrong binary mimetype", "application/octet-stream",
+				server.getDocumentMimetype("/sub/deep/d.bin"));
+		assertNotNull("Missing default metadata", server.getDocumentMetadata("/sub/e.xml"));
+		assertTrue("Wrong default metadata",
+				new String(server.getDocumentMetadata("/sub/e.xml")).contains("loaded"));
+	}
+
+	@Test
+	public void testLoadArchives() throws IOException {
+		File zip = new File(tempDir, "docs.zip");
+		ZipOutputStream zipOut = new ZipOutputStream(new FileOutputStream(zip));
+		for (int i=0; i < 5; i++) {
+			zipOut.putNextEntry(new ZipEntry("zipped/doc"+i+".xml"));
+			zipOut.write(("<zipped>"+i+"</zipped>").getBytes("UTF-8"));
+			zipOut.closeEntry();
+		}
+		zipOut.close();
+
+		File tgz = new File(tempDir, "docs.tgz");
+		OutputStream tarOut = new GZIPOutputStream(new FileOutputStream(tgz));
+		writeTarEntry(tarOut, "./tarred/", null);
+		for (int i=0; i < 4; i++) {
+			writeTarEntry(tarOut, "./tarred/doc"+i+".json", "{\"tarred\":"+i+"}");
+		}
+		tarOut.write(new byte[1024]);
+		tarOut.close();
+
+		DocumentUriTemplate template = client.newXMLDocumentManager().newDocumentUriTemplate("xml");
+		template.setDirectory("/archive/zip/");
+
+		BulkLoader loader = client.newBulkManager().newLoader();
+		loader.setBatchSize(3);
+		loader.setUriTemplate(template);
+		assertEquals("Wrong zip count", 5, loader.loadArchive(zip).getSucceededCount());
+
+		loader.setUriTemplate(null);
+		loader.setUriMaker(new BulkLoader.UriMaker() {
+			@Override
+			public String makeUri(String path) {
+				return "/archive/"+path;
+			}
+		});
+
+		assertEquals("Wrong tar count", 4, loader.loadArchive(tgz).getSucceededCount());
+		assertEquals("Wrong document count", 9, server.getDocumentCount());
+		assertEquals("Wrong zip content", "<zipped>4</zipped>",
+				new String(server.getDocument("/archive/zip/zipped/doc4.xml"), "UTF-8"));
+		assertEquals("Wrong tar content", "{\"tarred\":3}",
+				new String(server.getDocument("/archive/tarred/doc3.json"), "UTF-8"));
+		assertEquals("Wrong tar mimetype", "application/json",
+				server.getDocumentMimetype("/archive/tarred/doc3.json"));
+	}
+
+	@Test
+	public void testResume() throws IOException {
+		File source = new File(tempDir, "source");
+		for (int i=0; i < 6; i++) {
+			writeFile(new File(source, "doc"+i+".txt"), "text "+i);
+		}
+		final File checkpoint = new File(tempDir, "load.checkpoint");
+
+		BulkLoader loader = client.newBulkManager().newLoader();
+		loader.setBatchSize(2);
+		loader.setThreadCount(1);
+		loader.setCheckpointFile(checkpoint);
+		loader.setUriMaker(new BulkLoader.UriMaker() {
+			@Override
+			public String makeUri(String path) {
+				if (path.equals("doc4.txt")) {
+					// waits for the first two batches, then fails like a crashed load
+					long deadline = System.currentTimeMillis() + 5000;
+					while (readCompleted(checkpoint) < 4 && System.currentTimeMillis() < deadline) {
+						try {
+							Thread.sleep(10);
+						} catch (InterruptedException e) {
+							break;
+						}
+					}
+					throw new IllegalStateException("simulated crash");
+				}
+				return "/resume/"+path;
+			}
+		});
+
+		boolean crashed = false;
+		try {
+			loader.loadDirectory(source);
+		} catch (IllegalStateException e) {
+			crashed = true;
+		}
+		assertTrue("Load did not crash", crashed);
+		assertEquals("Wrong checkpoint", 4, readCompleted(checkpoint));
+		assertEquals("Wrong documents before resume", 4, server.getDocumentCount());
+
+		loader.setUriMaker(new BulkLoader.UriMaker() {
+			@Override
+			public String makeUri(String path) {
+				return "/resume/"+path;
+			}
+		});
+		server.resetCounts();
+		BatchSummary summary = loader.loadDirectory(source);
+		assertEquals("Resume reloaded documents", 2, summary.getSucceededCount());
+		assertEquals("Wrong write requests on resume", 1, server.getRequestCount("documents"));
+		assertEquals("Wrong documents after resume", 6, server.getDocumentCount());
+		assertTrue("Checkpoint remains after load", !checkpoint.exists());
+	}
+
+	@Test
+	public void testResumeChangedSource() throws IOException {
+		File source = new File(tempDir, "changed");
+		for (int i=0; i < 6; i++) {
+			writeFile(new File(source, "doc"+i+".txt"), "text "+i);
+		}
+		// records the first four entries as loaded
+		File checkpoint = new File(tempDir, "changed.checkpoint");
+		Properties properties = new Properties();
+		properties.setProperty("source",    source.getCanonicalPath());
+		properties.setProperty("completed", "4");
+		properties.setProperty("lastPath",  "doc3.txt");
+		FileOutputStream out = new FileOutputStream(checkpoint);
+		properties.store(out, null);
+		out.close();
+
+		BulkLoader loader = client.newBulkManager().newLoader();
+		loader.setBatchSize(2);
+		loader.setCheckpointFile(checkpoint);
+
+		// an added file moves the last completed entry
+		File added = new File(source, "doc0a.txt");
+		writeFile(added, "text added");
+		boolean refused = false;
+		try {
+			loader.loadDirectory(source);
+		} catch (IllegalArgumentException e) {
+			refused = true;
+		}
+		assertTrue("Resumed a changed source", refused);
+		assertEquals("Loaded documents from a changed source", 0, server.getDocumentCount());
+		assertEquals("Wrong checkpoint after refusal", 4, readCompleted(checkpoint));
+
+		added.delete();
+		BatchSummary summary = loader.loadDirectory(source);
+		assertEquals("Wrong documents after resume", 2, summary.getSucceededCount());
+		assertNotNull("Missing resumed document", server.getDocument("/doc5.txt"));
+		assertTrue("Checkpoint remains after load", !checkpoint.exists());
+	}
+
+	private long readCompleted(File checkpoint) {
+		if (!checkpoint.exists())
+			return 0;
+		Properties properties = new Properties();
+		try {
+			FileInputStream in = new FileInputStream(checkpoint);
+			try {
+				properties.load(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return 0;
+		}
+		return Long.parseLong(properties.getProperty("completed", "0"));
+	}
+
+	private void writeFile(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(content.getBytes("UTF-8"));
+		out.close();
+	}
+	private void writeTarEntry(OutputStream out, String name, String content) throws IOException {
+		byte[] data = (content == null) ? new byte[0] : content.getBytes("UTF-8");
+		byte[] header = new byte[512];
+		byte[] nameBytes = name.getBytes("UTF-8");
+		System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+		byte[] size = String.format("%011o", data.length).getBytes("UTF-8");
+		System.arraycopy(size, 0, header, 124, size.length);
+		header[156] = (byte) ((content == null) ? '5' : '0');
+		System.arraycopy("ustar".getBytes("UTF-8"), 0, header, 257, 5);
+		out.write(header);
+		out.write(data);
+		int padding = (512 - data.length % 512) % 512;
+		out.write(new byte[padding]);
+	}
+	private void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child: children)
+				delete(child);
+		}
+		file.delete();
+	}
+}
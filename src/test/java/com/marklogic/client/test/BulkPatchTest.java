@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.marklogic.client.bulk.Batch;
+import com.marklogic.client.bulk.BatchListener;
+import com.marklogic.client.bulk.BatchSummary;
+import com.marklogic.client.bulk.BulkPatcher;
+import com.marklogic.client.document.DocumentMetadataPatchBuilder;
+import com.marklogic.client.document.DocumentWriteSet;
+import com.marklogic.client.document.TextDocumentManager;
+import com.marklogic.client.io.DocumentMetadataHandle;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+
+public class BulkPatchTest {
+	private static final String DIRECTORY = "/test/bulkpatch/";
+	private static final int    DOC_COUNT = 120;
+
+	@BeforeClass
+	public static void beforeClass() {
+		Common.connect();
+	}
+	@AfterClass
+	public static void afterClass() {
+		Common.release();
+	}
+
+	@Test
+	public void testPatchUris() {
+		TextDocumentManager docMgr = Common.client.newTextDocumentManager();
+
+		List<String> uris = new ArrayList<String>();
+		DocumentWriteSet writeSet = docMgr.newWriteSet();
+		for (int i=0; i < DOC_COUNT; i++) {
+			String uri = DIRECTORY + i + ".txt";
+			uris.add(uri);
+			writeSet.add(uri, new StringHandle("bulk patch "+i));
+		}
+		docMgr.write(writeSet);
+
+		String missingUri = DIRECTORY + "missing.txt";
+		uris.add(missingUri);
+
+		DocumentMetadataPatchBuilder patchBldr = docMgr.newPatchBuilder(Format.XML);
+		patchBldr.addCollection("/test/bulkpatch/patched");
+
+		final List<String> failedUris = new ArrayList<String>();
+		BulkPatcher patcher = Common.client.newBulkManager().newPatcher(patchBldr.build());
+		patcher.setBatchSize(25);
+		patcher.setBatchListener(new BatchListener() {
+			@Override
+			public void batchSucceeded(Batch batch) {
+			}
+			@Override
+			public void batchFailed(Batch batch) {
+				synchronized(failedUris) {
+					for (String uri: batch.getFailedUris())
+						failedUris.add(uri);
+				}
+			}
+		});
+
+		BatchSummary summary = patcher.patch(uris.iterator());
+		assertEquals("Wrong number of patched uris", DOC_COUNT, summary.getSucceededCount());
+		assertEquals("Wrong number of failed uris", 1, summary.getFailedCount());
+		assertEquals("Wrong failed uri", missingUri, failedUris.get(0));
+
+		DocumentMetadataHandle metadata =
+			docMgr.readMetadata(uris.get(DOC_COUNT - 1), new DocumentMetadataHandle());
+		assertTrue("Patch not applied",
+				metadata.getCollections().contains("/test/bulkpatch/patched"));
+
+		Common.client.newBulkManager().newDeleter().delete(uris.iterator());
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.bulk.BatchSummary;
+import com.marklogic.client.bulk.CSVLoader;
+import com.marklogic.client.bulk.CSVLoader.ColumnType;
+import com.marklogic.client.io.DocumentMetadataHandle;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.test.util.MockRESTServer;
+
+public class CSVLoadTest {
+	private MockRESTServer server;
+	private DatabaseClient client;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new MockRESTServer();
+		client = server.newClient();
+	}
+	@After
+	public void tearDown() {
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void testJSON() throws IOException {
+		StringBuilder csv = new StringBuilder("id,name,price,active,notes\r\n");
+		for (int i=1; i <= 95; i++) {
+			csv.append(i).append(",\"Item, number ").append(i).append("\",")
+			   .append(i).append(".5,").append((i % 2 == 0) ? "yes" : "no")
+			   .append(",\"said \"\"hi\"\"\nthen left\"\r\n");
+		}
+		csv.append("\r\n");
+		File file = File.createTempFile("items", ".csv");
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(csv.toString().getBytes("UTF-8"));
+			out.close();
+
+			CSVLoader loader = client.newBulkManager().newCSVLoader();
+			loader.setBatchSize(10);
+			loader.setThreadCount(4);
+			loader.setColumnType("id",     ColumnType.NUMBER);
+			loader.setColumnType("price",  ColumnType.NUMBER);
+			loader.setColumnType("active", ColumnType.BOOLEAN);
+			loader.setColumnType("notes",  ColumnType.SKIP);
+			loader.setUriPrefix("/csv/");
+			loader.setMetadata(new DocumentMetadataHandle().withCollections("csv"));
+			BatchSummary summary = loader.load(file);
+
+			assertEquals("Wrong batch count", 10, summary.getBatchCount());
+			assertEquals("Wrong loaded count", 95, summary.getSucceededCount());
+			assertEquals("Wrong document count", 95, server.getDocumentCount());
+			assertEquals("Wrong JSON document",
+					"{\"id\":42,\"name\":\"Item, number 42\",\"price\":42.5,\"active\":true}",
+					new String(server.getDocument("/csv/42.json"), "UTF-8"));
+			assertEquals("Wrong mimetype", "application/json",
+					server.getDocumentMimetype("/csv/42.json"));
+			assertTrue("Missing default metadata",
+					new String(server.getDocumentMetadata("/csv/95.json"), "UTF-8").contains("csv"));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testXMLAndTabs() throws IOException {
+		String tsv = "1\tfirst\t\"quoted\"\n2\tsecond\n3\tthird\ta & b\n";
+
+		CSVLoader loader = client.newBulkManager().newCSVLoader();
+		loader.setDelimiter('\t');
+		loader.setQuote(CSVLoader.NO_QUOTE);
+		loader.setHeader(false);
+		loader.setColumnNames("key", "first name", "note");
+		loader.setFormat(Format.XML);
+		loader.setRootName("person");
+		loader.setUriMaker(new CSVLoader.RowUriMaker() {
+			@Override
+			public String makeUri(long rowNumber, String[] columnNames, String[] values) {
+				return "/people/"+values[0]+".xml";
+			}
+		});
+		assertEquals("Wrong loaded count", 3,
+				loader.load(new StringReader(tsv)).getSucceededCount());
+
+		assertEquals("Wrong unquoted document",
+				"<person><key>1</key><first_name>first</first_name><note>\"quoted\"</note></person>",
+				stripDeclaration(server.getDocument("/people/1.xml")));
+		assertEquals("Wrong short row",
+				"<person><key>2</key><first_name>second</first_name><note/></person>",
+				stripDeclaration(server.getDocument("/people/2.xml")));
+		assertEquals("Wrong escaped document",
+				"<person><key>3</key><first_name>third</first_name><note>a &amp; b</note></person>",
+				stripDeclaration(server.getDocument("/people/3.xml")));
+	}
+
+	private String stripDeclaration(byte[] content) throws IOException {
+		return new String(content, "UTF-8").replaceFirst("^<\\?xml[^>]*\\?>\\s*", "");
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.marklogic.client.CompressionPolicy;
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.document.DocumentPage;
+import com.marklogic.client.document.DocumentWriteSet;
+import com.marklogic.client.document.XMLDocumentManager;
+import com.marklogic.client.io.InputStreamHandle;
+import com.marklogic.client.io.StringHandle;
+
+public class CompressionTest {
+	static DatabaseClient client;
+
+	@BeforeClass
+	public static void beforeClass() {
+		client = Common.newClient();
+	}
+	@AfterClass
+	public static void afterClass() {
+		client.release();
+		client = null;
+	}
+
+	@Test
+	public void testMimetypes() {
+		CompressionPolicy policy = new CompressionPolicy();
+		assertTrue("XML not allowed",       policy.isAllowedMimetype("application/xml"));
+		assertTrue("Text subtype not allowed", policy.isAllowedMimetype("text/plain; charset=utf-8"));
+		assertTrue("Multipart not allowed",
+				policy.isAllowedMimetype("multipart/mixed; boundary=abc"));
+		assertFalse("Binary allowed",       policy.isAllowedMimetype("image/png"));
+
+		policy.withMimetypes("image/*");
+		assertTrue("Added subtype wildcard not allowed", policy.isAllowedMimetype("image/png"));
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		assertNull("Client compresses by default", client.getCompressionPolicy());
+
+		client.setCompressionPolicy(new CompressionPolicy().withThreshold(0));
+
+		StringBuilder buf = new StringBuilder("<root>");
+		for (int i=0; i < 1000; i++) {
+			buf.append("<item>repeated item content ").append(i).append("</item>");
+		}
+		buf.append("</root>");
+		String content = buf.toString();
+
+		XMLDocumentManager docMgr = client.newXMLDocumentManager();
+
+		String docId = "/test/compressed1.xml";
+		docMgr.write(docId, new StringHandle(content));
+		assertXMLEqualsContent("Failed to read compressed document", content,
+				docMgr.read(docId, new StringHandle()).get());
+
+		InputStreamHandle streamHandle = docMgr.read(docId, new InputStreamHandle());
+		assertEquals("Failed to stream compressed document", content,
+				new String(Common.streamToBytes(streamHandle.get()), "UTF-8"));
+
+		String docId2 = "/test/compressed2.xml";
+		DocumentWriteSet writeSet = docMgr.newWriteSet();
+		writeSet.add(docId,  new StringHandle(content));
+		writeSet.add(docId2, new StringHandle(content));
+		docMgr.write(writeSet);
+
+		DocumentPage page = docMgr.read(docId, docId2);
+		assertEquals("Failed to read compressed bulk documents", 2, page.size());
+		while (page.hasNext()) {
+			assertXMLEqualsContent("Failed to read compressed bulk document", content,
+					page.nextContent(new StringHandle()).get());
+		}
+		page.close();
+
+		docMgr.delete(docId);
+		docMgr.delete(docId2);
+
+		client.setCompressionPolicy(null);
+	}
+
+	// the server may add an XML declaration to the document
+	private void assertXMLEqualsContent(String message, String expected, String actual) {
+		assertTrue(message, actual.endsWith(expected));
+	}
+}
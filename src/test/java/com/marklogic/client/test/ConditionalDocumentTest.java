@@ -24,6 +24,7 @@ import java.io.IOException;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 import com.marklogic.client.DatabaseClient;
@@ -33,9 +34,11 @@ import com.marklogic.client.ResourceNotFoundException;
 import com.marklogic.client.ResourceNotResendableException;
 import com.marklogic.client.admin.ServerConfigurationManager;
 import com.marklogic.client.admin.ServerConfigurationManager.UpdatePolicy;
+import com.marklogic.client.document.DocumentCache;
 import com.marklogic.client.document.DocumentDescriptor;
 import com.marklogic.client.document.XMLDocumentManager;
 import com.marklogic.client.impl.FailedRequest;
+import com.marklogic.client.io.DOMHandle;
 import com.marklogic.client.io.Format;
 import com.marklogic.client.io.StringHandle;
 
@@ -197,4 +200,43 @@ public class ConditionalDocumentTest {
 		desc.setVersion(goodVersion);
 		docMgr.delete(desc);
 	}
+
+	@Test
+	public void testCachedRead() throws SAXException, IOException {
+		String docId = "/test/conditional2.xml";
+
+		XMLDocumentManager docMgr = Common.client.newXMLDocumentManager();
+
+		DocumentDescriptor desc = docMgr.exists(docId);
+		if (desc != null) {
+			docMgr.delete(desc);
+		}
+
+		desc = docMgr.newDescriptor(docId);
+		desc.setFormat(Format.XML);
+		docMgr.write(desc, new StringHandle().with(GenericDocumentTest.content));
+
+		DocumentCache cache = docMgr.newDocumentCache(10, 1024 * 1024);
+		docMgr.setDocumentCache(cache);
+
+		String result = docMgr.read(docId, new StringHandle()).get();
+		assertXMLEqual("Failed to read document content", result, GenericDocumentTest.content);
+		assertTrue("Read did not cache document", cache.contains(docId));
+		assertEquals("Read was not a cache miss", 1, cache.getMissCount());
+
+		result = docMgr.read(docId, new StringHandle()).get();
+		assertXMLEqual("Failed to read cached content", result, GenericDocumentTest.content);
+		assertEquals("Read was not a cache hit", 1, cache.getHitCount());
+
+		Document domResult = docMgr.read(docId, new DOMHandle()).get();
+		assertEquals("Failed to read cached content as DOM",
+				"root", domResult.getDocumentElement().getTagName());
+		assertEquals("Read as DOM was not a cache hit", 2, cache.getHitCount());
+
+		desc = docMgr.exists(docId);
+		docMgr.delete(desc);
+		assertTrue("Delete did not remove cached document", !cache.contains(docId));
+
+		docMgr.setDocumentCache(null);
+	}
 }
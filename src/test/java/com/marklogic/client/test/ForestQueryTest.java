@@ -0,0 +1,173 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.bulk.ExportIterator;
+import com.marklogic.client.document.DocumentRecord;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.query.ForestQueryExecutor;
+import com.marklogic.client.query.QueryDefinition;
+import com.marklogic.client.query.QueryManager;
+import com.marklogic.client.query.StringQueryDefinition;
+import com.marklogic.client.query.StructuredQueryBuilder;
+import com.marklogic.client.test.util.MockRESTServer;
+
+public class ForestQueryTest {
+	private static final int DOC_COUNT    = 103;
+	private static final int FOREST_COUNT = 5;
+
+	private MockRESTServer server;
+	private DatabaseClient client;
+	private QueryManager   queryMgr;
+	private Set<String>    uris;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new MockRESTServer();
+		server.setForestCount(FOREST_COUNT);
+		client = server.newClient();
+		queryMgr = client.newQueryManager();
+
+		uris = new TreeSet<String>();
+		for (int i=0; i < DOC_COUNT; i++) {
+			String uri = "/forest/doc"+i+".xml";
+			uris.add(uri);
+			server.putDocument(uri, "application/xml", ("<doc>"+i+"</doc>").getBytes());
+		}
+		server.resetCounts();
+	}
+	@After
+	public void tearDown() {
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void testForests() {
+		ForestQueryExecutor executor = queryMgr.newForestQueryExecutor();
+		assertArrayEquals("Wrong forests",
+				new String[]{"1000", "1001", "1002", "1003", "1004"}, executor.getForestIds());
+		executor.getForestIds();
+		assertEquals("Forests not looked up once", 1, server.getRequestCount("eval"));
+
+		StringQueryDefinition querydef = queryMgr.newStringDefinition();
+		querydef.setCriteria("anything");
+		assertEquals("Wrong count", DOC_COUNT, executor.count(querydef));
+		assertEquals("Wrong count requests", FOREST_COUNT, server.getRequestCount("search"));
+
+		String body = new String(server.getLastSearchBody());
+		assertTrue("No criteria in forest query", body.contains("<qtext>anything</qtext>"));
+		assertTrue("No forest in forest query", body.contains("<forest>"));
+
+		executor.setForestIds("1001", "1003");
+		executor.setForestsPerQuery(2);
+		long expected = 0;
+		for (String uri: uris) {
+			String forestId = server.getForestId(uri);
+			if ("1001".equals(forestId) || "1003".equals(forestId))
+				expected++;
+		}
+		assertEquals("Wrong count for some forests", expected, executor.count(querydef));
+	}
+
+	@Test
+	public void testExportUris() {
+		ForestQueryExecutor executor = queryMgr.newForestQueryExecutor();
+		executor.setPageLength(7);
+		executor.setThreadCount(3);
+		server.setLatency(20);
+
+		StructuredQueryBuilder qb = new StructuredQueryBuilder();
+		List<String> exported = exportUris(executor, qb.directory(true, "/forest/"));
+		assertEquals("Wrong uri count", DOC_COUNT, exported.size());
+		assertEquals("Wrong uris", uris, new TreeSet<String>(exported));
+		assertTrue("Forests not concurrent", server.getMaxConcurrentRequests() > 1);
+
+		// pages through each forest separately
+		long expectedRequests = 0;
+		for (String forestId: executor.getForestIds()) {
+			int forestSize = 0;
+			for (String uri: uris) {
+				if (forestId.equals(server.getForestId(uri)))
+					forestSize++;
+			}
+			expectedRequests += forestSize / 7 + 1;
+		}
+		assertEquals("Wrong page requests", expectedRequests, server.getRequestCount("search"));
+
+		executor.setForestsPerQuery(FOREST_COUNT);
+		String json = "{\"search\":{\"qtext\":\"anything\"}}";
+		exported = exportUris(executor, queryMgr.newRawCombinedQueryDefinition(
+				new StringHandle(json).withFormat(Format.JSON)));
+		assertEquals("Wrong uris for JSON query", uris, new TreeSet<String>(exported));
+		assertTrue("No forests in JSON query",
+				new String(server.getLastSearchBody()).contains("\"forest\":[\"1000\""));
+	}
+
+	@Test
+	public void testExportDocuments() {
+		ForestQueryExecutor executor = queryMgr.newForestQueryExecutor();
+		executor.setPageLength(10);
+
+		ExportIterator<DocumentRecord> records = executor.exportDocuments(queryMgr.newStringDefinition());
+		Set<String> exported = new TreeSet<String>();
+		while (records.hasNext()) {
+			DocumentRecord record = records.next();
+			assertEquals("Wrong content for "+record.getUri(),
+					new String(server.getDocument(record.getUri())),
+					record.getContent(new StringHandle()).get());
+			exported.add(record.getUri());
+		}
+		assertEquals("Wrong documents", uris, exported);
+
+		// closing early stops the forest reads
+		records = executor.exportDocuments(queryMgr.newStringDefinition());
+		assertTrue("No first document", records.hasNext());
+		records.next();
+		records.close();
+		assertFalse("Documents after close", records.hasNext());
+	}
+
+	private List<String> exportUris(ForestQueryExecutor executor, QueryDefinition querydef) {
+		List<String> exported = new ArrayList<String>();
+		ExportIterator<String> iterator = executor.exportUris(querydef);
+		try {
+			while (iterator.hasNext()) {
+				exported.add(iterator.next());
+			}
+		} finally {
+			iterator.close();
+		}
+		return exported;
+	}
+}
@@ -19,6 +19,7 @@ import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathEvaluatesTo;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathExists;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -254,6 +255,8 @@ public class GenericDocumentTest {
 		String transactionName = "java-client-" + seed.nextLong();
 
 		Transaction transaction = Common.client.openTransaction(transactionName);
+		assertTrue("Open transactions do not include new transaction",
+				Common.client.getOpenTransactions().contains(transaction));
 		StringHandle docHandle = docMgr.read(docId1, new StringHandle(), transaction);
 		docMgr.write(docId2, docHandle, transaction);
 		docMgr.delete(docId1, transaction);
@@ -263,6 +266,8 @@ public class GenericDocumentTest {
 				"string(.) = '"+transactionName+"']", status);
 
 		transaction.commit();
+		assertFalse("Open transactions include committed transaction",
+				Common.client.getOpenTransactions().contains(transaction));
 
 		assertTrue("Document 1 exists",        docMgr.exists(docId1)==null);
 		assertTrue("Document 2 doesn't exist", docMgr.exists(docId2)!=null);
@@ -283,6 +288,8 @@ public class GenericDocumentTest {
 		docMgr.write(docId2, docHandle, transaction);
 		docMgr.delete(docId1, transaction);
 		transaction.rollback();
+		assertFalse("Open transactions include rolled back transaction",
+				Common.client.getOpenTransactions().contains(transaction));
 
 		assertTrue("Document 1 doesn't exist", docMgr.exists(docId1)!=null);
 		assertTrue("Document 2 exists",        docMgr.exists(docId2)==null);
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.DatabaseClientFactory.HandleFactoryRegistry;
+import com.marklogic.client.document.JSONDocumentManager;
+import com.marklogic.client.document.XMLDocumentManager;
+import com.marklogic.client.impl.DatabaseClientImpl;
+import com.marklogic.client.impl.HandleFactoryRegistryImpl;
+import com.marklogic.client.io.DOMHandle;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.JacksonHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.marker.ContentHandle;
+import com.marklogic.client.test.util.MockRESTServer;
+
+public class HandlePoolingTest {
+	private MockRESTServer server;
+	private DatabaseClient client;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new MockRESTServer();
+		client = server.newClient();
+	}
+	@After
+	public void tearDown() {
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void testRegistryPooling() {
+		HandleFactoryRegistry registry = HandleFactoryRegistryImpl.newDefault();
+		assertTrue("Handle pooling on by default", !registry.isHandlePooling());
+
+		ContentHandle<Document> first = registry.acquireHandle(Document.class);
+		registry.releaseHandle(Document.class, first);
+		assertNotSame("Reused handle without pooling", first, registry.acquireHandle(Document.class));
+
+		registry.setHandlePooling(true);
+		assertTrue("Copy lost handle pooling", registry.copy().isHandlePooling());
+
+		DOMHandle domHandle = (DOMHandle) registry.acquireHandle(Document.class);
+		domHandle.fromBuffer("<root/>".getBytes());
+		domHandle.setMimetype("application/custom+xml");
+		domHandle.setByteLength(7);
+		registry.releaseHandle(Document.class, domHandle);
+
+		ContentHandle<Document> reused = registry.acquireHandle(Document.class);
+		assertSame("Failed to reuse released handle", domHandle, reused);
+		assertNull("Reused handle kept content", reused.get());
+		assertEquals("Reused handle kept mimetype", "application/xml", domHandle.getMimetype());
+		assertEquals("Reused handle kept length", -1, domHandle.getByteLength());
+		assertNotSame("Nested acquire shared a handle", reused, registry.acquireHandle(Document.class));
+
+		// a handle from a factory that cannot reset its handles is never pooled
+		ContentHandle<String> stringHandle = registry.acquireHandle(String.class);
+		registry.releaseHandle(String.class, stringHandle);
+		assertNotSame("Pooled a handle without a reusable factory",
+				stringHandle, registry.acquireHandle(String.class));
+
+		// registering a factory drops the handles pooled for the old factories
+		registry.releaseHandle(Document.class, reused);
+		registry.register(DOMHandle.newFactory());
+		assertNotSame("Reused a handle from a replaced factory",
+				reused, registry.acquireHandle(Document.class));
+	}
+
+	@Test
+	public void testPooledReads() {
+		HandleFactoryRegistry registry = ((DatabaseClientImpl) client).getHandleRegistry();
+		registry.setHandlePooling(true);
+
+		XMLDocumentManager xmlMgr = client.newXMLDocumentManager();
+		JSONDocumentManager jsonMgr = client.newJSONDocumentManager();
+		for (int i=1; i <= 3; i++) {
+			xmlMgr.write("/pool/doc"+i+".xml", new StringHandle("<doc>"+i+"</doc>").withFormat(Format.XML));
+			jsonMgr.write("/pool/doc"+i+".json", new StringHandle("{\"doc\":"+i+"}").withFormat(Format.JSON));
+		}
+
+		Document previous = null;
+		for (int i=1; i <= 3; i++) {
+			Document document = xmlMgr.readAs("/pool/doc"+i+".xml", Document.class);
+			assertEquals("Wrong pooled document", String.valueOf(i),
+					document.getDocumentElement().getTextContent());
+			assertNotSame("Pooled read returned the same document", previous, document);
+			if (previous != null) {
+				assertEquals("Reused handle changed earlier document", String.valueOf(i - 1),
+						previous.getDocumentElement().getTextContent());
+			}
+			previous = document;
+
+			JsonNode node = jsonMgr.readAs("/pool/doc"+i+".json", JsonNode.class);
+			assertEquals("Wrong pooled JSON", i, node.get("doc").asInt());
+		}
+
+		ContentHandle<JsonNode> jsonHandle = registry.acquireHandle(JsonNode.class);
+		assertTrue("Wrong pooled handle class", jsonHandle instanceof JacksonHandle);
+		assertNull("Pooled handle kept content", jsonHandle.get());
+		registry.releaseHandle(JsonNode.class, jsonHandle);
+		assertSame("Failed to reuse released handle", jsonHandle,
+				registry.acquireHandle(JsonNode.class));
+	}
+}
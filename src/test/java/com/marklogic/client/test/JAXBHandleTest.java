@@ -16,14 +16,20 @@
 package com.marklogic.client.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.Validator;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -31,6 +37,8 @@ import org.junit.Test;
 
 import com.marklogic.client.document.XMLDocumentManager;
 import com.marklogic.client.io.JAXBHandle;
+import com.marklogic.client.io.marker.ContentHandle;
+import com.marklogic.client.io.marker.ContentHandleFactory;
 import com.marklogic.client.test.util.Referred;
 import com.marklogic.client.test.util.Refers;
 
@@ -97,4 +105,148 @@ public class JAXBHandleTest {
 		assertTrue("Failed to read JAXB list", refers2.list != null);
 		assertEquals("JAXB document with different list", refers.list.size(), refers2.list.size());
 	}
+
+	@Test
+	public void testThreadCoderCache() throws JAXBException {
+		CountingContext context = new CountingContext(JAXBContext.newInstance(Refers.class));
+		byte[] buffer = new JAXBHandle<Refers>(context).with(newRefers("first")).toBuffer();
+
+		// later handles for the same context borrow the coders returned by earlier handles
+		for (int i=0; i < 5; i++) {
+			JAXBHandle<Refers> handle = new JAXBHandle<Refers>(context);
+			handle.fromBuffer(buffer);
+			assertEquals("JAXB document with different root", "first", handle.get().name);
+			assertNotNull("Failed to marshal JAXB root", handle.toBuffer());
+		}
+		assertEquals("Unmarshaller not reused", 1, context.unmarshallers.get());
+		assertEquals("Marshaller not reused",   1, context.marshallers.get());
+
+		// a handle with its own unmarshaller doesn't borrow from the cache
+		JAXBHandle<Refers> ownHandle = new JAXBHandle<Refers>(context);
+		Unmarshaller own = ownHandle.getUnmarshaller();
+		ownHandle.fromBuffer(buffer);
+		assertEquals("Own unmarshaller replaced", own, ownHandle.getUnmarshaller());
+		assertEquals("Unmarshaller not created for handle", 2, context.unmarshallers.get());
+		new JAXBHandle<Refers>(context).fromBuffer(buffer);
+		assertEquals("Own unmarshaller added to cache", 2, context.unmarshallers.get());
+	}
+
+	@Test
+	public void testNestedThreadCoders() throws JAXBException {
+		final CountingContext context = new CountingContext(JAXBContext.newInstance(Refers.class));
+		final byte[] inner = new JAXBHandle<Refers>(context).with(newRefers("inner")).toBuffer();
+		byte[]       outer = new JAXBHandle<Refers>(context).with(newRefers("outer")).toBuffer();
+
+		// reads another document on the same thread while the outer unmarshaller is in use
+		final List<String> nested = new ArrayList<String>();
+		context.listener = new Unmarshaller.Listener() {
+			@Override
+			public void afterUnmarshal(Object target, Object parent) {
+				if (!(target instanceof Refers) || nested.size() > 0)
+					return;
+				JAXBHandle<Refers> handle = new JAXBHandle<Refers>(context);
+				nested.add(null);
+				handle.fromBuffer(inner);
+				nested.set(0, handle.get().name);
+			}
+		};
+
+		JAXBHandle<Refers> handle = new JAXBHandle<Refers>(context);
+		handle.fromBuffer(outer);
+		assertEquals("Outer document damaged by nested read", "outer", handle.get().name);
+		assertEquals("Nested document not read", "inner", nested.get(0));
+		assertEquals("Nested read shared the outer unmarshaller", 2, context.unmarshallers.get());
+
+		new JAXBHandle<Refers>(context).fromBuffer(inner);
+		assertEquals("Unmarshaller not returned after nested read", 2, context.unmarshallers.get());
+	}
+
+	@Test
+	public void testThreadCoderEviction() throws JAXBException {
+		JAXBContext realContext = JAXBContext.newInstance(Refers.class);
+		byte[] buffer = new JAXBHandle<Refers>(realContext).with(newRefers("evicted")).toBuffer();
+
+		// one more context than the thread caches
+		CountingContext[] contexts = new CountingContext[17];
+		for (int i=0; i < contexts.length; i++) {
+			contexts[i] = new CountingContext(realContext);
+			new JAXBHandle<Refers>(contexts[i]).fromBuffer(buffer);
+		}
+
+		new JAXBHandle<Refers>(contexts[contexts.length - 1]).fromBuffer(buffer);
+		assertEquals("Recent context evicted", 1, contexts[contexts.length - 1].unmarshallers.get());
+
+		new JAXBHandle<Refers>(contexts[0]).fromBuffer(buffer);
+		assertEquals("Eldest context not evicted", 2, contexts[0].unmarshallers.get());
+	}
+
+	@Test
+	public void testStAXBinding() throws JAXBException {
+		CountingContext context = new CountingContext(JAXBContext.newInstance(Refers.class));
+
+		Refers refers = newRefers("stax");
+		refers.child  = new Referred();
+		refers.list   = new ArrayList<String>();
+		refers.list.add("apple");
+		refers.list.add("banana");
+		byte[] buffer = new JAXBHandle<Refers>(context).with(refers).toBuffer();
+
+		JAXBHandle<Refers> handle = new JAXBHandle<Refers>(context).withStAXBinding(true);
+		assertTrue("StAX binding not set", handle.isStAXBinding());
+		for (int i=0; i < 3; i++) {
+			handle.fromBuffer(buffer);
+			Refers refers2 = handle.get();
+			assertEquals("JAXB document with different root", refers.name, refers2.name);
+			assertNotNull("Failed to read JAXB child", refers2.child);
+			assertEquals("JAXB document with different child", refers.child.name, refers2.child.name);
+			assertEquals("JAXB document with different list", refers.list, refers2.list);
+		}
+		assertEquals("Unmarshaller not reused with StAX binding", 1, context.unmarshallers.get());
+
+		ContentHandleFactory factory = JAXBHandle.newFactory(context, true, Refers.class);
+		ContentHandle<Refers> factoryHandle = factory.newHandle(Refers.class);
+		assertTrue("StAX binding not set by factory",
+				((JAXBHandle<Refers>) factoryHandle).isStAXBinding());
+		assertFalse("StAX binding set by default",
+				((JAXBHandle<Refers>) JAXBHandle.newFactory(context, Refers.class).newHandle(Refers.class))
+				.isStAXBinding());
+	}
+
+	static private Refers newRefers(String name) {
+		Refers refers = new Refers();
+		refers.name = name;
+		return refers;
+	}
+
+	// counts the unmarshallers and marshallers created for the context
+	static private class CountingContext extends JAXBContext {
+		final AtomicInteger   unmarshallers = new AtomicInteger();
+		final AtomicInteger   marshallers   = new AtomicInteger();
+		Unmarshaller.Listener listener;
+		private JAXBContext   delegate;
+
+		CountingContext(JAXBContext delegate) {
+			super();
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Unmarshaller createUnmarshaller() throws JAXBException {
+			unmarshallers.incrementAndGet();
+			Unmarshaller unmarshaller = delegate.createUnmarshaller();
+			if (listener != null)
+				unmarshaller.setListener(listener);
+			return unmarshaller;
+		}
+		@Override
+		public Marshaller createMarshaller() throws JAXBException {
+			marshallers.incrementAndGet();
+			return delegate.createMarshaller();
+		}
+		@SuppressWarnings("deprecation")
+		@Override
+		public Validator createValidator() throws JAXBException {
+			return delegate.createValidator();
+		}
+	}
 }
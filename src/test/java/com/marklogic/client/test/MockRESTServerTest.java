@@ -0,0 +1,213 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.ResourceNotFoundException;
+import com.marklogic.client.Transaction;
+import com.marklogic.client.document.DocumentPage;
+import com.marklogic.client.document.DocumentWriteSet;
+import com.marklogic.client.document.XMLDocumentManager;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.SearchHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.query.QueryManager;
+import com.marklogic.client.query.StringQueryDefinition;
+import com.marklogic.client.semantics.GraphManager;
+import com.marklogic.client.semantics.RDFMimeTypes;
+import com.marklogic.client.test.util.MockRESTServer;
+
+public class MockRESTServerTest {
+	private static final Logger logger = LoggerFactory.getLogger(MockRESTServerTest.class);
+
+	private MockRESTServer server;
+	private DatabaseClient client;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new MockRESTServer();
+		client = server.newClient();
+	}
+	@After
+	public void tearDown() {
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void testDocuments() {
+		XMLDocumentManager docMgr = client.newXMLDocumentManager();
+		String docId = "/mock/doc1.xml";
+		String content = "<root><child>mock</child></root>";
+
+		docMgr.write(docId, new StringHandle(content).withFormat(Format.XML));
+		assertEquals("Failed to store document", content, new String(server.getDocument(docId)));
+		assertEquals("Failed to read document", content, docMgr.read(docId, new StringHandle()).get());
+		assertNotNull("Failed to check existing document", docMgr.exists(docId));
+
+		docMgr.delete(docId);
+		assertNull("Document exists after delete", docMgr.exists(docId));
+		boolean notFound = false;
+		try {
+			docMgr.read(docId, new StringHandle());
+		} catch (ResourceNotFoundException e) {
+			notFound = true;
+		}
+		assertTrue("Failed to report missing document", notFound);
+	}
+
+	@Test
+	public void testBulkAndSearch() {
+		XMLDocumentManager docMgr = client.newXMLDocumentManager();
+		DocumentWriteSet writeSet = docMgr.newWriteSet();
+		for (int i=1; i <= 25; i++) {
+			writeSet.add("/mock/bulk"+(100 + i)+".xml",
+					new StringHandle("<doc>"+i+"</doc>").withFormat(Format.XML));
+		}
+		docMgr.write(writeSet);
+		assertEquals("Failed to store bulk write", 25, server.getDocumentCount());
+
+		DocumentPage page = docMgr.read("/mock/bulk101.xml", "/mock/bulk102.xml", "/mock/missing.xml");
+		assertEquals("Wrong bulk read size", 2, page.size());
+		assertEquals("Wrong bulk read content", "<doc>1</doc>",
+				page.nextContent(new StringHandle()).get());
+		page.close();
+
+		QueryManager queryMgr = client.newQueryManager();
+		queryMgr.setPageLength(10);
+		StringQueryDefinition querydef = queryMgr.newStringDefinition();
+		querydef.setCriteria("anything");
+		SearchHandle results = queryMgr.search(querydef, new SearchHandle(), 21);
+		assertEquals("Wrong search total", 25, results.getTotalResults());
+		assertEquals("Wrong search page size", 5, results.getMatchResults().length);
+		assertEquals("Wrong search result", "/mock/bulk121.xml",
+				results.getMatchResults()[0].getUri());
+
+		docMgr.setPageLength(10);
+		page = docMgr.search(querydef, 1);
+		assertEquals("Wrong bulk search size", 10, page.size());
+		page.close();
+
+		results = new SearchHandle();
+		page = docMgr.search(querydef, 11, results);
+		assertEquals("Wrong bulk search total", 25, results.getTotalResults());
+		assertEquals("Wrong bulk search page", 10, page.size());
+		assertEquals("Wrong bulk search document", "<doc>11</doc>",
+				page.nextContent(new StringHandle()).get());
+		page.close();
+	}
+
+	@Test
+	public void testEvalGraphsTransactions() {
+		assertEquals("Wrong eval result", "mock",
+				client.newServerEval().xquery("'mock'").evalAs(String.class));
+
+		GraphManager graphMgr = client.newGraphManager();
+		String triples = "<http://example.org/s> <http://example.org/p> \"o\" .";
+		graphMgr.write("/mock/graph", new StringHandle(triples).withMimetype(RDFMimeTypes.NTRIPLES));
+		assertEquals("Wrong graph", triples,
+				graphMgr.read("/mock/graph", new StringHandle().withMimetype(RDFMimeTypes.NTRIPLES)).get());
+
+		Transaction transaction = client.openTransaction();
+		assertEquals("Failed to open transaction", 1, server.getOpenTransactionCount());
+		client.newTextDocumentManager().write("/mock/text.txt", new StringHandle("text"), transaction);
+		transaction.commit();
+		assertEquals("Failed to commit transaction", 0, server.getOpenTransactionCount());
+	}
+
+	@Test
+	public void testUnavailableRetry() {
+		XMLDocumentManager docMgr = client.newXMLDocumentManager();
+		server.putDocument("/mock/retry.xml", "application/xml", "<retry/>".getBytes());
+		server.resetCounts();
+
+		server.setUnavailableRequests(2);
+		assertEquals("Failed to retry unavailable server", "<retry/>",
+				docMgr.read("/mock/retry.xml", new StringHandle()).get());
+		assertEquals("Wrong number of attempts", 3, server.getRequestCount("documents"));
+	}
+
+	@Test
+	public void testLatencyAndConcurrency() throws InterruptedException {
+		final XMLDocumentManager docMgr = client.newXMLDocumentManager();
+		server.putDocument("/mock/load.xml", "application/xml", "<load/>".getBytes());
+		server.resetCounts();
+		server.setLatency(50);
+
+		final int threadCount = 8;
+		final int readsPerThread = 5;
+		final AtomicInteger failures = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(threadCount);
+		long startTime = System.currentTimeMillis();
+		for (int i=0; i < threadCount; i++) {
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int j=0; j < readsPerThread; j++) {
+							docMgr.read("/mock/load.xml", new StringHandle());
+						}
+					} catch (RuntimeException e) {
+						failures.incrementAndGet();
+					} finally {
+						done.countDown();
+					}
+				}
+			}.start();
+		}
+		done.await();
+		long elapsed = System.currentTimeMillis() - startTime;
+		logger.info("{} reads with 50 ms latency in {} ms with {} concurrent requests",
+				threadCount * readsPerThread, elapsed, server.getMaxConcurrentRequests());
+
+		assertEquals("Failed reads under load", 0, failures.get());
+		assertEquals("Wrong request count", threadCount * readsPerThread, server.getRequestCount());
+		assertTrue("Latency not applied", elapsed >= readsPerThread * 50);
+		assertTrue("Requests not concurrent", server.getMaxConcurrentRequests() > 1);
+	}
+
+	@Test
+	public void testBandwidth() {
+		XMLDocumentManager docMgr = client.newXMLDocumentManager();
+		StringBuilder buf = new StringBuilder("<root>");
+		for (int i=0; i < 2000; i++) {
+			buf.append("<item>").append(i).append("</item>");
+		}
+		buf.append("</root>");
+		server.putDocument("/mock/large.xml", "application/xml", buf.toString().getBytes());
+
+		server.setBandwidth(100000);
+		long startTime = System.currentTimeMillis();
+		docMgr.read("/mock/large.xml", new StringHandle());
+		long elapsed = System.currentTimeMillis() - startTime;
+		assertTrue("Bandwidth not limited: "+elapsed, elapsed >= 200);
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.FailedRequestException;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.SearchHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.query.QueryManager;
+import com.marklogic.client.query.RawCombinedQueryDefinition;
+import com.marklogic.client.test.util.MockRESTServer;
+
+public class OptionsPromotionTest {
+	static final private String XML_QUERY =
+		"<search xmlns=\"http://marklogic.com/appservices/search\">"+
+		"<qtext>promoted</qtext>"+
+		"<options><constraint name=\"kind\"><value><element ns=\"\" name=\"kind\"/></value></constraint>"+
+		"<transform-results apply=\"empty-snippet\"/></options>"+
+		"</search>";
+	static final private String JSON_QUERY =
+		"{\"search\":{\"qtext\":\"promoted\","+
+		"\"options\":{\"transform-results\":{\"apply\":\"empty-snippet\"}}}}";
+
+	private MockRESTServer server;
+	private DatabaseClient client;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new MockRESTServer();
+		client = server.newClient();
+		for (int i=0; i < 3; i++)
+			server.putDocument("/promote/doc"+i+".xml", "application/xml", ("<doc>"+i+"</doc>").getBytes());
+	}
+	@After
+	public void tearDown() {
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void testXMLPromotion() {
+		QueryManager queryMgr = client.newQueryManager();
+		queryMgr.setOptionsPromotion(true);
+		RawCombinedQueryDefinition querydef = queryMgr.newRawCombinedQueryDefinition(
+				new StringHandle(XML_QUERY).withFormat(Format.XML));
+
+		assertEquals("Wrong first total", 3, queryMgr.search(querydef, new SearchHandle()).getTotalResults());
+		assertEquals("Stored options after first use", 0, server.getQueryOptionsCount());
+		assertTrue("Options not inline on first use", lastSearchBody().contains("<options"));
+
+		assertEquals("Wrong promoted total", 3, queryMgr.search(querydef, new SearchHandle()).getTotalResults());
+		assertEquals("Options not stored on second use", 1, server.getQueryOptionsCount());
+		assertFalse("Options still inline", lastSearchBody().contains("options"));
+		assertTrue("Query criteria missing", lastSearchBody().contains("<qtext>promoted</qtext>"));
+		String stored = new String(server.getQueryOptions(server.getQueryOptionsNames().iterator().next()));
+		assertTrue("Wrong stored options: "+stored,
+				stored.startsWith("<options xmlns=\"http://marklogic.com/appservices/search\">"));
+
+		// another query manager for the same client reuses the stored options
+		QueryManager otherMgr = client.newQueryManager();
+		otherMgr.setOptionsPromotion(true);
+		otherMgr.search(querydef, new SearchHandle());
+		assertEquals("Options stored more than once", 1, server.getRequestCount("config"));
+		assertFalse("Options inline after install", lastSearchBody().contains("options"));
+		assertEquals("Query definition changed", XML_QUERY,
+				((StringHandle) querydef.getHandle()).get());
+	}
+
+	@Test
+	public void testRevalidation() {
+		QueryManager queryMgr = client.newQueryManager();
+		queryMgr.setOptionsPromotion(true);
+		RawCombinedQueryDefinition querydef = queryMgr.newRawCombinedQueryDefinition(
+				new StringHandle(JSON_QUERY).withFormat(Format.JSON));
+		queryMgr.search(querydef, new SearchHandle());
+		queryMgr.search(querydef, new SearchHandle());
+		assertEquals("JSON options not stored", 1, server.getQueryOptionsCount());
+		assertFalse("JSON options still inline", lastSearchBody().contains("options"));
+
+		String name = server.getQueryOptionsNames().iterator().next();
+		assertTrue("Wrong options name: "+name, name.matches("promoted-[0-9a-f]{32}"));
+		byte[] stored = server.getQueryOptions(name);
+		assertNotNull("Options not stored under hash name", stored);
+		assertTrue("Wrong stored options", new String(stored).startsWith("{\"options\":"));
+
+		// the search falls back to inline options and the next search reinstalls them
+		server.deleteQueryOptions(name);
+		assertEquals("Wrong fallback total", 3,
+				queryMgr.search(querydef, new SearchHandle()).getTotalResults());
+		assertTrue("Fallback did not send options inline", lastSearchBody().contains("options"));
+		queryMgr.search(querydef, new SearchHandle());
+		assertNotNull("Options not reinstalled", server.getQueryOptions(name));
+		assertFalse("Options inline after reinstall", lastSearchBody().contains("options"));
+	}
+
+	@Test
+	public void testOtherFailure() {
+		QueryManager queryMgr = client.newQueryManager();
+		queryMgr.setOptionsPromotion(true);
+		RawCombinedQueryDefinition querydef = queryMgr.newRawCombinedQueryDefinition(
+				new StringHandle(XML_QUERY).withFormat(Format.XML));
+		queryMgr.search(querydef, new SearchHandle());
+		queryMgr.search(querydef, new SearchHandle());
+		assertEquals("XML options not stored", 1, server.getQueryOptionsCount());
+
+		// a failure that has nothing to do with the options is not retried inline
+		server.resetCounts();
+		server.setFailedRequests(1);
+		boolean failed = false;
+		try {
+			queryMgr.search(querydef, new SearchHandle());
+		} catch (FailedRequestException e) {
+			failed = true;
+		}
+		assertTrue("Search did not fail", failed);
+		assertEquals("Failed search retried inline", 1, server.getRequestCount("search"));
+
+		server.resetCounts();
+		queryMgr.search(querydef, new SearchHandle());
+		assertEquals("Options installed again", 0, server.getRequestCount("config"));
+		assertFalse("Options inline after other failure", lastSearchBody().contains("<options"));
+	}
+
+	@Test
+	public void testDisabled() {
+		QueryManager queryMgr = client.newQueryManager();
+		RawCombinedQueryDefinition querydef = queryMgr.newRawCombinedQueryDefinition(
+				new StringHandle(XML_QUERY).withFormat(Format.XML));
+		for (int i=0; i < 3; i++)
+			queryMgr.search(querydef, new SearchHandle());
+		assertEquals("Stored options without promotion", 0, server.getQueryOptionsCount());
+		assertTrue("Options not inline", lastSearchBody().contains("<options"));
+	}
+
+	private String lastSearchBody() {
+		return new String(server.getLastSearchBody());
+	}
+}
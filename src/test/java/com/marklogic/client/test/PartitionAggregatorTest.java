@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.query.FacetResult;
+import com.marklogic.client.query.FacetValue;
+import com.marklogic.client.query.PartitionAggregator;
+import com.marklogic.client.query.PartitionAggregator.CombinedFrequency;
+import com.marklogic.client.query.PartitionAggregator.CombinedValues;
+import com.marklogic.client.query.QueryDefinition;
+import com.marklogic.client.query.QueryManager;
+import com.marklogic.client.query.StringQueryDefinition;
+import com.marklogic.client.query.ValuesDefinition;
+import com.marklogic.client.test.util.MockRESTServer;
+
+public class PartitionAggregatorTest {
+	final static private Charset UTF8      = Charset.forName("UTF-8");
+	final static private String  SEARCH_NS = "http://marklogic.com/appservices/search";
+
+	private MockRESTServer server;
+	private DatabaseClient client;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new MockRESTServer();
+		client = server.newClient();
+	}
+	@After
+	public void tearDown() {
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void testFacets() {
+		server.setResponse("search", "application/xml", (
+				"<search:response xmlns:search=\""+SEARCH_NS+"\" total=\"12\">"+
+				"<search:facet name=\"color\" type=\"xs:string\">"+
+				"<search:facet-value name=\"red\" count=\"2\">Red</search:facet-value>"+
+				"<search:facet-value name=\"blue\" count=\"5\">Blue</search:facet-value>"+
+				"</search:facet>"+
+				"<search:facet name=\"decade\" type=\"bucketed\">"+
+				"<search:facet-value name=\"1990s\" count=\"4\">1990s</search:facet-value>"+
+				"</search:facet>"+
+				"</search:response>").getBytes(UTF8));
+
+		QueryManager queryMgr = client.newQueryManager();
+		QueryDefinition[] partitions = new QueryDefinition[10];
+		for (int i=0; i < partitions.length; i++) {
+			StringQueryDefinition querydef = queryMgr.newStringDefinition("colors");
+			querydef.setCollections("partition"+i);
+			partitions[i] = querydef;
+		}
+
+		PartitionAggregator aggregator = queryMgr.newPartitionAggregator();
+		aggregator.setThreadCount(3);
+		server.setLatency(20);
+		FacetResult[] facets = aggregator.facets(partitions);
+
+		assertEquals("Wrong request count", partitions.length, server.getRequestCount("search"));
+		assertTrue("Wrong concurrency: "+server.getMaxConcurrentRequests(),
+				server.getMaxConcurrentRequests() > 1 && server.getMaxConcurrentRequests() <= 3);
+		assertEquals("Wrong facet count", 2, facets.length);
+		assertEquals("Wrong facet name", "color", facets[0].getName());
+		FacetValue[] values = facets[0].getFacetValues();
+		assertEquals("Wrong facet value count", 2, values.length);
+		assertEquals("Not ordered by count", "blue", values[0].getName());
+		assertEquals("Wrong combined count", 50, values[0].getCount());
+		assertEquals("Wrong label", "Blue", values[0].getLabel());
+		assertEquals("Wrong second count", 20, values[1].getCount());
+		assertEquals("Wrong bucket count", 40, facets[1].getFacetValues()[0].getCount());
+	}
+
+	@Test
+	public void testValuesAndTuples() {
+		server.setValueCount(5);
+
+		QueryManager queryMgr = client.newQueryManager();
+		ValuesDefinition[] partitions = new ValuesDefinition[4];
+		for (int i=0; i < partitions.length; i++) {
+			partitions[i] = queryMgr.newValuesDefinition("size", "sizes");
+		}
+
+		PartitionAggregator aggregator = queryMgr.newPartitionAggregator();
+		CombinedValues values = aggregator.values(partitions);
+		assertEquals("Wrong name", "size", values.getName());
+		assertEquals("Wrong partition count", 4, values.getPartitionCount());
+		CombinedFrequency[] frequencies = values.getFrequencies();
+		assertEquals("Wrong value count", 5, frequencies.length);
+		assertArrayEquals("Wrong first value", new String[]{"value1"}, frequencies[0].getValues());
+		assertEquals("Wrong first count", 4 * 5, frequencies[0].getCount());
+		assertEquals("Wrong last count", 4 * 1, frequencies[4].getCount());
+
+		server.setResponse("values/pairs", "application/xml", (
+				"<values-response xmlns=\""+SEARCH_NS+"\" name=\"pairs\""+
+				" xmlns:xs=\"http://www.w3.org/2001/XMLSchema\""+
+				" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"+
+				"<tuple frequency=\"3\">"+
+				"<distinct-value xsi:type=\"xs:string\">red</distinct-value>"+
+				"<distinct-value xsi:type=\"xs:int\">1</distinct-value></tuple>"+
+				"<tuple frequency=\"7\">"+
+				"<distinct-value xsi:type=\"xs:string\">blue</distinct-value>"+
+				"<distinct-value xsi:type=\"xs:int\">2</distinct-value></tuple>"+
+				"<aggregate-result name=\"count\">10</aggregate-result>"+
+				"<aggregate-result name=\"sum\">12.5</aggregate-result>"+
+				"<aggregate-result name=\"min\">1</aggregate-result>"+
+				"<aggregate-result name=\"max\">9</aggregate-result>"+
+				"<aggregate-result name=\"avg\">1.25</aggregate-result>"+
+				"</values-response>").getBytes(UTF8));
+		for (int i=0; i < partitions.length; i++) {
+			partitions[i] = queryMgr.newValuesDefinition("pairs", "sizes");
+			partitions[i].setAggregate("count", "sum", "min", "max", "avg");
+		}
+		CombinedValues tuples = aggregator.values(partitions);
+		frequencies = tuples.getFrequencies();
+		assertEquals("Wrong tuple count", 2, frequencies.length);
+		assertArrayEquals("Wrong co-occurrence", new String[]{"blue", "2"}, frequencies[0].getValues());
+		assertEquals("Wrong co-occurrence count", 28, frequencies[0].getCount());
+		assertEquals("Wrong combined count aggregate", "40", tuples.getAggregate("count"));
+		assertEquals("Wrong combined sum", "50.0", tuples.getAggregate("sum"));
+		assertEquals("Wrong combined min", "1", tuples.getAggregate("min"));
+		assertEquals("Wrong combined max", "9", tuples.getAggregate("max"));
+		assertNull("Combined an average", tuples.getAggregate("avg"));
+	}
+}
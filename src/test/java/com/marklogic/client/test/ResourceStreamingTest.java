@@ -0,0 +1,198 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.extensions.ResourceManager;
+import com.marklogic.client.extensions.ResourceServices;
+import com.marklogic.client.extensions.ResourceServices.ServiceResult;
+import com.marklogic.client.extensions.ResourceServices.ServiceResultIterator;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.InputStreamHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.test.util.MockRESTServer;
+import com.marklogic.client.util.RequestParameters;
+
+public class ResourceStreamingTest {
+	final static private Charset UTF8     = Charset.forName("UTF-8");
+	final static private String  BOUNDARY = "streaming-test-boundary";
+
+	static class StreamingResourceManager extends ResourceManager {
+		ResourceServices getResourceServices() {
+			return getServices();
+		}
+	}
+
+	private MockRESTServer server;
+	private DatabaseClient client;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new MockRESTServer();
+		client = server.newClient();
+	}
+	@After
+	public void tearDown() {
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void testStreamedParts() throws IOException {
+		StringBuilder large = new StringBuilder("<large>");
+		while (large.length() < 100000) {
+			// includes text that resembles the delimiter
+			large.append("<item>\r\n--").append(BOUNDARY.substring(0, 10)).append(" é中</item>");
+		}
+		large.append("</large>");
+
+		String[][] parts = {
+			{"application/xml",  "attachment; filename=\"/doc/1.xml\"; format=xml", "<doc>1</doc>"},
+			{"application/json", null,                                               "{\"doc\":2}"},
+			{"text/plain",       null,                                               "skipped"},
+			{"application/xml",  null,                                               large.toString()},
+			{"text/plain",       null,                                               ""}
+		};
+		server.setResponse("resources/streamer", "multipart/mixed; boundary="+BOUNDARY,
+				makeMultipart(parts));
+
+		StreamingResourceManager resourceMgr =
+			client.init("streamer", new StreamingResourceManager());
+		ResourceServices services = resourceMgr.getResourceServices();
+		assertFalse("Streaming on by default", services.isResultStreaming());
+		services.setResultStreaming(true);
+
+		ServiceResultIterator results = services.get(new RequestParameters(), "application/xml");
+		try {
+			assertTrue("No first result", results.hasNext());
+			ServiceResult result = results.next();
+			assertEquals("Wrong first format", Format.XML, result.getFormat());
+			assertEquals("Wrong first mimetype", "application/xml", result.getMimetype());
+			assertEquals("Wrong first content", "<doc>1</doc>", result.getContentAs(String.class));
+
+			result = results.next();
+			assertEquals("Wrong second format", Format.JSON, result.getFormat());
+			assertEquals("Wrong second content", "{\"doc\":2}",
+					result.getContent(new StringHandle()).get());
+
+			// the third result is skipped without reading its content
+			results.next();
+
+			result = results.next();
+			InputStream content = result.getContent(new InputStreamHandle()).get();
+			assertEquals("Wrong streamed content", large.toString(), readAll(content));
+
+			result = results.next();
+			assertEquals("Wrong empty content", "", result.getContentAs(String.class));
+
+			assertFalse("Extra result", results.hasNext());
+		} finally {
+			results.close();
+		}
+
+		// the default iterator buffers the same response
+		services.setResultStreaming(false);
+		results = services.get(new RequestParameters(), "application/xml");
+		int count = 0;
+		while (results.hasNext()) {
+			results.next();
+			count++;
+		}
+		results.close();
+		assertEquals("Wrong buffered result count", parts.length, count);
+	}
+
+	@Test
+	public void testFirstResultBeforeResponseEnds() throws IOException {
+		StringBuilder content = new StringBuilder("<part>");
+		while (content.length() < 50000) {
+			content.append("<item>streamed</item>");
+		}
+		content.append("</part>");
+		String[][] parts = new String[8][];
+		for (int i=0; i < parts.length; i++) {
+			parts[i] = new String[]{"application/xml", null, content.toString()};
+		}
+		byte[] body = makeMultipart(parts);
+		server.setResponse("resources/streamer", "multipart/mixed; boundary="+BOUNDARY, body);
+		// sends the response over about two seconds
+		server.setBandwidth(body.length / 2);
+
+		StreamingResourceManager resourceMgr =
+			client.init("streamer", new StreamingResourceManager());
+		ResourceServices services = resourceMgr.getResourceServices();
+		services.setResultStreaming(true);
+
+		long startTime = System.currentTimeMillis();
+		ServiceResultIterator results = services.post(new RequestParameters(),
+				new StringHandle("<input/>").withFormat(Format.XML), "application/xml");
+		String first = results.next().getContentAs(String.class);
+		long firstTime = System.currentTimeMillis() - startTime;
+
+		int count = 1;
+		while (results.hasNext()) {
+			assertEquals("Wrong content", content.toString(), results.next().getContentAs(String.class));
+			count++;
+		}
+		results.close();
+		long totalTime = System.currentTimeMillis() - startTime;
+
+		assertEquals("Wrong first content", content.toString(), first);
+		assertEquals("Wrong result count", parts.length, count);
+		assertTrue("First result waited for the response: "+firstTime+" of "+totalTime+" ms",
+				firstTime < totalTime / 2);
+	}
+
+	private byte[] makeMultipart(String[][] parts) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (String[] part: parts) {
+			StringBuilder head = new StringBuilder();
+			head.append("--").append(BOUNDARY).append("\r\n");
+			head.append("Content-Type: ").append(part[0]).append("\r\n");
+			if (part[1] != null)
+				head.append("Content-Disposition: ").append(part[1]).append("\r\n");
+			head.append("\r\n");
+			out.write(head.toString().getBytes(UTF8));
+			out.write(part[2].getBytes(UTF8));
+			out.write("\r\n".getBytes(UTF8));
+		}
+		out.write(("--"+BOUNDARY+"--\r\n").getBytes(UTF8));
+		return out.toByteArray();
+	}
+	private String readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[777];
+		int count;
+		while ((count = in.read(buffer)) != -1) {
+			out.write(buffer, 0, count);
+		}
+		in.close();
+		return new String(out.toByteArray(), UTF8);
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.Iterator;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.marklogic.client.DatabaseClientFactory;
+import com.marklogic.client.impl.HandleAccessor;
+import com.marklogic.client.io.SearchHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.query.ExtractedItem;
+import com.marklogic.client.query.ExtractedResult;
+import com.marklogic.client.query.MatchDocumentSummary;
+
+public class SearchSummaryTest {
+	static final private String RESPONSE =
+		"<search:response xmlns:search=\"http://marklogic.com/appservices/search\""+
+			" snippet-format=\"custom\" total=\"2\" start=\"1\" page-length=\"10\">"+
+		"<search:result index=\"1\" uri=\"/summary/doc.xml\" path=\"fn:doc('/summary/doc.xml')\""+
+			" score=\"10\" confidence=\"0.5\" fitness=\"0.5\" format=\"xml\" mimetype=\"application/xml\">"+
+		"<search:snippet><first>one</first></search:snippet>"+
+		"<search:snippet><second>two</second></search:snippet>"+
+		"<search:metadata><title>summary</title></search:metadata>"+
+		"<search:extracted kind=\"element\"><a>1</a><b>2</b></search:extracted>"+
+		"</search:result>"+
+		"<search:result index=\"2\" uri=\"/summary/doc.json\" path=\"fn:doc('/summary/doc.json')\""+
+			" score=\"5\" confidence=\"0.4\" fitness=\"0.4\" format=\"json\" mimetype=\"application/json\">"+
+		"{\"name\":\"widget\",\"price\":5}"+
+		"</search:result>"+
+		"</search:response>";
+
+	@Test
+	public void testLazySummaries() throws Exception {
+		SearchHandle results = new SearchHandle();
+		results.setHandleRegistry(DatabaseClientFactory.getHandleRegistry());
+		HandleAccessor.receiveContent(results, new ByteArrayInputStream(RESPONSE.getBytes("UTF-8")));
+
+		MatchDocumentSummary[] summaries = results.getMatchResults();
+		assertEquals("Wrong number of results", 2, summaries.length);
+
+		MatchDocumentSummary xmlSummary = summaries[0];
+		Document[] snippets = xmlSummary.getSnippets();
+		assertEquals("Wrong number of snippets", 2, snippets.length);
+		assertEquals("Wrong snippet", "second",
+				snippets[1].getDocumentElement().getFirstChild().getNodeName());
+		Document[] again = xmlSummary.getSnippets();
+		assertNotSame("Shared snippet array", snippets, again);
+		assertSame("Snippet not reused", snippets[0], again[0]);
+
+		Iterator<StringHandle> snippetItr = xmlSummary.getSnippetIterator(new StringHandle());
+		assertTrue("Wrong first snippet text", snippetItr.next().get().contains("<first>one</first>"));
+		assertTrue("Wrong second snippet text", snippetItr.next().get().contains("<second>two</second>"));
+		assertEquals("Too many snippets", false, snippetItr.hasNext());
+
+		Document metadata = xmlSummary.getMetadata();
+		assertSame("Metadata not reused", metadata, xmlSummary.getMetadata());
+		assertTrue("Wrong metadata", xmlSummary.getMetadataAs(String.class).contains("<title>summary</title>"));
+
+		for (int i=0; i < 2; i++) {
+			ExtractedResult extracted = xmlSummary.getExtracted();
+			assertEquals("Wrong extracted kind", "element", extracted.getKind());
+			assertEquals("Wrong extracted size", 2, extracted.size());
+			int count = 0;
+			while (extracted.hasNext()) {
+				ExtractedItem item = extracted.next();
+				assertTrue("Wrong extracted item", item.getAs(String.class).contains(count == 0 ? "<a>1</a>" : "<b>2</b>"));
+				count++;
+			}
+			assertEquals("Wrong extracted iteration", 2, count);
+		}
+
+		JsonNode json = summaries[1].getFirstSnippetAs(JsonNode.class);
+		assertEquals("Wrong JSON snippet", "widget", json.get("name").asText());
+		assertEquals("Wrong JSON snippet text", "{\"name\":\"widget\",\"price\":5}",
+				summaries[1].getFirstSnippetText());
+	}
+}
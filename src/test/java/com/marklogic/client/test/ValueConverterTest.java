@@ -21,6 +21,7 @@ import static org.junit.Assert.assertTrue;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Calendar;
+import java.util.TimeZone;
 
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
@@ -208,6 +209,45 @@ public class ValueConverterTest {
 		checkProcessor("string", "xs:string", s);
 	}
 
+	@Test
+	public void testPrimitiveFastPaths() {
+		assertEquals("long with plus", 42L, ValueConverter.parseLong("+42"));
+		assertEquals("minimum long", Long.MIN_VALUE, ValueConverter.parseLong(" -9223372036854775808\n"));
+		assertEquals("int", -17, ValueConverter.parseInt("-17"));
+		for (String invalid: new String[]{"9223372036854775808", "2147483648x", "", "+", "1.5"}) {
+			boolean isInvalid = false;
+			try {
+				ValueConverter.parseInt(invalid);
+			} catch (NumberFormatException e) {
+				isInvalid = true;
+			}
+			assertTrue("accepted invalid int: "+invalid, isInvalid);
+		}
+
+		assertEquals("infinite double", "-INF", ValueConverter.printDouble(Double.NEGATIVE_INFINITY));
+		assertEquals("double", "2.5", ValueConverter.printDouble(2.5d));
+		assertTrue("NaN double", Double.isNaN(ValueConverter.parseDouble(" NaN")));
+		assertEquals("parsed infinite double", Double.POSITIVE_INFINITY, ValueConverter.parseDouble("INF"), 0);
+		assertTrue("numeric boolean", ValueConverter.parseBoolean(" 1 "));
+		assertEquals("boolean", false, ValueConverter.parseBoolean("false"));
+
+		Calendar c = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+		c.clear();
+		c.set(2016, Calendar.MARCH, 5, 7, 8, 9);
+		c.set(Calendar.MILLISECOND, 10);
+		assertEquals("UTC datetime", "2016-03-05T07:08:09.010Z", ValueConverter.printDateTime(c));
+		c.setTimeZone(TimeZone.getTimeZone("GMT-03:30"));
+		assertEquals("offset datetime", "2016-03-05T03:38:09.010-03:30", ValueConverter.printDateTime(c));
+		assertEquals("offset date", "2016-03-05-03:30", ValueConverter.printDate(c));
+		assertEquals("offset time", "03:38:09.010-03:30", ValueConverter.printTime(c));
+
+		StringBuilder buf = new StringBuilder("at ");
+		ValueConverter.appendDateTime(buf, c);
+		assertEquals("appended datetime", "at 2016-03-05T03:38:09.010-03:30", buf.toString());
+		assertEquals("parsed datetime", c.getTimeInMillis(),
+				((Calendar) ValueConverter.convertToJava("xs:dateTime", buf.substring(3))).getTimeInMillis());
+	}
+
 	void checkProcessor(String type, String xsType, Object value) {
 		assertEquals(type+" type",  xsType, processor.type);
 		assertEquals(type+" value",
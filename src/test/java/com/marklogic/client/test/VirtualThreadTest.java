@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.DatabaseClientFactory;
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.document.BinaryDocumentManager;
+import com.marklogic.client.document.XMLDocumentManager;
+import com.marklogic.client.impl.ClientThreads;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.test.util.MockRESTServer;
+import com.marklogic.client.util.BufferPool;
+
+public class VirtualThreadTest {
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreadTest.class);
+
+	private MockRESTServer server;
+	private DatabaseClient client;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new MockRESTServer();
+		client = server.newClient();
+	}
+	@After
+	public void tearDown() {
+		DatabaseClientFactory.setVirtualThreads(false);
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void testConcurrentRequests() throws Exception {
+		final XMLDocumentManager docMgr = client.newXMLDocumentManager();
+		server.putDocument("/virtual/load.xml", "application/xml", "<load/>".getBytes());
+		server.resetCounts();
+		server.setLatency(20);
+
+		// virtual threads scale to tens of thousands of waiting callers
+		boolean isVirtual = ClientThreads.isVirtualThreadAvailable();
+		ThreadFactory factory = isVirtual ? newVirtualThreadFactory() : Executors.defaultThreadFactory();
+		final int requestCount = isVirtual ? 20000 : 500;
+
+		final AtomicInteger failures = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(requestCount);
+		long startTime = System.currentTimeMillis();
+		for (int i=0; i < requestCount; i++) {
+			factory.newThread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						docMgr.read("/virtual/load.xml", new StringHandle());
+					} catch (RuntimeException e) {
+						failures.incrementAndGet();
+					} finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+		done.await();
+		long elapsed = System.currentTimeMillis() - startTime;
+		logger.info("{} {} requests with 20 ms latency in {} ms with {} concurrent requests",
+				new Object[]{requestCount, isVirtual ? "virtual" : "platform", elapsed,
+				server.getMaxConcurrentRequests()});
+
+		assertEquals("Failed requests under load", 0, failures.get());
+		assertEquals("Wrong request count", requestCount, server.getRequestCount());
+		assertTrue("Requests not concurrent", server.getMaxConcurrentRequests() > 10);
+	}
+
+	@Test
+	public void testInterruptedRetry() {
+		XMLDocumentManager docMgr = client.newXMLDocumentManager();
+		server.putDocument("/virtual/retry.xml", "application/xml", "<retry/>".getBytes());
+		server.resetCounts();
+		server.setUnavailableRequests(100);
+
+		boolean interrupted = false;
+		Thread.currentThread().interrupt();
+		try {
+			docMgr.read("/virtual/retry.xml", new StringHandle());
+		} catch (MarkLogicIOException e) {
+			interrupted = true;
+		} finally {
+			assertTrue("Interrupt not restored", Thread.interrupted());
+		}
+		assertTrue("Retry ignored interrupt", interrupted);
+		assertEquals("Retried after interrupt", 1, server.getRequestCount("documents"));
+	}
+
+	@Test
+	public void testWorkerThreads() throws IOException {
+		DatabaseClientFactory.setVirtualThreads(true);
+		assertEquals("Wrong virtual thread mode", ClientThreads.isVirtualThreadAvailable(),
+				DatabaseClientFactory.isVirtualThreads());
+
+		byte[] content = new byte[1024 * 1024];
+		new Random(49).nextBytes(content);
+		server.putDocument("/virtual/large.bin", "application/octet-stream", content);
+
+		BinaryDocumentManager docMgr = client.newBinaryDocumentManager();
+		docMgr.setDownloadSegmentLength(64 * 1024);
+		docMgr.setDownloadThreadCount(8);
+		InputStream in = docMgr.download("/virtual/large.bin");
+		try {
+			assertArrayEquals("Wrong downloaded content", content, BufferPool.readBytes(in, -1));
+		} finally {
+			in.close();
+		}
+	}
+
+	private ThreadFactory newVirtualThreadFactory() throws Exception {
+		Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+		Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+		return (ThreadFactory) factory.invoke(builder);
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.After;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.marklogic.client.util.XMLFactories;
+
+public class XMLFactoriesTest {
+	static final private byte[] XML =
+		"<root xmlns='http://example.com/ns'><child>text</child></root>".getBytes(Charset.forName("UTF-8"));
+
+	@After
+	public void tearDown() {
+		XMLFactories.setDocumentBuilderFactoryClass(null);
+	}
+
+	@Test
+	public void testThreadFactories() throws Exception {
+		XMLInputFactory inputFactory = XMLFactories.getInputFactory();
+		assertSame("Input factory not reused in thread", inputFactory, XMLFactories.getInputFactory());
+		assertSame("Document builder not reused in thread",
+				XMLFactories.getDocumentBuilder(), XMLFactories.getDocumentBuilder());
+		assertTrue("Output factory not repairing", (Boolean)
+				XMLFactories.getOutputFactory().getProperty("javax.xml.stream.isRepairingNamespaces"));
+
+		final AtomicReference<XMLInputFactory> otherFactory = new AtomicReference<XMLInputFactory>();
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				otherFactory.set(XMLFactories.getInputFactory());
+			}
+		};
+		thread.start();
+		thread.join();
+		assertNotSame("Input factory shared between threads", inputFactory, otherFactory.get());
+
+		Document document = XMLFactories.getDocumentBuilder().parse(new ByteArrayInputStream(XML));
+		assertEquals("Document not namespace aware", "http://example.com/ns",
+				document.getDocumentElement().getNamespaceURI());
+
+		XMLStreamReader reader = inputFactory.createXMLStreamReader(new ByteArrayInputStream(XML));
+		reader.nextTag();
+		assertEquals("Reader not namespace aware", "http://example.com/ns", reader.getNamespaceURI());
+		reader.close();
+	}
+
+	@Test
+	public void testFactoryClass() {
+		DocumentBuilderFactory before = XMLFactories.getDocumentBuilderFactory();
+
+		String factoryClass = before.getClass().getName();
+		XMLFactories.setDocumentBuilderFactoryClass(factoryClass);
+		DocumentBuilderFactory after = XMLFactories.getDocumentBuilderFactory();
+		assertNotSame("Factory not replaced after configuration", before, after);
+		assertEquals("Factory has wrong class", factoryClass, after.getClass().getName());
+
+		try {
+			XMLFactories.setDocumentBuilderFactoryClass("java.lang.String");
+			fail("Accepted class that is not a document builder factory");
+		} catch (IllegalArgumentException e) {
+		}
+		assertSame("Factory replaced after failed configuration",
+				after, XMLFactories.getDocumentBuilderFactory());
+	}
+}
@@ -0,0 +1,1300 @@
+/*
+ * Copyright 2012-2016 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.DatabaseClientFactory;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * MockRESTServer is an in-process stand-in for a MarkLogic REST server
+ * so tests can measure client throughput and exercise retry, pooling,
+ * batching, and streaming without a database.
+ *
+ * The server keeps documents and graphs in memory and answers the
+ * documents, search, values, eval, graphs, and transactions endpoints
+ * with generated payloads in the format of the REST API. Searches
+ * match every document, or every document in the forests listed by the
+ * forest option of a combined query. Each document is in the forest
+ * picked by the hash of its uri. A canned response can replace the
+ * generated payload for any endpoint.
+ *
+ * Latency, 503 Service Unavailable responses, and a bandwidth limit
+ * can be injected to simulate a loaded or remote server.
+ */
+public class MockRESTServer {
+	final static private Charset UTF8     = Charset.forName("UTF-8");
+	final static private String  BOUNDARY = "mock-rest-boundary";
+
+	final static private String REST_NS = "http://marklogic.com/rest-api";
+	final static private String ERROR_NS = "http://marklogic.com/xdmp/error";
+	final static private String SEARCH_NS = "http://marklogic.com/appservices/search";
+
+	final static private Pattern BOUNDARY_PATTERN = Pattern.compile("boundary=\"?([^\";]+)\"?");
+	final static private Pattern FILENAME_PATTERN = Pattern.compile("filename=\"?([^\";]+)\"?");
+	final static private Pattern CATEGORY_PATTERN = Pattern.compile("category=([^;\\s]+)");
+	final static private Pattern XML_FOREST_PATTERN  = Pattern.compile("<(?:[\\w-]+:)?forest>\\s*(\\d+)\\s*</");
+	final static private Pattern JSON_FOREST_PATTERN = Pattern.compile("\"forest\"\\s*:\\s*\\[([^\\]]*)\\]");
+
+	final static private long FOREST_ID_BASE = 1000;
+
+	static class StoredDocument {
+		static final private AtomicLong versions = new AtomicLong();
+		String mimetype;
+		byte[] content;
+		byte[] metadata;
+		// each write stores a new version
+		long   version = versions.incrementAndGet();
+		StoredDocument(String mimetype, byte[] content, byte[] metadata) {
+			this.mimetype = mimetype;
+			this.content  = content;
+			this.metadata = metadata;
+		}
+	}
+
+	static class CannedResponse {
+		String mimetype;
+		byte[] body;
+		CannedResponse(String mimetype, byte[] body) {
+			this.mimetype = mimetype;
+			this.body     = body;
+		}
+	}
+
+	static class Part {
+		Map<String,String> headers = new HashMap<String,String>();
+		byte[]             body;
+		String getHeader(String name) {
+			return headers.get(name.toLowerCase());
+		}
+	}
+
+	private HttpServer      server;
+	private ExecutorService executor;
+
+	private ConcurrentMap<String,StoredDocument> documents =
+		new ConcurrentHashMap<String,StoredDocument>();
+	private ConcurrentMap<String,StoredDocument> graphs =
+		new ConcurrentHashMap<String,StoredDocument>();
+	private ConcurrentMap<String,CannedResponse> canned =
+		new ConcurrentHashMap<String,CannedResponse>();
+	private ConcurrentMap<String,StoredDocument> queryOptions =
+		new ConcurrentHashMap<String,StoredDocument>();
+	private volatile byte[] lastSearchBody;
+	private ConcurrentMap<String,StoredDocument> alertRules =
+		new ConcurrentHashMap<String,StoredDocument>();
+	private Set<String> undeletable =
+		Collections.newSetFromMap(new ConcurrentHashMap<String,Boolean>());
+	private Set<String> transactions =
+		Collections.newSetFromMap(new ConcurrentHashMap<String,Boolean>());
+
+	private AtomicLong    transactionIds = new AtomicLong(System.currentTimeMillis());
+	private AtomicLong    requestCount   = new AtomicLong();
+	private ConcurrentMap<String,AtomicLong> endpointCounts =
+		new ConcurrentHashMap<String,AtomicLong>();
+	private AtomicInteger activeRequests = new AtomicInteger();
+	private AtomicInteger maxActiveRequests = new AtomicInteger();
+	private AtomicInteger unavailableRequests = new AtomicInteger();
+	private AtomicInteger failedRequests = new AtomicInteger();
+
+	private volatile long   minLatency      = 0;
+	private volatile long   maxLatency      = 0;
+	private volatile double unavailableRate = 0;
+	private volatile long   bytesPerSecond  = 0;
+	private volatile int    valueCount      = 10;
+	private volatile int    forestCount     = 1;
+	private Random random = new Random();
+
+	/**
+	 * Starts a server on an ephemeral port on the loopback interface.
+	 * @throws IOException	if the server cannot listen on a port
+	 */
+	public MockRESTServer() throws IOException {
+		this(0);
+	}
+	/**
+	 * Starts a server on the specified port on the loopback interface.
+	 * @param port	the port or zero for an ephemeral port
+	 * @throws IOException	if the server cannot listen on the port
+	 */
+	public MockRESTServer(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				dispatch(exchange);
+			}
+		});
+		executor = Executors.newCachedThreadPool(new ThreadFactory() {
+			private AtomicInteger threadCount = new AtomicInteger();
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "mock-rest-"+threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+	/**
+	 * Creates a client for the server. The server accepts
+	 * any credentials, so the client does not authenticate.
+	 * @return	a new database client
+	 */
+	public DatabaseClient newClient() {
+		return DatabaseClientFactory.newClient("localhost", getPort());
+	}
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Delays every response by a fixed interval.
+	 * @param millis	the latency in milliseconds
+	 */
+	public void setLatency(long millis) {
+		setLatency(millis, millis);
+	}
+	/**
+	 * Delays every response by a random interval within a range.
+	 * @param minMillis	the minimum latency in milliseconds
+	 * @param maxMillis	the maximum latency in milliseconds
+	 */
+	public void setLatency(long minMillis, long maxMillis) {
+		if (minMillis < 0 || maxMillis < minMillis)
+			throw new IllegalArgumentException("invalid latency range: "+minMillis+" to "+maxMillis);
+		this.minLatency = minMillis;
+		this.maxLatency = maxMillis;
+	}
+	/**
+	 * Answers a fraction of the requests with 503 Service Unavailable.
+	 * @param rate	the fraction of requests between 0 and 1
+	 */
+	public void setUnavailableRate(double rate) {
+		if (rate < 0 || rate > 1)
+			throw new IllegalArgumentException("invalid unavailable rate: "+rate);
+		this.unavailableRate = rate;
+	}
+	/**
+	 * Answers the next requests with 503 Service Unavailable.
+	 * @param count	the number of requests
+	 */
+	public void setUnavailableRequests(int count) {
+		unavailableRequests.set(count);
+	}
+	/**
+	 * Answers the next requests with 500 Internal Server Error,
+	 * which the client doesn't retry.
+	 * @param count	the number of requests
+	 */
+	public void setFailedRequests(int count) {
+		failedRequests.set(count);
+	}
+	/**
+	 * Limits the rate at which the server writes response bodies.
+	 * @param bytesPerSecond	the rate or zero for no limit
+	 */
+	public void setBandwidth(long bytesPerSecond) {
+		if (bytesPerSecond < 0)
+			throw new IllegalArgumentException("invalid bandwidth: "+bytesPerSecond);
+		this.bytesPerSecond = bytesPerSecond;
+	}
+	/**
+	 * Specifies the number of distinct values in the generated
+	 * response for a values request.
+	 * @param count	the number of values
+	 */
+	public void setValueCount(int count) {
+		this.valueCount = count;
+	}
+	/**
+	 * Specifies documents that fail to delete.  A delete request for
+	 * any of the documents fails without deleting any documents.
+	 * @param uris	the document uris
+	 */
+	public void setUndeletable(String... uris) {
+		undeletable.clear();
+		undeletable.addAll(Arrays.asList(uris));
+	}
+	/**
+	 * Specifies the number of forests, which are listed by an eval
+	 * that calls xdmp:database-forests.  The ids of the forests count
+	 * up from 1000.
+	 * @param count	the number of forests
+	 */
+	public void setForestCount(int count) {
+		if (count < 1)
+			throw new IllegalArgumentException("forest count must be at least 1: "+count);
+		this.forestCount = count;
+	}
+	/**
+	 * Returns the id of the forest that holds a document.
+	 * @param uri	the document uri
+	 * @return	the forest id
+	 */
+	public String getForestId(String uri) {
+		return String.valueOf(FOREST_ID_BASE + (uri.hashCode() & Integer.MAX_VALUE) % forestCount);
+	}
+	/**
+	 * Replaces the generated response for an endpoint with a fixed payload.
+	 * @param endpoint	the path after /v1/ such as search or values/price
+	 * @param mimetype	the content type of the response
+	 * @param body	the response body or null to restore the generated response
+	 */
+	public void setResponse(String endpoint, String mimetype, byte[] body) {
+		if (body == null) {
+			canned.remove(endpoint);
+		} else {
+			canned.put(endpoint, new CannedResponse(mimetype, body));
+		}
+	}
+
+	public void putDocument(String uri, String mimetype, byte[] content) {
+		documents.put(uri, new StoredDocument(mimetype, content, null));
+	}
+	public byte[] getDocument(String uri) {
+		StoredDocument document = documents.get(uri);
+		return (document == null) ? null : document.content;
+	}
+	public String getDocumentMimetype(String uri) {
+		StoredDocument document = documents.get(uri);
+		return (document == null) ? null : document.mimetype;
+	}
+	public byte[] getDocumentMetadata(String uri) {
+		StoredDocument document = documents.get(uri);
+		return (document == null) ? null : document.metadata;
+	}
+	public byte[] getQueryOptions(String name) {
+		StoredDocument options = queryOptions.get(name);
+		return (options == null) ? null : options.content;
+	}
+	public Set<String> getQueryOptionsNames() {
+		return new TreeSet<String>(queryOptions.keySet());
+	}
+	public int getQueryOptionsCount() {
+		return queryOptions.size();
+	}
+	public void deleteQueryOptions(String name) {
+		queryOptions.remove(name);
+	}
+	public byte[] getAlertRule(String name) {
+		StoredDocument rule = alertRules.get(name);
+		return (rule == null) ? null : rule.content;
+	}
+	public int getAlertRuleCount() {
+		return alertRules.size();
+	}
+	/**
+	 * Returns the body of the most recent search request.
+	 * @return	the request body or an empty array for a search without a body
+	 */
+	public byte[] getLastSearchBody() {
+		return lastSearchBody;
+	}
+	public int getDocumentCount() {
+		return documents.size();
+	}
+	public void clearDocuments() {
+		documents.clear();
+	}
+	public int getOpenTransactionCount() {
+		return transactions.size();
+	}
+
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+	/**
+	 * Returns the number of requests for an endpoint
+	 * including requests answered with 503.
+	 * @param endpoint	the first step of the path after /v1/ such as documents
+	 * @return	the number of requests
+	 */
+	public long getRequestCount(String endpoint) {
+		AtomicLong count = endpointCounts.get(endpoint);
+		return (count == null) ? 0 : count.get();
+	}
+	/**
+	 * Returns the largest number of requests in progress at the same time,
+	 * which reflects the size of the client connection pool under load.
+	 * @return	the number of concurrent requests
+	 */
+	public int getMaxConcurrentRequests() {
+		return maxActiveRequests.get();
+	}
+	public void resetCounts() {
+		requestCount.set(0);
+		endpointCounts.clear();
+		maxActiveRequests.set(activeRequests.get());
+	}
+
+	private void dispatch(HttpExchange exchange) throws IOException {
+		int active = activeRequests.incrementAndGet();
+		int max = maxActiveRequests.get();
+		while (active > max && !maxActiveRequests.compareAndSet(max, active)) {
+			max = maxActiveRequests.get();
+		}
+		try {
+			String path = exchange.getRequestURI().getPath();
+			if (path.startsWith("/v1/")) {
+				path = path.substring("/v1/".length());
+			} else if (path.startsWith("/")) {
+				path = path.substring(1);
+			}
+			int slash = path.indexOf('/');
+			String endpoint = (slash == -1) ? path : path.substring(0, slash);
+
+			requestCount.incrementAndGet();
+			AtomicLong count = endpointCounts.get(endpoint);
+			if (count == null) {
+				AtomicLong newCount = new AtomicLong();
+				count = endpointCounts.putIfAbsent(endpoint, newCount);
+				if (count == null)
+					count = newCount;
+			}
+			count.incrementAndGet();
+
+			byte[] body = readBody(exchange.getRequestBody());
+
+			delay();
+
+			if (isUnavailable()) {
+				sendError(exchange, 503, "Service Unavailable", "XDMP-MOCKUNAVAILABLE",
+						"Injected service unavailable response");
+				return;
+			}
+			if (takeRequest(failedRequests)) {
+				sendError(exchange, 500, "Internal Server Error", "XDMP-MOCKFAILED",
+						"Injected failed response");
+				return;
+			}
+
+			Map<String,List<String>> params = parseParams(exchange.getRequestURI().getRawQuery());
+			String method = exchange.getRequestMethod();
+
+			CannedResponse response = canned.get(path);
+			if (response != null && !"PUT".equals(method) && !"DELETE".equals(method)) {
+				send(exchange, 200, response.mimetype, response.body);
+			} else if ("ping".equals(endpoint)) {
+				send(exchange, 204, null, null);
+			} else if ("documents".equals(endpoint)) {
+				handleDocuments(exchange, method, params, body);
+			} else if ("search".equals(endpoint)) {
+				lastSearchBody = body;
+				String optionsName = getParam(params, "options");
+				if (optionsName != null && !queryOptions.containsKey(optionsName)) {
+					sendError(exchange, 400, "Bad Request", "REST-INVALIDPARAM",
+							"REST-INVALIDPARAM: (err:FOER0000) Invalid parameter: No configured options: "+
+							optionsName);
+					return;
+				}
+				handleSearch(exchange, params, body);
+			} else if (path.startsWith("config/query/")) {
+				handleQueryOptions(exchange, method, path.substring("config/query/".length()), body);
+			} else if (path.startsWith("alert/rules/")) {
+				handleAlertRule(exchange, method, path.substring("alert/rules/".length()), body);
+			} else if ("alert/match".equals(path)) {
+				handleAlertMatch(exchange, method, params, body);
+			} else if ("values".equals(endpoint)) {
+				handleValues(exchange, params, (slash == -1) ? null : path.substring(slash + 1));
+			} else if ("eval".equals(endpoint) || "invoke".equals(endpoint)) {
+				handleEval(exchange, body);
+			} else if ("graphs".equals(endpoint)) {
+				handleGraphs(exchange, method, params, body);
+			} else if ("transactions".equals(endpoint)) {
+				handleTransactions(exchange, method, params,
+						(slash == -1) ? null : path.substring(slash + 1));
+			} else {
+				sendError(exchange, 404, "Not Found", "RESTAPI-NOSUCHENDPOINT",
+						"The mock server does not implement "+path);
+			}
+		} finally {
+			exchange.close();
+			activeRequests.decrementAndGet();
+		}
+	}
+
+	private void delay() {
+		long min = minLatency;
+		long max = maxLatency;
+		if (max <= 0)
+			return;
+		long latency = min;
+		if (max > min) {
+			synchronized(random) {
+				latency += (long) (random.nextDouble() * (max - min));
+			}
+		}
+		try {
+			Thread.sleep(latency);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	static private boolean takeRequest(AtomicInteger counter) {
+		int remaining = counter.get();
+		while (remaining > 0) {
+			if (counter.compareAndSet(remaining, remaining - 1))
+				return true;
+			remaining = counter.get();
+		}
+		return false;
+	}
+	private boolean isUnavailable() {
+		if (takeRequest(unavailableRequests))
+			return true;
+		double rate = unavailableRate;
+		if (rate <= 0)
+			return false;
+		synchronized(random) {
+			return random.nextDouble() < rate;
+		}
+	}
+
+	private void handleDocuments(HttpExchange exchange, String method,
+			Map<String,List<String>> params, byte[] body)
+	throws IOException {
+		List<String> uris = getParams(params, "uri");
+		if ("GET".equals(method)) {
+			boolean withContent  = isContentRequested(params);
+			boolean withMetadata = isMetadataRequested(params);
+			if (isMultipartAccepted(exchange)) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				int found = 0;
+				for (String uri: uris) {
+					StoredDocument document = documents.get(uri);
+					if (document == null)
+						continue;
+					found++;
+					if (withMetadata)
+						writeMetadataPart(out, uri, document, params);
+					if (withContent)
+						writeContentPart(out, uri, document);
+				}
+				if (uris.size() == 1 && found == 0) {
+					sendNotFound(exchange, uris.get(0));
+					return;
+				}
+				Headers headers = exchange.getResponseHeaders();
+				headers.add("vnd.marklogic.start",           "1");
+				headers.add("vnd.marklogic.pageLength",      String.valueOf(found));
+				headers.add("vnd.marklogic.result-estimate", String.valueOf(found));
+				sendMultipart(exchange, out);
+				return;
+			}
+
+			String uri = uris.isEmpty() ? null : uris.get(0);
+			StoredDocument document = (uri == null) ? null : documents.get(uri);
+			if (document == null) {
+				sendNotFound(exchange, uri);
+			} else if (withMetadata && !withContent) {
+				send(exchange, 200, getMetadataMimetype(params), getMetadata(document, params));
+			} else {
+				exchange.getResponseHeaders().add("vnd.marklogic.document-format",
+						getFormat(document.mimetype));
+				exchange.getResponseHeaders().add("ETag", "\""+document.version+"\"");
+				send(exchange, 200, document.mimetype, getRange(document.content, exchange.getRequestHeaders().getFirst("Range")));
+			}
+		} else if ("HEAD".equals(method)) {
+			StoredDocument document = uris.isEmpty() ? null : documents.get(uris.get(0));
+			if (document == null) {
+				exchange.sendResponseHeaders(404, -1);
+			} else {
+				Headers headers = exchange.getResponseHeaders();
+				headers.add("Content-Type", document.mimetype);
+				headers.add("vnd.marklogic.document-format", getFormat(document.mimetype));
+				headers.add("Content-Length", String.valueOf(document.content.length));
+				headers.add("ETag", "\""+document.version+"\"");
+				exchange.sendResponseHeaders(200, -1);
+			}
+		} else if ("PUT".equals(method)) {
+			if (uris.isEmpty()) {
+				sendError(exchange, 400, "Bad Request", "REST-REQUIREDPARAM", "missing uri parameter");
+				return;
+			}
+			String uri = uris.get(0);
+			String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+			boolean isCreate = false;
+			if (contentType != null && contentType.startsWith("multipart/")) {
+				List<Part> parts = parseMultipart(contentType, body);
+				byte[] metadata = (parts.size() > 1) ? parts.get(0).body : null;
+				Part content = parts.get(parts.size() - 1);
+				isCreate = documents.put(uri, new StoredDocument(
+						content.getHeader("Content-Type"), content.body, metadata)) == null;
+			} else if (isContentRequested(params)) {
+				isCreate = documents.put(uri, new StoredDocument(contentType, body, null)) == null;
+			} else {
+				StoredDocument document = documents.get(uri);
+				if (document == null) {
+					sendNotFound(exchange, uri);
+					return;
+				}
+				document.metadata = body;
+			}
+			send(exchange, isCreate ? 201 : 204, null, null);
+		} else if ("POST".equals(method)) {
+			String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+			if (contentType == null || !contentType.startsWith("multipart/")) {
+				sendError(exchange, 400, "Bad Request", "REST-UNSUPPORTEDMETHOD",
+						"The mock server only supports multipart document writes");
+				return;
+			}
+			byte[] defaultMetadata = null;
+			byte[] pendingMetadata = null;
+			StringBuilder written = new StringBuilder();
+			written.append("<rapi:documents xmlns:rapi=\"").append(REST_NS).append("\">");
+			for (Part part: parseMultipart(contentType, body)) {
+				String disposition = part.getHeader("Content-Disposition");
+				String uri = match(FILENAME_PATTERN, disposition);
+				boolean isMetadata = "metadata".equals(match(CATEGORY_PATTERN, disposition));
+				if (uri == null) {
+					// default metadata applies to the following documents
+					if (isMetadata)
+						defaultMetadata = part.body;
+					continue;
+				}
+				if (isMetadata) {
+					pendingMetadata = part.body;
+					continue;
+				}
+				documents.put(uri, new StoredDocument(part.getHeader("Content-Type"), part.body,
+						(pendingMetadata != null) ? pendingMetadata : defaultMetadata));
+				pendingMetadata = null;
+				written.append("<rapi:document><rapi:uri>").append(escape(uri))
+					.append("</rapi:uri><rapi:mime-type>").append(part.getHeader("Content-Type"))
+					.append("</rapi:mime-type></rapi:document>");
+			}
+			written.append("</rapi:documents>");
+			send(exchange, 200, "application/xml", written.toString().getBytes(UTF8));
+		} else if ("DELETE".equals(method)) {
+			for (String uri: uris) {
+				if (undeletable.contains(uri)) {
+					sendError(exchange, 500, "Internal Server Error", "XDMP-MOCKUNDELETABLE",
+							"cannot delete "+uri);
+					return;
+				}
+			}
+			for (String uri: uris) {
+				documents.remove(uri);
+			}
+			send(exchange, 204, null, null);
+		} else {
+			sendError(exchange, 405, "Method Not Allowed", "REST-UNSUPPORTEDMETHOD",
+					"unsupported method "+method);
+		}
+	}
+
+	private void handleQueryOptions(HttpExchange exchange, String method, String name, byte[] body)
+	throws IOException {
+		if ("PUT".equals(method)) {
+			String mimetype = exchange.getRequestHeaders().getFirst("Content-Type");
+			queryOptions.put(name, new StoredDocument(mimetype, body, null));
+			send(exchange, 204, null, null);
+		} else if ("DELETE".equals(method)) {
+			queryOptions.remove(name);
+			send(exchange, 204, null, null);
+		} else {
+			StoredDocument options = queryOptions.get(name);
+			if (options == null) {
+				sendError(exchange, 404, "Not Found", "RESTAPI-NODOCUMENT",
+						"No query options named "+name);
+				return;
+			}
+			send(exchange, 200, options.mimetype, options.content);
+		}
+	}
+
+	private void handleAlertRule(HttpExchange exchange, String method, String name, byte[] body)
+	throws IOException {
+		if ("PUT".equals(method)) {
+			String mimetype = exchange.getRequestHeaders().getFirst("Content-Type");
+			alertRules.put(name, new StoredDocument(mimetype, body, null));
+			send(exchange, 204, null, null);
+		} else if ("DELETE".equals(method)) {
+			alertRules.remove(name);
+			send(exchange, 204, null, null);
+		} else {
+			StoredDocument rule = alertRules.get(name);
+			if (rule == null) {
+				sendError(exchange, 404, "Not Found", "RESTAPI-NODOCUMENT",
+						"No rule named "+name);
+				return;
+			}
+			send(exchange, 200, rule.mimetype, rule.content);
+		}
+	}
+
+	// a rule matches a document whose content contains the name of the rule
+	private void handleAlertMatch(HttpExchange exchange, String method,
+			Map<String,List<String>> params, byte[] body)
+	throws IOException {
+		String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+		if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded")) {
+			// a form post sends the parameters in the body instead of the URL
+			params = new HashMap<String,List<String>>(params);
+			params.putAll(parseParams(new String(body, UTF8)));
+			method = "GET";
+		}
+
+		List<String> contents = new ArrayList<String>();
+		if ("POST".equals(method)) {
+			contents.add(new String(body, UTF8));
+		} else {
+			for (String uri: getParams(params, "uri")) {
+				StoredDocument document = documents.get(uri);
+				if (document != null)
+					contents.add(new String(document.content, UTF8));
+			}
+		}
+		List<String> candidates = getParams(params, "rule");
+
+		StringBuilder rules = new StringBuilder();
+		rules.append("<rapi:rules xmlns:rapi=\"").append(REST_NS).append("\">");
+		for (String name: new TreeSet<String>(alertRules.keySet())) {
+			if (!candidates.isEmpty() && !candidates.contains(name))
+				continue;
+			for (String content: contents) {
+				if (content.contains(name)) {
+					rules.append("<rapi:rule><rapi:name>").append(escape(name))
+						.append("</rapi:name><rapi:description/></rapi:rule>");
+					break;
+				}
+			}
+		}
+		rules.append("</rapi:rules>");
+		send(exchange, 200, "application/xml", rules.toString().getBytes(UTF8));
+	}
+
+	private void handleSearch(HttpExchange exchange, Map<String,List<String>> params, byte[] body)
+	throws IOException {
+		long start      = getLongParam(params, "start", 1);
+		long pageLength = getLongParam(params, "pageLength", 10);
+
+		List<String> uris  = new ArrayList<String>(new TreeMap<String,StoredDocument>(documents).keySet());
+		Set<String> forests = getSearchForests(body);
+		if (!forests.isEmpty()) {
+			List<String> forestUris = new ArrayList<String>();
+			for (String uri: uris) {
+				if (forests.contains(getForestId(uri)))
+					forestUris.add(uri);
+			}
+			uris = forestUris;
+		}
+		int total = uris.size();
+		int from  = (int) Math.min(Math.max(start - 1, 0), total);
+		int to    = (int) Math.min(from + pageLength, total);
+		List<String> page = uris.subList(from, to);
+
+		boolean isJSON = isJSONRequested(exchange, params);
+		StringBuilder buf = new StringBuilder();
+		if (isJSON) {
+			buf.append("{\"snippet-format\":\"snippet\",\"total\":").append(total)
+				.append(",\"start\":").append(start)
+				.append(",\"page-length\":").append(pageLength)
+				.append(",\"results\":[");
+			for (int i=0; i < page.size(); i++) {
+				String uri = page.get(i);
+				StoredDocument document = documents.get(uri);
+				if (i > 0) buf.append(',');
+				buf.append("{\"index\":").append(from + i + 1)
+					.append(",\"uri\":\"").append(uri)
+					.append("\",\"path\":\"fn:doc(\\\"").append(uri)
+					.append("\\\")\",\"score\":0,\"confidence\":0,\"fitness\":0")
+					.append(",\"href\":\"/v1/documents?uri=").append(uri)
+					.append("\",\"mimetype\":\"").append(getMimetype(document))
+					.append("\",\"format\":\"").append(getFormat(getMimetype(document)))
+					.append("\",\"matches\":[]}");
+			}
+			buf.append("],\"metrics\":{\"total-time\":\"PT0S\"}}");
+		} else {
+			buf.append("<search:response xmlns:search=\"").append(SEARCH_NS)
+				.append("\" snippet-format=\"snippet\" total=\"").append(total)
+				.append("\" start=\"").append(start)
+				.append("\" page-length=\"").append(pageLength).append("\">");
+			for (int i=0; i < page.size(); i++) {
+				String uri = escape(page.get(i));
+				StoredDocument document = documents.get(page.get(i));
+				buf.append("<search:result index=\"").append(from + i + 1)
+					.append("\" uri=\"").append(uri)
+					.append("\" path=\"fn:doc(&quot;").append(uri)
+					.append("&quot;)\" score=\"0\" confidence=\"0\" fitness=\"0\" href=\"/v1/documents?uri=")
+					.append(uri).append("\" mimetype=\"").append(getMimetype(document))
+					.append("\" format=\"").append(getFormat(getMimetype(document)))
+					.append("\"/>");
+			}
+			buf.append("<search:metrics><search:total-time>PT0S</search:total-time></search:metrics>");
+			buf.append("</search:response>");
+		}
+		byte[] response = buf.toString().getBytes(UTF8);
+		String mimetype = isJSON ? "application/json" : "application/xml";
+
+		if (!isMultipartAccepted(exchange)) {
+			send(exchange, 200, mimetype, response);
+			return;
+		}
+
+		// the search response precedes the documents only when the request has a view
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		List<String> views = getParams(params, "view");
+		if (!views.isEmpty() && !views.contains("none"))
+			writePart(out, mimetype, "inline; category=content", null, response);
+		for (String uri: page) {
+			StoredDocument document = documents.get(uri);
+			if (document == null)
+				continue;
+			if (isMetadataRequested(params))
+				writeMetadataPart(out, uri, document, params);
+			if (isContentRequested(params))
+				writeContentPart(out, uri, document);
+		}
+		Headers headers = exchange.getResponseHeaders();
+		headers.add("vnd.marklogic.start",           String.valueOf(start));
+		headers.add("vnd.marklogic.pageLength",      String.valueOf(pageLength));
+		headers.add("vnd.marklogic.result-estimate", String.valueOf(total));
+		sendMultipart(exchange, out);
+	}
+
+	// the forest ids in the options of a combined query
+	static private Set<String> getSearchForests(byte[] body) {
+		Set<String> forests = new TreeSet<String>();
+		if (body == null || body.length == 0)
+			return forests;
+		String query = new String(body, UTF8);
+		Matcher matcher = XML_FOREST_PATTERN.matcher(query);
+		while (matcher.find()) {
+			forests.add(matcher.group(1));
+		}
+		matcher = JSON_FOREST_PATTERN.matcher(query);
+		while (matcher.find()) {
+			Matcher ids = Pattern.compile("\\d+").matcher(matcher.group(1));
+			while (ids.find()) {
+				forests.add(ids.group());
+			}
+		}
+		return forests;
+	}
+
+	private void handleValues(HttpExchange exchange, Map<String,List<String>> params, String name)
+	throws IOException {
+		long start      = getLongParam(params, "start", 1);
+		long pageLength = getLongParam(params, "pageLength", -1);
+
+		int total = valueCount;
+		int from  = (int) Math.min(Math.max(start - 1, 0), total);
+		int to    = (pageLength < 0) ? total : (int) Math.min(from + pageLength, total);
+
+		boolean isJSON = isJSONRequested(exchange, params);
+		StringBuilder buf = new StringBuilder();
+		if (isJSON) {
+			buf.append("{\"values-response\":{\"name\":\"").append(name)
+				.append("\",\"type\":\"xs:string\",\"distinct-value\":[");
+			for (int i=from; i < to; i++) {
+				if (i > from) buf.append(',');
+				buf.append("{\"frequency\":").append(total - i)
+					.append(",\"_value\":\"value").append(i + 1).append("\"}");
+			}
+			buf.append("],\"metrics\":{\"total-time\":\"PT0S\"}}}");
+		} else {
+			buf.append("<values-response xmlns=\"").append(SEARCH_NS)
+				.append("\" xmlns:xs=\"http://www.w3.org/2001/XMLSchema\"")
+				.append(" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" name=\"")
+				.append(escape(String.valueOf(name))).append("\" type=\"xs:string\">");
+			for (int i=from; i < to; i++) {
+				buf.append("<distinct-value frequency=\"").append(total - i)
+					.append("\">value").append(i + 1).append("</distinct-value>");
+			}
+			buf.append("<metrics><values-resolution-time>PT0S</values-resolution-time>")
+				.append("<total-time>PT0S</total-time></metrics>");
+			buf.append("</values-response>");
+		}
+		send(exchange, 200, isJSON ? "application/json" : "application/xml",
+				buf.toString().getBytes(UTF8));
+	}
+
+	// lists the forests for xdmp:database-forests and assembles uploaded chunks
+	// for an eval with the uri, chunkPrefix, and chunkNames variables
+	private void handleEval(HttpExchange exchange, byte[] body) throws IOException {
+		Map<String,List<String>> form = parseParams(
+				(body == null) ? null : new String(body, UTF8));
+		String xquery = getParam(form, "xquery");
+		if (xquery != null && xquery.contains("xdmp:database-forests")) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			Map<String,String> headers = new HashMap<String,String>();
+			headers.put("X-Primitive", "string");
+			for (int i=0; i < forestCount; i++) {
+				writePart(out, "text/plain", "inline", headers,
+						String.valueOf(FOREST_ID_BASE + i).getBytes(UTF8));
+			}
+			sendMultipart(exchange, out);
+			return;
+		}
+		Map<String,String> variables = new HashMap<String,String>();
+		for (int i=0; form.containsKey("evl"+i); i++) {
+			variables.put(getParam(form, "evl"+i), getParam(form, "evv"+i));
+		}
+		if (variables.containsKey("chunkPrefix")) {
+			String   prefix = variables.get("chunkPrefix");
+			String   names  = variables.get("chunkNames");
+			String[] chunks = (names == null || names.length() == 0) ? new String[0] : names.split(" ");
+			// sizes the content first like the assembly script so large uploads are copied once
+			long length = 0;
+			for (String name: chunks) {
+				StoredDocument chunk = documents.get(prefix+name);
+				if (chunk == null) {
+					sendError(exchange, 500, "Internal Server Error", "XDMP-MOCKCHUNK",
+							"missing chunk "+prefix+name);
+					return;
+				}
+				length += chunk.content.length;
+			}
+			byte[] content = new byte[(int) length];
+			int    offset  = 0;
+			for (String name: chunks) {
+				byte[] chunk = documents.get(prefix+name).content;
+				System.arraycopy(chunk, 0, content, offset, chunk.length);
+				offset += chunk.length;
+			}
+			// deletes every chunk in the directory like the assembly query
+			for (String uri: new ArrayList<String>(documents.keySet())) {
+				if (uri.startsWith(prefix))
+					documents.remove(uri);
+			}
+			documents.put(variables.get("uri"),
+					new StoredDocument("application/octet-stream", content, null));
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Map<String,String> headers = new HashMap<String,String>();
+		headers.put("X-Primitive", "string");
+		writePart(out, "text/plain", "inline", headers, "mock".getBytes(UTF8));
+		sendMultipart(exchange, out);
+	}
+
+	private void handleGraphs(HttpExchange exchange, String method,
+			Map<String,List<String>> params, byte[] body)
+	throws IOException {
+		List<String> graphParams = getParams(params, "graph");
+		String graph = graphParams.isEmpty() ? "default" : graphParams.get(0);
+		boolean isPermissions = getParams(params, "category").contains("permissions");
+		if ("GET".equals(method)) {
+			StoredDocument stored = graphs.get(graph);
+			if (stored == null) {
+				sendNotFound(exchange, graph);
+			} else {
+				send(exchange, 200, stored.mimetype, stored.content);
+			}
+		} else if ("HEAD".equals(method)) {
+			exchange.sendResponseHeaders(graphs.containsKey(graph) ? 200 : 404, -1);
+		} else if ("PUT".equals(method) || "POST".equals(method)) {
+			if (!isPermissions) {
+				String mimetype = exchange.getRequestHeaders().getFirst("Content-Type");
+				StoredDocument stored = graphs.get(graph);
+				if ("POST".equals(method) && stored != null) {
+					byte[] merged = new byte[stored.content.length + body.length + 1];
+					System.arraycopy(stored.content, 0, merged, 0, stored.content.length);
+					merged[stored.content.length] = '\n';
+					System.arraycopy(body, 0, merged, stored.content.length + 1, body.length);
+					body = merged;
+				}
+				graphs.put(graph, new StoredDocument(mimetype, body, null));
+			}
+			send(exchange, 204, null, null);
+		} else if ("DELETE".equals(method)) {
+			if (!isPermissions)
+				graphs.remove(graph);
+			send(exchange, 204, null, null);
+		} else {
+			sendError(exchange, 405, "Method Not Allowed", "REST-UNSUPPORTEDMETHOD",
+					"unsupported method "+method);
+		}
+	}
+
+	private void handleTransactions(HttpExchange exchange, String method,
+			Map<String,List<String>> params, String transactionId)
+	throws IOException {
+		if (transactionId == null || transactionId.length() == 0) {
+			if (!"POST".equals(method)) {
+				sendError(exchange, 405, "Method Not Allowed", "REST-UNSUPPORTEDMETHOD",
+						"unsupported method "+method);
+				return;
+			}
+			String id = String.valueOf(transactionIds.incrementAndGet());
+			transactions.add(id);
+			Headers headers = exchange.getResponseHeaders();
+			headers.add("Location", "/v1/transactions/"+id);
+			headers.add("Set-Cookie", "HostId=1; Path=/");
+			send(exchange, 303, null, null);
+			return;
+		}
+
+		if (!transactions.contains(transactionId)) {
+			sendError(exchange, 404, "Not Found", "XDMP-NOTXN",
+					"No transaction with identifier "+transactionId);
+			return;
+		}
+		if ("GET".equals(method)) {
+			String status =
+				"<rapi:transaction-status xmlns:rapi=\""+REST_NS+"\">"+
+				"<rapi:transaction-id>"+transactionId+"</rapi:transaction-id>"+
+				"<rapi:host-id>1</rapi:host-id><rapi:host-name>localhost</rapi:host-name>"+
+				"<rapi:transaction-name/>"+
+				"</rapi:transaction-status>";
+			send(exchange, 200, "application/xml", status.getBytes(UTF8));
+		} else if ("POST".equals(method)) {
+			transactions.remove(transactionId);
+			send(exchange, 204, null, null);
+		} else {
+			sendError(exchange, 405, "Method Not Allowed", "REST-UNSUPPORTEDMETHOD",
+					"unsupported method "+method);
+		}
+	}
+
+	private void writeContentPart(ByteArrayOutputStream out, String uri, StoredDocument document)
+	throws IOException {
+		String format = getFormat(document.mimetype);
+		Map<String,String> headers = new HashMap<String,String>();
+		headers.put("vnd.marklogic.document-format", format);
+		writePart(out, document.mimetype,
+				"attachment; filename=\""+uri+"\"; category=content; format="+format,
+				headers, document.content);
+	}
+	private void writeMetadataPart(ByteArrayOutputStream out, String uri, StoredDocument document,
+			Map<String,List<String>> params)
+	throws IOException {
+		String mimetype = getMetadataMimetype(params);
+		writePart(out, mimetype,
+				"attachment; filename=\""+uri+"\"; category=metadata; format="+getFormat(mimetype),
+				null, getMetadata(document, params));
+	}
+	private void writePart(ByteArrayOutputStream out, String mimetype, String disposition,
+			Map<String,String> extraHeaders, byte[] body)
+	throws IOException {
+		StringBuilder headers = new StringBuilder();
+		headers.append("--").append(BOUNDARY).append("\r\n");
+		headers.append("Content-Type: ").append(mimetype).append("\r\n");
+		headers.append("Content-Disposition: ").append(disposition).append("\r\n");
+		if (extraHeaders != null) {
+			for (Map.Entry<String,String> header: extraHeaders.entrySet()) {
+				headers.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+			}
+		}
+		headers.append("Content-Length: ").append(body.length).append("\r\n");
+		headers.append("\r\n");
+		out.write(headers.toString().getBytes(UTF8));
+		out.write(body);
+		out.write("\r\n".getBytes(UTF8));
+	}
+	private void sendMultipart(HttpExchange exchange, ByteArrayOutputStream out)
+	throws IOException {
+		// like the server, answers without a body when there are no parts
+		if (out.size() == 0) {
+			send(exchange, 200, null, null);
+			return;
+		}
+		out.write(("--"+BOUNDARY+"--\r\n").getBytes(UTF8));
+		send(exchange, 200, "multipart/mixed; boundary="+BOUNDARY, out.toByteArray());
+	}
+
+	private byte[] getMetadata(StoredDocument document, Map<String,List<String>> params) {
+		if (document.metadata != null)
+			return document.metadata;
+		if ("application/json".equals(getMetadataMimetype(params))) {
+			return ("{\"collections\":[],\"permissions\":[],\"properties\":{},\"quality\":0}")
+				.getBytes(UTF8);
+		}
+		return ("<rapi:metadata xmlns:rapi=\""+REST_NS+"\">"+
+				"<rapi:collections/><rapi:permissions/>"+
+				"<prop:properties xmlns:prop=\"http://marklogic.com/xdmp/property\"/>"+
+				"<rapi:quality>0</rapi:quality>"+
+				"</rapi:metadata>").getBytes(UTF8);
+	}
+	private String getMetadataMimetype(Map<String,List<String>> params) {
+		return getParams(params, "format").contains("json") ? "application/json" : "application/xml";
+	}
+
+	private void sendNotFound(HttpExchange exchange, String uri) throws IOException {
+		sendError(exchange, 404, "Not Found", "RESTAPI-NODOCUMENT",
+				"Resource or document does not exist: "+uri);
+	}
+	private void sendError(HttpExchange exchange, int statusCode, String status,
+			String messageCode, String message)
+	throws IOException {
+		String error =
+			"<error-response xmlns=\""+ERROR_NS+"\">"+
+			"<status-code>"+statusCode+"</status-code>"+
+			"<status>"+status+"</status>"+
+			"<message-code>"+messageCode+"</message-code>"+
+			"<message>"+escape(message)+"</message>"+
+			"</error-response>";
+		send(exchange, statusCode, "application/xml", error.getBytes(UTF8));
+	}
+	private void send(HttpExchange exchange, int statusCode, String mimetype, byte[] body)
+	throws IOException {
+		if (mimetype != null)
+			exchange.getResponseHeaders().add("Content-Type", mimetype);
+		if (body == null || "HEAD".equals(exchange.getRequestMethod())) {
+			exchange.sendResponseHeaders(statusCode, -1);
+			return;
+		}
+		exchange.sendResponseHeaders(statusCode, body.length);
+		OutputStream out = exchange.getResponseBody();
+		long limit = bytesPerSecond;
+		if (limit > 0)
+			out = new ThrottledOutputStream(out, limit);
+		out.write(body);
+		out.close();
+	}
+
+	/**
+	 * ThrottledOutputStream writes in slices of a twentieth of a second
+	 * to hold the write rate to the bandwidth limit.
+	 */
+	static class ThrottledOutputStream extends FilterOutputStream {
+		private long bytesPerSecond;
+		private int  sliceSize;
+		ThrottledOutputStream(OutputStream out, long bytesPerSecond) {
+			super(out);
+			this.bytesPerSecond = bytesPerSecond;
+			this.sliceSize      = (int) Math.max(1, Math.min(bytesPerSecond / 20, Integer.MAX_VALUE));
+		}
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				int slice = Math.min(len, sliceSize);
+				long started = System.nanoTime();
+				out.write(b, off, slice);
+				out.flush();
+				off += slice;
+				len -= slice;
+				long wait = (slice * 1000000000L / bytesPerSecond) - (System.nanoTime() - started);
+				if (wait > 0) {
+					try {
+						Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new IOException("interrupted while throttling response");
+					}
+				}
+			}
+		}
+	}
+
+	static byte[] readBody(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buf = new byte[8192];
+		int len = 0;
+		while ((len = in.read(buf)) != -1) {
+			out.write(buf, 0, len);
+		}
+		in.close();
+		return out.toByteArray();
+	}
+
+	static List<Part> parseMultipart(String contentType, byte[] body) {
+		List<Part> parts = new ArrayList<Part>();
+		String boundary = match(BOUNDARY_PATTERN, contentType);
+		if (boundary == null)
+			return parts;
+
+		byte[] delimiter = ("--"+boundary).getBytes(UTF8);
+		int pos = indexOf(body, delimiter, 0);
+		while (pos != -1) {
+			int partStart = pos + delimiter.length;
+			if (partStart + 1 < body.length && body[partStart] == '-' && body[partStart + 1] == '-')
+				break;
+			partStart = skipLineEnd(body, partStart);
+
+			int next = indexOf(body, delimiter, partStart);
+			if (next == -1)
+				break;
+			int partEnd = next;
+			if (partEnd > partStart && body[partEnd - 1] == '\n') partEnd--;
+			if (partEnd > partStart && body[partEnd - 1] == '\r') partEnd--;
+
+			Part part = new Part();
+			int headerEnd = indexOf(body, "\r\n\r\n".getBytes(UTF8), partStart);
+			int bodyStart = 0;
+			if (headerEnd == -1 || headerEnd > partEnd) {
+				bodyStart = partStart;
+			} else {
+				String headers = new String(body, partStart, headerEnd - partStart, UTF8);
+				for (String header: headers.split("\r\n")) {
+					int colon = header.indexOf(':');
+					if (colon > 0) {
+						part.headers.put(header.substring(0, colon).trim().toLowerCase(),
+								header.substring(colon + 1).trim());
+					}
+				}
+				bodyStart = headerEnd + 4;
+			}
+			part.body = new byte[Math.max(partEnd - bodyStart, 0)];
+			System.arraycopy(body, bodyStart, part.body, 0, part.body.length);
+			parts.add(part);
+
+			pos = next;
+		}
+		return parts;
+	}
+	static private int skipLineEnd(byte[] body, int pos) {
+		if (pos < body.length && body[pos] == '\r') pos++;
+		if (pos < body.length && body[pos] == '\n') pos++;
+		return pos;
+	}
+	static private int indexOf(byte[] data, byte[] target, int from) {
+		outer:
+		for (int i=from; i <= data.length - target.length; i++) {
+			for (int j=0; j < target.length; j++) {
+				if (data[i + j] != target[j])
+					continue outer;
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	static Map<String,List<String>> parseParams(String query) throws UnsupportedEncodingException {
+		Map<String,List<String>> params = new HashMap<String,List<String>>();
+		if (query == null || query.length() == 0)
+			return params;
+		for (String pair: query.split("&")) {
+			int equals = pair.indexOf('=');
+			String name  = URLDecoder.decode((equals == -1) ? pair : pair.substring(0, equals), "UTF-8");
+			String value = (equals == -1) ? "" : URLDecoder.decode(pair.substring(equals + 1), "UTF-8");
+			List<String> values = params.get(name);
+			if (values == null) {
+				values = new ArrayList<String>();
+				params.put(name, values);
+			}
+			values.add(value);
+		}
+		return params;
+	}
+	static private List<String> getParams(Map<String,List<String>> params, String name) {
+		List<String> values = params.get(name);
+		return (values == null) ? new ArrayList<String>() : values;
+	}
+	static private String getParam(Map<String,List<String>> params, String name) {
+		List<String> values = params.get(name);
+		return (values == null || values.isEmpty()) ? null : values.get(0);
+	}
+	static private long getLongParam(Map<String,List<String>> params, String name, long defaultValue) {
+		List<String> values = params.get(name);
+		if (values == null || values.isEmpty())
+			return defaultValue;
+		try {
+			return Long.parseLong(values.get(0));
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	static private boolean isContentRequested(Map<String,List<String>> params) {
+		List<String> categories = getParams(params, "category");
+		return categories.isEmpty() || categories.contains("content");
+	}
+	static private boolean isMetadataRequested(Map<String,List<String>> params) {
+		for (String category: getParams(params, "category")) {
+			if (!"content".equals(category))
+				return true;
+		}
+		return false;
+	}
+	static private boolean isMultipartAccepted(HttpExchange exchange) {
+		String accept = exchange.getRequestHeaders().getFirst("Accept");
+		return accept != null && accept.contains("multipart/mixed");
+	}
+	static private boolean isJSONRequested(HttpExchange exchange, Map<String,List<String>> params) {
+		if (getParams(params, "format").contains("json"))
+			return true;
+		String accept = exchange.getRequestHeaders().getFirst("Accept");
+		return accept != null && accept.startsWith("application/json");
+	}
+
+	static private String getMimetype(StoredDocument document) {
+		return (document == null || document.mimetype == null) ?
+				"application/octet-stream" : document.mimetype;
+	}
+	// supports the bytes=start-end and bytes=start forms of the range header
+	static private byte[] getRange(byte[] content, String range) {
+		if (range == null || !range.startsWith("bytes="))
+			return content;
+		String[] bounds = range.substring("bytes=".length()).split("-");
+		int start = (int) Math.min(Long.parseLong(bounds[0]), content.length);
+		int end   = (bounds.length > 1) ?
+				(int) Math.min(Long.parseLong(bounds[1]) + 1, content.length) : content.length;
+		return Arrays.copyOfRange(content, start, Math.max(start, end));
+	}
+
+	static String getFormat(String mimetype) {
+		if (mimetype == null)
+			return "binary";
+		if (mimetype.contains("json"))
+			return "json";
+		if (mimetype.contains("xml"))
+			return "xml";
+		if (mimetype.startsWith("text/"))
+			return "text";
+		return "binary";
+	}
+	static private String match(Pattern pattern, String value) {
+		if (value == null)
+			return null;
+		Matcher matcher = pattern.matcher(value);
+		return matcher.find() ? matcher.group(1) : null;
+	}
+	static private String escape(String value) {
+		return value.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+	}
+}